@@ -0,0 +1,145 @@
+package com.printezisn.moviestore.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import lombok.Builder;
+
+/**
+ * Retry handler for asynchronous operations. Retries are scheduled on a shared
+ * timer instead of blocking a thread while waiting. They stop when the
+ * operation succeeds, when the retry budget of the handler is exhausted or when
+ * another attempt wouldn't start before the deadline, which also bounds the
+ * total time of the operation.
+ */
+@Builder
+public class AsyncRetryHandler {
+
+    private static final ScheduledExecutorService SHARED_TIMER = Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+            final Thread thread = new Thread(runnable, "retry-timer");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+    @Builder.Default
+    private int maxRetries = 5;
+
+    @Builder.Default
+    private int delay = 1000;
+
+    @Builder.Default
+    private boolean useExponentialBackOff = false;
+
+    @Builder.Default
+    private int jitter = 0;
+
+    @Builder.Default
+    private long deadline = 10000;
+
+    @Builder.Default
+    private RetryBudget retryBudget = new RetryBudget(20, 10, 10000);
+
+    @Builder.Default
+    private ScheduledExecutorService timer = SHARED_TIMER;
+
+    /**
+     * Runs an operation and retries if it fails
+     * 
+     * @param operation
+     *            The operation to run, which starts an attempt without blocking
+     *            and returns its future
+     * @param condition
+     *            The condition that indicates whether an exception is retriable or
+     *            not
+     * @return A future that completes with the result of the operation, or
+     *         exceptionally with the exception of the last attempt or a
+     *         TimeoutException if the deadline passes
+     */
+    public <T> CompletableFuture<T> run(final Supplier<CompletableFuture<T>> operation,
+        final Function<Throwable, Boolean> condition) {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final long deadlineTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline);
+
+        retryBudget.recordRequest();
+        attempt(operation, condition, result, 1, deadlineTime);
+
+        return result.orTimeout(deadline, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts an attempt of an operation and schedules the next one if it fails
+     * 
+     * @param operation
+     *            The operation
+     * @param condition
+     *            The condition that indicates whether an exception is retriable or
+     *            not
+     * @param result
+     *            The future of the operation
+     * @param attempt
+     *            The number of the attempt, starting from 1
+     * @param deadlineTime
+     *            The time in nanoseconds after which no attempt starts
+     */
+    private <T> void attempt(final Supplier<CompletableFuture<T>> operation,
+        final Function<Throwable, Boolean> condition, final CompletableFuture<T> result, final int attempt,
+        final long deadlineTime) {
+
+        if (result.isDone()) {
+            return;
+        }
+
+        final CompletableFuture<T> future;
+        try {
+            future = operation.get();
+        }
+        catch (final Exception ex) {
+            result.completeExceptionally(ex);
+            return;
+        }
+
+        future.whenComplete((value, ex) -> {
+            if (ex == null) {
+                result.complete(value);
+                return;
+            }
+
+            final Throwable cause = (ex instanceof CompletionException && ex.getCause() != null)
+                ? ex.getCause()
+                : ex;
+            final long nextDelay = getDelay(attempt);
+            if (!condition.apply(cause) || attempt >= maxRetries
+                || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nextDelay) >= deadlineTime
+                || !retryBudget.tryAcquire()) {
+
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            timer.schedule(() -> attempt(operation, condition, result, attempt + 1, deadlineTime), nextDelay,
+                TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Returns the delay before the next attempt
+     * 
+     * @param attempt
+     *            The number of the attempt that failed
+     * @return The delay in milliseconds
+     */
+    private long getDelay(final int attempt) {
+        final double backOff = useExponentialBackOff ? (Math.pow(2, attempt - 1) * delay) : delay;
+
+        return (long) backOff + ((jitter > 0) ? ThreadLocalRandom.current().nextInt(jitter) : 0);
+    }
+}
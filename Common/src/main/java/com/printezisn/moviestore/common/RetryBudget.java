@@ -0,0 +1,108 @@
+package com.printezisn.moviestore.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the retries of a client to a percentage of its recent requests, so
+ * that retries can't multiply the load on a service that is already failing. A
+ * minimum number of retries is always allowed, so that clients with little
+ * traffic can still retry.
+ */
+public class RetryBudget {
+
+    private static final int BUCKETS = 10;
+
+    private final double percentage;
+    private final int minRetries;
+    private final long bucketLength;
+    private final LongSupplier clock;
+
+    private final long[] requests = new long[BUCKETS];
+    private final long[] retries = new long[BUCKETS];
+    private long currentBucket;
+
+    /**
+     * The constructor
+     * 
+     * @param percentage
+     *            The maximum retries as a percentage of the requests in the
+     *            window
+     * @param minRetries
+     *            The retries allowed in the window regardless of the requests
+     * @param window
+     *            The length of the window in milliseconds
+     */
+    public RetryBudget(final double percentage, final int minRetries, final long window) {
+        this(percentage, minRetries, window, System::nanoTime);
+    }
+
+    /**
+     * The constructor
+     * 
+     * @param percentage
+     *            The maximum retries as a percentage of the requests in the
+     *            window
+     * @param minRetries
+     *            The retries allowed in the window regardless of the requests
+     * @param window
+     *            The length of the window in milliseconds
+     * @param clock
+     *            The source of the current time in nanoseconds
+     */
+    RetryBudget(final double percentage, final int minRetries, final long window, final LongSupplier clock) {
+        this.percentage = percentage;
+        this.minRetries = minRetries;
+        this.bucketLength = Math.max(TimeUnit.MILLISECONDS.toNanos(window) / BUCKETS, 1);
+        this.clock = clock;
+        this.currentBucket = Math.floorDiv(clock.getAsLong(), bucketLength);
+    }
+
+    /**
+     * Records a request
+     */
+    public synchronized void recordRequest() {
+        advance();
+        requests[Math.floorMod(currentBucket, BUCKETS)]++;
+    }
+
+    /**
+     * Takes a retry from the budget
+     * 
+     * @return True if the budget allows the retry, otherwise false
+     */
+    public synchronized boolean tryAcquire() {
+        advance();
+
+        long totalRequests = 0;
+        long totalRetries = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            totalRequests += requests[i];
+            totalRetries += retries[i];
+        }
+
+        if (totalRetries >= minRetries + totalRequests * percentage / 100) {
+            return false;
+        }
+
+        retries[Math.floorMod(currentBucket, BUCKETS)]++;
+
+        return true;
+    }
+
+    /**
+     * Moves the window to the current time, clearing the buckets that have
+     * expired
+     */
+    private void advance() {
+        final long bucket = Math.floorDiv(clock.getAsLong(), bucketLength);
+        final long expiredBuckets = Math.min(bucket - currentBucket, BUCKETS);
+        for (long i = 1; i <= expiredBuckets; i++) {
+            final int index = Math.floorMod(currentBucket + i, BUCKETS);
+            requests[index] = 0;
+            retries[index] = 0;
+        }
+
+        currentBucket = Math.max(bucket, currentBucket);
+    }
+}
@@ -10,7 +10,12 @@ import lombok.NoArgsConstructor;
 
 /**
  * Retry handler for operations
+ * 
+ * @deprecated It sleeps on the calling thread between attempts, so service
+ *             calls retry through {@link AsyncRetryHandler} instead. It only
+ *             remains for tests that poll until an assertion passes.
  */
+@Deprecated
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -1,4 +1,4 @@
-package com.printezisn.moviestore.website.movie.models;
+package com.printezisn.moviestore.common.models.movie;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
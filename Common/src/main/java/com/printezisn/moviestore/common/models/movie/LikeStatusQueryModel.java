@@ -0,0 +1,26 @@
+package com.printezisn.moviestore.common.models.movie;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Class that holds the movies whose like status is requested for an account
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeStatusQueryModel {
+
+    @Builder.Default
+    private List<UUID> movieIds = new LinkedList<>();
+
+    // The account whose likes are checked, or null if no account is signed in
+    private String account;
+}
@@ -30,4 +30,10 @@ public class MoviePagedResultModel implements PagedResult<MovieDto> {
     private String sortField;
 
     private boolean isAscending;
+
+    private String nextCursor;
+
+    private String previousCursor;
+
+    private Long totalEntries;
 }
@@ -0,0 +1,140 @@
+package com.printezisn.moviestore.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Contains unit tests for the AsyncRetryHandler class
+ */
+public class AsyncRetryHandlerTest {
+
+    /**
+     * Tests if a failed operation is retried until it succeeds
+     */
+    @Test
+    public void test_run_retriesUntilSuccess() {
+        final AsyncRetryHandler retryHandler = AsyncRetryHandler.builder().delay(10).build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final String result = retryHandler.run(() -> (attempts.incrementAndGet() < 3)
+            ? CompletableFuture.<String>failedFuture(new IllegalStateException())
+            : CompletableFuture.completedFuture("result"), ex -> true).join();
+
+        assertEquals("result", result);
+        assertEquals(3, attempts.get());
+    }
+
+    /**
+     * Tests if an exception that isn't retriable fails the operation immediately
+     */
+    @Test
+    public void test_run_notRetriable() {
+        final AsyncRetryHandler retryHandler = AsyncRetryHandler.builder().delay(10).build();
+        final AtomicInteger attempts = new AtomicInteger();
+        final IllegalStateException exception = new IllegalStateException();
+
+        final Throwable cause = getFailure(retryHandler.run(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(exception);
+        }, ex -> false));
+
+        assertSame(exception, cause);
+        assertEquals(1, attempts.get());
+    }
+
+    /**
+     * Tests if the operation stops after the maximum number of attempts
+     */
+    @Test
+    public void test_run_maxRetries() {
+        final AsyncRetryHandler retryHandler = AsyncRetryHandler.builder().delay(10).maxRetries(3).build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        getFailure(retryHandler.run(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException());
+        }, ex -> true));
+
+        assertEquals(3, attempts.get());
+    }
+
+    /**
+     * Tests if no attempt is scheduled after the deadline
+     */
+    @Test
+    public void test_run_deadline() {
+        final AsyncRetryHandler retryHandler = AsyncRetryHandler.builder().delay(200).deadline(300).build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Throwable cause = getFailure(retryHandler.run(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException());
+        }, ex -> true));
+
+        assertEquals(IllegalStateException.class, cause.getClass());
+        assertEquals(2, attempts.get());
+    }
+
+    /**
+     * Tests if the operation fails when an attempt doesn't complete before the
+     * deadline
+     */
+    @Test
+    public void test_run_deadlineDuringAttempt() {
+        final AsyncRetryHandler retryHandler = AsyncRetryHandler.builder().deadline(100).build();
+
+        final Throwable cause = getFailure(retryHandler.run(CompletableFuture::new, ex -> true));
+
+        assertEquals(TimeoutException.class, cause.getClass());
+    }
+
+    /**
+     * Tests if retries stop when the retry budget is exhausted
+     */
+    @Test
+    public void test_run_retryBudget() {
+        final AsyncRetryHandler retryHandler = AsyncRetryHandler.builder()
+            .delay(10)
+            .retryBudget(new RetryBudget(0, 1, 10000))
+            .build();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        getFailure(retryHandler.run(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException());
+        }, ex -> true));
+        getFailure(retryHandler.run(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException());
+        }, ex -> true));
+
+        assertEquals(3, attempts.get());
+    }
+
+    /**
+     * Waits for a future that is expected to fail
+     * 
+     * @param future
+     *            The future
+     * @return The exception of the future
+     */
+    private Throwable getFailure(final CompletableFuture<?> future) {
+        try {
+            future.join();
+            fail("The future didn't fail");
+
+            return null;
+        }
+        catch (final CompletionException ex) {
+            return ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.printezisn.moviestore.common;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Contains unit tests for the RetryBudget class
+ */
+public class RetryBudgetTest {
+
+    private static final long WINDOW = 10000;
+
+    private AtomicLong clock;
+
+    private RetryBudget retryBudget;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        clock = new AtomicLong();
+        retryBudget = new RetryBudget(10, 2, WINDOW, clock::get);
+    }
+
+    /**
+     * Tests if the minimum retries are allowed without any requests
+     */
+    @Test
+    public void test_tryAcquire_minRetries() {
+        assertTrue(retryBudget.tryAcquire());
+        assertTrue(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+    }
+
+    /**
+     * Tests if the retries are limited to a percentage of the requests
+     */
+    @Test
+    public void test_tryAcquire_percentageOfRequests() {
+        for (int i = 0; i < 30; i++) {
+            retryBudget.recordRequest();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(retryBudget.tryAcquire());
+        }
+        assertFalse(retryBudget.tryAcquire());
+    }
+
+    /**
+     * Tests if the budget is restored when the window moves past the retries
+     */
+    @Test
+    public void test_tryAcquire_windowExpired() {
+        assertTrue(retryBudget.tryAcquire());
+        assertTrue(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(WINDOW / 2));
+        assertFalse(retryBudget.tryAcquire());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(WINDOW));
+        assertTrue(retryBudget.tryAcquire());
+    }
+}
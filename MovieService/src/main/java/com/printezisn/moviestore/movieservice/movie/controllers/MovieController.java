@@ -1,11 +1,16 @@
 package com.printezisn.moviestore.movieservice.movie.controllers;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -13,16 +18,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.printezisn.moviestore.common.AppUtils;
 import com.printezisn.moviestore.common.models.PagedResult;
 import com.printezisn.moviestore.common.models.Result;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
+import com.printezisn.moviestore.common.models.movie.LikeStatusQueryModel;
 import com.printezisn.moviestore.common.models.movie.MovieResultModel;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieConditionalException;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieNotFoundException;
+import com.printezisn.moviestore.movieservice.movie.models.RevisionedMovie;
 import com.printezisn.moviestore.movieservice.movie.services.MovieService;
 
 import lombok.RequiredArgsConstructor;
@@ -34,30 +43,42 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class MovieController {
 
+    private static final int MAX_LIKE_STATUS_MOVIES = 100;
+
     private final MovieService movieService;
     private final AppUtils appUtils;
 
     /**
-     * Searches for movies
+     * Searches for movies. If a cursor is given, even a blank one, the results
+     * are paged with cursors instead of page numbers.
      * 
      * @param text
      *            The text to search for
      * @param pageNumber
      *            The page number
+     * @param cursor
+     *            The cursor of the page
      * @param sortField
      *            The sorting field
      * @param isAscending
      *            Indicates if sorting is ascending or descending
+     * @param includeTotal
+     *            Indicates if the total number of movies is counted when paging
+     *            with cursors
      * @return The movies found
      */
     @GetMapping("/movie/search")
     public ResponseEntity<?> searchMovies(
         @RequestParam(value = "text") final Optional<String> text,
         @RequestParam(value = "page") final Optional<Integer> pageNumber,
+        @RequestParam(value = "cursor", required = false) final String cursor,
         @RequestParam(value = "sort") final Optional<String> sortField,
-        @RequestParam(value = "asc", defaultValue = "true") final boolean isAscending) {
+        @RequestParam(value = "asc", defaultValue = "true") final boolean isAscending,
+        @RequestParam(value = "total", defaultValue = "false") final boolean includeTotal) {
 
-        final PagedResult<MovieDto> result = movieService.searchMovies(text, pageNumber, sortField, isAscending);
+        final PagedResult<MovieDto> result = (cursor != null)
+            ? movieService.searchMovies(text, cursor, sortField, isAscending, includeTotal)
+            : movieService.searchMovies(text, pageNumber, sortField, isAscending);
 
         return ResponseEntity.ok(result);
     }
@@ -67,14 +88,22 @@ public class MovieController {
      * 
      * @param id
      *            The id of the movie
+     * @param ifNoneMatch
+     *            The ETags of the copies of the movie that the client has
      * @return The movie
      */
     @GetMapping("/movie/get/{id}")
-    public ResponseEntity<?> getMovie(@PathVariable("id") final UUID id) {
+    public ResponseEntity<?> getMovie(@PathVariable("id") final UUID id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+
         try {
-            final MovieDto result = movieService.getMovie(id);
+            final RevisionedMovie result = movieService.getRevisionedMovie(id, parseETags(ifNoneMatch));
 
-            return ResponseEntity.ok(result);
+            // The revision is sent as the ETag, so requests with a matching
+            // If-None-Match header are answered with 304 and no body
+            return ResponseEntity.ok()
+                .eTag(result.getRevision())
+                .body(result.getMovie());
         }
         catch (final MovieNotFoundException ex) {
             return ResponseEntity.notFound().build();
@@ -165,9 +194,7 @@ public class MovieController {
      *            The id of the movie to like
      * @param account
      *            The account that likes the movie
-     * @return The result of the operation
-     * @throws MovieConditionalException
-     *             Exception thrown in case of conditional update failure
+     * @return The like status of the movie after the like
      */
     @GetMapping("/movie/like/{movieId}/{account}")
     public ResponseEntity<?> likeMovie(
@@ -175,16 +202,11 @@ public class MovieController {
         @PathVariable("account") final String account) {
 
         try {
-            movieService.likeMovie(movieId, account);
-
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(movieService.likeMovie(movieId, account));
         }
         catch (final MovieNotFoundException ex) {
             return ResponseEntity.notFound().build();
         }
-        catch (final MovieConditionalException ex) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        }
     }
 
     /**
@@ -194,9 +216,7 @@ public class MovieController {
      *            The id of the movie to unlike
      * @param account
      *            The account whose like is removed from the movie
-     * @return The result of the operation
-     * @throws MovieConditionalException
-     *             Exception thrown in case of conditional update failure
+     * @return The like status of the movie after the like is removed
      */
     @GetMapping("/movie/unlike/{movieId}/{account}")
     public ResponseEntity<?> unlikeMovie(
@@ -204,16 +224,11 @@ public class MovieController {
         @PathVariable("account") final String account) {
 
         try {
-            movieService.unlikeMovie(movieId, account);
-
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(movieService.unlikeMovie(movieId, account));
         }
         catch (final MovieNotFoundException ex) {
             return ResponseEntity.notFound().build();
         }
-        catch (final MovieConditionalException ex) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        }
     }
 
     /**
@@ -234,4 +249,47 @@ public class MovieController {
 
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * Returns the total likes of movies and whether an account has liked them
+     * 
+     * @param likeStatusQueryModel
+     *            The ids of the movies, at most 100, and the account
+     * @return The like status of each movie that exists, by movie id
+     */
+    @PostMapping("/movie/likestatus")
+    public ResponseEntity<?> getLikeStatuses(@RequestBody final LikeStatusQueryModel likeStatusQueryModel) {
+        if (likeStatusQueryModel.getMovieIds() == null
+            || likeStatusQueryModel.getMovieIds().size() > MAX_LIKE_STATUS_MOVIES) {
+
+            return ResponseEntity.badRequest().build();
+        }
+
+        final Map<UUID, LikeStatus> result = movieService.getLikeStatuses(likeStatusQueryModel.getMovieIds(),
+            likeStatusQueryModel.getAccount());
+
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Returns the ETags of an If-None-Match header without their quotes and
+     * weakness indicators
+     * 
+     * @param ifNoneMatch
+     *            The value of the header, or null if the request doesn't have it
+     * @return The ETags
+     */
+    private static List<String> parseETags(final String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.stream(ifNoneMatch.split(","))
+            .map(String::trim)
+            .map(eTag -> eTag.startsWith("W/") ? eTag.substring(2) : eTag)
+            .map(eTag -> (eTag.length() > 1 && eTag.startsWith("\"") && eTag.endsWith("\""))
+                ? eTag.substring(1, eTag.length() - 1)
+                : eTag)
+            .collect(Collectors.toList());
+    }
 }
@@ -1,7 +1,5 @@
 package com.printezisn.moviestore.movieservice.movie.entities;
 
-import java.util.Set;
-
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.IndexDirection;
 import org.springframework.data.mongodb.core.index.Indexed;
@@ -37,9 +35,10 @@ public class Movie {
 
     private String creator;
 
-    private Set<String> pendingLikes;
+    private long appliedLikeSequence;
 
-    private Set<String> pendingUnlikes;
+    @Indexed
+    private long likesAppliedTimestamp;
 
     @Indexed(direction = IndexDirection.DESCENDING)
     private boolean updated;
@@ -0,0 +1,25 @@
+package com.printezisn.moviestore.movieservice.movie.entities;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * The MovieIndexFill entity. It records the progress of filling a versioned
+ * search index, so that a fill stopped by a restart is resumed instead of
+ * started over.
+ */
+@Document(collection = "movie_index_fills")
+@Data
+public class MovieIndexFill {
+
+    @Id
+    private String id;
+
+    private String lastMovieId;
+
+    private long startTimestamp;
+
+    private long filledMovies;
+}
@@ -0,0 +1,26 @@
+package com.printezisn.moviestore.movieservice.movie.entities;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * The MovieLikeCounter entity. The likes of a movie are counted in several shard
+ * documents, whose counts add up to the total likes of the movie.
+ */
+@Document(collection = "movie_like_counters")
+@Data
+public class MovieLikeCounter {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String movieId;
+
+    private int shard;
+
+    private long count;
+}
@@ -0,0 +1,45 @@
+package com.printezisn.moviestore.movieservice.movie.entities;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The MovieLikeEvent entity. Each like or unlike is appended as an event, which
+ * the indexer applies to the movie likes in sequence order and then removes.
+ * An event is flagged as applying before its batch is written, so that a batch
+ * that is written again after a failure can be detected.
+ */
+@Document(collection = "movie_like_events")
+@CompoundIndex(def = "{'movieId': 1, 'seq': 1}")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieLikeEvent {
+
+    /**
+     * The operation of a like event
+     */
+    public enum Operation {
+        LIKE, UNLIKE
+    }
+
+    @Id
+    private String id;
+
+    private String movieId;
+
+    private String account;
+
+    private Operation op;
+
+    private long seq;
+
+    private boolean applying;
+}
@@ -0,0 +1,109 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.printezisn.moviestore.movieservice.movie.models.RevisionedMovie;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of movies by id. A movie is evicted whenever it's changed on
+ * this node. Since a movie is loaded and evicted atomically, a load that reads
+ * the movie before a change can't overwrite the eviction. A movie changed on
+ * another node may be served stale until it expires, except to conditional
+ * reads, which revalidate its revision against the database before they
+ * confirm a copy of the client.
+ */
+@Component
+public class MovieCache {
+
+    private static final String CACHE_NAME = "movie.get";
+
+    private final Cache<String, RevisionedMovie> cache;
+
+    /**
+     * The constructor
+     * 
+     * @param meterRegistry
+     *            The registry of the cache metrics
+     * @param maxSize
+     *            The maximum number of cached movies
+     * @param ttl
+     *            The time in milliseconds a movie is cached
+     */
+    public MovieCache(final MeterRegistry meterRegistry,
+        @Value("${movieCache.maxSize}") final long maxSize,
+        @Value("${movieCache.ttl}") final long ttl) {
+
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns a cached movie, or loads and caches it
+     * 
+     * @param id
+     *            The id of the movie
+     * @param loader
+     *            Loads the movie if it isn't cached. It returns null if the movie
+     *            doesn't exist, in which case nothing is cached.
+     * @return The movie, or null if it doesn't exist
+     */
+    public RevisionedMovie get(final String id, final Function<String, RevisionedMovie> loader) {
+        return cache.get(id, loader);
+    }
+
+    /**
+     * Returns cached movies and loads the rest with a single call. The loaded
+     * movies are not cached, since a batch load can't be made atomic with the
+     * evictions of the movies it reads.
+     * 
+     * @param ids
+     *            The ids of the movies
+     * @param loader
+     *            Loads the movies that aren't cached. Movies that don't exist are
+     *            left out of the returned map.
+     * @return The movies that exist, by id
+     */
+    public Map<String, RevisionedMovie> getAll(final Collection<String> ids,
+        final Function<List<String>, Map<String, RevisionedMovie>> loader) {
+
+        final Map<String, RevisionedMovie> movies = new HashMap<>(cache.getAllPresent(ids));
+        final List<String> missingIds = ids.stream()
+            .filter(id -> !movies.containsKey(id))
+            .distinct()
+            .collect(Collectors.toList());
+        if (!missingIds.isEmpty()) {
+            movies.putAll(loader.apply(missingIds));
+        }
+
+        return movies;
+    }
+
+    /**
+     * Evicts a movie from the cache
+     * 
+     * @param id
+     *            The id of the movie
+     */
+    public void evict(final String id) {
+        cache.invalidate(id);
+    }
+}
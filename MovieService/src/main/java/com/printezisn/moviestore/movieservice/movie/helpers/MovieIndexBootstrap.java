@@ -0,0 +1,398 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.PostConstruct;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndexFill;
+import com.printezisn.moviestore.movieservice.movie.mappers.MovieMapper;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieIndexFillRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prepares the search index at startup. The movies are stored in a versioned
+ * index, which is reached through an alias with the configured index name.
+ * The index is created only when the version of the mapping changes. It's
+ * filled from the database while the alias still points to the previous index,
+ * and then the alias is moved to it in a single atomic request, so searches
+ * never see a partial index. The movies are filled in the order of their ids
+ * and the progress is recorded after each bulk request, so a fill stopped by a
+ * restart resumes after the last recorded movie. The movies changed since the
+ * fill started are marked for indexing after the switch, so that the sweeper
+ * catches up with them, and the indexes of the previous versions are removed
+ * once it has. The progress is removed only after these movies are marked, so
+ * the marking is repeated by the next startup if it doesn't complete.
+ */
+@Component
+@Slf4j
+public class MovieIndexBootstrap implements InfoContributor {
+
+    private static final String TYPE = "movies";
+    private static final String SETTINGS_PATH = "/elasticsearch/movie-settings.json";
+    private static final String MAPPING_PATH = "/elasticsearch/movie-mapping.json";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+    private final MovieRepository movieRepository;
+    private final MovieIndexFillRepository movieIndexFillRepository;
+    private final MovieMapper movieMapper;
+    private final String indexName;
+    private final String healthTimeout;
+    private final int batchSize;
+    private final long fillOverlap;
+    private final String settings;
+    private final String mapping;
+
+    @Getter
+    private final int mappingVersion;
+
+    @Getter
+    private ClusterHealthStatus healthStatus;
+
+    @Getter
+    private volatile boolean catchingUp;
+
+    /**
+     * The constructor
+     * 
+     * @param elasticsearchTemplate
+     *            The elasticsearch template
+     * @param movieRepository
+     *            The movie repository
+     * @param movieIndexFillRepository
+     *            The repository of the fill progress
+     * @param movieMapper
+     *            The movie mapper
+     * @param indexName
+     *            The name of the alias of the index
+     * @param healthTimeout
+     *            How long to wait for the index to become available, e.g. 30s
+     * @param batchSize
+     *            The number of movies sent in each bulk request while the index
+     *            is filled
+     * @param fillOverlap
+     *            The milliseconds before the start of a fill from which changed
+     *            movies are marked for indexing, which covers clock differences
+     *            between instances
+     * @throws Exception
+     *             Exception thrown if the settings or the mapping can't be read
+     */
+    public MovieIndexBootstrap(final ElasticsearchTemplate elasticsearchTemplate,
+        final MovieRepository movieRepository, final MovieIndexFillRepository movieIndexFillRepository,
+        final MovieMapper movieMapper, @Value("${elasticsearch.indexName}") final String indexName,
+        @Value("${elasticsearch.healthTimeout}") final String healthTimeout,
+        @Value("${searchIndex.batchSize}") final int batchSize,
+        @Value("${searchIndex.fill.overlap}") final long fillOverlap) throws Exception {
+
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.movieRepository = movieRepository;
+        this.movieIndexFillRepository = movieIndexFillRepository;
+        this.movieMapper = movieMapper;
+        this.indexName = indexName;
+        this.healthTimeout = healthTimeout;
+        this.batchSize = batchSize;
+        this.fillOverlap = fillOverlap;
+        this.settings = ElasticsearchTemplate.readFileFromClasspath(SETTINGS_PATH);
+        this.mapping = ElasticsearchTemplate.readFileFromClasspath(MAPPING_PATH);
+        this.mappingVersion = OBJECT_MAPPER.readTree(mapping).path("_meta").path("version").asInt();
+    }
+
+    /**
+     * Returns the name of the index that holds the current version of the mapping
+     * 
+     * @return The name of the index
+     */
+    public String getVersionedIndexName() {
+        return getVersionedIndexName(mappingVersion);
+    }
+
+    /**
+     * Creates and fills the index if the mapping has changed and verifies that
+     * it's healthy. An index that exists but isn't behind the alias yet, because
+     * a previous startup stopped while filling it, is filled from where the
+     * previous startup stopped.
+     */
+    @PostConstruct
+    public void bootstrap() {
+        final String versionedIndexName = getVersionedIndexName();
+
+        Optional<MovieIndexFill> progress = movieIndexFillRepository.findById(versionedIndexName);
+        if (!elasticsearchTemplate.indexExists(versionedIndexName) || !hasAlias(versionedIndexName)) {
+            if (!elasticsearchTemplate.indexExists(versionedIndexName)) {
+                log.info("Creating search index {} for mapping version {}", versionedIndexName, mappingVersion);
+
+                elasticsearchTemplate.createIndex(versionedIndexName, settings);
+                elasticsearchTemplate.putMapping(versionedIndexName, TYPE, mapping);
+
+                // The progress of a fill belongs to an index that doesn't exist anymore
+                progress = Optional.empty();
+            }
+
+            final MovieIndexFill movieIndexFill = progress.orElseGet(() -> createFill(versionedIndexName));
+            fill(movieIndexFill);
+            log.info("Filled search index {} with {} movies", versionedIndexName, movieIndexFill.getFilledMovies());
+
+            switchAlias(versionedIndexName);
+            progress = Optional.of(movieIndexFill);
+        }
+        progress.ifPresent(this::markChangedMovies);
+        catchingUp = hasPreviousVersions();
+
+        final ClusterHealthResponse healthResponse = elasticsearchTemplate.getClient()
+            .admin()
+            .cluster()
+            .prepareHealth(versionedIndexName)
+            .setWaitForYellowStatus()
+            .setTimeout(healthTimeout)
+            .get();
+
+        healthStatus = healthResponse.getStatus();
+        if (healthStatus == ClusterHealthStatus.RED) {
+            throw new IllegalStateException(String.format("The search index %s is not available",
+                versionedIndexName));
+        }
+
+        log.info("Search index {} is ready with status {}", versionedIndexName, healthStatus);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void contribute(final Info.Builder builder) {
+        final Map<String, Object> details = new LinkedHashMap<>();
+        details.put("alias", indexName);
+        details.put("index", getVersionedIndexName());
+        details.put("mappingVersion", mappingVersion);
+        details.put("status", healthStatus);
+
+        builder.withDetail("searchIndex", details);
+    }
+
+    /**
+     * Removes the indexes of the previous mapping versions, if the index was
+     * rebuilt and a sweep has completed since. By then every movie that was
+     * marked for indexing after the switch has been indexed in the new index.
+     */
+    public void onSweepCompleted() {
+        if (!catchingUp) {
+            return;
+        }
+
+        for (int version = 1; version < mappingVersion; version++) {
+            final String previousIndexName = getVersionedIndexName(version);
+            if (elasticsearchTemplate.indexExists(previousIndexName)) {
+                log.info("Removing search index {} of mapping version {}", previousIndexName, version);
+                elasticsearchTemplate.deleteIndex(previousIndexName);
+            }
+        }
+        catchingUp = false;
+    }
+
+    /**
+     * Returns the progress of a fill that starts now
+     * 
+     * @param versionedIndexName
+     *            The name of the index
+     * @return The progress of the fill
+     */
+    private MovieIndexFill createFill(final String versionedIndexName) {
+        final MovieIndexFill movieIndexFill = new MovieIndexFill();
+        movieIndexFill.setId(versionedIndexName);
+        movieIndexFill.setStartTimestamp(Instant.now().toEpochMilli());
+
+        return movieIndexFill;
+    }
+
+    /**
+     * Indexes the movies of the database that come after the last movie of a fill
+     * in its index, and records the progress of the fill after each bulk request
+     * 
+     * @param movieIndexFill
+     *            The progress of the fill
+     */
+    private void fill(final MovieIndexFill movieIndexFill) {
+        final String versionedIndexName = movieIndexFill.getId();
+        final Client client = elasticsearchTemplate.getClient();
+
+        if (movieIndexFill.getLastMovieId() != null) {
+            log.info("Resuming the fill of search index {} after {} movies", versionedIndexName,
+                movieIndexFill.getFilledMovies());
+        }
+
+        try (final CloseableIterator<Movie> movies = movieRepository
+            .streamMoviesAfter(movieIndexFill.getLastMovieId(), batchSize)) {
+
+            BulkRequestBuilder request = client.prepareBulk();
+            String lastMovieId = movieIndexFill.getLastMovieId();
+            while (movies.hasNext()) {
+                final Movie movie = movies.next();
+                lastMovieId = movie.getId();
+                if (movie.isDeleted()) {
+                    continue;
+                }
+
+                request.add(new IndexRequest(versionedIndexName, TYPE, movie.getId())
+                    .source(OBJECT_MAPPER.writeValueAsBytes(movieMapper.movieToMovieIndex(movie)), XContentType.JSON));
+                if (request.numberOfActions() == batchSize) {
+                    saveProgress(movieIndexFill, lastMovieId, send(request));
+                    request = client.prepareBulk();
+                }
+            }
+            if (request.numberOfActions() > 0) {
+                saveProgress(movieIndexFill, lastMovieId, send(request));
+            }
+        }
+        catch (final IllegalStateException ex) {
+            throw ex;
+        }
+        catch (final Exception ex) {
+            throw new IllegalStateException(String.format("An error occured while filling search index %s: %s",
+                versionedIndexName, ex.getMessage()), ex);
+        }
+
+    }
+
+    /**
+     * Records the progress of a fill after a bulk request
+     * 
+     * @param movieIndexFill
+     *            The progress of the fill
+     * @param lastMovieId
+     *            The id of the last movie read before the bulk request
+     * @param filledMovies
+     *            The number of movies indexed by the bulk request
+     */
+    private void saveProgress(final MovieIndexFill movieIndexFill, final String lastMovieId,
+        final int filledMovies) {
+
+        movieIndexFill.setLastMovieId(lastMovieId);
+        movieIndexFill.setFilledMovies(movieIndexFill.getFilledMovies() + filledMovies);
+        movieIndexFillRepository.save(movieIndexFill);
+    }
+
+    /**
+     * Marks for indexing the movies that changed since a fill started, and then
+     * removes the progress of the fill
+     * 
+     * @param movieIndexFill
+     *            The progress of the fill
+     */
+    private void markChangedMovies(final MovieIndexFill movieIndexFill) {
+        final long changedMovies = movieRepository.markUpdatedSince(movieIndexFill.getStartTimestamp() - fillOverlap);
+        log.info("Marked {} movies that changed during the fill for indexing in {}", changedMovies,
+            movieIndexFill.getId());
+
+        movieIndexFillRepository.deleteById(movieIndexFill.getId());
+    }
+
+    /**
+     * Sends a bulk request while the index is filled
+     * 
+     * @param request
+     *            The bulk request
+     * @return The number of indexed movies
+     */
+    private int send(final BulkRequestBuilder request) {
+        final BulkResponse response = request.get();
+        if (response.hasFailures()) {
+            throw new IllegalStateException(String.format("An error occured while filling the search index: %s",
+                response.buildFailureMessage()));
+        }
+
+        return response.getItems().length;
+    }
+
+    /**
+     * Moves the alias to an index in a single atomic request. The alias is removed
+     * from the indexes of the previous versions, and an index that was created
+     * with the name of the alias, before the indexes were versioned, is removed in
+     * the same request, since the alias can't be added while it exists.
+     * 
+     * @param versionedIndexName
+     *            The name of the index
+     */
+    private void switchAlias(final String versionedIndexName) {
+        final IndicesAliasesRequestBuilder request = elasticsearchTemplate.getClient()
+            .admin()
+            .indices()
+            .prepareAliases();
+
+        if (elasticsearchTemplate.indexExists(indexName) && elasticsearchTemplate.queryForAlias(indexName).isEmpty()) {
+            log.info("Removing unversioned search index {}", indexName);
+            request.addAliasAction(AliasActions.removeIndex().index(indexName));
+        }
+        for (int version = 1; version < mappingVersion; version++) {
+            final String previousIndexName = getVersionedIndexName(version);
+            if (elasticsearchTemplate.indexExists(previousIndexName) && hasAlias(previousIndexName)) {
+                request.removeAlias(previousIndexName, indexName);
+            }
+        }
+        request.addAlias(versionedIndexName, indexName).get();
+
+        log.info("Moved alias {} to search index {}", indexName, versionedIndexName);
+    }
+
+    /**
+     * Checks if an index is reached through the alias
+     * 
+     * @param versionedIndexName
+     *            The name of the index
+     * @return True if the alias points to the index, otherwise false
+     */
+    private boolean hasAlias(final String versionedIndexName) {
+        return elasticsearchTemplate.queryForAlias(versionedIndexName).stream()
+            .anyMatch(alias -> indexName.equals(alias.alias()));
+    }
+
+    /**
+     * Checks if indexes of previous mapping versions exist
+     * 
+     * @return True if at least one index of a previous version exists, otherwise
+     *         false
+     */
+    private boolean hasPreviousVersions() {
+        for (int version = 1; version < mappingVersion; version++) {
+            if (elasticsearchTemplate.indexExists(getVersionedIndexName(version))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the name of the index of a mapping version
+     * 
+     * @param version
+     *            The version of the mapping
+     * @return The name of the index
+     */
+    private String getVersionedIndexName(final int version) {
+        return indexName + "_v" + version;
+    }
+}
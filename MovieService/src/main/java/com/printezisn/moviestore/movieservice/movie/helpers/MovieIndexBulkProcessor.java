@@ -0,0 +1,281 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects movie index upserts and deletes and sends them to elasticsearch with
+ * the bulk API. A bulk request is sent when enough actions or bytes are
+ * collected, or when the flush interval elapses. Failed items are retried
+ * individually, so that one bad item doesn't fail the rest of the bulk request.
+ * The search cache is invalidated once per bulk request that changed the index.
+ */
+@Component
+@DependsOn("movieIndexBootstrap")
+@Slf4j
+public class MovieIndexBulkProcessor {
+
+    private static final String TYPE = "movies";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final MovieSearchCache movieSearchCache;
+    private final String indexName;
+    private final int maxRetries;
+    private final long retryDelay;
+    private final ScheduledExecutorService callbackExecutor;
+    private final BulkProcessor bulkProcessor;
+
+    /**
+     * The constructor
+     * 
+     * @param elasticsearchTemplate
+     *            The elasticsearch template
+     * @param movieSearchCache
+     *            The cache of search results
+     * @param indexName
+     *            The name of the index
+     * @param bulkActions
+     *            The number of actions that triggers a bulk request
+     * @param bulkSize
+     *            The size of actions that triggers a bulk request, e.g. 5mb
+     * @param flushInterval
+     *            The interval after which pending actions are sent, e.g. 1s
+     * @param maxRetries
+     *            The maximum number of times a failed item is retried
+     * @param retryDelay
+     *            The delay in milliseconds before the first retry of a failed
+     *            item, which doubles on every retry
+     */
+    public MovieIndexBulkProcessor(final ElasticsearchTemplate elasticsearchTemplate,
+        final MovieSearchCache movieSearchCache,
+        @Value("${elasticsearch.indexName}") final String indexName,
+        @Value("${searchIndex.bulk.actions}") final int bulkActions,
+        @Value("${searchIndex.bulk.size}") final String bulkSize,
+        @Value("${searchIndex.bulk.flushInterval}") final String flushInterval,
+        @Value("${searchIndex.bulk.maxRetries}") final int maxRetries,
+        @Value("${searchIndex.bulk.retryDelay}") final long retryDelay) {
+
+        this.movieSearchCache = movieSearchCache;
+        this.indexName = indexName;
+        this.maxRetries = maxRetries;
+        this.retryDelay = retryDelay;
+        this.callbackExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "movie-index-bulk");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        final Client client = elasticsearchTemplate.getClient();
+        this.bulkProcessor = BulkProcessor.builder(client::bulk, new Listener())
+            .setBulkActions(bulkActions)
+            .setBulkSize(ByteSizeValue.parseBytesSizeValue(bulkSize, "searchIndex.bulk.size"))
+            .setFlushInterval(TimeValue.parseTimeValue(flushInterval, "searchIndex.bulk.flushInterval"))
+            .setConcurrentRequests(1)
+            .setBackoffPolicy(BackoffPolicy.noBackoff())
+            .build();
+    }
+
+    /**
+     * Adds or replaces a movie in the search index
+     * 
+     * @param movieIndex
+     *            The movie to index
+     * @return A future that completes when the movie is indexed
+     */
+    public CompletableFuture<Void> index(final MovieIndex movieIndex) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        try {
+            final IndexRequest request = new IndexRequest(indexName, TYPE, movieIndex.getId())
+                .source(OBJECT_MAPPER.writeValueAsBytes(movieIndex), XContentType.JSON);
+
+            bulkProcessor.add(request, new PendingItem(future, 0));
+        }
+        catch (final Exception ex) {
+            future.completeExceptionally(ex);
+        }
+
+        return future;
+    }
+
+    /**
+     * Deletes a movie from the search index
+     * 
+     * @param id
+     *            The id of the movie
+     * @return A future that completes when the movie is deleted
+     */
+    public CompletableFuture<Void> delete(final String id) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        try {
+            bulkProcessor.add(new DeleteRequest(indexName, TYPE, id), new PendingItem(future, 0));
+        }
+        catch (final Exception ex) {
+            future.completeExceptionally(ex);
+        }
+
+        return future;
+    }
+
+    /**
+     * Sends the pending actions and stops the processor
+     * 
+     * @throws InterruptedException
+     *             Exception thrown if the thread is interrupted while waiting
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        bulkProcessor.awaitClose(30, TimeUnit.SECONDS);
+        callbackExecutor.shutdown();
+    }
+
+    /**
+     * Completes a successful item
+     * 
+     * @param pendingItem
+     *            The item
+     */
+    private void succeed(final PendingItem pendingItem) {
+        callbackExecutor.execute(() -> pendingItem.getFuture().complete(null));
+    }
+
+    /**
+     * Retries a failed item after a delay, or fails it if it can't be retried
+     * 
+     * @param request
+     *            The request of the item
+     * @param pendingItem
+     *            The item
+     * @param retryable
+     *            Indicates if the failure is temporary
+     * @param cause
+     *            The cause of the failure
+     */
+    private void retryOrFail(final DocWriteRequest<?> request, final PendingItem pendingItem,
+        final boolean retryable, final Throwable cause) {
+
+        final int attempt = pendingItem.getAttempt();
+        if (!retryable || attempt >= maxRetries) {
+            callbackExecutor.execute(() -> pendingItem.getFuture().completeExceptionally(cause));
+            return;
+        }
+
+        log.warn("Retrying indexing of movie {} after failure: {}", request.id(), cause.getMessage());
+
+        // The item is added again from another thread, because adding it from the
+        // listener may trigger a flush while the current one is still in progress
+        final PendingItem retriedItem = new PendingItem(pendingItem.getFuture(), attempt + 1);
+        callbackExecutor.schedule(() -> {
+            try {
+                bulkProcessor.add(request, retriedItem);
+            }
+            catch (final Exception ex) {
+                pendingItem.getFuture().completeExceptionally(ex);
+            }
+        }, retryDelay << attempt, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Listener that completes or retries the items of a bulk request
+     */
+    private class Listener implements BulkProcessor.Listener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void beforeBulk(final long executionId, final BulkRequest request) {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void afterBulk(final long executionId, final BulkRequest request, final BulkResponse response) {
+            @SuppressWarnings("rawtypes")
+            final List<DocWriteRequest> requests = request.requests();
+            final List<Object> payloads = request.payloads();
+            final BulkItemResponse[] items = response.getItems();
+
+            // The cache is invalidated before the items complete, so that a search that
+            // follows an indexed movie doesn't return a result cached before it
+            if (Arrays.stream(items).anyMatch(item -> !item.isFailed())) {
+                movieSearchCache.invalidate();
+            }
+
+            for (int i = 0; i < items.length; i++) {
+                final PendingItem pendingItem = (PendingItem) payloads.get(i);
+                if (!items[i].isFailed()) {
+                    succeed(pendingItem);
+                    continue;
+                }
+
+                final BulkItemResponse.Failure failure = items[i].getFailure();
+                final boolean retryable = failure.getStatus() == RestStatus.TOO_MANY_REQUESTS
+                    || failure.getStatus().getStatus() >= 500;
+
+                retryOrFail(requests.get(i), pendingItem, retryable, failure.getCause());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void afterBulk(final long executionId, final BulkRequest request, final Throwable failure) {
+            log.error("An error occured while sending bulk request to the search index: " + failure.getMessage(),
+                failure);
+
+            @SuppressWarnings("rawtypes")
+            final List<DocWriteRequest> requests = request.requests();
+            final List<Object> payloads = request.payloads();
+            for (int i = 0; i < requests.size(); i++) {
+                retryOrFail(requests.get(i), (PendingItem) payloads.get(i), true, failure);
+            }
+        }
+    }
+
+    /**
+     * An item waiting to be indexed
+     */
+    @RequiredArgsConstructor
+    @Getter
+    private static class PendingItem {
+
+        private final CompletableFuture<Void> future;
+        private final int attempt;
+    }
+}
@@ -1,18 +1,24 @@
 package com.printezisn.moviestore.movieservice.movie.helpers;
 
-import java.util.HashSet;
-import java.util.UUID;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
 import com.printezisn.moviestore.movieservice.movie.entities.Movie;
 import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
-import com.printezisn.moviestore.movieservice.movie.entities.MovieLike;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent.Operation;
 import com.printezisn.moviestore.movieservice.movie.mappers.MovieMapper;
-import com.printezisn.moviestore.movieservice.movie.repositories.MovieIndexRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
 import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeRepository;
 import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,60 +30,181 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class MovieIndexHelper {
 
+    private static final String LIKES_APPLIED_METRIC = "movie.likes.applied";
+    private static final String LIKES_WRITE_METRIC = "movie.likes.write";
+    private static final int LIKE_EVENTS_BATCH_SIZE = 1000;
+
     private final MovieRepository movieRepository;
     private final MovieLikeRepository movieLikeRepository;
-    private final MovieIndexRepository movieIndexRepository;
+    private final MovieLikeEventRepository movieLikeEventRepository;
+    private final ShardedLikeCounter shardedLikeCounter;
+    private final MovieLikeIndex movieLikeIndex;
+    private final MovieIndexBulkProcessor movieIndexBulkProcessor;
     private final MovieMapper movieMapper;
+    private final MovieCache movieCache;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Updates a movie in the search index and the database
      * 
      * @param movie
      *            The movie to update
+     * @return A future that completes when the movie is indexed. The future never
+     *         completes exceptionally, because errors are logged and the movie
+     *         remains marked for indexing.
      */
-    public void indexMovie(final Movie movie) {
+    public CompletableFuture<Void> indexMovie(final Movie movie) {
         try {
             // Deletes the movie if it's indicated as deleted
             if (movie.isDeleted()) {
-                movieIndexRepository.deleteById(movie.getId());
-                movieLikeRepository.deleteByMovieId(movie.getId());
-                movieRepository.deleteById(movie.getId());
+                return movieIndexBulkProcessor.delete(movie.getId())
+                    .thenRun(() -> {
+                        movieLikeRepository.deleteByMovieId(movie.getId());
+                        movieLikeEventRepository.deleteByMovieId(movie.getId());
+                        shardedLikeCounter.delete(movie.getId());
+                        movieLikeIndex.remove(movie.getId());
+                        movieRepository.deleteById(movie.getId());
+                        movieCache.evict(movie.getId());
+                    })
+                    .exceptionally(ex -> logError(movie, ex));
+            }
 
-                return;
+            // Applies the like events
+            final Movie appliedMovie = applyLikeEvents(movie);
+            if (appliedMovie == null || appliedMovie.isDeleted()) {
+                return CompletableFuture.completedFuture(null);
             }
 
-            // Saves the pending likes
-            movie.getPendingLikes().forEach(account -> {
-                final MovieLike movieLike = new MovieLike();
-                movieLike.setId(movie.getId() + "-" + account);
-                movieLike.setMovieId(movie.getId());
-                movieLike.setAccount(account);
-
-                movieLikeRepository.save(movieLike);
-            });
-            movie.setPendingLikes(new HashSet<>());
-
-            // Removes the pending unlikes
-            movie.getPendingUnlikes()
-                .forEach(account -> movieLikeRepository.deleteById(movie.getId() + "-" + account));
-            movie.setPendingUnlikes(new HashSet<>());
-
-            // Calculates the total likes
-            movie.setTotalLikes(movieLikeRepository.countByMovieId(movie.getId()));
-
-            // Indexes the movie
-            final MovieIndex movieIndex = movieMapper.movieToMovieIndex(movie);
-            movieIndexRepository.save(movieIndex);
-
-            // Updates the movie in the database
-            final String currentRevision = movie.getRevision();
-            movie.setRevision(UUID.randomUUID().toString());
-            movie.setUpdated(false);
-            movieRepository.updateMovie(movie, currentRevision);
+            // Indexes the movie and marks it as indexed, unless more like events arrived
+            // in the meantime
+            final MovieIndex movieIndex = movieMapper.movieToMovieIndex(appliedMovie);
+
+            return movieIndexBulkProcessor.index(movieIndex)
+                .thenRun(() -> {
+                    if (!movieLikeEventRepository.existsByMovieId(appliedMovie.getId())) {
+                        movieRepository.markIndexed(appliedMovie.getId(), appliedMovie.getRevision());
+                    }
+                })
+                .exceptionally(ex -> logError(movie, ex));
         }
         catch (final Exception ex) {
-            log.error(String.format("An error occured while indexing movie %s: %s", movie.getId(), ex.getMessage()),
-                ex);
+            return CompletableFuture.completedFuture(logError(movie, ex));
+        }
+    }
+
+    /**
+     * Logs an error that occured while indexing a movie
+     * 
+     * @param movie
+     *            The movie
+     * @param ex
+     *            The error
+     * @return Always null
+     */
+    private Void logError(final Movie movie, final Throwable ex) {
+        log.error(String.format("An error occured while indexing movie %s: %s", movie.getId(), ex.getMessage()), ex);
+
+        return null;
+    }
+
+    /**
+     * Applies the like events of a movie in sequence order, in batches of bounded
+     * size, and stores the total likes from the like counter and the sequence
+     * number of the last applied event in the movie
+     * 
+     * @param movie
+     *            The movie
+     * @return The movie after the like events are applied, or null if the movie
+     *         doesn't exist anymore
+     */
+    private Movie applyLikeEvents(final Movie movie) {
+        long appliedSequence = 0;
+        List<MovieLikeEvent> events;
+
+        do {
+            events = movieLikeEventRepository.findOldestEvents(movie.getId(), LIKE_EVENTS_BATCH_SIZE);
+            if (events.isEmpty()) {
+                break;
+            }
+
+            applyLikeEvents(movie.getId(), events);
+            appliedSequence = events.get(events.size() - 1).getSeq();
+        }
+        while (events.size() == LIKE_EVENTS_BATCH_SIZE);
+
+        if (appliedSequence == 0) {
+            return movie;
         }
+
+        final Movie appliedMovie = movieRepository.updateTotalLikes(movie.getId(),
+            shardedLikeCounter.getTotal(movie.getId()), appliedSequence);
+        movieCache.evict(movie.getId());
+
+        return appliedMovie;
+    }
+
+    /**
+     * Writes a batch of like events to the movie likes in bulk and to the like
+     * index, updates the like counter and removes the events. The last event of
+     * each account wins.
+     * 
+     * The like counter is updated here and not when a movie is liked, because only
+     * the bulk write knows how many likes were actually added or removed; liking a
+     * movie twice doesn't change its likes. The events are flagged as applying
+     * before the write. If the indexer fails after the write and before the events
+     * are removed, the batch is written again by the next pass, but the write then
+     * reports no changes. So a batch that was already flagged recounts the likes
+     * of the movie and corrects the counter with the difference, instead of adding
+     * the reported changes.
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param events
+     *            The events in sequence order
+     */
+    private void applyLikeEvents(final String movieId, final List<MovieLikeEvent> events) {
+        final Map<String, Operation> operations = new LinkedHashMap<>();
+        events.forEach(event -> operations.put(event.getAccount(), event.getOp()));
+
+        final List<String> likes = getAccounts(operations, Operation.LIKE);
+        final List<String> unlikes = getAccounts(operations, Operation.UNLIKE);
+        final List<String> eventIds = events.stream().map(MovieLikeEvent::getId).collect(Collectors.toList());
+
+        final boolean replayed = events.stream().anyMatch(MovieLikeEvent::isApplying);
+        if (!replayed) {
+            movieLikeEventRepository.markApplying(eventIds);
+        }
+
+        final long startTime = System.nanoTime();
+        final long addedLikes = movieLikeRepository.addLikes(movieId, likes);
+        final long removedLikes = movieLikeRepository.removeLikes(movieId, unlikes);
+        meterRegistry.timer(LIKES_WRITE_METRIC).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        meterRegistry.counter(LIKES_APPLIED_METRIC).increment(events.size());
+
+        movieLikeIndex.apply(movieId, likes, unlikes, events.get(events.size() - 1).getSeq());
+        if (replayed) {
+            final long actualLikes = movieLikeRepository.countByMovieId(movieId);
+            shardedLikeCounter.add(movieId, actualLikes - shardedLikeCounter.getTotal(movieId));
+        }
+        else {
+            shardedLikeCounter.add(movieId, addedLikes - removedLikes);
+        }
+        movieLikeEventRepository.removeEvents(eventIds);
+    }
+
+    /**
+     * Returns the accounts whose last operation is the given one
+     * 
+     * @param operations
+     *            The last operation of each account
+     * @param operation
+     *            The operation
+     * @return The accounts
+     */
+    private List<String> getAccounts(final Map<String, Operation> operations, final Operation operation) {
+        return operations.entrySet().stream()
+            .filter(entry -> entry.getValue() == operation)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
     }
 }
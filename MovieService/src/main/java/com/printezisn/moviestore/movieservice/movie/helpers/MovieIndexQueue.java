@@ -0,0 +1,216 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded, deduplicating queue of movies waiting to be indexed. A movie is
+ * indexed once the debounce interval after its first enqueue has elapsed, so
+ * that several changes on the same movie within the interval produce a single
+ * reindex. A movie is indexed if it's marked as updated or has pending like
+ * events. Movies that don't fit in the queue keep either of them and are picked
+ * up by the sweeper.
+ */
+@Component
+@Slf4j
+public class MovieIndexQueue {
+
+    private static final String DEPTH_METRIC = "movie.index.queue.depth";
+    private static final String LAG_METRIC = "movie.index.queue.lag";
+    private static final String COALESCED_METRIC = "movie.index.queue.coalesced";
+    private static final String REJECTED_METRIC = "movie.index.queue.rejected";
+
+    private final MovieRepository movieRepository;
+    private final MovieLikeEventRepository movieLikeEventRepository;
+    private final MovieIndexWorkerPool movieIndexWorkerPool;
+    private final MeterRegistry meterRegistry;
+    private final long debounce;
+    private final int capacity;
+
+    private final Map<String, QueuedMovie> queuedMovies = new ConcurrentHashMap<>();
+    private final DelayQueue<QueuedMovie> delayQueue = new DelayQueue<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "movie-index-queue");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    /**
+     * The constructor
+     * 
+     * @param movieRepository
+     *            The movie repository
+     * @param movieLikeEventRepository
+     *            The movie like event repository
+     * @param movieIndexWorkerPool
+     *            The pool of workers that index movies
+     * @param meterRegistry
+     *            The registry of the queue metrics
+     * @param debounce
+     *            The time in milliseconds a movie waits in the queue before it is
+     *            indexed
+     * @param capacity
+     *            The maximum number of movies in the queue
+     */
+    public MovieIndexQueue(final MovieRepository movieRepository,
+        final MovieLikeEventRepository movieLikeEventRepository, final MovieIndexWorkerPool movieIndexWorkerPool,
+        final MeterRegistry meterRegistry,
+        @Value("${searchIndex.queue.debounce}") final long debounce,
+        @Value("${searchIndex.queue.capacity}") final int capacity) {
+
+        this.movieRepository = movieRepository;
+        this.movieLikeEventRepository = movieLikeEventRepository;
+        this.movieIndexWorkerPool = movieIndexWorkerPool;
+        this.meterRegistry = meterRegistry;
+        this.debounce = TimeUnit.MILLISECONDS.toNanos(debounce);
+        this.capacity = capacity;
+
+        Gauge.builder(DEPTH_METRIC, this, MovieIndexQueue::getDepth).register(meterRegistry);
+        Gauge.builder(LAG_METRIC, this, MovieIndexQueue::getLag).baseUnit("milliseconds").register(meterRegistry);
+    }
+
+    /**
+     * Starts dispatching queued movies to the workers
+     */
+    @PostConstruct
+    public void start() {
+        dispatcher.execute(this::dispatch);
+    }
+
+    /**
+     * Stops dispatching queued movies
+     */
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Adds a movie to the queue, unless it's already queued
+     * 
+     * @param movieId
+     *            The id of the movie
+     */
+    public void enqueue(final String movieId) {
+        if (queuedMovies.containsKey(movieId)) {
+            meterRegistry.counter(COALESCED_METRIC).increment();
+            return;
+        }
+        if (queuedMovies.size() >= capacity) {
+            meterRegistry.counter(REJECTED_METRIC).increment();
+            log.warn("The index queue is full, movie {} is left to the sweeper", movieId);
+            return;
+        }
+
+        final QueuedMovie queuedMovie = new QueuedMovie(movieId, System.nanoTime() + debounce);
+        if (queuedMovies.putIfAbsent(movieId, queuedMovie) != null) {
+            meterRegistry.counter(COALESCED_METRIC).increment();
+            return;
+        }
+
+        delayQueue.add(queuedMovie);
+    }
+
+    /**
+     * Returns the number of movies in the queue
+     * 
+     * @return The number of movies
+     */
+    public int getDepth() {
+        return queuedMovies.size();
+    }
+
+    /**
+     * Returns how long the oldest movie in the queue has been waiting
+     * 
+     * @return The time in milliseconds
+     */
+    public long getLag() {
+        final QueuedMovie oldestMovie = delayQueue.peek();
+        if (oldestMovie == null) {
+            return 0;
+        }
+
+        final long enqueueTime = oldestMovie.getDeadline() - debounce;
+
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, System.nanoTime() - enqueueTime));
+    }
+
+    /**
+     * Hands queued movies to the workers when their debounce interval elapses
+     */
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final QueuedMovie queuedMovie;
+            try {
+                queuedMovie = delayQueue.take();
+            }
+            catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            // The movie is removed before it's loaded, so that changes made from now on
+            // enqueue it again
+            queuedMovies.remove(queuedMovie.getMovieId());
+
+            try {
+                movieRepository.findById(queuedMovie.getMovieId())
+                    .filter(movie -> movie.isUpdated() || movieLikeEventRepository.existsByMovieId(movie.getId()))
+                    .ifPresent(movieIndexWorkerPool::submit);
+            }
+            catch (final Exception ex) {
+                log.error(String.format("An error occured while loading movie %s to index: %s",
+                    queuedMovie.getMovieId(), ex.getMessage()), ex);
+            }
+        }
+    }
+
+    /**
+     * A movie waiting in the queue
+     */
+    @RequiredArgsConstructor
+    @Getter
+    private static class QueuedMovie implements Delayed {
+
+        private final String movieId;
+        private final long deadline;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(deadline, ((QueuedMovie) other).deadline);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sweeps the movies that need to be indexed at a regular interval. Movies are
+ * streamed from the database in batches and each batch is indexed by the worker
+ * pool before the next one is read, so memory stays bounded by the batch size.
+ * The movies marked as updated are swept first, followed by the movies that
+ * have pending like events, which a like doesn't mark on the movie itself. The
+ * pending events of movies that don't exist anymore are removed.
+ * A completed sweep lets the index bootstrap remove the indexes of previous
+ * mapping versions after a rebuild.
+ */
+@Component
+@Slf4j
+public class MovieIndexSweeper {
+
+    private final MovieRepository movieRepository;
+    private final MovieLikeEventRepository movieLikeEventRepository;
+    private final MovieIndexWorkerPool movieIndexWorkerPool;
+    private final MovieIndexBootstrap movieIndexBootstrap;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * The constructor
+     * 
+     * @param movieRepository
+     *            The movie repository
+     * @param movieLikeEventRepository
+     *            The movie like event repository
+     * @param movieIndexWorkerPool
+     *            The pool of workers that index movies
+     * @param movieIndexBootstrap
+     *            The bootstrap of the search index
+     * @param batchSize
+     *            The number of movies handed to the workers at a time
+     */
+    public MovieIndexSweeper(final MovieRepository movieRepository,
+        final MovieLikeEventRepository movieLikeEventRepository, final MovieIndexWorkerPool movieIndexWorkerPool,
+        final MovieIndexBootstrap movieIndexBootstrap, @Value("${searchIndex.batchSize}") final int batchSize) {
+
+        this.movieRepository = movieRepository;
+        this.movieLikeEventRepository = movieLikeEventRepository;
+        this.movieIndexWorkerPool = movieIndexWorkerPool;
+        this.movieIndexBootstrap = movieIndexBootstrap;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Updates the search index at a regular interval. A run is skipped if the
+     * previous one hasn't finished yet.
+     */
+    @Scheduled(fixedRateString = "${searchIndex.fixedRate}")
+    public void sweep() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Skipping search index update, because the previous one is still running");
+            return;
+        }
+
+        try (final CloseableIterator<Movie> movies = movieRepository.streamUpdatedMovies(batchSize)) {
+            final List<CompletableFuture<Void>> batch = new ArrayList<>(batchSize);
+            while (movies.hasNext()) {
+                batch.add(movieIndexWorkerPool.submit(movies.next()));
+                if (batch.size() == batchSize) {
+                    waitForBatch(batch);
+                }
+            }
+            waitForBatch(batch);
+
+            sweepPendingLikes(batch);
+
+            movieIndexBootstrap.onSweepCompleted();
+        }
+        catch (final Exception ex) {
+            log.error("An error occured while loading movies to index: " + ex.getMessage(), ex);
+        }
+        finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Indexes the movies that have pending like events, in batches
+     * 
+     * @param batch
+     *            The list that holds the futures of a batch
+     */
+    private void sweepPendingLikes(final List<CompletableFuture<Void>> batch) {
+        final List<String> movieIds = movieLikeEventRepository.findPendingMovieIds();
+        for (int i = 0; i < movieIds.size(); i += batchSize) {
+            final Set<String> missingMovieIds = new HashSet<>(
+                movieIds.subList(i, Math.min(i + batchSize, movieIds.size())));
+            for (final Movie movie : movieRepository.findAllById(missingMovieIds)) {
+                missingMovieIds.remove(movie.getId());
+                batch.add(movieIndexWorkerPool.submit(movie));
+            }
+            missingMovieIds.forEach(movieLikeEventRepository::deleteByMovieId);
+            waitForBatch(batch);
+        }
+    }
+
+    /**
+     * Waits until all movies of a batch are indexed and clears the batch
+     * 
+     * @param batch
+     *            The futures of the batch
+     */
+    private void waitForBatch(final List<CompletableFuture<Void>> batch) {
+        CompletableFuture.allOf(batch.toArray(new CompletableFuture<?>[0])).join();
+        batch.clear();
+    }
+}
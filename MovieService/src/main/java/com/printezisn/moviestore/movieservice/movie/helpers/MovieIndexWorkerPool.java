@@ -0,0 +1,161 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded pool of workers that index movies. Movies are partitioned by their id,
+ * so that a movie is always indexed by the same worker and never concurrently
+ * with itself. Indexing completes after the worker is released, when the bulk
+ * request of the movie is flushed. A movie whose previous pass is still being
+ * flushed is put back on its worker once that pass completes, so the worker
+ * moves on to other movies instead of waiting. Only new submissions count
+ * against the capacity of a worker, so putting a movie back never blocks the
+ * thread that completes its previous pass.
+ */
+@Component
+@Slf4j
+public class MovieIndexWorkerPool {
+
+    private final MovieIndexHelper movieIndexHelper;
+    private final List<ThreadPoolExecutor> workers;
+    private final List<Semaphore> capacities;
+    private final Map<String, CompletableFuture<Void>> pendingMovies = new ConcurrentHashMap<>();
+
+    /**
+     * The constructor
+     * 
+     * @param movieIndexHelper
+     *            The helper used to index movies
+     * @param totalWorkers
+     *            The number of workers
+     * @param queueCapacity
+     *            The maximum number of movies waiting for each worker
+     */
+    public MovieIndexWorkerPool(final MovieIndexHelper movieIndexHelper,
+        @Value("${searchIndex.workers.count}") final int totalWorkers,
+        @Value("${searchIndex.workers.queueCapacity}") final int queueCapacity) {
+
+        this.movieIndexHelper = movieIndexHelper;
+        this.workers = new ArrayList<>(totalWorkers);
+        this.capacities = new ArrayList<>(totalWorkers);
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        for (int i = 0; i < totalWorkers; i++) {
+            final ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "movie-indexer-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+
+            workers.add(worker);
+            capacities.add(new Semaphore(queueCapacity));
+        }
+    }
+
+    /**
+     * Submits a movie to the worker of its partition. If the worker is full, the
+     * caller blocks until there is capacity.
+     * 
+     * @param movie
+     *            The movie to index
+     * @return A future that completes when the movie is indexed
+     */
+    public CompletableFuture<Void> submit(final Movie movie) {
+        final int partition = Math.floorMod(movie.getId().hashCode(), workers.size());
+        final ThreadPoolExecutor worker = workers.get(partition);
+        final Semaphore capacity = capacities.get(partition);
+
+        waitForCapacity(worker, capacity);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                capacity.release();
+
+                return index(movie, worker);
+            }, worker).thenCompose(Function.identity());
+        }
+        catch (final RejectedExecutionException ex) {
+            capacity.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Stops the workers
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    /**
+     * Indexes a movie on its worker. If the previous pass of the movie hasn't
+     * completed yet, the movie is put back on the worker when it does. Passes of
+     * the same movie always run on the same worker, so the pending pass of a movie
+     * is only replaced by that worker.
+     * 
+     * @param movie
+     *            The movie to index
+     * @param worker
+     *            The worker of the movie
+     * @return A future that completes when the movie is indexed
+     */
+    private CompletableFuture<Void> index(final Movie movie, final ThreadPoolExecutor worker) {
+        final CompletableFuture<Void> previousPass = pendingMovies.get(movie.getId());
+        if (previousPass != null && !previousPass.isDone()) {
+            return previousPass
+                .handle((result, ex) -> movie)
+                .thenComposeAsync(pendingMovie -> index(pendingMovie, worker), worker);
+        }
+
+        final CompletableFuture<Void> pass = movieIndexHelper.indexMovie(movie);
+        pendingMovies.put(movie.getId(), pass);
+        pass.whenComplete((result, ex) -> pendingMovies.remove(movie.getId(), pass));
+
+        return pass;
+    }
+
+    /**
+     * Blocks until a worker has capacity for a new movie
+     * 
+     * @param worker
+     *            The worker
+     * @param capacity
+     *            The capacity of the worker
+     */
+    private static void waitForCapacity(final ThreadPoolExecutor worker, final Semaphore capacity) {
+        if (worker.isShutdown()) {
+            throw new RejectedExecutionException("The movie index worker is shut down");
+        }
+
+        try {
+            capacity.acquire();
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a movie index worker", ex);
+        }
+    }
+}
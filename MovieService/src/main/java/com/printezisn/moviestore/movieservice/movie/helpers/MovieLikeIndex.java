@@ -0,0 +1,498 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLike;
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeBitmap;
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeIndexStats;
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeSnapshot;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory index of the movie likes. Accounts are encoded to sequential ints
+ * and each movie keeps a compressed bitmap of the accounts that like it, so
+ * that checking a like or counting the likes of a movie doesn't reach the
+ * database. The index is updated whenever the indexer writes likes. Encoded
+ * accounts are never removed, since an account that no longer likes any movie
+ * is likely to like one again. At startup the index is restored from the last
+ * snapshot, whose bitmaps stay mapped from the snapshot file until they change,
+ * and only the movies whose likes were applied since the snapshot and whose
+ * applied like sequence differs from the one recorded in the snapshot are
+ * reloaded from the database. All likes are loaded only if there is no usable
+ * snapshot. Since likes may be applied by the indexer of another instance, a
+ * catch-up pass regularly reloads the movies whose likes were applied past the
+ * sequence of the index. The likes of movies deleted while the instance was
+ * down may stay in the index until the next snapshot drops them, but they are
+ * never served, because a movie is read from the database before its likes.
+ */
+@Component
+@Slf4j
+public class MovieLikeIndex implements InfoContributor {
+
+    private static final String BYTES_METRIC = "movie.likes.index.bytes";
+    private static final String LIKES_METRIC = "movie.likes.index.likes";
+    private static final int REBUILD_BATCH_SIZE = 10000;
+
+    // Estimated bytes of a dictionary entry without the characters of the account
+    // (hash map node, string, byte array and boxed id), and of a movie entry
+    // (hash map node, movie id and empty bitmap)
+    private static final long ACCOUNT_ENTRY_BYTES = 88;
+    private static final long MOVIE_ENTRY_BYTES = 160;
+
+    private final MovieRepository movieRepository;
+    private final MovieLikeRepository movieLikeRepository;
+    private final MovieLikeIndexSnapshot movieLikeIndexSnapshot;
+    private final long catchUpOverlap;
+
+    private final Map<String, Integer> accountIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextAccountId = new AtomicInteger();
+    private final Map<String, MovieLikeBitmap> movieLikes = new ConcurrentHashMap<>();
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+    private volatile long lastCatchUp;
+
+    /**
+     * The constructor
+     * 
+     * @param movieRepository
+     *            The movie repository
+     * @param movieLikeRepository
+     *            The movie like repository
+     * @param movieLikeIndexSnapshot
+     *            The snapshot file of the index
+     * @param meterRegistry
+     *            The registry of the index metrics
+     * @param catchUpOverlap
+     *            The milliseconds by which each catch-up pass overlaps the previous
+     *            one, which covers clock differences between instances
+     */
+    public MovieLikeIndex(final MovieRepository movieRepository, final MovieLikeRepository movieLikeRepository,
+        final MovieLikeIndexSnapshot movieLikeIndexSnapshot, final MeterRegistry meterRegistry,
+        @Value("${likeIndex.catchUp.overlap}") final long catchUpOverlap) {
+
+        this.movieRepository = movieRepository;
+        this.movieLikeRepository = movieLikeRepository;
+        this.movieLikeIndexSnapshot = movieLikeIndexSnapshot;
+        this.catchUpOverlap = catchUpOverlap;
+
+        Gauge.builder(BYTES_METRIC, this, index -> index.getStats().getTotalBytes())
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder(LIKES_METRIC, this, index -> index.getStats().getLikes()).register(meterRegistry);
+    }
+
+    /**
+     * Loads the index from the last snapshot and the database
+     */
+    @PostConstruct
+    public void initialize() {
+        final long startTime = System.nanoTime();
+        lastCatchUp = Instant.now().toEpochMilli();
+
+        final Optional<MovieLikeSnapshot> snapshot = movieLikeIndexSnapshot.read();
+        if (snapshot.isPresent()) {
+            restore(snapshot.get());
+        }
+        else {
+            loadLikes();
+        }
+        // Movies whose likes were never applied have a timestamp of 0 and no sequence
+        // to record
+        final int reloadedMovies = snapshot.isPresent()
+            ? synchronize(snapshot.get().getTimestamp() - catchUpOverlap, true)
+            : synchronize(1, false);
+
+        movieLikes.values().forEach(likes -> {
+            synchronized (likes) {
+                if (likes.getAccounts() instanceof MutableRoaringBitmap) {
+                    ((MutableRoaringBitmap) likes.getAccounts()).runOptimize();
+                }
+            }
+        });
+
+        log.info("Loaded the likes of {} movies in the like index in {} ms ({}, {} movies reloaded)",
+            movieLikes.size(), (System.nanoTime() - startTime) / 1000000,
+            snapshot.isPresent() ? "from snapshot" : "full rebuild", reloadedMovies);
+    }
+
+    /**
+     * Writes a snapshot of the index at a regular interval and at shutdown. A run
+     * is skipped if the previous one hasn't finished yet. The likes of movies that
+     * don't exist anymore are dropped from the index and left out of the snapshot.
+     */
+    @Scheduled(fixedRateString = "${likeIndex.snapshot.rate}", initialDelayString = "${likeIndex.snapshot.rate}")
+    @PreDestroy
+    public void saveSnapshot() {
+        if (!snapshotRunning.compareAndSet(false, true)) {
+            log.warn("Skipping like index snapshot, because the previous one is still running");
+            return;
+        }
+
+        try {
+            final long startTime = System.nanoTime();
+
+            // Movies are copied before the accounts, so that every account id in the
+            // copied bitmaps is also in the copied dictionary. Bitmaps that are still
+            // mapped from the previous snapshot never change, so they aren't copied.
+            final Map<String, MovieLikeBitmap> movies = new HashMap<>(movieLikes.size() * 2);
+            movieLikes.forEach((movieId, likes) -> {
+                synchronized (likes) {
+                    final ImmutableRoaringBitmap accounts = (likes.getAccounts() instanceof MutableRoaringBitmap)
+                        ? likes.getAccounts().clone()
+                        : likes.getAccounts();
+                    movies.put(movieId, new MovieLikeBitmap(accounts, likes.getSequence()));
+                }
+            });
+            removeDeletedMovies(movies);
+
+            final String[] accounts = new String[nextAccountId.get()];
+            accountIds.forEach((account, accountId) -> {
+                if (accountId < accounts.length) {
+                    accounts[accountId] = account;
+                }
+            });
+
+            movieLikeIndexSnapshot.write(MovieLikeSnapshot.builder()
+                .timestamp(Instant.now().toEpochMilli())
+                .accounts(Arrays.asList(accounts))
+                .movies(movies)
+                .build());
+
+            log.info("Saved a snapshot of the likes of {} movies in {} ms", movies.size(),
+                (System.nanoTime() - startTime) / 1000000);
+        }
+        catch (final Exception ex) {
+            log.error("An error occured while saving a like index snapshot: " + ex.getMessage(), ex);
+        }
+        finally {
+            snapshotRunning.set(false);
+        }
+    }
+
+    /**
+     * Reloads the movies whose like events were applied by any instance since the
+     * previous pass, if the index hasn't reached the sequence of the last applied
+     * event. Movies whose likes were applied by this instance are skipped, since
+     * the index already has their sequence.
+     */
+    @Scheduled(fixedRateString = "${likeIndex.catchUp.rate}", initialDelayString = "${likeIndex.catchUp.rate}")
+    public void catchUp() {
+        try {
+            final long startTime = Instant.now().toEpochMilli();
+
+            int reloadedMovies = 0;
+            for (final Movie movie : movieRepository.findLikesAppliedSince(lastCatchUp - catchUpOverlap)) {
+                if (getSequence(movie.getId()) < movie.getAppliedLikeSequence()) {
+                    reload(movie.getId(), movie.getAppliedLikeSequence());
+                    reloadedMovies++;
+                }
+            }
+            lastCatchUp = startTime;
+
+            if (reloadedMovies > 0) {
+                log.info("Reloaded the likes of {} movies that were applied by other instances", reloadedMovies);
+            }
+        }
+        catch (final Exception ex) {
+            log.error("An error occured while catching up the like index: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Checks if an account likes a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param account
+     *            The account
+     * @return True if the account likes the movie, otherwise false
+     */
+    public boolean hasLiked(final String movieId, final String account) {
+        final Integer accountId = accountIds.get(account);
+        final MovieLikeBitmap likes = movieLikes.get(movieId);
+        if (accountId == null || likes == null) {
+            return false;
+        }
+
+        synchronized (likes) {
+            return likes.getAccounts().contains(accountId);
+        }
+    }
+
+    /**
+     * Returns the number of likes of a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @return The number of likes
+     */
+    public long getLikes(final String movieId) {
+        final MovieLikeBitmap likes = movieLikes.get(movieId);
+        if (likes == null) {
+            return 0;
+        }
+
+        synchronized (likes) {
+            return likes.getAccounts().getLongCardinality();
+        }
+    }
+
+    /**
+     * Adds and removes likes of a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param likes
+     *            The accounts that like the movie
+     * @param unlikes
+     *            The accounts that no longer like the movie
+     * @param sequence
+     *            The sequence number of the last like event that was applied
+     */
+    public void apply(final String movieId, final Collection<String> likes, final Collection<String> unlikes,
+        final long sequence) {
+
+        final MovieLikeBitmap movieLikeBitmap = getOrCreate(movieId);
+
+        synchronized (movieLikeBitmap) {
+            final MutableRoaringBitmap bitmap = movieLikeBitmap.getMutableAccounts();
+            likes.forEach(account -> bitmap.add(encode(account)));
+            unlikes.forEach(account -> {
+                final Integer accountId = accountIds.get(account);
+                if (accountId != null) {
+                    bitmap.remove(accountId);
+                }
+            });
+            movieLikeBitmap.setSequence(Math.max(movieLikeBitmap.getSequence(), sequence));
+        }
+    }
+
+    /**
+     * Removes the likes of a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     */
+    public void remove(final String movieId) {
+        movieLikes.remove(movieId);
+    }
+
+    /**
+     * Returns the size and the estimated memory footprint of the index
+     * 
+     * @return The statistics of the index
+     */
+    public MovieLikeIndexStats getStats() {
+        long likes = 0;
+        long bitmapBytes = 0;
+        for (final MovieLikeBitmap movieLikeBitmap : movieLikes.values()) {
+            synchronized (movieLikeBitmap) {
+                likes += movieLikeBitmap.getAccounts().getLongCardinality();
+                bitmapBytes += movieLikeBitmap.getAccounts().getLongSizeInBytes();
+            }
+        }
+        bitmapBytes += movieLikes.size() * MOVIE_ENTRY_BYTES;
+
+        final long dictionaryBytes = accountIds.keySet().stream()
+            .mapToLong(account -> ACCOUNT_ENTRY_BYTES + account.length())
+            .sum();
+
+        return MovieLikeIndexStats.builder()
+            .movies(movieLikes.size())
+            .accounts(accountIds.size())
+            .likes(likes)
+            .bitmapBytes(bitmapBytes)
+            .dictionaryBytes(dictionaryBytes)
+            .totalBytes(bitmapBytes + dictionaryBytes)
+            .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void contribute(final Info.Builder builder) {
+        builder.withDetail("likeIndex", getStats());
+    }
+
+    /**
+     * Restores the account dictionary and the movie likes of a snapshot
+     * 
+     * @param snapshot
+     *            The snapshot
+     */
+    private void restore(final MovieLikeSnapshot snapshot) {
+        for (int i = 0; i < snapshot.getAccounts().size(); i++) {
+            if (snapshot.getAccounts().get(i) != null) {
+                accountIds.put(snapshot.getAccounts().get(i), i);
+            }
+        }
+        nextAccountId.set(snapshot.getAccounts().size());
+        movieLikes.putAll(snapshot.getMovies());
+    }
+
+    /**
+     * Loads all likes from the database
+     */
+    private void loadLikes() {
+        try (final CloseableIterator<MovieLike> likes = movieLikeRepository.streamLikes(REBUILD_BATCH_SIZE)) {
+            while (likes.hasNext()) {
+                final MovieLike like = likes.next();
+                final MovieLikeBitmap movieLikeBitmap = getOrCreate(like.getMovieId());
+                synchronized (movieLikeBitmap) {
+                    movieLikeBitmap.getMutableAccounts().add(encode(like.getAccount()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the index up to date with the movies whose likes were applied at or
+     * after the given time. If the index was restored from a snapshot, such movies
+     * are reloaded if their applied like sequence differs from the index,
+     * otherwise their sequence is set to their applied like sequence.
+     * 
+     * @param since
+     *            The time, in milliseconds since the epoch
+     * @param restored
+     *            True if the index was restored from a snapshot
+     * @return The number of reloaded movies
+     */
+    private int synchronize(final long since, final boolean restored) {
+        int reloadedMovies = 0;
+        for (final Movie movie : movieRepository.findLikesAppliedSince(since)) {
+            if (restored && getSequence(movie.getId()) != movie.getAppliedLikeSequence()) {
+                reload(movie.getId(), movie.getAppliedLikeSequence());
+                reloadedMovies++;
+            }
+            else if (movie.getAppliedLikeSequence() > 0) {
+                getOrCreate(movie.getId()).setSequence(movie.getAppliedLikeSequence());
+            }
+        }
+
+        return reloadedMovies;
+    }
+
+    /**
+     * Removes the likes of the movies that don't exist anymore from the index and
+     * from a copy of its movies. The movies are checked in batches, and only their
+     * ids are read. The likes are kept if the check fails.
+     * 
+     * @param movies
+     *            The copy of the movies of the index
+     */
+    private void removeDeletedMovies(final Map<String, MovieLikeBitmap> movies) {
+        try {
+            final List<String> movieIds = new ArrayList<>(movies.keySet());
+            for (int i = 0; i < movieIds.size(); i += REBUILD_BATCH_SIZE) {
+                final List<String> batch = movieIds.subList(i, Math.min(i + REBUILD_BATCH_SIZE, movieIds.size()));
+                final Set<String> deletedMovies = new HashSet<>(batch);
+                deletedMovies.removeAll(movieRepository.findExistingIds(batch));
+
+                deletedMovies.forEach(movieId -> {
+                    movies.remove(movieId);
+                    movieLikes.remove(movieId);
+                });
+            }
+        }
+        catch (final Exception ex) {
+            log.error("An error occured while removing the likes of deleted movies: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Reloads the likes of a movie from the database. The likes are kept if the
+     * index has reached a later sequence in the meantime.
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param sequence
+     *            The sequence number of the last like event that the database is
+     *            known to reflect, or 0 if it isn't known
+     */
+    private void reload(final String movieId, final long sequence) {
+        final MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+        movieLikeRepository.findByMovieId(movieId).forEach(like -> bitmap.add(encode(like.getAccount())));
+
+        final MovieLikeBitmap reloaded = new MovieLikeBitmap(bitmap, sequence);
+        movieLikes.merge(movieId, reloaded,
+            (current, loaded) -> (sequence > 0 && getSequence(current) >= sequence) ? current : loaded);
+    }
+
+    /**
+     * Returns the sequence number of the last like event in the index for a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @return The sequence number, or 0 if the movie has no likes in the index
+     */
+    private long getSequence(final String movieId) {
+        final MovieLikeBitmap movieLikeBitmap = movieLikes.get(movieId);
+
+        return (movieLikeBitmap != null) ? getSequence(movieLikeBitmap) : 0;
+    }
+
+    /**
+     * Returns the sequence number of the last like event in the likes of a movie
+     * 
+     * @param movieLikeBitmap
+     *            The likes of the movie
+     * @return The sequence number
+     */
+    private long getSequence(final MovieLikeBitmap movieLikeBitmap) {
+        synchronized (movieLikeBitmap) {
+            return movieLikeBitmap.getSequence();
+        }
+    }
+
+    /**
+     * Returns the likes of a movie, adding an empty entry if the movie has none
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @return The likes of the movie
+     */
+    private MovieLikeBitmap getOrCreate(final String movieId) {
+        return movieLikes.computeIfAbsent(movieId, id -> new MovieLikeBitmap(new MutableRoaringBitmap(), 0));
+    }
+
+    /**
+     * Returns the id of an account, assigning the next one if the account is new
+     * 
+     * @param account
+     *            The account
+     * @return The id of the account
+     */
+    private int encode(final String account) {
+        return accountIds.computeIfAbsent(account, key -> nextAccountId.getAndIncrement());
+    }
+}
@@ -0,0 +1,302 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeBitmap;
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeSnapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes snapshots of the like index to a local memory-mapped file and reads
+ * them back. A snapshot is written to a temporary file that replaces the
+ * previous one only when it is complete. It starts with a header that holds a
+ * CRC32 checksum of the rest of the file, so a corrupt, truncated or
+ * incompatible snapshot is rejected instead of loaded. The bitmaps of a read
+ * snapshot are not copied to the heap, but stay mapped from the file. The
+ * mapping stays valid after a later snapshot replaces the file, since the
+ * replaced file is only unlinked.
+ * 
+ * <pre>
+ * int magic, int version, long checksum, long timestamp, long payload length
+ * int accounts, then per account: int length (-1 if unassigned), UTF-8 bytes
+ * int movies, then per movie: int length, UTF-8 id, long sequence, int length, bitmap
+ * </pre>
+ */
+@Component
+@Slf4j
+public class MovieLikeIndexSnapshot {
+
+    private static final int MAGIC = 0x4D4C4958;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CHECKSUM_OFFSET = 8;
+    private static final int CHECKSUM_START = 16;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final Path file;
+    private final long maxAge;
+
+    /**
+     * The constructor
+     * 
+     * @param file
+     *            The path of the snapshot file
+     * @param maxAge
+     *            The age in milliseconds after which a snapshot is too stale to
+     *            be loaded
+     */
+    public MovieLikeIndexSnapshot(@Value("${likeIndex.snapshot.file}") final String file,
+        @Value("${likeIndex.snapshot.maxAge}") final long maxAge) {
+
+        this.file = Paths.get(file);
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Writes a snapshot, replacing the previous one
+     * 
+     * @param snapshot
+     *            The snapshot
+     * @throws IOException
+     *             Exception thrown if the snapshot can't be written
+     */
+    public void write(final MovieLikeSnapshot snapshot) throws IOException {
+        final List<byte[]> accounts = new ArrayList<>(snapshot.getAccounts().size());
+        long size = HEADER_SIZE + Integer.BYTES;
+        for (final String account : snapshot.getAccounts()) {
+            final byte[] bytes = (account != null) ? account.getBytes(StandardCharsets.UTF_8) : null;
+            accounts.add(bytes);
+            size += Integer.BYTES + ((bytes != null) ? bytes.length : 0);
+        }
+
+        final Map<byte[], MovieLikeBitmap> movies = new LinkedHashMap<>();
+        size += Integer.BYTES;
+        for (final Map.Entry<String, MovieLikeBitmap> entry : snapshot.getMovies().entrySet()) {
+            final byte[] movieId = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            movies.put(movieId, entry.getValue());
+            size += Integer.BYTES + movieId.length + Long.BYTES + Integer.BYTES
+                + entry.getValue().getAccounts().serializedSizeInBytes();
+        }
+
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+
+        final Path tempFile = Paths.get(file.toString() + TEMP_FILE_SUFFIX);
+        try (final FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0).putLong(snapshot.getTimestamp())
+                .putLong(size - HEADER_SIZE);
+
+            buffer.putInt(accounts.size());
+            accounts.forEach(account -> putBytes(buffer, account));
+
+            final DataOutputStream output = new DataOutputStream(new ByteBufferOutputStream(buffer));
+            buffer.putInt(movies.size());
+            for (final Map.Entry<byte[], MovieLikeBitmap> entry : movies.entrySet()) {
+                putBytes(buffer, entry.getKey());
+                buffer.putLong(entry.getValue().getSequence());
+                buffer.putInt(entry.getValue().getAccounts().serializedSizeInBytes());
+                entry.getValue().getAccounts().serialize(output);
+            }
+
+            buffer.putLong(CHECKSUM_OFFSET, checksum(buffer));
+            buffer.force();
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the snapshot
+     * 
+     * @return The snapshot, or an empty optional if there is no snapshot or it is
+     *         corrupt, incompatible or stale
+     */
+    public Optional<MovieLikeSnapshot> read() {
+        if (!Files.exists(file)) {
+            log.info("No like index snapshot found at {}", file);
+            return Optional.empty();
+        }
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                log.warn("Ignoring like index snapshot {}, because its size {} is invalid", file, size);
+                return Optional.empty();
+            }
+
+            final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+            final int magic = buffer.getInt();
+            final int version = buffer.getInt();
+            final long checksum = buffer.getLong();
+            final long timestamp = buffer.getLong();
+            final long payloadLength = buffer.getLong();
+
+            if (magic != MAGIC || version != VERSION) {
+                log.warn("Ignoring like index snapshot {}, because its format is not supported", file);
+                return Optional.empty();
+            }
+            if (payloadLength != size - HEADER_SIZE || checksum != checksum(buffer)) {
+                log.warn("Ignoring like index snapshot {}, because it is corrupt", file);
+                return Optional.empty();
+            }
+
+            final long age = Instant.now().toEpochMilli() - timestamp;
+            if (age > maxAge) {
+                log.warn("Ignoring like index snapshot {}, because it is {} ms old", file, age);
+                return Optional.empty();
+            }
+
+            final int accountCount = buffer.getInt();
+            final List<String> accounts = new ArrayList<>(accountCount);
+            for (int i = 0; i < accountCount; i++) {
+                final byte[] account = getBytes(buffer);
+                accounts.add((account != null) ? new String(account, StandardCharsets.UTF_8) : null);
+            }
+
+            final int movieCount = buffer.getInt();
+            final Map<String, MovieLikeBitmap> movies = new HashMap<>(movieCount * 2);
+            for (int i = 0; i < movieCount; i++) {
+                final String movieId = new String(getBytes(buffer), StandardCharsets.UTF_8);
+                final long sequence = buffer.getLong();
+                final int bitmapSize = buffer.getInt();
+
+                final ByteBuffer bitmapBuffer = buffer.slice();
+                bitmapBuffer.limit(bitmapSize);
+                buffer.position(buffer.position() + bitmapSize);
+
+                movies.put(movieId, new MovieLikeBitmap(new ImmutableRoaringBitmap(bitmapBuffer), sequence));
+            }
+
+            return Optional.of(MovieLikeSnapshot.builder()
+                .timestamp(timestamp)
+                .accounts(accounts)
+                .movies(movies)
+                .build());
+        }
+        catch (final IOException | RuntimeException ex) {
+            log.warn("Ignoring like index snapshot " + file + ", because it can't be read: " + ex.getMessage(), ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the checksum of everything in a snapshot after the checksum field
+     * 
+     * @param buffer
+     *            The buffer of the whole snapshot
+     * @return The checksum
+     */
+    private long checksum(final ByteBuffer buffer) {
+        final ByteBuffer checkedBuffer = buffer.duplicate();
+        checkedBuffer.position(CHECKSUM_START).limit(checkedBuffer.capacity());
+
+        final CRC32 crc = new CRC32();
+        crc.update(checkedBuffer);
+
+        return crc.getValue();
+    }
+
+    /**
+     * Writes a length-prefixed byte array, or a length of -1 for null
+     * 
+     * @param buffer
+     *            The buffer
+     * @param bytes
+     *            The byte array
+     */
+    private void putBytes(final ByteBuffer buffer, final byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed byte array
+     * 
+     * @param buffer
+     *            The buffer
+     * @return The byte array, or null if the length is -1
+     */
+    private byte[] getBytes(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Output stream that writes to a byte buffer, so that bitmaps are serialized
+     * directly to the mapped file
+     */
+    private static class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer buffer;
+
+        /**
+         * The constructor
+         * 
+         * @param buffer
+         *            The buffer
+         */
+        ByteBufferOutputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(final int b) {
+            buffer.put((byte) b);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            buffer.put(bytes, offset, length);
+        }
+    }
+}
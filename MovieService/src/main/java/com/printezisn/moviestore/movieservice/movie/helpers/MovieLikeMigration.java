@@ -0,0 +1,125 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent.Operation;
+import com.printezisn.moviestore.movieservice.movie.models.MoviePendingLikes;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves the likes and unlikes that movies kept in pending sets, before likes
+ * were recorded as like events, to the like event log at startup. The events of
+ * a movie are inserted before its sets are removed, and the indexer applies
+ * them like any other pending events, so an upgrade doesn't have to wait for
+ * the pending sets to be drained. If a startup stops in between, the events of
+ * the movie are inserted again by the next one, which is harmless, because
+ * applying the same like or unlike twice has no further effect.
+ */
+@Component
+@Slf4j
+public class MovieLikeMigration {
+
+    private final MovieRepository movieRepository;
+    private final MovieLikeEventRepository movieLikeEventRepository;
+    private final MovieLikeSequencer movieLikeSequencer;
+    private final int batchSize;
+
+    /**
+     * The constructor
+     * 
+     * @param movieRepository
+     *            The movie repository
+     * @param movieLikeEventRepository
+     *            The movie like event repository
+     * @param movieLikeSequencer
+     *            The sequencer of like events
+     * @param batchSize
+     *            The number of movies fetched from the database at a time
+     */
+    public MovieLikeMigration(final MovieRepository movieRepository,
+        final MovieLikeEventRepository movieLikeEventRepository, final MovieLikeSequencer movieLikeSequencer,
+        @Value("${searchIndex.batchSize}") final int batchSize) {
+
+        this.movieRepository = movieRepository;
+        this.movieLikeEventRepository = movieLikeEventRepository;
+        this.movieLikeSequencer = movieLikeSequencer;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Migrates the pending sets of all movies that still have them
+     */
+    @PostConstruct
+    public void migrate() {
+        long migratedMovies = 0;
+        List<MoviePendingLikes> movies;
+        do {
+            movies = movieRepository.findPendingLikeSets(batchSize);
+            for (final MoviePendingLikes movie : movies) {
+                migrate(movie);
+                migratedMovies++;
+            }
+        }
+        while (movies.size() == batchSize);
+
+        if (migratedMovies > 0) {
+            log.info("Migrated the pending likes of {} movies to like events", migratedMovies);
+        }
+    }
+
+    /**
+     * Migrates the pending sets of a movie
+     * 
+     * @param movie
+     *            The pending likes and unlikes of the movie
+     */
+    private void migrate(final MoviePendingLikes movie) {
+        final List<MovieLikeEvent> events = new ArrayList<>();
+        addEvents(events, movie.getId(), movie.getPendingLikes(), Operation.LIKE);
+        addEvents(events, movie.getId(), movie.getPendingUnlikes(), Operation.UNLIKE);
+
+        if (!events.isEmpty()) {
+            movieLikeEventRepository.insert(events);
+        }
+        movieRepository.removePendingLikeSets(movie.getId());
+    }
+
+    /**
+     * Adds a like event for each account of a pending set
+     * 
+     * @param events
+     *            The list of events to add to
+     * @param movieId
+     *            The id of the movie
+     * @param accounts
+     *            The accounts of the pending set, or null if the movie doesn't
+     *            have the set
+     * @param operation
+     *            The operation of the events
+     */
+    private void addEvents(final List<MovieLikeEvent> events, final String movieId,
+        final Collection<String> accounts, final Operation operation) {
+
+        if (accounts == null) {
+            return;
+        }
+
+        accounts.forEach(account -> events.add(MovieLikeEvent.builder()
+            .movieId(movieId)
+            .account(account)
+            .op(operation)
+            .seq(movieLikeSequencer.next())
+            .build()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Repairs the like counters at a regular interval. The likes of each movie are
+ * counted and, if the like counter or the total likes of the movie have
+ * drifted, they are corrected and the movie is marked for indexing. Movies with
+ * changes that aren't indexed yet are skipped, and a correction is only applied
+ * if the movie hasn't changed while its likes were counted.
+ */
+@Component
+@Slf4j
+public class MovieLikeReconciler {
+
+    private static final String RECONCILED_METRIC = "movie.likes.reconciled";
+
+    private final MovieRepository movieRepository;
+    private final MovieLikeRepository movieLikeRepository;
+    private final ShardedLikeCounter shardedLikeCounter;
+    private final MovieLikeIndex movieLikeIndex;
+    private final MovieCache movieCache;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * The constructor
+     * 
+     * @param movieRepository
+     *            The movie repository
+     * @param movieLikeRepository
+     *            The movie like repository
+     * @param shardedLikeCounter
+     *            The like counter
+     * @param movieLikeIndex
+     *            The in-memory like index
+     * @param movieCache
+     *            The cache of movies
+     * @param meterRegistry
+     *            The registry of the reconciliation metrics
+     * @param batchSize
+     *            The number of movies fetched from the database at a time
+     */
+    public MovieLikeReconciler(final MovieRepository movieRepository, final MovieLikeRepository movieLikeRepository,
+        final ShardedLikeCounter shardedLikeCounter, final MovieLikeIndex movieLikeIndex, final MovieCache movieCache,
+        final MeterRegistry meterRegistry, @Value("${searchIndex.batchSize}") final int batchSize) {
+
+        this.movieRepository = movieRepository;
+        this.movieLikeRepository = movieLikeRepository;
+        this.shardedLikeCounter = shardedLikeCounter;
+        this.movieLikeIndex = movieLikeIndex;
+        this.movieCache = movieCache;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reconciles the like counters of all movies. A run is skipped if the previous
+     * one hasn't finished yet.
+     */
+    @Scheduled(fixedRateString = "${likeCounter.reconcileRate}")
+    public void reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Skipping like counter reconciliation, because the previous one is still running");
+            return;
+        }
+
+        try (final CloseableIterator<Movie> movies = movieRepository.streamMovies(batchSize)) {
+            while (movies.hasNext()) {
+                final Movie movie = movies.next();
+                if (!movie.isUpdated() && !movie.isDeleted()) {
+                    reconcile(movie);
+                }
+            }
+        }
+        catch (final Exception ex) {
+            log.error("An error occured while reconciling like counters: " + ex.getMessage(), ex);
+        }
+        finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Reconciles the like counter of a movie
+     * 
+     * @param movie
+     *            The movie
+     */
+    private void reconcile(final Movie movie) {
+        // The likes are counted in the database only if the counters disagree with
+        // the like index
+        final long countedLikes = shardedLikeCounter.getTotal(movie.getId());
+        final long indexedLikes = movieLikeIndex.getLikes(movie.getId());
+        if (countedLikes == indexedLikes && movie.getTotalLikes() == indexedLikes) {
+            return;
+        }
+
+        final long actualLikes = movieLikeRepository.countByMovieId(movie.getId());
+        if (countedLikes == actualLikes && movie.getTotalLikes() == actualLikes) {
+            return;
+        }
+
+        // The revision check fails if a like arrived after the movie was read, in
+        // which case the movie is left to the next run
+        if (movieRepository.reconcileTotalLikes(movie.getId(), movie.getRevision(), actualLikes) == 0) {
+            return;
+        }
+
+        shardedLikeCounter.add(movie.getId(), actualLikes - countedLikes);
+        movieCache.evict(movie.getId());
+        meterRegistry.counter(RECONCILED_METRIC).increment();
+
+        log.warn("Reconciled likes of movie {}: counted {}, stored {}, actual {}", movie.getId(), countedLikes,
+            movie.getTotalLikes(), actualLikes);
+    }
+}
@@ -0,0 +1,31 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns the sequence numbers of like events without reaching the database.
+ * A sequence number is the current time in microseconds, raised past the
+ * previous one when the clock hasn't moved or went backwards. So the events of
+ * an instance are strictly ordered, and the events of different instances are
+ * ordered by the time they were appended, within the clock difference of the
+ * instances.
+ */
+@Component
+public class MovieLikeSequencer {
+
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    /**
+     * Returns the next sequence number
+     * 
+     * @return The sequence number
+     */
+    public long next() {
+        final long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+
+        return lastSequence.updateAndGet(previous -> Math.max(previous + 1, now));
+    }
+}
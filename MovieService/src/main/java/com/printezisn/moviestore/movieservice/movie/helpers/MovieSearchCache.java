@@ -0,0 +1,117 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Data;
+
+/**
+ * Bounded cache of search results. The results are cached per generation of the
+ * search index, which starts anew every time a change is written to the index,
+ * so that the results of older generations are never returned again. Since the
+ * index becomes searchable a little after a write, the results also expire
+ * after a short time.
+ */
+@Component
+public class MovieSearchCache {
+
+    private static final String CACHE_NAME = "movie.search";
+
+    private final Cache<Key, MoviePagedResultModel> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The constructor
+     * 
+     * @param meterRegistry
+     *            The registry of the cache metrics
+     * @param maxSize
+     *            The maximum number of cached results
+     * @param ttl
+     *            The time in milliseconds a result is cached
+     */
+    public MovieSearchCache(final MeterRegistry meterRegistry,
+        @Value("${searchCache.maxSize}") final long maxSize,
+        @Value("${searchCache.ttl}") final long ttl) {
+
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached result of a search, or runs the search and caches its
+     * result
+     * 
+     * @param text
+     *            The text to search for
+     * @param position
+     *            The page number or the cursor of the page
+     * @param sortField
+     *            The sorting field
+     * @param isAscending
+     *            Indicates if the sorting is ascending or descending
+     * @param includeTotal
+     *            Indicates if the total number of movies found is counted
+     * @param search
+     *            The search to run if the result isn't cached
+     * @return The result of the search
+     */
+    public MoviePagedResultModel get(final Optional<String> text, final String position, final String sortField,
+        final boolean isAscending, final boolean includeTotal, final Supplier<MoviePagedResultModel> search) {
+
+        final Key key = new Key(generation.get(), normalize(text), position, sortField, isAscending, includeTotal);
+
+        return cache.get(key, ignored -> search.get());
+    }
+
+    /**
+     * Starts a new generation, so that the results cached so far are not used
+     * anymore
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Normalizes the text of a search, so that texts which produce the same
+     * results share the same key
+     * 
+     * @param text
+     *            The text
+     * @return The normalized text
+     */
+    private static String normalize(final Optional<String> text) {
+        return text.map(value -> value.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT)).orElse("");
+    }
+
+    /**
+     * The key of a cached result
+     */
+    @Data
+    private static class Key {
+
+        private final long generation;
+        private final String text;
+        private final String position;
+        private final String sortField;
+        private final boolean ascending;
+        private final boolean includeTotal;
+    }
+}
@@ -0,0 +1,30 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The position of a page in the search results. A page starts right after the
+ * movie with the given sort values, or right before it when going backward.
+ * The cursor of the first page has no sort values.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieSearchCursor {
+
+    private String sortField;
+
+    private boolean ascending;
+
+    private boolean backward;
+
+    private boolean fuzzy;
+
+    private List<Object> sortValues;
+}
@@ -0,0 +1,62 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.Base64;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts search cursors to and from the opaque strings handed to clients
+ */
+@Component
+@Slf4j
+public class MovieSearchCursorCodec {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Encodes a cursor
+     * 
+     * @param cursor
+     *            The cursor, or null
+     * @return The encoded cursor, or null if there is no cursor
+     */
+    public String encode(final MovieSearchCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(OBJECT_MAPPER.writeValueAsBytes(cursor));
+        }
+        catch (final Exception ex) {
+            throw new IllegalStateException("Unable to encode search cursor: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Decodes a cursor
+     * 
+     * @param cursor
+     *            The encoded cursor
+     * @return The cursor, or empty if the encoded cursor is blank or invalid
+     */
+    public Optional<MovieSearchCursor> decode(final String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(OBJECT_MAPPER.readValue(Base64.getUrlDecoder().decode(cursor),
+                MovieSearchCursor.class));
+        }
+        catch (final Exception ex) {
+            log.warn("Ignoring invalid search cursor {}: {}", cursor, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.io.IOException;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.search.SearchHit;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+
+/**
+ * Decodes search hits into movies. The source of each hit is read straight from
+ * its bytes by a shared reader, without intermediate strings or entities.
+ */
+@Component
+public class MovieSearchHitDecoder {
+
+    private static final ObjectReader MOVIE_READER = new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .readerFor(MovieDto.class);
+
+    /**
+     * Decodes a search hit into a movie
+     * 
+     * @param hit
+     *            The search hit
+     * @return The movie
+     * @throws IOException
+     *             Exception thrown if the source of the hit is not valid
+     */
+    public MovieDto decode(final SearchHit hit) throws IOException {
+        final BytesRef source = hit.getSourceRef().toBytesRef();
+
+        return MOVIE_READER.readValue(source.bytes, source.offset, source.length);
+    }
+}
@@ -0,0 +1,78 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+
+import java.util.Locale;
+
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the queries used to search movies by text. The primary query relies on
+ * the analyzed subfields of the index and never expands terms at query time.
+ * The fuzzy query is meant as a fallback, for when the primary query finds
+ * nothing.
+ */
+@Component
+public class MovieSearchQueryBuilder {
+
+    private static final String TITLE_FIELD = "title";
+    private static final String TITLE_KEYWORD_FIELD = "title.keyword";
+    private static final String TITLE_SHINGLES_FIELD = "title.shingles";
+    private static final String TITLE_PREFIX_FIELD = "title.prefix";
+    private static final String DESCRIPTION_FIELD = "description";
+    private static final String DESCRIPTION_PREFIX_FIELD = "description.prefix";
+
+    private static final float EXACT_TITLE_BOOST = 10;
+    private static final float TITLE_PHRASE_BOOST = 4;
+    private static final float TITLE_BOOST = 2;
+
+    private static final int FUZZY_PREFIX_LENGTH = 1;
+    private static final int FUZZY_MAX_EXPANSIONS = 10;
+
+    /**
+     * Builds the primary query, which matches exact titles, title phrases, whole
+     * words and word prefixes
+     * 
+     * @param text
+     *            The text to search
+     * @return The query
+     */
+    public QueryBuilder buildPrimaryQuery(final String text) {
+        final String trimmedText = text.trim();
+
+        return boolQuery()
+            .should(termQuery(TITLE_KEYWORD_FIELD, trimmedText.toLowerCase(Locale.ROOT)).boost(EXACT_TITLE_BOOST))
+            .should(matchQuery(TITLE_SHINGLES_FIELD, trimmedText).boost(TITLE_PHRASE_BOOST))
+            .should(multiMatchQuery(trimmedText, TITLE_FIELD, DESCRIPTION_FIELD)
+                .field(TITLE_FIELD, TITLE_BOOST)
+                .type(MultiMatchQueryBuilder.Type.BEST_FIELDS)
+                .operator(Operator.AND))
+            .should(multiMatchQuery(trimmedText, TITLE_PREFIX_FIELD, DESCRIPTION_PREFIX_FIELD)
+                .type(MultiMatchQueryBuilder.Type.BEST_FIELDS)
+                .operator(Operator.AND))
+            .minimumShouldMatch(1);
+    }
+
+    /**
+     * Builds the fallback query, which tolerates typos
+     * 
+     * @param text
+     *            The text to search
+     * @return The query
+     */
+    public QueryBuilder buildFuzzyQuery(final String text) {
+        return multiMatchQuery(text.trim(), TITLE_FIELD, DESCRIPTION_FIELD)
+            .type(MultiMatchQueryBuilder.Type.BEST_FIELDS)
+            .operator(Operator.AND)
+            .fuzziness(Fuzziness.AUTO)
+            .prefixLength(FUZZY_PREFIX_LENGTH)
+            .maxExpansions(FUZZY_MAX_EXPANSIONS);
+    }
+}
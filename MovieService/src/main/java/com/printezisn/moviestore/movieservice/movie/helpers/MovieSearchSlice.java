@@ -0,0 +1,24 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.List;
+
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A page of search results that was fetched with a cursor
+ */
+@Data
+@Builder
+public class MovieSearchSlice {
+
+    private List<MovieDto> entries;
+
+    private MovieSearchCursor nextCursor;
+
+    private MovieSearchCursor previousCursor;
+
+    private Long totalEntries;
+}
@@ -0,0 +1,75 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeCounter;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeCounterRepository;
+
+/**
+ * Counts the likes of movies in several shard documents per movie. Each change
+ * is added to a random shard, so that concurrent writers rarely update the same
+ * document, and the total is the sum of the shards.
+ */
+@Component
+public class ShardedLikeCounter {
+
+    private final MovieLikeCounterRepository movieLikeCounterRepository;
+    private final int shards;
+
+    /**
+     * The constructor
+     * 
+     * @param movieLikeCounterRepository
+     *            The repository of the counter shards
+     * @param shards
+     *            The number of shards per movie
+     */
+    public ShardedLikeCounter(final MovieLikeCounterRepository movieLikeCounterRepository,
+        @Value("${likeCounter.shards}") final int shards) {
+
+        this.movieLikeCounterRepository = movieLikeCounterRepository;
+        this.shards = shards;
+    }
+
+    /**
+     * Adds to the likes of a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param delta
+     *            The number of likes to add, which may be negative
+     */
+    public void add(final String movieId, final long delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        movieLikeCounterRepository.increment(movieId, ThreadLocalRandom.current().nextInt(shards), delta);
+    }
+
+    /**
+     * Returns the likes of a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @return The sum of the counter shards of the movie
+     */
+    public long getTotal(final String movieId) {
+        return movieLikeCounterRepository.findByMovieId(movieId).stream()
+            .mapToLong(MovieLikeCounter::getCount)
+            .sum();
+    }
+
+    /**
+     * Removes the counter of a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     */
+    public void delete(final String movieId) {
+        movieLikeCounterRepository.deleteByMovieId(movieId);
+    }
+}
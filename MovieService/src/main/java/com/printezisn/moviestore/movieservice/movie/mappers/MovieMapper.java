@@ -35,8 +35,8 @@ public interface MovieMapper {
     @Mappings({
         @Mapping(target = "revision", ignore = true),
         @Mapping(target = "totalLikes", ignore = true),
-        @Mapping(target = "pendingLikes", ignore = true),
-        @Mapping(target = "pendingUnlikes", ignore = true),
+        @Mapping(target = "appliedLikeSequence", ignore = true),
+        @Mapping(target = "likesAppliedTimestamp", ignore = true),
         @Mapping(target = "updated", ignore = true),
         @Mapping(target = "deleted", ignore = true)
     })
@@ -50,17 +50,4 @@ public interface MovieMapper {
      * @return The converted MovieIndex object
      */
     MovieIndex movieToMovieIndex(final Movie movie);
-
-    /**
-     * Converts a MovieIndex object to MovieDto
-     * 
-     * @param movieIndex
-     *            The MovieIndex object to convert
-     * @return The converted MovieDto object
-     */
-    @Mappings({
-        @Mapping(target = "creationTimestamp", ignore = true),
-        @Mapping(target = "updateTimestamp", ignore = true)
-    })
-    MovieDto movieIndexToMovieDto(final MovieIndex movieIndex);
 }
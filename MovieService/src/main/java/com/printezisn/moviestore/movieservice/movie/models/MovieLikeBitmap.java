@@ -0,0 +1,37 @@
+package com.printezisn.moviestore.movieservice.movie.models;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The accounts that like a movie, encoded as ints, together with the sequence
+ * number of the last like event applied to them. The accounts of a movie
+ * restored from a snapshot stay mapped from the snapshot file until they first
+ * change, at which point they are copied to the heap.
+ */
+@AllArgsConstructor
+@Getter
+@Setter
+public class MovieLikeBitmap {
+
+    private ImmutableRoaringBitmap accounts;
+    private long sequence;
+
+    /**
+     * Returns the accounts for a change, copying them to the heap first if they
+     * are still mapped from a snapshot file
+     * 
+     * @return The accounts
+     */
+    public MutableRoaringBitmap getMutableAccounts() {
+        if (!(accounts instanceof MutableRoaringBitmap)) {
+            accounts = accounts.toMutableRoaringBitmap();
+        }
+
+        return (MutableRoaringBitmap) accounts;
+    }
+}
@@ -0,0 +1,19 @@
+package com.printezisn.moviestore.movieservice.movie.models;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The size and the estimated memory footprint of the in-memory like index
+ */
+@Builder
+@Getter
+public class MovieLikeIndexStats {
+
+    private final long movies;
+    private final long accounts;
+    private final long likes;
+    private final long bitmapBytes;
+    private final long dictionaryBytes;
+    private final long totalBytes;
+}
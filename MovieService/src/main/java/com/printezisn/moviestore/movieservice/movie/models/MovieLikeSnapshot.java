@@ -0,0 +1,22 @@
+package com.printezisn.moviestore.movieservice.movie.models;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * A point-in-time copy of the in-memory like index
+ */
+@Builder
+@Getter
+public class MovieLikeSnapshot {
+
+    private final long timestamp;
+
+    // The account of each encoded id, or null if the id was never assigned
+    private final List<String> accounts;
+
+    private final Map<String, MovieLikeBitmap> movies;
+}
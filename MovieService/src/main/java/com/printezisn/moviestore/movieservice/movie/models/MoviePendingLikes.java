@@ -0,0 +1,19 @@
+package com.printezisn.moviestore.movieservice.movie.models;
+
+import java.util.Set;
+
+import lombok.Data;
+
+/**
+ * The pending likes and unlikes that movies stored before likes were recorded
+ * as like events
+ */
+@Data
+public class MoviePendingLikes {
+
+    private String id;
+
+    private Set<String> pendingLikes;
+
+    private Set<String> pendingUnlikes;
+}
@@ -0,0 +1,17 @@
+package com.printezisn.moviestore.movieservice.movie.models;
+
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A movie together with the revision it was read at
+ */
+@RequiredArgsConstructor
+@Getter
+public class RevisionedMovie {
+
+    private final MovieDto movie;
+    private final String revision;
+}
@@ -5,7 +5,9 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
-import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCursor;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchSlice;
 
 /**
  * Interface with extra repository methods for indexing movies
@@ -21,5 +23,22 @@ public interface CustomMovieIndexRepository {
      *            The pageable criteria
      * @return The movies found
      */
-    Page<MovieIndex> search(final Optional<String> text, final Pageable pageable);
+    Page<MovieDto> search(final Optional<String> text, final Pageable pageable);
+
+    /**
+     * Searches for movies using full text search, starting from a cursor instead
+     * of an offset, so that deep pages cost the same as the first one
+     * 
+     * @param text
+     *            The text used as filter
+     * @param cursor
+     *            The position of the page in the results
+     * @param size
+     *            The size of the page
+     * @param includeTotal
+     *            Indicates if the total number of movies found is counted
+     * @return The movies found
+     */
+    MovieSearchSlice searchAfter(final Optional<String> text, final MovieSearchCursor cursor, final int size,
+        final boolean includeTotal);
 }
@@ -8,22 +8,28 @@ import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.data.elasticsearch.core.query.SearchQuery;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCursor;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchHitDecoder;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchQueryBuilder;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchSlice;
 
 import lombok.RequiredArgsConstructor;
 
-import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import org.elasticsearch.common.unit.Fuzziness;
-import org.elasticsearch.index.query.MultiMatchQueryBuilder;
-import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 
 /**
  * Implementation of the interface with extra repository methods for indexing
@@ -32,58 +38,189 @@ import org.elasticsearch.search.SearchHit;
 @RequiredArgsConstructor
 public class CustomMovieIndexRepositoryImpl implements CustomMovieIndexRepository {
 
-    private static final String TITLE_FIELD = "title";
-    private static final String DESCRIPTION_FIELD = "description";
+    private static final String ID_FIELD = "id";
 
     @Value("${elasticsearch.indexName}")
     private final String indexName;
 
     private final ElasticsearchTemplate elasticsearchTemplate;
 
+    private final MovieSearchHitDecoder movieSearchHitDecoder;
+
+    private final MovieSearchQueryBuilder movieSearchQueryBuilder;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Page<MovieDto> search(final Optional<String> text, final Pageable pageable) {
+        if (!text.isPresent() || text.get().isBlank()) {
+            return search(matchAllQuery(), pageable);
+        }
+
+        // The fuzzy query is expensive, so it's used only if nothing else matches
+        final Page<MovieDto> page = search(movieSearchQueryBuilder.buildPrimaryQuery(text.get()), pageable);
+        if (page.getTotalElements() > 0) {
+            return page;
+        }
+
+        return search(movieSearchQueryBuilder.buildFuzzyQuery(text.get()), pageable);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public Page<MovieIndex> search(final Optional<String> text, final Pageable pageable) {
-        final SearchQuery searchQuery;
-
-        if (text.isPresent() && !text.get().isBlank()) {
-            searchQuery = new NativeSearchQueryBuilder()
-                .withIndices(indexName)
-                .withQuery(multiMatchQuery("*" + text.get() + "*", TITLE_FIELD, DESCRIPTION_FIELD)
-                    .type(MultiMatchQueryBuilder.Type.BEST_FIELDS)
-                    .operator(Operator.AND)
-                    .fuzziness(Fuzziness.TWO))
-                .withPageable(pageable)
-                .build();
+    public MovieSearchSlice searchAfter(final Optional<String> text, final MovieSearchCursor cursor, final int size,
+        final boolean includeTotal) {
+
+        if (!text.isPresent() || text.get().isBlank()) {
+            return searchAfter(matchAllQuery(), cursor, size, includeTotal);
         }
-        else {
-            searchQuery = new NativeSearchQueryBuilder()
-                .withIndices(indexName)
-                .withQuery(matchAllQuery())
-                .withPageable(pageable)
-                .build();
+        if (cursor.isFuzzy()) {
+            return searchAfter(movieSearchQueryBuilder.buildFuzzyQuery(text.get()), cursor, size, includeTotal);
+        }
+
+        // The fuzzy query is chosen on the first page, and the cursors remember it,
+        // so that the next pages don't switch queries when the primary one runs out
+        final MovieSearchSlice slice = searchAfter(movieSearchQueryBuilder.buildPrimaryQuery(text.get()), cursor,
+            size, includeTotal);
+        if (!slice.getEntries().isEmpty() || cursor.getSortValues() != null) {
+            return slice;
         }
 
-        elasticsearchTemplate.putMapping(MovieIndex.class);
+        final MovieSearchCursor fuzzyCursor = MovieSearchCursor.builder()
+            .sortField(cursor.getSortField())
+            .ascending(cursor.isAscending())
+            .fuzzy(true)
+            .build();
+
+        return searchAfter(movieSearchQueryBuilder.buildFuzzyQuery(text.get()), fuzzyCursor, size, includeTotal);
+    }
+
+    /**
+     * Searches for movies using a query
+     * 
+     * @param query
+     *            The query
+     * @param pageable
+     *            The pageable criteria
+     * @return The movies found
+     */
+    private Page<MovieDto> search(final QueryBuilder query, final Pageable pageable) {
+        final SearchQuery searchQuery = new NativeSearchQueryBuilder()
+            .withIndices(indexName)
+            .withQuery(query)
+            .withPageable(pageable)
+            .build();
 
         return elasticsearchTemplate.query(searchQuery, searchResponse -> {
             try {
-                final ObjectMapper objectMapper = new ObjectMapper();
+                final SearchHit[] hits = searchResponse.getHits().getHits();
                 final long totalHits = searchResponse.getHits().getTotalHits();
 
-                final List<MovieIndex> results = new LinkedList<>();
-                for (final SearchHit hit : searchResponse.getHits().getHits()) {
-                    final MovieIndex searchMovie = objectMapper.readValue(hit.getSourceAsString(),
-                        MovieIndex.class);
-                    results.add(searchMovie);
+                final List<MovieDto> results = new ArrayList<>(hits.length);
+                for (final SearchHit hit : hits) {
+                    results.add(movieSearchHitDecoder.decode(hit));
                 }
 
-                return new PageImpl<MovieIndex>(results, pageable, totalHits);
+                return new PageImpl<MovieDto>(results, pageable, totalHits);
             }
             catch (final Exception ex) {
                 throw new RuntimeException(ex);
             }
         });
     }
+
+    /**
+     * Searches for movies using a query, starting from a cursor. The results are
+     * sorted by id after the sort field, so that every movie has a unique
+     * position. One more movie than the page size is fetched to find out if
+     * there are more pages in the direction of the cursor.
+     * 
+     * @param query
+     *            The query
+     * @param cursor
+     *            The position of the page in the results
+     * @param size
+     *            The size of the page
+     * @param includeTotal
+     *            Indicates if the total number of movies found is counted
+     * @return The movies found
+     */
+    private MovieSearchSlice searchAfter(final QueryBuilder query, final MovieSearchCursor cursor, final int size,
+        final boolean includeTotal) {
+
+        // Going backward reverses the sorting, including the place of missing values,
+        // and the page is reversed back after it's fetched
+        final SortOrder order = (cursor.isAscending() != cursor.isBackward()) ? SortOrder.ASC : SortOrder.DESC;
+        final String missing = cursor.isBackward() ? "_first" : "_last";
+
+        final SearchRequestBuilder request = elasticsearchTemplate.getClient()
+            .prepareSearch(indexName)
+            .setQuery(query)
+            .setSize(size + 1)
+            .setTrackTotalHits(includeTotal)
+            .addSort(SortBuilders.fieldSort(cursor.getSortField()).order(order).missing(missing))
+            .addSort(SortBuilders.fieldSort(ID_FIELD).order(order));
+        if (cursor.getSortValues() != null) {
+            request.searchAfter(cursor.getSortValues().toArray());
+        }
+
+        final SearchResponse response = request.get();
+        final SearchHit[] hits = response.getHits().getHits();
+        final boolean hasMore = hits.length > size;
+
+        final List<SearchHit> pageHits = new ArrayList<>(Arrays.asList(hits).subList(0, Math.min(size, hits.length)));
+        if (cursor.isBackward()) {
+            Collections.reverse(pageHits);
+        }
+
+        final List<MovieDto> results = new ArrayList<>(pageHits.size());
+        for (final SearchHit hit : pageHits) {
+            try {
+                results.add(movieSearchHitDecoder.decode(hit));
+            }
+            catch (final Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        final boolean hasNext = cursor.isBackward() || hasMore;
+        final boolean hasPrevious = cursor.isBackward() ? hasMore : cursor.getSortValues() != null;
+
+        return MovieSearchSlice.builder()
+            .entries(results)
+            .nextCursor((hasNext && !pageHits.isEmpty())
+                ? createCursor(cursor, pageHits.get(pageHits.size() - 1), false)
+                : null)
+            .previousCursor((hasPrevious && !pageHits.isEmpty())
+                ? createCursor(cursor, pageHits.get(0), true)
+                : null)
+            .totalEntries(includeTotal ? response.getHits().getTotalHits() : null)
+            .build();
+    }
+
+    /**
+     * Creates the cursor of a page next to a movie
+     * 
+     * @param cursor
+     *            The cursor of the current page
+     * @param hit
+     *            The movie at the edge of the current page
+     * @param backward
+     *            Indicates if the page is before the movie
+     * @return The cursor
+     */
+    private MovieSearchCursor createCursor(final MovieSearchCursor cursor, final SearchHit hit,
+        final boolean backward) {
+
+        return MovieSearchCursor.builder()
+            .sortField(cursor.getSortField())
+            .ascending(cursor.isAscending())
+            .backward(backward)
+            .fuzzy(cursor.isFuzzy())
+            .sortValues(Arrays.asList(hit.getSortValues()))
+            .build();
+    }
 }
@@ -0,0 +1,21 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+/**
+ * Interface with extra repository methods for the shards of the movie like
+ * counters
+ */
+public interface CustomMovieLikeCounterRepository {
+
+    /**
+     * Atomically adds to a counter shard of a movie, creating it if it doesn't
+     * exist
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param shard
+     *            The shard
+     * @param delta
+     *            The value to add
+     */
+    void increment(final String movieId, final int shard, final long delta);
+}
@@ -0,0 +1,39 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeCounter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The implementation of the interface with extra repository methods for the
+ * shards of the movie like counters
+ */
+@RequiredArgsConstructor
+public class CustomMovieLikeCounterRepositoryImpl implements CustomMovieLikeCounterRepository {
+
+    private static final String ID_FIELD = "id";
+    private static final String MOVIE_ID_FIELD = "movieId";
+    private static final String SHARD_FIELD = "shard";
+    private static final String COUNT_FIELD = "count";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void increment(final String movieId, final int shard, final long delta) {
+        final Query query = new Query(Criteria.where(ID_FIELD).is(movieId + "-" + shard));
+        final Update update = new Update()
+            .setOnInsert(MOVIE_ID_FIELD, movieId)
+            .setOnInsert(SHARD_FIELD, shard)
+            .inc(COUNT_FIELD, delta);
+
+        mongoTemplate.upsert(query, update, MovieLikeCounter.class);
+    }
+}
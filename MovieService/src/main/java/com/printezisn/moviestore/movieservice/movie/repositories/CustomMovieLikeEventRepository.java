@@ -0,0 +1,48 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+
+/**
+ * Interface with extra repository methods for movie like events
+ */
+public interface CustomMovieLikeEventRepository {
+
+    /**
+     * Returns the oldest like events of a movie in sequence order
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param limit
+     *            The maximum number of events to return
+     * @return The events
+     */
+    List<MovieLikeEvent> findOldestEvents(final String movieId, final int limit);
+
+    /**
+     * Flags like events as applying, before they are written to the movie likes
+     * 
+     * @param ids
+     *            The ids of the events
+     * @return The number of events that were flagged
+     */
+    long markApplying(final Collection<String> ids);
+
+    /**
+     * Removes like events that have been applied
+     * 
+     * @param ids
+     *            The ids of the events
+     * @return The number of events that were removed
+     */
+    long removeEvents(final Collection<String> ids);
+
+    /**
+     * Returns the ids of the movies that have like events waiting to be applied
+     * 
+     * @return The ids of the movies
+     */
+    List<String> findPendingMovieIds();
+}
@@ -0,0 +1,77 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The implementation of the interface with extra repository methods for movie
+ * like events
+ */
+@RequiredArgsConstructor
+public class CustomMovieLikeEventRepositoryImpl implements CustomMovieLikeEventRepository {
+
+    private static final String ID_FIELD = "id";
+    private static final String MOVIE_ID_FIELD = "movieId";
+    private static final String SEQ_FIELD = "seq";
+    private static final String APPLYING_FIELD = "applying";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MovieLikeEvent> findOldestEvents(final String movieId, final int limit) {
+        final Query query = new Query(Criteria.where(MOVIE_ID_FIELD).is(movieId))
+            .with(Sort.by(Direction.ASC, SEQ_FIELD))
+            .limit(limit);
+
+        return mongoTemplate.find(query, MovieLikeEvent.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long markApplying(final Collection<String> ids) {
+        final Query query = new Query(Criteria.where(ID_FIELD).in(ids));
+        final Update update = new Update().set(APPLYING_FIELD, true);
+
+        final UpdateResult updateResult = mongoTemplate.updateMulti(query, update, MovieLikeEvent.class);
+
+        return (updateResult != null) ? updateResult.getModifiedCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long removeEvents(final Collection<String> ids) {
+        final Query query = new Query(Criteria.where(ID_FIELD).in(ids));
+
+        final DeleteResult deleteResult = mongoTemplate.remove(query, MovieLikeEvent.class);
+
+        return (deleteResult != null) ? deleteResult.getDeletedCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> findPendingMovieIds() {
+        return mongoTemplate.findDistinct(new Query(), MOVIE_ID_FIELD, MovieLikeEvent.class, String.class);
+    }
+}
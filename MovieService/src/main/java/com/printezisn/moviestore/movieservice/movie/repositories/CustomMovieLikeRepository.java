@@ -0,0 +1,44 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+import java.util.Collection;
+
+import org.springframework.data.util.CloseableIterator;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLike;
+
+/**
+ * Interface with extra repository methods for movie likes
+ */
+public interface CustomMovieLikeRepository {
+
+    /**
+     * Adds likes to a movie, using unordered bulk writes
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param accounts
+     *            The accounts that like the movie
+     * @return The number of likes that didn't exist before
+     */
+    long addLikes(final String movieId, final Collection<String> accounts);
+
+    /**
+     * Removes likes from a movie, using unordered bulk writes
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param accounts
+     *            The accounts whose likes are removed
+     * @return The number of likes that were removed
+     */
+    long removeLikes(final String movieId, final Collection<String> accounts);
+
+    /**
+     * Streams all movie likes, using a database cursor
+     * 
+     * @param batchSize
+     *            The number of likes fetched by the cursor in each round trip
+     * @return An iterator over the likes, which must be closed after use
+     */
+    CloseableIterator<MovieLike> streamLikes(final int batchSize);
+}
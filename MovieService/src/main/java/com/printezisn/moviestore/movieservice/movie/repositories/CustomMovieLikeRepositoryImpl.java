@@ -0,0 +1,126 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLike;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The implementation of the interface with extra repository methods for movie
+ * likes
+ */
+@RequiredArgsConstructor
+public class CustomMovieLikeRepositoryImpl implements CustomMovieLikeRepository {
+
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    private static final String ID_FIELD = "id";
+    private static final String ACCOUNT_FIELD = "account";
+    private static final String MOVIE_ID_FIELD = "movieId";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long addLikes(final String movieId, final Collection<String> accounts) {
+        long insertedLikes = 0;
+
+        for (final List<String> chunk : toChunks(accounts)) {
+            final BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkMode.UNORDERED, MovieLike.class);
+            chunk.forEach(account -> {
+                final Update update = new Update()
+                    .setOnInsert(MOVIE_ID_FIELD, movieId)
+                    .setOnInsert(ACCOUNT_FIELD, account);
+
+                bulkOperations.upsert(getLikeQuery(movieId, account), update);
+            });
+
+            final BulkWriteResult result = bulkOperations.execute();
+            insertedLikes += result.getUpserts().size();
+        }
+
+        return insertedLikes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long removeLikes(final String movieId, final Collection<String> accounts) {
+        long removedLikes = 0;
+
+        for (final List<String> chunk : toChunks(accounts)) {
+            final BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkMode.UNORDERED, MovieLike.class);
+            chunk.forEach(account -> bulkOperations.remove(getLikeQuery(movieId, account)));
+
+            final BulkWriteResult result = bulkOperations.execute();
+            removedLikes += result.getDeletedCount();
+        }
+
+        return removedLikes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableIterator<MovieLike> streamLikes(final int batchSize) {
+        final Query query = new Query().cursorBatchSize(batchSize);
+        query.fields().include(ACCOUNT_FIELD).include(MOVIE_ID_FIELD);
+
+        return mongoTemplate.stream(query, MovieLike.class);
+    }
+
+    /**
+     * Returns the query that matches the like of an account on a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param account
+     *            The account
+     * @return The query
+     */
+    private Query getLikeQuery(final String movieId, final String account) {
+        return new Query(Criteria.where(ID_FIELD).is(movieId + "-" + account));
+    }
+
+    /**
+     * Splits accounts into chunks of bounded size
+     * 
+     * @param accounts
+     *            The accounts to split
+     * @return The chunks
+     */
+    private List<List<String>> toChunks(final Collection<String> accounts) {
+        final List<List<String>> chunks = new ArrayList<>();
+        List<String> currentChunk = new ArrayList<>(Math.min(accounts.size(), BULK_CHUNK_SIZE));
+
+        for (final String account : accounts) {
+            if (currentChunk.size() == BULK_CHUNK_SIZE) {
+                chunks.add(currentChunk);
+                currentChunk = new ArrayList<>(BULK_CHUNK_SIZE);
+            }
+
+            currentChunk.add(account);
+        }
+        if (!currentChunk.isEmpty()) {
+            chunks.add(currentChunk);
+        }
+
+        return chunks;
+    }
+}
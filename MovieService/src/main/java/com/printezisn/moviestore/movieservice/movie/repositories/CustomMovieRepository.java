@@ -1,6 +1,13 @@
 package com.printezisn.moviestore.movieservice.movie.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.util.CloseableIterator;
+
 import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.models.MoviePendingLikes;
 
 /**
  * Interface with extra repository methods for movies
@@ -8,7 +15,7 @@ import com.printezisn.moviestore.movieservice.movie.entities.Movie;
 public interface CustomMovieRepository {
 
     /**
-     * Updates a movie
+     * Updates the editable fields of a movie. The likes are left untouched.
      * 
      * @param movie
      *            The movie
@@ -17,4 +24,148 @@ public interface CustomMovieRepository {
      * @return The number of documents affected
      */
     long updateMovie(final Movie movie, final String currentRevision);
+
+    /**
+     * Marks a movie as deleted, so that it's removed when it's indexed
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param currentRevision
+     *            The current revision of the movie
+     * @param newRevision
+     *            The new revision of the movie
+     * @return The number of documents affected
+     */
+    long markDeleted(final String movieId, final String currentRevision, final String newRevision);
+
+    /**
+     * Sets the total likes of a movie after like events are applied, and records
+     * the sequence number of the last applied event and the time it was applied.
+     * The update doesn't depend on the current revision, so that it's never lost
+     * because of a concurrent like.
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param totalLikes
+     *            The total likes of the movie
+     * @param appliedLikeSequence
+     *            The sequence number of the last like event that was applied
+     * @return The updated movie, or null if the movie doesn't exist
+     */
+    Movie updateTotalLikes(final String movieId, final long totalLikes, final long appliedLikeSequence);
+
+    /**
+     * Returns the current revision of a movie. Only the revision of the movie is
+     * read.
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @return The revision, or empty if the movie doesn't exist or is deleted
+     */
+    Optional<String> findRevision(final String movieId);
+
+    /**
+     * Returns which of the given movies exist. Only the ids of the movies are
+     * read.
+     * 
+     * @param movieIds
+     *            The ids of the movies
+     * @return The ids of the movies that exist
+     */
+    List<String> findExistingIds(final Collection<String> movieIds);
+
+    /**
+     * Returns the movies whose like events were applied at or after the given
+     * time. Only the id and the applied like sequence of each movie are read.
+     * 
+     * @param timestamp
+     *            The time, in milliseconds since the epoch
+     * @return The movies
+     */
+    List<Movie> findLikesAppliedSince(final long timestamp);
+
+    /**
+     * Sets the total likes of a movie and marks it for indexing, if it hasn't
+     * changed since the given revision
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param currentRevision
+     *            The revision of the movie whose likes were counted
+     * @param totalLikes
+     *            The total likes of the movie
+     * @return The number of documents affected
+     */
+    long reconcileTotalLikes(final String movieId, final String currentRevision, final long totalLikes);
+
+    /**
+     * Marks a movie as indexed, if it hasn't changed since the given revision
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param currentRevision
+     *            The revision of the movie that was indexed
+     * @return The number of documents affected
+     */
+    long markIndexed(final String movieId, final String currentRevision);
+
+    /**
+     * Streams the movies that need to be indexed, using a database cursor
+     * 
+     * @param batchSize
+     *            The number of movies fetched by the cursor in each round trip
+     * @return An iterator over the movies, which must be closed after use
+     */
+    CloseableIterator<Movie> streamUpdatedMovies(final int batchSize);
+
+    /**
+     * Streams all movies, using a database cursor
+     * 
+     * @param batchSize
+     *            The number of movies fetched by the cursor in each round trip
+     * @return An iterator over the movies, which must be closed after use
+     */
+    CloseableIterator<Movie> streamMovies(final int batchSize);
+
+    /**
+     * Streams the movies in the order of their ids, starting after a movie, using
+     * a database cursor
+     * 
+     * @param movieId
+     *            The id of the movie to start after, or null to start from the
+     *            first movie
+     * @param batchSize
+     *            The number of movies fetched by the cursor in each round trip
+     * @return An iterator over the movies, which must be closed after use
+     */
+    CloseableIterator<Movie> streamMoviesAfter(final String movieId, final int batchSize);
+
+    /**
+     * Marks for indexing the movies that were updated, or whose like events were
+     * applied, at or after the given time
+     * 
+     * @param timestamp
+     *            The time, in milliseconds since the epoch
+     * @return The number of documents affected
+     */
+    long markUpdatedSince(final long timestamp);
+
+    /**
+     * Returns movies that still have the pending like and unlike sets of the
+     * storage before like events
+     * 
+     * @param limit
+     *            The maximum number of movies
+     * @return The ids and the pending likes and unlikes of the movies
+     */
+    List<MoviePendingLikes> findPendingLikeSets(final int limit);
+
+    /**
+     * Removes the pending like and unlike sets of a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @return The number of documents affected
+     */
+    long removePendingLikeSets(final String movieId);
 }
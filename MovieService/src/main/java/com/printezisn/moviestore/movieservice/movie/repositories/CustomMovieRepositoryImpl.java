@@ -1,12 +1,23 @@
 package com.printezisn.moviestore.movieservice.movie.repositories;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
 
 import com.mongodb.client.result.UpdateResult;
 import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.models.MoviePendingLikes;
 
 import lombok.RequiredArgsConstructor;
 
@@ -24,9 +35,12 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
     private static final String UPDATE_TIMESTAMP_FIELD = "updateTimestamp";
     private static final String REVISION_FIELD = "revision";
     private static final String TOTAL_LIKES_FIELD = "totalLikes";
+    private static final String APPLIED_LIKE_SEQUENCE_FIELD = "appliedLikeSequence";
+    private static final String LIKES_APPLIED_TIMESTAMP_FIELD = "likesAppliedTimestamp";
+    private static final String UPDATED_FIELD = "updated";
+    private static final String DELETED_FIELD = "deleted";
     private static final String PENDING_LIKES_FIELD = "pendingLikes";
     private static final String PENDING_UNLIKES_FIELD = "pendingUnlikes";
-    private static final String UPDATED_FIELD = "updated";
 
     private final MongoTemplate mongoTemplate;
 
@@ -46,14 +60,176 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
         update.set(DESCRIPTION_FIELD, movie.getDescription());
         update.set(RATING_FIELD, movie.getRating());
         update.set(RELEASE_YEAR_FIELD, movie.getReleaseYear());
-        update.set(TOTAL_LIKES_FIELD, movie.getTotalLikes());
         update.set(UPDATE_TIMESTAMP_FIELD, movie.getUpdateTimestamp());
-        update.set(PENDING_LIKES_FIELD, movie.getPendingLikes());
-        update.set(PENDING_UNLIKES_FIELD, movie.getPendingUnlikes());
         update.set(UPDATED_FIELD, movie.isUpdated());
 
         final UpdateResult updateResult = mongoTemplate.updateFirst(query, update, Movie.class);
 
         return (updateResult != null) ? updateResult.getModifiedCount() : 0;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long markDeleted(final String movieId, final String currentRevision, final String newRevision) {
+        final Query query = new Query(Criteria.where(ID_FIELD).is(movieId).and(REVISION_FIELD).is(currentRevision));
+        final Update update = new Update()
+            .set(REVISION_FIELD, newRevision)
+            .set(DELETED_FIELD, true)
+            .set(UPDATED_FIELD, true);
+
+        final UpdateResult updateResult = mongoTemplate.updateFirst(query, update, Movie.class);
+
+        return (updateResult != null) ? updateResult.getModifiedCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Movie updateTotalLikes(final String movieId, final long totalLikes, final long appliedLikeSequence) {
+        final Query query = new Query(Criteria.where(ID_FIELD).is(movieId));
+
+        final Update update = new Update();
+        update.set(TOTAL_LIKES_FIELD, totalLikes);
+        update.set(REVISION_FIELD, UUID.randomUUID().toString());
+        update.max(APPLIED_LIKE_SEQUENCE_FIELD, appliedLikeSequence);
+        update.set(LIKES_APPLIED_TIMESTAMP_FIELD, Instant.now().toEpochMilli());
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+            Movie.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<String> findRevision(final String movieId) {
+        final Query query = new Query(Criteria.where(ID_FIELD).is(movieId).and(DELETED_FIELD).ne(true));
+        query.fields().include(REVISION_FIELD);
+
+        return Optional.ofNullable(mongoTemplate.findOne(query, Movie.class)).map(Movie::getRevision);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> findExistingIds(final Collection<String> movieIds) {
+        final Query query = new Query(Criteria.where(ID_FIELD).in(movieIds));
+        query.fields().include(ID_FIELD);
+
+        return mongoTemplate.find(query, Movie.class).stream()
+            .map(Movie::getId)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Movie> findLikesAppliedSince(final long timestamp) {
+        final Query query = new Query(Criteria.where(LIKES_APPLIED_TIMESTAMP_FIELD).gte(timestamp));
+        query.fields().include(ID_FIELD).include(APPLIED_LIKE_SEQUENCE_FIELD);
+
+        return mongoTemplate.find(query, Movie.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long reconcileTotalLikes(final String movieId, final String currentRevision, final long totalLikes) {
+        final Query query = new Query(Criteria.where(ID_FIELD).is(movieId).and(REVISION_FIELD).is(currentRevision));
+        final Update update = new Update()
+            .set(TOTAL_LIKES_FIELD, totalLikes)
+            .set(REVISION_FIELD, UUID.randomUUID().toString())
+            .set(UPDATED_FIELD, true);
+
+        final UpdateResult updateResult = mongoTemplate.updateFirst(query, update, Movie.class);
+
+        return (updateResult != null) ? updateResult.getModifiedCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long markIndexed(final String movieId, final String currentRevision) {
+        final Query query = new Query(Criteria.where(ID_FIELD).is(movieId).and(REVISION_FIELD).is(currentRevision));
+        final Update update = new Update().set(UPDATED_FIELD, false);
+
+        final UpdateResult updateResult = mongoTemplate.updateFirst(query, update, Movie.class);
+
+        return (updateResult != null) ? updateResult.getModifiedCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableIterator<Movie> streamUpdatedMovies(final int batchSize) {
+        final Query query = new Query(Criteria.where(UPDATED_FIELD).is(true)).cursorBatchSize(batchSize);
+
+        return mongoTemplate.stream(query, Movie.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableIterator<Movie> streamMovies(final int batchSize) {
+        return mongoTemplate.stream(new Query().cursorBatchSize(batchSize), Movie.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableIterator<Movie> streamMoviesAfter(final String movieId, final int batchSize) {
+        final Query query = (movieId != null) ? new Query(Criteria.where(ID_FIELD).gt(movieId)) : new Query();
+        query.with(Sort.by(ID_FIELD)).cursorBatchSize(batchSize);
+
+        return mongoTemplate.stream(query, Movie.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long markUpdatedSince(final long timestamp) {
+        final Query query = new Query(new Criteria().orOperator(Criteria.where(UPDATE_TIMESTAMP_FIELD).gte(timestamp),
+            Criteria.where(LIKES_APPLIED_TIMESTAMP_FIELD).gte(timestamp)));
+        final Update update = new Update().set(UPDATED_FIELD, true);
+
+        final UpdateResult updateResult = mongoTemplate.updateMulti(query, update, Movie.class);
+
+        return (updateResult != null) ? updateResult.getModifiedCount() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MoviePendingLikes> findPendingLikeSets(final int limit) {
+        final Query query = new Query(new Criteria().orOperator(Criteria.where(PENDING_LIKES_FIELD).exists(true),
+            Criteria.where(PENDING_UNLIKES_FIELD).exists(true))).limit(limit);
+        query.fields().include(ID_FIELD).include(PENDING_LIKES_FIELD).include(PENDING_UNLIKES_FIELD);
+
+        return mongoTemplate.find(query, MoviePendingLikes.class, mongoTemplate.getCollectionName(Movie.class));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long removePendingLikeSets(final String movieId) {
+        final Query query = new Query(Criteria.where(ID_FIELD).is(movieId));
+        final Update update = new Update().unset(PENDING_LIKES_FIELD).unset(PENDING_UNLIKES_FIELD);
+
+        final UpdateResult updateResult = mongoTemplate.updateFirst(query, update, Movie.class);
+
+        return (updateResult != null) ? updateResult.getModifiedCount() : 0;
+    }
 }
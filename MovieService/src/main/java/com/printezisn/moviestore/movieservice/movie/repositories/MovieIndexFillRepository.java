@@ -0,0 +1,13 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndexFill;
+
+/**
+ * The repository layer for the progress of the search index fills
+ */
+@Repository
+public interface MovieIndexFillRepository extends MongoRepository<MovieIndexFill, String> {
+}
@@ -0,0 +1,33 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeCounter;
+
+/**
+ * The repository layer for the shards of the movie like counters
+ */
+@Repository
+public interface MovieLikeCounterRepository
+    extends MongoRepository<MovieLikeCounter, String>, CustomMovieLikeCounterRepository {
+
+    /**
+     * Returns the counter shards of a movie
+     * 
+     * @param movieId
+     *            The movie id
+     * @return The counter shards
+     */
+    List<MovieLikeCounter> findByMovieId(final String movieId);
+
+    /**
+     * Deletes the counter shards of a movie
+     * 
+     * @param movieId
+     *            The movie id
+     */
+    void deleteByMovieId(final String movieId);
+}
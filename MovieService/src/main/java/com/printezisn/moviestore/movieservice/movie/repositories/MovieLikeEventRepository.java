@@ -0,0 +1,31 @@
+package com.printezisn.moviestore.movieservice.movie.repositories;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+
+/**
+ * The repository layer for movie like events
+ */
+@Repository
+public interface MovieLikeEventRepository
+    extends MongoRepository<MovieLikeEvent, String>, CustomMovieLikeEventRepository {
+
+    /**
+     * Deletes the like events of a movie
+     * 
+     * @param movieId
+     *            The movie id
+     */
+    void deleteByMovieId(final String movieId);
+
+    /**
+     * Checks if a movie has like events
+     * 
+     * @param movieId
+     *            The movie id
+     * @return True if the movie has like events, otherwise false
+     */
+    boolean existsByMovieId(final String movieId);
+}
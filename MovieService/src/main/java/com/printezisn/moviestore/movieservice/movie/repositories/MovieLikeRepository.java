@@ -1,5 +1,7 @@
 package com.printezisn.moviestore.movieservice.movie.repositories;
 
+import java.util.List;
+
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,7 +11,7 @@ import com.printezisn.moviestore.movieservice.movie.entities.MovieLike;
  * The repository layer for movie likes
  */
 @Repository
-public interface MovieLikeRepository extends MongoRepository<MovieLike, String> {
+public interface MovieLikeRepository extends MongoRepository<MovieLike, String>, CustomMovieLikeRepository {
 
     /**
      * Deletes movie likes based on movie id
@@ -27,4 +29,13 @@ public interface MovieLikeRepository extends MongoRepository<MovieLike, String>
      * @return The number of likes
      */
     long countByMovieId(final String movieId);
+
+    /**
+     * Returns the likes of a movie
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @return The likes
+     */
+    List<MovieLike> findByMovieId(final String movieId);
 }
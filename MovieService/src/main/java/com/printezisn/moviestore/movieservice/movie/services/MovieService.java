@@ -1,12 +1,16 @@
 package com.printezisn.moviestore.movieservice.movie.services;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieConditionalException;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieNotFoundException;
+import com.printezisn.moviestore.movieservice.movie.models.RevisionedMovie;
 
 /**
  * The service layer for movies
@@ -29,6 +33,25 @@ public interface MovieService {
     MoviePagedResultModel searchMovies(final Optional<String> text, final Optional<Integer> pageNumber,
         final Optional<String> sortField, final boolean isAscending);
 
+    /**
+     * Searches for movies, fetching the page of a cursor
+     * 
+     * @param text
+     *            The text to search for
+     * @param cursor
+     *            The cursor of the page, or blank for the first page
+     * @param sortField
+     *            The sorting field, used if there is no cursor
+     * @param isAscending
+     *            Indicates if the sorting is ascending or descending, used if
+     *            there is no cursor
+     * @param includeTotal
+     *            Indicates if the total number of movies found is counted
+     * @return The movies found
+     */
+    MoviePagedResultModel searchMovies(final Optional<String> text, final String cursor,
+        final Optional<String> sortField, final boolean isAscending, final boolean includeTotal);
+
     /**
      * Returns a movie
      * 
@@ -40,6 +63,34 @@ public interface MovieService {
      */
     MovieDto getMovie(final UUID id) throws MovieNotFoundException;
 
+    /**
+     * Returns a movie together with its current revision
+     * 
+     * @param id
+     *            The id of the movie
+     * @return The movie and its revision
+     * @throws MovieNotFoundException
+     *             Exception thrown if the movie is not found
+     */
+    RevisionedMovie getRevisionedMovie(final UUID id) throws MovieNotFoundException;
+
+    /**
+     * Returns a movie together with its current revision. If the cached revision
+     * of the movie is one that the caller already has, it is revalidated against
+     * the database first, so that the caller isn't told its copy is current after
+     * the movie has changed on another node.
+     * 
+     * @param id
+     *            The id of the movie
+     * @param knownRevisions
+     *            The revisions of the movie that the caller already has
+     * @return The movie and its revision
+     * @throws MovieNotFoundException
+     *             Exception thrown if the movie is not found
+     */
+    RevisionedMovie getRevisionedMovie(final UUID id, final Collection<String> knownRevisions)
+        throws MovieNotFoundException;
+
     /**
      * Creates a new movie
      * 
@@ -81,12 +132,11 @@ public interface MovieService {
      *            The id of the movie to like
      * @param account
      *            The account that likes the movie
-     * @throws MovieConditionalException
-     *             Exception thrown in case of conditional update failure
+     * @return The like status of the movie after the like
      * @throws MovieNotFoundException
      *             Exception thrown if the movie is not found
      */
-    void likeMovie(final UUID movieId, final String account) throws MovieConditionalException, MovieNotFoundException;
+    LikeStatus likeMovie(final UUID movieId, final String account) throws MovieNotFoundException;
 
     /**
      * Checks if an account has liked a movie
@@ -99,6 +149,17 @@ public interface MovieService {
      */
     boolean hasLiked(final UUID movieId, final String account);
 
+    /**
+     * Returns the total likes of movies and whether an account has liked them
+     * 
+     * @param movieIds
+     *            The ids of the movies
+     * @param account
+     *            The account, or null if likes aren't checked
+     * @return The like status of each movie that exists, by movie id
+     */
+    Map<UUID, LikeStatus> getLikeStatuses(final Collection<UUID> movieIds, final String account);
+
     /**
      * Removes a like from a movie
      * 
@@ -106,11 +167,9 @@ public interface MovieService {
      *            The id of the movie to unlike
      * @param account
      *            The account that removes the like from the movie
-     * @throws MovieConditionalException
-     *             Exception thrown in case of conditional update failure
+     * @return The like status of the movie after the like is removed
      * @throws MovieNotFoundException
      *             Exception thrown if the movie is not found
      */
-    void unlikeMovie(final UUID movieId, final String account)
-        throws MovieConditionalException, MovieNotFoundException;
+    LikeStatus unlikeMovie(final UUID movieId, final String account) throws MovieNotFoundException;
 }
@@ -2,29 +2,41 @@ package com.printezisn.moviestore.movieservice.movie.services;
 
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort.Direction;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
 import com.printezisn.moviestore.movieservice.movie.entities.Movie;
-import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent.Operation;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieConditionalException;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieNotFoundException;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MoviePersistenceException;
-import com.printezisn.moviestore.movieservice.movie.helpers.MovieIndexHelper;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieCache;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieIndexQueue;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieLikeIndex;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieLikeSequencer;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCache;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCursor;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCursorCodec;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchSlice;
 import com.printezisn.moviestore.movieservice.movie.mappers.MovieMapper;
-import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeRepository;
+import com.printezisn.moviestore.movieservice.movie.models.RevisionedMovie;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
 import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
 import com.printezisn.moviestore.movieservice.movie.repositories.MovieIndexRepository;
 
@@ -41,12 +53,19 @@ public class MovieServiceImpl implements MovieService {
 
     private static List<String> SORT_FIELDS = Arrays.asList("rating", "releaseYear", "totalLikes");
     private static final int PAGE_SIZE = 10;
+    private static final String PAGE_POSITION = "page:";
+    private static final String CURSOR_POSITION = "cursor:";
 
     private final MovieRepository movieRepository;
-    private final MovieLikeRepository movieLikeRepository;
+    private final MovieLikeIndex movieLikeIndex;
+    private final MovieLikeEventRepository movieLikeEventRepository;
     private final MovieIndexRepository movieIndexRepository;
-    private final MovieIndexHelper movieIndexHelper;
+    private final MovieIndexQueue movieIndexQueue;
     private final MovieMapper movieMapper;
+    private final MovieSearchCursorCodec movieSearchCursorCodec;
+    private final MovieSearchCache movieSearchCache;
+    private final MovieCache movieCache;
+    private final MovieLikeSequencer movieLikeSequencer;
 
     /**
      * {@inheritDoc}
@@ -56,29 +75,69 @@ public class MovieServiceImpl implements MovieService {
         final Optional<String> sortField, final boolean isAscending) {
 
         try {
-            final String requiredSortField = (sortField.isPresent() && SORT_FIELDS.contains(sortField.get()))
-                ? sortField.get()
-                : SORT_FIELDS.get(0);
-
-            final Pageable pageable = PageRequest.of(
-                Math.max(0, pageNumber.orElse(0)),
-                PAGE_SIZE,
-                isAscending ? Direction.ASC : Direction.DESC,
-                requiredSortField);
-
-            final Page<MovieIndex> page = movieIndexRepository.search(text, pageable);
-            final List<MovieDto> results = page.getContent()
-                .stream()
-                .map(movieMapper::movieIndexToMovieDto)
-                .collect(Collectors.toList());
-
-            return MoviePagedResultModel.builder()
-                .entries(results)
-                .pageNumber(page.getNumber())
-                .totalPages(page.getTotalPages())
-                .sortField(requiredSortField)
-                .isAscending(isAscending)
-                .build();
+            final String requiredSortField = getSortField(sortField);
+            final int requiredPageNumber = Math.max(0, pageNumber.orElse(0));
+
+            return movieSearchCache.get(text, PAGE_POSITION + requiredPageNumber, requiredSortField, isAscending,
+                true, () -> {
+                    final Pageable pageable = PageRequest.of(
+                        requiredPageNumber,
+                        PAGE_SIZE,
+                        isAscending ? Direction.ASC : Direction.DESC,
+                        requiredSortField);
+
+                    final Page<MovieDto> page = movieIndexRepository.search(text, pageable);
+
+                    return MoviePagedResultModel.builder()
+                        .entries(page.getContent())
+                        .pageNumber(page.getNumber())
+                        .totalPages(page.getTotalPages())
+                        .sortField(requiredSortField)
+                        .isAscending(isAscending)
+                        .build();
+                });
+        }
+        catch (final Exception ex) {
+            final String errorMessage = String.format("An error occured while searching movies: %s", ex.getMessage());
+
+            log.error(errorMessage, ex);
+            throw new MoviePersistenceException(errorMessage, ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MoviePagedResultModel searchMovies(final Optional<String> text, final String cursor,
+        final Optional<String> sortField, final boolean isAscending, final boolean includeTotal) {
+
+        try {
+            final String requiredSortField = getSortField(sortField);
+            final String position = CURSOR_POSITION + Optional.ofNullable(cursor).orElse("");
+
+            return movieSearchCache.get(text, position, requiredSortField, isAscending, includeTotal, () -> {
+                final MovieSearchCursor searchCursor = movieSearchCursorCodec.decode(cursor)
+                    .filter(decodedCursor -> SORT_FIELDS.contains(decodedCursor.getSortField()))
+                    .orElseGet(() -> MovieSearchCursor.builder()
+                        .sortField(requiredSortField)
+                        .ascending(isAscending)
+                        .build());
+
+                final MovieSearchSlice slice = movieIndexRepository.searchAfter(text, searchCursor, PAGE_SIZE,
+                    includeTotal);
+                final Long totalEntries = slice.getTotalEntries();
+
+                return MoviePagedResultModel.builder()
+                    .entries(slice.getEntries())
+                    .totalPages((totalEntries != null) ? (int) ((totalEntries + PAGE_SIZE - 1) / PAGE_SIZE) : 0)
+                    .sortField(searchCursor.getSortField())
+                    .isAscending(searchCursor.isAscending())
+                    .nextCursor(movieSearchCursorCodec.encode(slice.getNextCursor()))
+                    .previousCursor(movieSearchCursorCodec.encode(slice.getPreviousCursor()))
+                    .totalEntries(totalEntries)
+                    .build();
+            });
         }
         catch (final Exception ex) {
             final String errorMessage = String.format("An error occured while searching movies: %s", ex.getMessage());
@@ -93,13 +152,25 @@ public class MovieServiceImpl implements MovieService {
      */
     @Override
     public MovieDto getMovie(final UUID id) throws MovieNotFoundException {
+        return getRevisionedMovie(id).getMovie();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RevisionedMovie getRevisionedMovie(final UUID id) throws MovieNotFoundException {
         try {
-            final Movie movie = movieRepository.findById(id.toString()).orElseThrow(() -> new MovieNotFoundException());
-            if (movie.isDeleted()) {
+            final RevisionedMovie revisionedMovie = movieCache.get(id.toString(), movieId -> movieRepository
+                .findById(movieId)
+                .filter(movie -> !movie.isDeleted())
+                .map(movie -> new RevisionedMovie(movieMapper.movieToMovieDto(movie), movie.getRevision()))
+                .orElse(null));
+            if (revisionedMovie == null) {
                 throw new MovieNotFoundException();
             }
 
-            return movieMapper.movieToMovieDto(movie);
+            return revisionedMovie;
         }
         catch (final MovieNotFoundException ex) {
             throw ex;
@@ -113,6 +184,40 @@ public class MovieServiceImpl implements MovieService {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RevisionedMovie getRevisionedMovie(final UUID id, final Collection<String> knownRevisions)
+        throws MovieNotFoundException {
+
+        final RevisionedMovie revisionedMovie = getRevisionedMovie(id);
+        if (!knownRevisions.contains(revisionedMovie.getRevision())) {
+            return revisionedMovie;
+        }
+
+        final Optional<String> currentRevision;
+        try {
+            currentRevision = movieRepository.findRevision(id.toString());
+        }
+        catch (final Exception ex) {
+            final String errorMessage = String.format("An error occured while revalidating movie %s: %s", id,
+                ex.getMessage());
+
+            log.error(errorMessage, ex);
+            throw new MoviePersistenceException(errorMessage, ex);
+        }
+
+        if (currentRevision.filter(revisionedMovie.getRevision()::equals).isPresent()) {
+            return revisionedMovie;
+        }
+
+        // The cached movie was changed on another node, so it is loaded again
+        movieCache.evict(id.toString());
+
+        return getRevisionedMovie(id);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -127,8 +232,6 @@ public class MovieServiceImpl implements MovieService {
         movie.setUpdated(true);
         movie.setDeleted(false);
         movie.setTotalLikes(0);
-        movie.setPendingLikes(new HashSet<>());
-        movie.setPendingUnlikes(new HashSet<>());
 
         try {
             movieRepository.save(movie);
@@ -141,7 +244,7 @@ public class MovieServiceImpl implements MovieService {
             throw new MoviePersistenceException(errorMessage, ex);
         }
 
-        movieIndexHelper.indexMovie(movie);
+        movieIndexQueue.enqueue(movie.getId());
 
         return movieDto;
     }
@@ -162,18 +265,15 @@ public class MovieServiceImpl implements MovieService {
 
             final Movie updatedMovie = movieMapper.movieDtoToMovie(movieDto);
             updatedMovie.setRevision(UUID.randomUUID().toString());
-            updatedMovie.setTotalLikes(movie.getTotalLikes());
             updatedMovie.setUpdated(true);
-            updatedMovie.setDeleted(movie.isDeleted());
-            updatedMovie.setPendingLikes(movie.getPendingLikes());
-            updatedMovie.setPendingUnlikes(movie.getPendingUnlikes());
 
             final long affectedDocuments = movieRepository.updateMovie(updatedMovie, movie.getRevision());
             if (affectedDocuments == 0) {
                 throw new MovieConditionalException();
             }
 
-            movieIndexHelper.indexMovie(movie);
+            movieCache.evict(updatedMovie.getId());
+            movieIndexQueue.enqueue(updatedMovie.getId());
         }
         catch (final MovieNotFoundException | MovieConditionalException ex) {
             throw ex;
@@ -200,18 +300,14 @@ public class MovieServiceImpl implements MovieService {
                 return;
             }
 
-            final String currentRevision = movie.get().getRevision();
-
-            movie.get().setRevision(UUID.randomUUID().toString());
-            movie.get().setUpdated(true);
-            movie.get().setDeleted(true);
-
-            final long affectedDocuments = movieRepository.updateMovie(movie.get(), currentRevision);
+            final long affectedDocuments = movieRepository.markDeleted(movie.get().getId(),
+                movie.get().getRevision(), UUID.randomUUID().toString());
             if (affectedDocuments == 0) {
                 throw new MovieConditionalException();
             }
 
-            movieIndexHelper.indexMovie(movie.get());
+            movieCache.evict(movie.get().getId());
+            movieIndexQueue.enqueue(movie.get().getId());
         }
         catch (final MovieConditionalException ex) {
             throw ex;
@@ -229,30 +325,14 @@ public class MovieServiceImpl implements MovieService {
      * {@inheritDoc}
      */
     @Override
-    public void likeMovie(final UUID movieId, final String account)
-        throws MovieConditionalException, MovieNotFoundException {
-
+    public LikeStatus likeMovie(final UUID movieId, final String account) throws MovieNotFoundException {
         try {
-            final Movie movie = movieRepository.findById(movieId.toString())
-                .orElseThrow(() -> new MovieNotFoundException());
-            if (movie.isDeleted()) {
-                throw new MovieNotFoundException();
-            }
-
-            final String currentRevision = movie.getRevision();
-            movie.setRevision(UUID.randomUUID().toString());
-            movie.setUpdated(true);
-            movie.getPendingLikes().add(account);
-            movie.getPendingUnlikes().remove(account);
+            appendLikeEvent(movieId, account, Operation.LIKE);
+            movieIndexQueue.enqueue(movieId.toString());
 
-            final long affectedDocuments = movieRepository.updateMovie(movie, currentRevision);
-            if (affectedDocuments == 0) {
-                throw new MovieConditionalException();
-            }
-
-            movieIndexHelper.indexMovie(movie);
+            return getLikeStatus(movieId, account, true);
         }
-        catch (final MovieNotFoundException | MovieConditionalException ex) {
+        catch (final MovieNotFoundException ex) {
             throw ex;
         }
         catch (final Exception ex) {
@@ -268,30 +348,14 @@ public class MovieServiceImpl implements MovieService {
      * {@inheritDoc}
      */
     @Override
-    public void unlikeMovie(final UUID movieId, final String account)
-        throws MovieConditionalException, MovieNotFoundException {
-
+    public LikeStatus unlikeMovie(final UUID movieId, final String account) throws MovieNotFoundException {
         try {
-            final Movie movie = movieRepository.findById(movieId.toString())
-                .orElseThrow(() -> new MovieNotFoundException());
-            if (movie.isDeleted()) {
-                throw new MovieNotFoundException();
-            }
-
-            final String currentRevision = movie.getRevision();
-            movie.setRevision(UUID.randomUUID().toString());
-            movie.setUpdated(true);
-            movie.getPendingLikes().remove(account);
-            movie.getPendingUnlikes().add(account);
-
-            final long affectedDocuments = movieRepository.updateMovie(movie, currentRevision);
-            if (affectedDocuments == 0) {
-                throw new MovieConditionalException();
-            }
+            appendLikeEvent(movieId, account, Operation.UNLIKE);
+            movieIndexQueue.enqueue(movieId.toString());
 
-            movieIndexHelper.indexMovie(movie);
+            return getLikeStatus(movieId, account, false);
         }
-        catch (final MovieNotFoundException | MovieConditionalException ex) {
+        catch (final MovieNotFoundException ex) {
             throw ex;
         }
         catch (final Exception ex) {
@@ -307,11 +371,38 @@ public class MovieServiceImpl implements MovieService {
      * {@inheritDoc}
      */
     public boolean hasLiked(final UUID movieId, final String account) {
+        return movieLikeIndex.hasLiked(movieId.toString(), account);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<UUID, LikeStatus> getLikeStatuses(final Collection<UUID> movieIds, final String account) {
         try {
-            return movieLikeRepository.findById(movieId + "-" + account).isPresent();
+            final Map<String, RevisionedMovie> movies = movieCache.getAll(
+                movieIds.stream().map(UUID::toString).collect(Collectors.toList()),
+                ids -> StreamSupport.stream(movieRepository.findAllById(ids).spliterator(), false)
+                    .filter(movie -> !movie.isDeleted())
+                    .collect(Collectors.toMap(Movie::getId,
+                        movie -> new RevisionedMovie(movieMapper.movieToMovieDto(movie), movie.getRevision()))));
+
+            final Map<UUID, LikeStatus> likeStatuses = new LinkedHashMap<>();
+            movieIds.forEach(movieId -> {
+                final RevisionedMovie movie = movies.get(movieId.toString());
+                if (movie != null) {
+                    // The total likes are read from the like index, like the status after a like,
+                    // so that both agree before the movie is indexed again
+                    final long totalLikes = movieLikeIndex.getLikes(movieId.toString());
+                    final boolean hasLiked = account != null && movieLikeIndex.hasLiked(movieId.toString(), account);
+                    likeStatuses.put(movieId, new LikeStatus((int) totalLikes, hasLiked));
+                }
+            });
+
+            return likeStatuses;
         }
         catch (final Exception ex) {
-            final String errorMessage = String.format("An error occured while checking like for movie %s: %s", movieId,
+            final String errorMessage = String.format("An error occured while reading the like status of movies: %s",
                 ex.getMessage());
 
             log.error(errorMessage, ex);
@@ -320,16 +411,67 @@ public class MovieServiceImpl implements MovieService {
     }
 
     /**
-     * Updates the search index at a regular interval
+     * Appends a like event for a movie. The movie is checked through the movie
+     * cache and the event is the only write, so a like doesn't contend with other
+     * likes on the movie document. The indexer finds the movie through its pending
+     * events.
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param account
+     *            The account that likes or unlikes the movie
+     * @param operation
+     *            The operation of the event
+     * @throws MovieNotFoundException
+     *             Exception thrown if the movie is not found or is deleted
      */
-    @Scheduled(fixedRateString = "${searchIndex.fixedRate}")
-    public void updateSearchIndex() {
-        try {
-            // Loads the recently updated movies and indexes them
-            movieRepository.findByUpdated(true).forEach(movieIndexHelper::indexMovie);
-        }
-        catch (final Exception ex) {
-            log.error("An error occured while loading movies to index: " + ex.getMessage(), ex);
+    private void appendLikeEvent(final UUID movieId, final String account, final Operation operation)
+        throws MovieNotFoundException {
+
+        getRevisionedMovie(movieId);
+
+        movieLikeEventRepository.insert(MovieLikeEvent.builder()
+            .movieId(movieId.toString())
+            .account(account)
+            .op(operation)
+            .seq(movieLikeSequencer.next())
+            .build());
+    }
+
+    /**
+     * Returns the like status of a movie right after an account has liked or
+     * unliked it. The event isn't applied to the like index yet, so its effect is
+     * added to the total likes of the index.
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param account
+     *            The account that likes or unlikes the movie
+     * @param hasLiked
+     *            True if the account has liked the movie, false if it has unliked
+     *            it
+     * @return The like status of the movie
+     */
+    private LikeStatus getLikeStatus(final UUID movieId, final String account, final boolean hasLiked) {
+        final long totalLikes = movieLikeIndex.getLikes(movieId.toString());
+        if (hasLiked == movieLikeIndex.hasLiked(movieId.toString(), account)) {
+            return new LikeStatus((int) totalLikes, hasLiked);
         }
+
+        return new LikeStatus((int) Math.max(totalLikes + (hasLiked ? 1 : -1), 0), hasLiked);
+    }
+
+    /**
+     * Returns the sorting field to use for a search
+     * 
+     * @param sortField
+     *            The requested sorting field
+     * @return The requested sorting field if it's supported, otherwise the
+     *         default one
+     */
+    private String getSortField(final Optional<String> sortField) {
+        return (sortField.isPresent() && SORT_FIELDS.contains(sortField.get()))
+            ? sortField.get()
+            : SORT_FIELDS.get(0);
     }
 }
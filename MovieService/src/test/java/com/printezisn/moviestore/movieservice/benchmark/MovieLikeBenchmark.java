@@ -0,0 +1,137 @@
+package com.printezisn.moviestore.movieservice.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.common.models.movie.MovieResultModel;
+
+/**
+ * Measures the latency of liking a movie from many concurrent likers. The
+ * likers first like another movie, so that the measured round doesn't include
+ * the warm-up of the connection pools. The percentiles are only logged, since
+ * they depend on the machine that runs the benchmark.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+public class MovieLikeBenchmark {
+
+    private static final int CONCURRENT_LIKERS = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(MovieLikeBenchmark.class);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Measures the latency of concurrent likes on the same movie
+     */
+    @Test
+    public void benchmark_likeMovie_concurrentLikers() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(CONCURRENT_LIKERS);
+
+        try {
+            likeConcurrently(executorService, createMovie());
+
+            final Percentiles percentiles = new Percentiles(likeConcurrently(executorService, createMovie()));
+            log.info("Like latency with {} concurrent likers: p50={}ms, p99={}ms, max={}ms", CONCURRENT_LIKERS,
+                percentiles.get(0.5), percentiles.get(0.99), percentiles.getMax());
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Likes a movie from all likers at the same time
+     * 
+     * @param executorService
+     *            The executor that runs the likers
+     * @param movieDto
+     *            The movie to like
+     * @return The latency of each like in nanoseconds
+     */
+    private List<Long> likeConcurrently(final ExecutorService executorService, final MovieDto movieDto)
+        throws Exception {
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Future<Long>> futures = new ArrayList<>(CONCURRENT_LIKERS);
+        for (int i = 0; i < CONCURRENT_LIKERS; i++) {
+            final String url = String.format("/movie/like/%s/liker_%d", movieDto.getId(), i);
+            final Callable<Long> task = () -> {
+                startLatch.await();
+
+                final long start = System.nanoTime();
+                mockMvc.perform(get(url)).andExpect(status().isOk());
+
+                return System.nanoTime() - start;
+            };
+
+            futures.add(executorService.submit(task));
+        }
+
+        startLatch.countDown();
+
+        final List<Long> latencies = new ArrayList<>(CONCURRENT_LIKERS);
+        for (final Future<Long> future : futures) {
+            latencies.add(future.get());
+        }
+
+        return latencies;
+    }
+
+    /**
+     * Creates a new movie
+     * 
+     * @return The created movie
+     */
+    private MovieDto createMovie() throws Exception {
+        final MovieDto movieDto = new MovieDto();
+        movieDto.setId(UUID.randomUUID());
+        movieDto.setTitle("Benchmark Title " + movieDto.getId());
+        movieDto.setDescription("Benchmark Description");
+        movieDto.setRating(9.0);
+        movieDto.setReleaseYear(1988);
+        movieDto.setCreationTimestamp(Instant.now());
+        movieDto.setUpdateTimestamp(Instant.now());
+        movieDto.setCreator("benchmark_creator");
+
+        final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        final String responseString = mockMvc
+            .perform(post("/movie/new").content(objectMapper.writeValueAsString(movieDto))
+                .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        return objectMapper.readValue(responseString, MovieResultModel.class).getResult();
+    }
+}
@@ -0,0 +1,135 @@
+package com.printezisn.moviestore.movieservice.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent.Operation;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieLikeSequencer;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+/**
+ * Measures reading a movie and appending like events when the movie already
+ * has a large number of like events waiting to be applied. The percentiles are
+ * only logged, since they depend on the machine that runs the benchmark.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.MOCK)
+@TestPropertySource("classpath:application-test.properties")
+public class MovieLikeEventBenchmark {
+
+    private static final int PENDING_EVENTS = 50000;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 200;
+
+    private static final Logger log = LoggerFactory.getLogger(MovieLikeEventBenchmark.class);
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private MovieLikeEventRepository movieLikeEventRepository;
+
+    @Autowired
+    private MovieLikeSequencer movieLikeSequencer;
+
+    private Movie movie;
+
+    /**
+     * Creates a movie with many like events
+     */
+    @Before
+    public void setUp() {
+        movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setTitle("Test Title");
+        movie.setDescription("Test Description");
+        movie.setRating(9);
+        movie.setReleaseYear(1988);
+        movie.setCreator("test_creator");
+        movie.setCreationTimestamp(Instant.now().toEpochMilli());
+        movie.setUpdateTimestamp(Instant.now().toEpochMilli());
+        movie.setRevision(UUID.randomUUID().toString());
+
+        movieRepository.save(movie);
+
+        final List<MovieLikeEvent> events = new ArrayList<>(PENDING_EVENTS);
+        for (int i = 0; i < PENDING_EVENTS; i++) {
+            events.add(MovieLikeEvent.builder()
+                .movieId(movie.getId())
+                .account("test_account_" + i)
+                .op(Operation.LIKE)
+                .seq(i + 1)
+                .build());
+        }
+
+        movieLikeEventRepository.insert(events);
+    }
+
+    /**
+     * Removes the movie and its like events
+     */
+    @After
+    public void tearDown() {
+        movieLikeEventRepository.deleteByMovieId(movie.getId());
+        movieRepository.deleteById(movie.getId());
+    }
+
+    /**
+     * Measures the p95 latency of reads and appends next to the pending events
+     */
+    @Test
+    public void benchmark_likeEvents_pendingEvents() {
+        final Percentiles readLatencies = measure(() -> movieRepository.findById(movie.getId()));
+        final Percentiles appendLatencies = measure(() -> {
+            final long sequence = movieLikeSequencer.next();
+            movieLikeEventRepository.insert(MovieLikeEvent.builder()
+                .movieId(movie.getId())
+                .account("test_account_" + sequence)
+                .op(Operation.UNLIKE)
+                .seq(sequence)
+                .build());
+        });
+
+        log.info("Movie with {} like events: read p95 {} ms, like p95 {} ms", PENDING_EVENTS,
+            readLatencies.get(0.95), appendLatencies.get(0.95));
+    }
+
+    /**
+     * Returns the latencies of an operation after a warmup
+     * 
+     * @param operation
+     *            The operation
+     * @return The percentiles of the latencies
+     */
+    private Percentiles measure(final Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        final List<Long> latencies = new ArrayList<>(ITERATIONS);
+        for (int i = 0; i < ITERATIONS; i++) {
+            final long start = System.nanoTime();
+            operation.run();
+            latencies.add(System.nanoTime() - start);
+        }
+
+        return new Percentiles(latencies);
+    }
+}
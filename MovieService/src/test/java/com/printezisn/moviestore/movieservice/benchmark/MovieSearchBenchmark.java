@@ -0,0 +1,132 @@
+package com.printezisn.moviestore.movieservice.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCursor;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchSlice;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieIndexRepository;
+
+/**
+ * Measures the latency of full text searches on an index with many movies. The
+ * percentiles are only logged, since they depend on the machine and the cluster
+ * that run the benchmark.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.MOCK)
+@TestPropertySource("classpath:application-test.properties")
+public class MovieSearchBenchmark {
+
+    private static final int INDEXED_MOVIES = 20000;
+    private static final int PAGE_SIZE = 10;
+    private static final int WARMUP_ITERATIONS = 100;
+    private static final int ITERATIONS = 500;
+    private static final String[] WORDS = { "star", "night", "river", "empire", "shadow", "garden", "storm",
+        "winter", "silent", "golden", "journey", "return", "secret", "city", "ocean", "dream" };
+    private static final String[] QUERIES = { "star", "sta", "golden river", "return of the", "secr", "winter storm",
+        "emp", "ocean dream" };
+
+    private static final Logger log = LoggerFactory.getLogger(MovieSearchBenchmark.class);
+
+    @Autowired
+    private MovieIndexRepository movieIndexRepository;
+
+    private final List<MovieIndex> movies = new ArrayList<>(INDEXED_MOVIES);
+
+    /**
+     * Indexes the movies
+     */
+    @Before
+    public void setUp() {
+        final Random random = new Random(42);
+        for (int i = 0; i < INDEXED_MOVIES; i++) {
+            final MovieIndex movie = new MovieIndex();
+            movie.setId(UUID.randomUUID().toString());
+            movie.setTitle(String.format("%s of the %s %s", createWord(random), createWord(random),
+                createWord(random)));
+            movie.setDescription(String.format("A %s %s in the %s %s", createWord(random), createWord(random),
+                createWord(random), createWord(random)));
+            movie.setRating(random.nextInt(100) / 10.0);
+            movie.setReleaseYear(1950 + random.nextInt(70));
+            movie.setTotalLikes(random.nextInt(1000));
+            movie.setCreator("test_creator");
+
+            movies.add(movie);
+        }
+
+        movieIndexRepository.saveAll(movies);
+    }
+
+    /**
+     * Removes the movies
+     */
+    @After
+    public void tearDown() {
+        movieIndexRepository.deleteAll(movies);
+    }
+
+    /**
+     * Measures the latency of the first page of a search, which runs the primary
+     * query over the analyzed subfields
+     */
+    @Test
+    public void benchmark_searchAfter_firstPage() {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            search(QUERIES[i % QUERIES.length]);
+        }
+
+        final List<Long> latencies = new ArrayList<>(ITERATIONS);
+        for (int i = 0; i < ITERATIONS; i++) {
+            final long start = System.nanoTime();
+            search(QUERIES[i % QUERIES.length]);
+            latencies.add(System.nanoTime() - start);
+        }
+
+        final Percentiles percentiles = new Percentiles(latencies);
+        log.info("Search latency with {} movies: p50={}ms, p95={}ms, max={}ms", INDEXED_MOVIES,
+            percentiles.get(0.5), percentiles.get(0.95), percentiles.getMax());
+    }
+
+    /**
+     * Searches for the first page of movies that match a text
+     * 
+     * @param text
+     *            The text
+     * @return The first page
+     */
+    private MovieSearchSlice search(final String text) {
+        final MovieSearchCursor cursor = MovieSearchCursor.builder()
+            .sortField("rating")
+            .ascending(false)
+            .build();
+
+        return movieIndexRepository.searchAfter(Optional.of(text), cursor, PAGE_SIZE, true);
+    }
+
+    /**
+     * Returns a random word for a title or a description
+     * 
+     * @param random
+     *            The random generator
+     * @return The word
+     */
+    private String createWord(final Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
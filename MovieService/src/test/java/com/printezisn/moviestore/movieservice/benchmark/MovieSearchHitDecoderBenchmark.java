@@ -0,0 +1,124 @@
+package com.printezisn.moviestore.movieservice.benchmark;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchHitDecoder;
+
+/**
+ * Compares the bytes allocated by decoding a page of search hits with the bytes
+ * allocated by parsing the hits through strings and an intermediate entity. The
+ * allocations are only logged, since they depend on the JVM that runs the
+ * benchmark.
+ */
+public class MovieSearchHitDecoderBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 2000;
+
+    private static final Logger log = LoggerFactory.getLogger(MovieSearchHitDecoderBenchmark.class);
+
+    private final MovieSearchHitDecoder movieSearchHitDecoder = new MovieSearchHitDecoder();
+
+    /**
+     * Measures the allocation of decoding a page of search hits
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void benchmark_decode_allocation() throws Exception {
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+
+        final SearchHit[] hits = new SearchHit[PAGE_SIZE];
+        for (int i = 0; i < hits.length; i++) {
+            final UUID id = UUID.randomUUID();
+            final String source = String.format("{\"id\":\"%s\",\"title\":\"Test Title %d\",\"description\":"
+                + "\"Test Description %d\",\"rating\":7.5,\"releaseYear\":2018,\"totalLikes\":3,"
+                + "\"creator\":\"test_account\"}", id, i, i);
+
+            hits[i] = new SearchHit(i, id.toString(), new Text("movies"), Collections.emptyMap());
+            hits[i].sourceRef(new BytesArray(source.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        final long decodedBytes = measureAllocation(threadMXBean, () -> {
+            final List<MovieDto> movies = new ArrayList<>(hits.length);
+            for (final SearchHit hit : hits) {
+                movies.add(movieSearchHitDecoder.decode(hit));
+            }
+
+            return movies;
+        });
+        final long parsedBytes = measureAllocation(threadMXBean, () -> {
+            final ObjectMapper objectMapper = new ObjectMapper();
+            final List<MovieDto> movies = new LinkedList<>();
+            for (final SearchHit hit : hits) {
+                final MovieIndex movieIndex = objectMapper.readValue(hit.getSourceAsString(), MovieIndex.class);
+
+                final MovieDto movieDto = new MovieDto();
+                movieDto.setId(UUID.fromString(movieIndex.getId()));
+                movieDto.setTitle(movieIndex.getTitle());
+                movieDto.setDescription(movieIndex.getDescription());
+                movieDto.setRating(movieIndex.getRating());
+                movieDto.setReleaseYear(movieIndex.getReleaseYear());
+                movieDto.setTotalLikes((int) movieIndex.getTotalLikes());
+                movieDto.setCreator(movieIndex.getCreator());
+                movies.add(movieDto);
+            }
+
+            return movies;
+        });
+
+        log.info("Allocation per page of {} hits: decoded {} bytes, parsed {} bytes", PAGE_SIZE, decodedBytes,
+            parsedBytes);
+    }
+
+    /**
+     * Returns the bytes allocated by one run of an operation, on average, after a
+     * warmup
+     * 
+     * @param threadMXBean
+     *            The bean that reports the allocated bytes of the thread
+     * @param operation
+     *            The operation
+     * @return The allocated bytes per run
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    private long measureAllocation(final com.sun.management.ThreadMXBean threadMXBean,
+        final Callable<List<MovieDto>> operation) throws Exception {
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.call();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.call();
+        }
+
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+    }
+}
@@ -0,0 +1,55 @@
+package com.printezisn.moviestore.movieservice.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Percentiles of the latencies measured by a benchmark
+ */
+public class Percentiles {
+
+    private final List<Long> latencies;
+
+    /**
+     * The constructor
+     * 
+     * @param latencies
+     *            The latencies in nanoseconds
+     */
+    public Percentiles(final List<Long> latencies) {
+        this.latencies = new ArrayList<>(latencies);
+        Collections.sort(this.latencies);
+    }
+
+    /**
+     * Returns a percentile of the latencies
+     * 
+     * @param percentile
+     *            The percentile, e.g. 0.99
+     * @return The latency in milliseconds
+     */
+    public double get(final double percentile) {
+        return toMillis(latencies.get((int) Math.ceil(latencies.size() * percentile) - 1));
+    }
+
+    /**
+     * Returns the highest latency
+     * 
+     * @return The latency in milliseconds
+     */
+    public double getMax() {
+        return toMillis(latencies.get(latencies.size() - 1));
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds
+     * 
+     * @param nanos
+     *            The nanoseconds
+     * @return The milliseconds
+     */
+    private static double toMillis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.printezisn.moviestore.movieservice.integ;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -7,7 +8,13 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -15,6 +22,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -41,7 +49,9 @@ public class MovieIntegrationTest {
     private static final int TEST_RELEASE_YEAR = 1988;
     private static final int TEST_TOTAL_LIKES = 5;
     private static final String TEST_CREATOR = "test_creator_%s";
+    private static final int CONCURRENT_LIKERS = 500;
 
+    @SuppressWarnings("deprecation")
     private final RetryHandler retryHandler = RetryHandler.builder()
         .useExponentialBackOff(true)
         .jitter(500)
@@ -187,14 +197,17 @@ public class MovieIntegrationTest {
         final MovieDto movieDto = createMovie();
         likeMovie(movieDto);
 
-        mockMvc
-            .perform(get(String.format("/movie/hasliked/%s/%s", movieDto.getId().toString(), movieDto.getCreator())))
-            .andExpect(status().isOk())
-            .andExpect(jsonPath("$").value(true));
-        mockMvc
-            .perform(get(String.format("/movie/get/%s", movieDto.getId())))
-            .andExpect(status().isOk())
-            .andExpect(jsonPath("totalLikes").value(1));
+        retryHandler.run(() -> {
+            mockMvc
+                .perform(
+                    get(String.format("/movie/hasliked/%s/%s", movieDto.getId().toString(), movieDto.getCreator())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(true));
+            return mockMvc
+                .perform(get(String.format("/movie/get/%s", movieDto.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("totalLikes").value(1));
+        }, ex -> true);
     }
 
     /**
@@ -208,17 +221,62 @@ public class MovieIntegrationTest {
         retryHandler.run(() -> {
             return mockMvc
                 .perform(get(String.format("/movie/unlike/%s/%s", movieDto.getId().toString(), movieDto.getCreator())))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("totalLikes").value(0))
+                .andExpect(jsonPath("hasLiked").value(false));
         }, ex -> true);
 
-        mockMvc
-            .perform(get(String.format("/movie/hasliked/%s/%s", movieDto.getId().toString(), movieDto.getCreator())))
-            .andExpect(status().isOk())
-            .andExpect(jsonPath("$").value(false));
-        mockMvc
-            .perform(get(String.format("/movie/get/%s", movieDto.getId())))
-            .andExpect(status().isOk())
-            .andExpect(jsonPath("totalLikes").value(0));
+        retryHandler.run(() -> {
+            mockMvc
+                .perform(
+                    get(String.format("/movie/hasliked/%s/%s", movieDto.getId().toString(), movieDto.getCreator())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(false));
+            return mockMvc
+                .perform(get(String.format("/movie/get/%s", movieDto.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("totalLikes").value(0));
+        }, ex -> true);
+    }
+
+    /**
+     * Tests that concurrent likes on the same movie never conflict and that every
+     * like is counted once they are applied. The latency of concurrent likes is
+     * measured by MovieLikeBenchmark.
+     */
+    @Test
+    public void test_likeMovie_concurrentLikers() throws Exception {
+        final MovieDto movieDto = createMovie();
+        final ExecutorService executorService = Executors.newFixedThreadPool(CONCURRENT_LIKERS);
+
+        try {
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            final List<Future<Integer>> futures = new ArrayList<>(CONCURRENT_LIKERS);
+            for (int i = 0; i < CONCURRENT_LIKERS; i++) {
+                final String url = String.format("/movie/like/%s/liker_%d", movieDto.getId(), i);
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+
+                    return mockMvc.perform(get(url)).andReturn().getResponse().getStatus();
+                }));
+            }
+
+            startLatch.countDown();
+
+            for (final Future<Integer> future : futures) {
+                assertEquals(HttpStatus.OK.value(), future.get().intValue());
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+
+        retryHandler.run(() -> {
+            return mockMvc
+                .perform(get(String.format("/movie/get/%s", movieDto.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("totalLikes").value(CONCURRENT_LIKERS));
+        }, ex -> true);
     }
 
     /**
@@ -230,7 +288,9 @@ public class MovieIntegrationTest {
     private void likeMovie(final MovieDto movieDto) throws Exception {
         retryHandler.run(() -> {
             return mockMvc.perform(get(String.format("/movie/like/%s/%s", movieDto.getId(), movieDto.getCreator())))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("totalLikes").value(1))
+                .andExpect(jsonPath("hasLiked").value(true));
         }, ex -> true);
     }
 
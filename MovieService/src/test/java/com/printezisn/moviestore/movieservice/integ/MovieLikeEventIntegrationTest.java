@@ -0,0 +1,127 @@
+package com.printezisn.moviestore.movieservice.integ;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.printezisn.moviestore.common.RetryHandler;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent.Operation;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+import com.printezisn.moviestore.movieservice.movie.services.MovieService;
+
+/**
+ * Contains integration tests for liking a movie that already has a large number
+ * of like events waiting to be applied. The latency of reads and likes next to
+ * the pending events is measured by MovieLikeEventBenchmark.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.MOCK)
+@TestPropertySource("classpath:application-test.properties")
+public class MovieLikeEventIntegrationTest {
+
+    private static final int PENDING_EVENTS = 5000;
+    private static final String TEST_ACCOUNT = "test_account_%d";
+
+    @SuppressWarnings("deprecation")
+    private final RetryHandler retryHandler = RetryHandler.builder()
+        .useExponentialBackOff(true)
+        .jitter(500)
+        .build();
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private MovieLikeEventRepository movieLikeEventRepository;
+
+    @Autowired
+    private MovieService movieService;
+
+    private Movie movie;
+
+    /**
+     * Creates a movie with many like events
+     */
+    @Before
+    public void setUp() {
+        movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setTitle("Test Title");
+        movie.setDescription("Test Description");
+        movie.setRating(9);
+        movie.setReleaseYear(1988);
+        movie.setCreator("test_creator");
+        movie.setCreationTimestamp(Instant.now().toEpochMilli());
+        movie.setUpdateTimestamp(Instant.now().toEpochMilli());
+        movie.setRevision(UUID.randomUUID().toString());
+
+        movieRepository.save(movie);
+
+        final List<MovieLikeEvent> events = new ArrayList<>(PENDING_EVENTS);
+        for (int i = 0; i < PENDING_EVENTS; i++) {
+            events.add(MovieLikeEvent.builder()
+                .movieId(movie.getId())
+                .account(String.format(TEST_ACCOUNT, i))
+                .op(Operation.LIKE)
+                .seq(i + 1)
+                .build());
+        }
+
+        movieLikeEventRepository.insert(events);
+    }
+
+    /**
+     * Removes the movie and its like events
+     */
+    @After
+    public void tearDown() {
+        movieLikeEventRepository.deleteByMovieId(movie.getId());
+        movieRepository.deleteById(movie.getId());
+    }
+
+    /**
+     * Tests if likes and unlikes appended after the pending events are applied
+     * after them, and if every like is counted once all events are applied
+     */
+    @Test
+    public void test_likeEvents_pendingEvents() throws Exception {
+        final UUID movieId = UUID.fromString(movie.getId());
+        final String newAccount = String.format(TEST_ACCOUNT, PENDING_EVENTS);
+        final String unlikingAccount = String.format(TEST_ACCOUNT, 0);
+
+        final LikeStatus likeStatus = movieService.likeMovie(movieId, newAccount);
+        final LikeStatus unlikeStatus = movieService.unlikeMovie(movieId, unlikingAccount);
+
+        assertTrue(likeStatus.isHasLiked());
+        assertFalse(unlikeStatus.isHasLiked());
+
+        retryHandler.run(() -> {
+            assertFalse(movieLikeEventRepository.existsByMovieId(movie.getId()));
+            assertEquals(PENDING_EVENTS, movieService.getMovie(movieId).getTotalLikes());
+            assertTrue(movieService.hasLiked(movieId, newAccount));
+            assertFalse(movieService.hasLiked(movieId, unlikingAccount));
+            assertTrue(movieService.hasLiked(movieId, String.format(TEST_ACCOUNT, PENDING_EVENTS - 1)));
+
+            return null;
+        }, ex -> true);
+    }
+}
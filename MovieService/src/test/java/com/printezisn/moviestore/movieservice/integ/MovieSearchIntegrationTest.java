@@ -0,0 +1,188 @@
+package com.printezisn.moviestore.movieservice.integ;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCursor;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchSlice;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieIndexRepository;
+
+/**
+ * Contains integration tests for the relevance of full text searches. Every
+ * movie contains a random word, so that the searches only match the movies of
+ * the test. The latency of searches is measured by MovieSearchBenchmark.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.MOCK)
+@TestPropertySource("classpath:application-test.properties")
+public class MovieSearchIntegrationTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int WORD_LENGTH = 10;
+
+    @Autowired
+    private MovieIndexRepository movieIndexRepository;
+
+    private final List<MovieIndex> movies = new ArrayList<>();
+
+    private String word;
+    private MovieIndex exactTitleMovie;
+    private MovieIndex longerTitleMovie;
+    private MovieIndex descriptionMovie;
+    private MovieIndex phraseMovie;
+    private MovieIndex scatteredMovie;
+
+    /**
+     * Indexes the movies
+     */
+    @Before
+    public void setUp() {
+        word = createWord(new Random());
+
+        exactTitleMovie = createMovie(word + " Garden", "A quiet story");
+        longerTitleMovie = createMovie("Return of the " + word + " Garden", "A loud story");
+        descriptionMovie = createMovie("Silent River", "A " + word + " in the city");
+        phraseMovie = createMovie(word + " Storm Rising", "A story");
+        scatteredMovie = createMovie("Storm over the " + word, "A story");
+
+        movieIndexRepository.saveAll(movies);
+    }
+
+    /**
+     * Removes the movies
+     */
+    @After
+    public void tearDown() {
+        movieIndexRepository.deleteAll(movies);
+    }
+
+    /**
+     * Tests if a prefix of a word matches the titles and the descriptions that
+     * contain the word
+     */
+    @Test
+    public void test_search_prefix() {
+        final List<String> ids = search(word.substring(0, WORD_LENGTH / 2));
+
+        assertTrue(ids.containsAll(movies.stream().map(MovieIndex::getId).collect(Collectors.toList())));
+        assertTrue(ids.contains(descriptionMovie.getId()));
+    }
+
+    /**
+     * Tests if the movie with the exact title is ranked first
+     */
+    @Test
+    public void test_search_exactTitle() {
+        final List<String> ids = search(word + " garden");
+
+        assertEquals(exactTitleMovie.getId(), ids.get(0));
+        assertTrue(ids.indexOf(longerTitleMovie.getId()) > 0);
+    }
+
+    /**
+     * Tests if a title that contains the searched words as a phrase is ranked
+     * above a title that contains them apart
+     */
+    @Test
+    public void test_search_phrase() {
+        final List<String> ids = search(word + " storm");
+
+        assertTrue(ids.contains(scatteredMovie.getId()));
+        assertTrue(ids.indexOf(phraseMovie.getId()) < ids.indexOf(scatteredMovie.getId()));
+    }
+
+    /**
+     * Tests if a search with a typo falls back to the fuzzy query, and if the
+     * cursors of the next pages keep using it
+     */
+    @Test
+    public void test_searchAfter_fuzzyFallback() {
+        final String typo = word.substring(0, WORD_LENGTH - 1) + (word.charAt(WORD_LENGTH - 1) == 'a' ? 'b' : 'a');
+        final MovieSearchCursor cursor = MovieSearchCursor.builder()
+            .sortField("rating")
+            .ascending(false)
+            .build();
+
+        final MovieSearchSlice slice = movieIndexRepository.searchAfter(Optional.of(typo), cursor, 2, true);
+
+        assertEquals(2, slice.getEntries().size());
+        assertTrue(slice.getTotalEntries() >= movies.size());
+        assertTrue(slice.getNextCursor().isFuzzy());
+    }
+
+    /**
+     * Searches for the first page of movies that match a text, ranked by
+     * relevance
+     * 
+     * @param text
+     *            The text
+     * @return The ids of the movies in the order they were ranked
+     */
+    private List<String> search(final String text) {
+        return movieIndexRepository.search(Optional.of(text), PageRequest.of(0, PAGE_SIZE))
+            .getContent()
+            .stream()
+            .map(MovieDto::getId)
+            .map(UUID::toString)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a movie and adds it to the movies of the test
+     * 
+     * @param title
+     *            The title of the movie
+     * @param description
+     *            The description of the movie
+     * @return The movie
+     */
+    private MovieIndex createMovie(final String title, final String description) {
+        final MovieIndex movie = new MovieIndex();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setTitle(title);
+        movie.setDescription(description);
+        movie.setRating(movies.size());
+        movie.setReleaseYear(1988);
+        movie.setCreator("test_creator");
+
+        movies.add(movie);
+
+        return movie;
+    }
+
+    /**
+     * Returns a random word of lowercase letters
+     * 
+     * @param random
+     *            The random generator
+     * @return The word
+     */
+    private String createWord(final Random random) {
+        final StringBuilder builder = new StringBuilder(WORD_LENGTH);
+        for (int i = 0; i < WORD_LENGTH; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+
+        return builder.toString();
+    }
+}
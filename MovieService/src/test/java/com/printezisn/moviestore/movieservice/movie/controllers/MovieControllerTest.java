@@ -5,35 +5,46 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
+import com.printezisn.moviestore.common.models.movie.LikeStatusQueryModel;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.movieservice.movie.controllers.MovieController;
 import com.printezisn.moviestore.common.AppUtils;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieConditionalException;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieNotFoundException;
+import com.printezisn.moviestore.movieservice.movie.models.RevisionedMovie;
 import com.printezisn.moviestore.movieservice.movie.services.MovieService;
 
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Contains unit tests for the movie controller
@@ -111,6 +122,39 @@ public class MovieControllerTest {
         expectMovieValues(resultActions, movieDto.getId(), Optional.of("entries[0]"));
     }
 
+    /**
+     * Tests if movies are searched successfully with a cursor
+     */
+    @Test
+    public void test_searchMovies_cursor() throws Exception {
+        final Optional<String> text = Optional.of("test");
+        final String cursor = "test_cursor";
+        final Optional<String> sortField = Optional.of("sort");
+        final boolean isAscending = true;
+        final String url = String.format("/movie/search?text=%s&cursor=%s&sort=%s&asc=%s&total=true", text.get(),
+            cursor, sortField.get(), isAscending);
+
+        final MovieDto movieDto = createMovie();
+        final MoviePagedResultModel pagedResult = MoviePagedResultModel.builder()
+            .entries(Arrays.asList(movieDto))
+            .sortField(sortField.get())
+            .isAscending(isAscending)
+            .nextCursor("next_cursor")
+            .previousCursor("previous_cursor")
+            .totalEntries(15L)
+            .build();
+
+        when(movieService.searchMovies(text, cursor, sortField, isAscending, true)).thenReturn(pagedResult);
+
+        mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("nextCursor").value("next_cursor"))
+            .andExpect(jsonPath("previousCursor").value("previous_cursor"))
+            .andExpect(jsonPath("totalEntries").value(15))
+            .andExpect(jsonPath("entries[0]").exists())
+            .andExpect(jsonPath("entries[1]").doesNotExist());
+    }
+
     /**
      * Tests the scenario in which the movie is not found
      */
@@ -118,7 +162,7 @@ public class MovieControllerTest {
     public void test_getMovie_notFound() throws Exception {
         final UUID id = UUID.randomUUID();
 
-        when(movieService.getMovie(id)).thenThrow(new MovieNotFoundException());
+        when(movieService.getRevisionedMovie(id, Collections.emptyList())).thenThrow(new MovieNotFoundException());
 
         mockMvc.perform(get("/movie/get/" + id)).andExpect(status().isNotFound());
     }
@@ -130,13 +174,33 @@ public class MovieControllerTest {
     public void test_getMovie_found() throws Exception {
         final MovieDto movieDto = createMovie();
 
-        when(movieService.getMovie(movieDto.getId())).thenReturn(movieDto);
+        when(movieService.getRevisionedMovie(movieDto.getId(), Collections.emptyList()))
+            .thenReturn(new RevisionedMovie(movieDto, "rev1"));
 
         final ResultActions resultActions = mockMvc.perform(get("/movie/get/" + movieDto.getId()))
-            .andExpect(status().isOk());
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"rev1\""));
         expectMovieValues(resultActions, movieDto.getId(), Optional.empty());
     }
 
+    /**
+     * Tests the scenario in which the client already has the current revision of
+     * the movie
+     */
+    @Test
+    public void test_getMovie_notModified() throws Exception {
+        final MovieDto movieDto = createMovie();
+
+        when(movieService.getRevisionedMovie(movieDto.getId(), Arrays.asList("rev0", "rev1")))
+            .thenReturn(new RevisionedMovie(movieDto, "rev1"));
+
+        mockMvc
+            .perform(get("/movie/get/" + movieDto.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"rev0\", W/\"rev1\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"rev1\""))
+            .andExpect(content().string(""));
+    }
+
     /**
      * Tests the scenario in which there are validation errors
      */
@@ -287,20 +351,6 @@ public class MovieControllerTest {
         mockMvc.perform(get(url)).andExpect(status().isNotFound());
     }
 
-    /**
-     * Tests the scenario in which there is an update conflict
-     */
-    @Test
-    public void test_likeMovie_conflict() throws Exception {
-        final UUID movieId = UUID.randomUUID();
-        final String account = "test_account";
-        final String url = String.format("/movie/like/%s/%s", movieId, account);
-
-        doThrow(new MovieConditionalException()).when(movieService).likeMovie(movieId, account);
-
-        mockMvc.perform(get(url)).andExpect(status().isConflict());
-    }
-
     /**
      * Tests if the movie like is added successfully
      */
@@ -310,7 +360,12 @@ public class MovieControllerTest {
         final String account = "test_account";
         final String url = String.format("/movie/like/%s/%s", movieDto.getId(), account);
 
-        mockMvc.perform(get(url)).andExpect(status().isOk());
+        when(movieService.likeMovie(movieDto.getId(), account)).thenReturn(new LikeStatus(1, true));
+
+        mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("totalLikes").value(1))
+            .andExpect(jsonPath("hasLiked").value(true));
 
         verify(movieService).likeMovie(movieDto.getId(), account);
     }
@@ -329,20 +384,6 @@ public class MovieControllerTest {
         mockMvc.perform(get(url)).andExpect(status().isNotFound());
     }
 
-    /**
-     * Tests the scenario in which there is an update conflict
-     */
-    @Test
-    public void test_unlikeMovie_conflict() throws Exception {
-        final UUID movieId = UUID.randomUUID();
-        final String account = "test_account";
-        final String url = String.format("/movie/unlike/%s/%s", movieId, account);
-
-        doThrow(new MovieConditionalException()).when(movieService).unlikeMovie(movieId, account);
-
-        mockMvc.perform(get(url)).andExpect(status().isConflict());
-    }
-
     /**
      * Tests if the movie like is removed successfully
      */
@@ -352,7 +393,12 @@ public class MovieControllerTest {
         final String account = "test_account";
         final String url = String.format("/movie/unlike/%s/%s", movieDto.getId(), account);
 
-        mockMvc.perform(get(url)).andExpect(status().isOk());
+        when(movieService.unlikeMovie(movieDto.getId(), account)).thenReturn(new LikeStatus(0, false));
+
+        mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("totalLikes").value(0))
+            .andExpect(jsonPath("hasLiked").value(false));
 
         verify(movieService).unlikeMovie(movieDto.getId(), account);
     }
@@ -389,6 +435,48 @@ public class MovieControllerTest {
             .andExpect(jsonPath("$").value(false));
     }
 
+    /**
+     * Tests the scenario in which the like status of movies is returned
+     */
+    @Test
+    public void test_getLikeStatuses_success() throws Exception {
+        final UUID movieId = UUID.randomUUID();
+        final String account = "test_account";
+        final List<UUID> movieIds = Arrays.asList(movieId, UUID.randomUUID());
+        final String requestContent = new ObjectMapper().writeValueAsString(new LikeStatusQueryModel(movieIds,
+            account));
+
+        when(movieService.getLikeStatuses(movieIds, account))
+            .thenReturn(Collections.singletonMap(movieId, new LikeStatus(TEST_TOTAL_LIKES, true)));
+
+        mockMvc.perform(post("/movie/likestatus")
+            .content(requestContent)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$['" + movieId + "'].totalLikes").value(TEST_TOTAL_LIKES))
+            .andExpect(jsonPath("$['" + movieId + "'].hasLiked").value(true));
+    }
+
+    /**
+     * Tests the scenario in which the like status of too many movies is requested
+     */
+    @Test
+    public void test_getLikeStatuses_tooManyMovies() throws Exception {
+        final List<UUID> movieIds = IntStream.range(0, 101)
+            .mapToObj(i -> UUID.randomUUID())
+            .collect(Collectors.toList());
+        final String requestContent = new ObjectMapper().writeValueAsString(new LikeStatusQueryModel(movieIds,
+            "test_account"));
+
+        mockMvc.perform(post("/movie/likestatus")
+            .content(requestContent)
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+
+        verify(movieService, never()).getLikeStatuses(any(), any());
+    }
+
     /**
      * Expects the returned values of a movie
      * 
@@ -0,0 +1,101 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.movieservice.movie.models.RevisionedMovie;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Class that contains unit tests for the MovieCache class
+ */
+public class MovieCacheTest {
+
+    private static final String MOVIE_ID = "test_id";
+
+    private MovieCache movieCache;
+
+    private AtomicInteger loads;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        movieCache = new MovieCache(new SimpleMeterRegistry(), 100, 60000);
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Tests if a movie is loaded once until it's evicted
+     */
+    @Test
+    public void test_get_cachedUntilEvicted() {
+        final RevisionedMovie movie = new RevisionedMovie(new MovieDto(), "rev1");
+
+        final RevisionedMovie result = movieCache.get(MOVIE_ID, id -> load(movie));
+        final RevisionedMovie cachedResult = movieCache.get(MOVIE_ID, id -> load(movie));
+        movieCache.evict(MOVIE_ID);
+        movieCache.get(MOVIE_ID, id -> load(movie));
+
+        assertSame(movie, result);
+        assertSame(movie, cachedResult);
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests if a movie that doesn't exist is not cached
+     */
+    @Test
+    public void test_get_notFound() {
+        assertNull(movieCache.get(MOVIE_ID, id -> load(null)));
+        assertNull(movieCache.get(MOVIE_ID, id -> load(null)));
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests if only the movies that aren't cached are loaded in a batch
+     */
+    @Test
+    public void test_getAll() {
+        final RevisionedMovie cachedMovie = new RevisionedMovie(new MovieDto(), "rev1");
+        final RevisionedMovie loadedMovie = new RevisionedMovie(new MovieDto(), "rev2");
+        movieCache.get(MOVIE_ID, id -> cachedMovie);
+
+        final Map<String, RevisionedMovie> result = movieCache.getAll(
+            Arrays.asList(MOVIE_ID, "other_id", "missing_id", "other_id"), ids -> {
+                assertEquals(Arrays.asList("other_id", "missing_id"), ids);
+                return Collections.singletonMap("other_id", load(loadedMovie));
+            });
+
+        assertEquals(2, result.size());
+        assertSame(cachedMovie, result.get(MOVIE_ID));
+        assertSame(loadedMovie, result.get("other_id"));
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Counts a load of a movie
+     * 
+     * @param movie
+     *            The loaded movie
+     * @return The loaded movie
+     */
+    private RevisionedMovie load(final RevisionedMovie movie) {
+        loads.incrementAndGet();
+
+        return movie;
+    }
+}
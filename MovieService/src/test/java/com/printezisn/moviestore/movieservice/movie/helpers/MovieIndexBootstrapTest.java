@@ -0,0 +1,437 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.util.CloseableIterator;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndexFill;
+import com.printezisn.moviestore.movieservice.movie.mappers.MovieMapper;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieIndexFillRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+/**
+ * Class that contains unit tests for the MovieIndexBootstrap class
+ */
+public class MovieIndexBootstrapTest {
+
+    private static final String INDEX_NAME = "moviestore_test";
+    private static final String VERSIONED_INDEX_NAME = INDEX_NAME + "_v2";
+    private static final String PREVIOUS_INDEX_NAME = INDEX_NAME + "_v1";
+    private static final int BATCH_SIZE = 100;
+    private static final long FILL_OVERLAP = 60000;
+    private static final long FILL_START_TIMESTAMP = 1500000000000L;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private MovieIndexFillRepository movieIndexFillRepository;
+
+    @Mock
+    private MovieMapper movieMapper;
+
+    @Mock
+    private CloseableIterator<Movie> movieIterator;
+
+    @Mock
+    private BulkRequestBuilder bulkRequest;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private IndicesAliasesRequestBuilder aliasRequest;
+
+    private ClusterHealthResponse healthResponse;
+
+    private MovieIndexBootstrap movieIndexBootstrap;
+
+    /**
+     * Initializes the test class
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        healthResponse = mock(ClusterHealthResponse.class);
+        when(healthResponse.getStatus()).thenReturn(ClusterHealthStatus.GREEN);
+        when(elasticsearchTemplate.getClient()
+            .admin()
+            .cluster()
+            .prepareHealth(VERSIONED_INDEX_NAME)
+            .setWaitForYellowStatus()
+            .setTimeout(anyString())
+            .get()).thenReturn(healthResponse);
+        when(elasticsearchTemplate.getClient().admin().indices().prepareAliases()).thenReturn(aliasRequest);
+        when(elasticsearchTemplate.getClient().prepareBulk()).thenReturn(bulkRequest);
+        when(movieRepository.streamMoviesAfter(any(), eq(BATCH_SIZE))).thenReturn(movieIterator);
+        when(movieMapper.movieToMovieIndex(any())).thenReturn(new MovieIndex());
+
+        movieIndexBootstrap = new MovieIndexBootstrap(elasticsearchTemplate, movieRepository,
+            movieIndexFillRepository, movieMapper, INDEX_NAME, "1s", BATCH_SIZE, FILL_OVERLAP);
+    }
+
+    /**
+     * Tests the scenario in which the index of the current mapping version doesn't
+     * exist
+     */
+    @Test
+    public void test_bootstrap_createIndex() {
+        final Movie movie = createMovie(false);
+        final Movie deletedMovie = createMovie(true);
+        mockMovies(movie, deletedMovie);
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(false);
+        when(elasticsearchTemplate.indexExists(INDEX_NAME)).thenReturn(false);
+        final long startTime = System.currentTimeMillis();
+
+        movieIndexBootstrap.bootstrap();
+
+        final InOrder inOrder = inOrder(elasticsearchTemplate, bulkRequest, aliasRequest, movieRepository,
+            movieIndexFillRepository);
+        inOrder.verify(elasticsearchTemplate).createIndex(eq(VERSIONED_INDEX_NAME), anyString());
+        inOrder.verify(elasticsearchTemplate).putMapping(eq(VERSIONED_INDEX_NAME), eq("movies"), anyString());
+        inOrder.verify(movieRepository).streamMoviesAfter(null, BATCH_SIZE);
+        inOrder.verify(bulkRequest).add(any(IndexRequest.class));
+        inOrder.verify(bulkRequest).get();
+        inOrder.verify(movieIndexFillRepository).save(any());
+        inOrder.verify(aliasRequest).addAlias(VERSIONED_INDEX_NAME, INDEX_NAME);
+        inOrder.verify(movieRepository).markUpdatedSince(anyLong());
+        inOrder.verify(movieIndexFillRepository).deleteById(VERSIONED_INDEX_NAME);
+        verify(movieRepository, never()).markUpdatedSince(longThat(since -> since < startTime - FILL_OVERLAP));
+        verify(movieMapper).movieToMovieIndex(movie);
+        verify(movieMapper, never()).movieToMovieIndex(deletedMovie);
+        verify(movieIterator).close();
+        verify(elasticsearchTemplate, never()).deleteIndex(anyString());
+        assertFalse(movieIndexBootstrap.isCatchingUp());
+        assertEquals(ClusterHealthStatus.GREEN, movieIndexBootstrap.getHealthStatus());
+    }
+
+    /**
+     * Tests the scenario in which an index without a version exists
+     */
+    @Test
+    public void test_bootstrap_removeUnversionedIndex() {
+        mockMovies();
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(false);
+        when(elasticsearchTemplate.indexExists(INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(INDEX_NAME)).thenReturn(Collections.emptyList());
+
+        movieIndexBootstrap.bootstrap();
+
+        verify(elasticsearchTemplate).createIndex(eq(VERSIONED_INDEX_NAME), anyString());
+        verify(aliasRequest).addAliasAction(any(AliasActions.class));
+        verify(aliasRequest).addAlias(VERSIONED_INDEX_NAME, INDEX_NAME);
+        verify(elasticsearchTemplate, never()).deleteIndex(INDEX_NAME);
+        verify(movieRepository).markUpdatedSince(anyLong());
+    }
+
+    /**
+     * Tests the scenario in which the index of a previous mapping version exists
+     */
+    @Test
+    public void test_bootstrap_previousVersion() {
+        mockMovies();
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(false);
+        when(elasticsearchTemplate.indexExists(INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.indexExists(PREVIOUS_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(INDEX_NAME)).thenReturn(createAliases());
+        when(elasticsearchTemplate.queryForAlias(PREVIOUS_INDEX_NAME)).thenReturn(createAliases());
+
+        movieIndexBootstrap.bootstrap();
+
+        verify(elasticsearchTemplate).createIndex(eq(VERSIONED_INDEX_NAME), anyString());
+        verify(aliasRequest, never()).addAliasAction(any(AliasActions.class));
+        verify(aliasRequest).removeAlias(PREVIOUS_INDEX_NAME, INDEX_NAME);
+        verify(aliasRequest).addAlias(VERSIONED_INDEX_NAME, INDEX_NAME);
+        verify(movieRepository).markUpdatedSince(anyLong());
+        verify(elasticsearchTemplate, never()).deleteIndex(anyString());
+        assertTrue(movieIndexBootstrap.isCatchingUp());
+    }
+
+    /**
+     * Tests the scenario in which the index of the current mapping version exists
+     * but the alias doesn't point to it yet, and there is no recorded progress
+     */
+    @Test
+    public void test_bootstrap_indexNotSwitched() {
+        mockMovies(createMovie(false));
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(VERSIONED_INDEX_NAME)).thenReturn(Collections.emptyList());
+
+        movieIndexBootstrap.bootstrap();
+
+        verify(elasticsearchTemplate, never()).createIndex(anyString(), any());
+        verify(movieRepository).streamMoviesAfter(null, BATCH_SIZE);
+        verify(bulkRequest).get();
+        verify(aliasRequest).addAlias(VERSIONED_INDEX_NAME, INDEX_NAME);
+        verify(movieRepository).markUpdatedSince(anyLong());
+    }
+
+    /**
+     * Tests if a fill stopped by a restart is resumed after its last recorded
+     * movie, and the movies changed since it first started are marked for
+     * indexing
+     */
+    @Test
+    public void test_bootstrap_resumeFill() {
+        final Movie movie = createMovie(false);
+        mockMovies(movie);
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(VERSIONED_INDEX_NAME)).thenReturn(Collections.emptyList());
+        when(movieIndexFillRepository.findById(VERSIONED_INDEX_NAME))
+            .thenReturn(Optional.of(createFill("lastMovie", 5)));
+
+        movieIndexBootstrap.bootstrap();
+
+        final ArgumentCaptor<MovieIndexFill> fillCaptor = ArgumentCaptor.forClass(MovieIndexFill.class);
+        verify(movieRepository).streamMoviesAfter("lastMovie", BATCH_SIZE);
+        verify(movieIndexFillRepository).save(fillCaptor.capture());
+        assertEquals(movie.getId(), fillCaptor.getValue().getLastMovieId());
+        assertEquals(6, fillCaptor.getValue().getFilledMovies());
+        verify(aliasRequest).addAlias(VERSIONED_INDEX_NAME, INDEX_NAME);
+        verify(movieRepository).markUpdatedSince(FILL_START_TIMESTAMP - FILL_OVERLAP);
+        verify(movieIndexFillRepository).deleteById(VERSIONED_INDEX_NAME);
+    }
+
+    /**
+     * Tests if the recorded progress of a fill is ignored when its index doesn't
+     * exist anymore
+     */
+    @Test
+    public void test_bootstrap_staleFill() {
+        mockMovies(createMovie(false));
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(false);
+        when(movieIndexFillRepository.findById(VERSIONED_INDEX_NAME))
+            .thenReturn(Optional.of(createFill("lastMovie", 5)));
+
+        movieIndexBootstrap.bootstrap();
+
+        verify(elasticsearchTemplate).createIndex(eq(VERSIONED_INDEX_NAME), anyString());
+        verify(movieRepository).streamMoviesAfter(null, BATCH_SIZE);
+        verify(movieRepository, never()).markUpdatedSince(FILL_START_TIMESTAMP - FILL_OVERLAP);
+    }
+
+    /**
+     * Tests if the movies changed during a completed fill are marked for indexing
+     * if a previous startup stopped after the alias switch but before marking
+     * them
+     */
+    @Test
+    public void test_bootstrap_fillNotCaughtUp() {
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(VERSIONED_INDEX_NAME)).thenReturn(createAliases());
+        when(movieIndexFillRepository.findById(VERSIONED_INDEX_NAME))
+            .thenReturn(Optional.of(createFill("lastMovie", 5)));
+
+        movieIndexBootstrap.bootstrap();
+
+        verify(movieRepository, never()).streamMoviesAfter(any(), anyInt());
+        verify(aliasRequest, never()).addAlias(anyString(), anyString());
+        verify(movieRepository).markUpdatedSince(FILL_START_TIMESTAMP - FILL_OVERLAP);
+        verify(movieIndexFillRepository).deleteById(VERSIONED_INDEX_NAME);
+    }
+
+    /**
+     * Tests the scenario in which the index of the current mapping version exists
+     */
+    @Test
+    public void test_bootstrap_indexExists() {
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(VERSIONED_INDEX_NAME)).thenReturn(createAliases());
+
+        movieIndexBootstrap.bootstrap();
+
+        verify(elasticsearchTemplate, never()).createIndex(anyString(), any());
+        verify(elasticsearchTemplate, never()).putMapping(anyString(), anyString(), any());
+        verify(movieRepository, never()).streamMoviesAfter(any(), anyInt());
+        verify(aliasRequest, never()).addAlias(anyString(), anyString());
+        verify(movieRepository, never()).markUpdatedSince(anyLong());
+    }
+
+    /**
+     * Tests the scenario in which the index can't be filled
+     */
+    @Test(expected = IllegalStateException.class)
+    public void test_bootstrap_fillFailure() {
+        final BulkItemResponse item = mock(BulkItemResponse.class);
+        when(item.isFailed()).thenReturn(true);
+        when(movieIterator.hasNext()).thenReturn(true, false);
+        when(movieIterator.next()).thenReturn(createMovie(false));
+        when(bulkRequest.numberOfActions()).thenReturn(1);
+        when(bulkRequest.get()).thenReturn(new BulkResponse(new BulkItemResponse[] { item }, 1));
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(false);
+
+        try {
+            movieIndexBootstrap.bootstrap();
+        }
+        finally {
+            verify(aliasRequest, never()).addAlias(anyString(), anyString());
+            verify(movieRepository, never()).markUpdatedSince(anyLong());
+            verify(movieIndexFillRepository, never()).deleteById(anyString());
+        }
+    }
+
+    /**
+     * Tests the scenario in which the index is not healthy
+     */
+    @Test(expected = IllegalStateException.class)
+    public void test_bootstrap_unhealthy() {
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(VERSIONED_INDEX_NAME)).thenReturn(createAliases());
+        when(healthResponse.getStatus()).thenReturn(ClusterHealthStatus.RED);
+
+        movieIndexBootstrap.bootstrap();
+    }
+
+    /**
+     * Tests if the indexes of previous versions are removed after a sweep has
+     * completed
+     */
+    @Test
+    public void test_onSweepCompleted_removePreviousVersions() {
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.indexExists(PREVIOUS_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(VERSIONED_INDEX_NAME)).thenReturn(createAliases());
+
+        movieIndexBootstrap.bootstrap();
+        movieIndexBootstrap.onSweepCompleted();
+        movieIndexBootstrap.onSweepCompleted();
+
+        verify(elasticsearchTemplate, times(1)).deleteIndex(PREVIOUS_INDEX_NAME);
+        assertFalse(movieIndexBootstrap.isCatchingUp());
+    }
+
+    /**
+     * Tests if nothing is removed after a sweep if there are no previous versions
+     */
+    @Test
+    public void test_onSweepCompleted_noPreviousVersions() {
+        when(elasticsearchTemplate.indexExists(VERSIONED_INDEX_NAME)).thenReturn(true);
+        when(elasticsearchTemplate.queryForAlias(VERSIONED_INDEX_NAME)).thenReturn(createAliases());
+
+        movieIndexBootstrap.bootstrap();
+        movieIndexBootstrap.onSweepCompleted();
+
+        verify(elasticsearchTemplate, never()).deleteIndex(anyString());
+    }
+
+    /**
+     * Tests if the mapping version is reported
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_contribute() {
+        final Info.Builder builder = new Info.Builder();
+
+        movieIndexBootstrap.contribute(builder);
+
+        final Map<String, Object> details = (Map<String, Object>) builder.build().get("searchIndex");
+        assertEquals(2, details.get("mappingVersion"));
+        assertEquals(VERSIONED_INDEX_NAME, details.get("index"));
+        assertEquals(INDEX_NAME, details.get("alias"));
+    }
+
+    /**
+     * Mocks the movies of the database and the bulk requests that index them
+     * 
+     * @param movies
+     *            The movies
+     */
+    private void mockMovies(final Movie... movies) {
+        final Iterator<Movie> iterator = Arrays.asList(movies).iterator();
+        when(movieIterator.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(movieIterator.next()).thenAnswer(invocation -> iterator.next());
+
+        final BulkItemResponse item = mock(BulkItemResponse.class);
+        when(bulkRequest.numberOfActions()).thenReturn(movies.length);
+        when(bulkRequest.get()).thenReturn(new BulkResponse(new BulkItemResponse[] { item }, 1));
+    }
+
+    /**
+     * Creates a movie
+     * 
+     * @param deleted
+     *            Indicates if the movie is deleted
+     * @return The movie
+     */
+    private Movie createMovie(final boolean deleted) {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setDeleted(deleted);
+
+        return movie;
+    }
+
+    /**
+     * Creates the recorded progress of a fill of the index
+     * 
+     * @param lastMovieId
+     *            The id of the last filled movie
+     * @param filledMovies
+     *            The number of filled movies
+     * @return The progress of the fill
+     */
+    private MovieIndexFill createFill(final String lastMovieId, final long filledMovies) {
+        final MovieIndexFill movieIndexFill = new MovieIndexFill();
+        movieIndexFill.setId(VERSIONED_INDEX_NAME);
+        movieIndexFill.setLastMovieId(lastMovieId);
+        movieIndexFill.setStartTimestamp(FILL_START_TIMESTAMP);
+        movieIndexFill.setFilledMovies(filledMovies);
+
+        return movieIndexFill;
+    }
+
+    /**
+     * Creates the aliases of an index that is reached through the alias
+     * 
+     * @return The aliases
+     */
+    private List<AliasMetaData> createAliases() {
+        return Collections.singletonList(AliasMetaData.builder(INDEX_NAME).build());
+    }
+}
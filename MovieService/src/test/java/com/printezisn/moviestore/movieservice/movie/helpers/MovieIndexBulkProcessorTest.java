@@ -0,0 +1,234 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteRequest.OpType;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+
+/**
+ * Class that contains unit tests for the MovieIndexBulkProcessor class
+ */
+public class MovieIndexBulkProcessorTest {
+
+    private static final String INDEX_NAME = "moviestore_test";
+    private static final String TYPE = "movies";
+
+    @Mock
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    @Mock
+    private Client client;
+
+    @Mock
+    private MovieSearchCache movieSearchCache;
+
+    private Queue<RestStatus> itemStatuses;
+
+    private MovieIndexBulkProcessor movieIndexBulkProcessor;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        itemStatuses = new ArrayDeque<>();
+        when(elasticsearchTemplate.getClient()).thenReturn(client);
+        doAnswer(invocation -> {
+            final BulkRequest request = invocation.getArgument(0);
+            final ActionListener<BulkResponse> listener = invocation.getArgument(1);
+
+            final BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = createItemResponse(i, request.requests().get(i), itemStatuses.poll());
+            }
+            listener.onResponse(new BulkResponse(items, 1));
+
+            return null;
+        }).when(client).bulk(any(BulkRequest.class), any(ActionListener.class));
+
+        movieIndexBulkProcessor = new MovieIndexBulkProcessor(elasticsearchTemplate, movieSearchCache, INDEX_NAME, 1,
+            "5mb", "1s", 2, 10);
+    }
+
+    /**
+     * Cleans up after each test
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @After
+    public void tearDown() throws Exception {
+        movieIndexBulkProcessor.close();
+    }
+
+    /**
+     * Tests the scenario in which a movie is indexed successfully
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void test_index_success() throws Exception {
+        movieIndexBulkProcessor.index(createMovieIndex()).get(5, TimeUnit.SECONDS);
+
+        verify(client).bulk(any(BulkRequest.class), any());
+        verify(movieSearchCache).invalidate();
+    }
+
+    /**
+     * Tests the scenario in which a movie is deleted successfully
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void test_delete_success() throws Exception {
+        movieIndexBulkProcessor.delete(UUID.randomUUID().toString()).get(5, TimeUnit.SECONDS);
+
+        verify(client).bulk(any(BulkRequest.class), any());
+    }
+
+    /**
+     * Tests the scenario in which a rejected item is retried individually
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void test_index_retried() throws Exception {
+        itemStatuses.add(RestStatus.TOO_MANY_REQUESTS);
+
+        movieIndexBulkProcessor.index(createMovieIndex()).get(5, TimeUnit.SECONDS);
+
+        verify(client, times(2)).bulk(any(BulkRequest.class), any());
+    }
+
+    /**
+     * Tests the scenario in which an item fails with an error that is not
+     * temporary
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void test_index_notRetryable() throws Exception {
+        itemStatuses.add(RestStatus.BAD_REQUEST);
+
+        final CompletableFuture<Void> future = movieIndexBulkProcessor.index(createMovieIndex());
+
+        assertFailed(future);
+        verify(client).bulk(any(BulkRequest.class), any());
+        verify(movieSearchCache, never()).invalidate();
+    }
+
+    /**
+     * Tests the scenario in which an item keeps failing until the retries are
+     * exhausted
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void test_index_retriesExhausted() throws Exception {
+        itemStatuses.add(RestStatus.SERVICE_UNAVAILABLE);
+        itemStatuses.add(RestStatus.SERVICE_UNAVAILABLE);
+        itemStatuses.add(RestStatus.SERVICE_UNAVAILABLE);
+
+        final CompletableFuture<Void> future = movieIndexBulkProcessor.index(createMovieIndex());
+
+        assertFailed(future);
+        verify(client, times(3)).bulk(any(BulkRequest.class), any());
+    }
+
+    /**
+     * Asserts that a future completes exceptionally
+     * 
+     * @param future
+     *            The future
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    private void assertFailed(final CompletableFuture<Void> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        catch (final ExecutionException ex) {
+            assertTrue(future.isCompletedExceptionally());
+            return;
+        }
+
+        throw new AssertionError("The future completed successfully");
+    }
+
+    /**
+     * Creates a movie index entity
+     * 
+     * @return The movie index entity
+     */
+    private MovieIndex createMovieIndex() {
+        final MovieIndex movieIndex = new MovieIndex();
+        movieIndex.setId(UUID.randomUUID().toString());
+        movieIndex.setTitle("Test Title");
+
+        return movieIndex;
+    }
+
+    /**
+     * Creates the response of a bulk item
+     * 
+     * @param position
+     *            The position of the item in the bulk request
+     * @param request
+     *            The request of the item
+     * @param status
+     *            The status of a failed item, or null if the item succeeded
+     * @return The response of the item
+     */
+    private BulkItemResponse createItemResponse(final int position, final DocWriteRequest<?> request,
+        final RestStatus status) {
+
+        if (status != null) {
+            final BulkItemResponse.Failure failure = new BulkItemResponse.Failure(INDEX_NAME, TYPE, request.id(),
+                new RuntimeException(status.name()), status);
+
+            return new BulkItemResponse(position, request.opType(), failure);
+        }
+
+        final IndexResponse response = new IndexResponse(new ShardId(INDEX_NAME, "uuid", 0), TYPE, request.id(), 1,
+            1, 1, true);
+
+        return new BulkItemResponse(position, OpType.INDEX, response);
+    }
+}
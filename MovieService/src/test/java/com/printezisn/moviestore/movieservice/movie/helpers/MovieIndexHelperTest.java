@@ -1,16 +1,24 @@
 package com.printezisn.moviestore.movieservice.movie.helpers;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -19,12 +27,16 @@ import org.mockito.MockitoAnnotations;
 
 import com.printezisn.moviestore.movieservice.movie.entities.Movie;
 import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
-import com.printezisn.moviestore.movieservice.movie.entities.MovieLike;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent.Operation;
 import com.printezisn.moviestore.movieservice.movie.mappers.MovieMapper;
-import com.printezisn.moviestore.movieservice.movie.repositories.MovieIndexRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
 import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeRepository;
 import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * Class that contains unit tests for the MovieIndexHelper class
  */
@@ -37,11 +49,25 @@ public class MovieIndexHelperTest {
     private MovieLikeRepository movieLikeRepository;
 
     @Mock
-    private MovieIndexRepository movieIndexRepository;
+    private MovieLikeEventRepository movieLikeEventRepository;
+
+    @Mock
+    private ShardedLikeCounter shardedLikeCounter;
+
+    @Mock
+    private MovieLikeIndex movieLikeIndex;
+
+    @Mock
+    private MovieIndexBulkProcessor movieIndexBulkProcessor;
 
     @Mock
     private MovieMapper movieMapper;
 
+    @Mock
+    private MovieCache movieCache;
+
+    private MeterRegistry meterRegistry;
+
     private MovieIndexHelper movieIndexHelper;
 
     /**
@@ -51,8 +77,10 @@ public class MovieIndexHelperTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        movieIndexHelper = new MovieIndexHelper(movieRepository, movieLikeRepository, movieIndexRepository,
-            movieMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        movieIndexHelper = new MovieIndexHelper(movieRepository, movieLikeRepository, movieLikeEventRepository,
+            shardedLikeCounter, movieLikeIndex, movieIndexBulkProcessor, movieMapper, movieCache,
+            meterRegistry);
     }
 
     /**
@@ -64,11 +92,17 @@ public class MovieIndexHelperTest {
         movie.setId(UUID.randomUUID().toString());
         movie.setDeleted(true);
 
-        movieIndexHelper.indexMovie(movie);
+        when(movieIndexBulkProcessor.delete(movie.getId())).thenReturn(CompletableFuture.completedFuture(null));
+
+        movieIndexHelper.indexMovie(movie).join();
 
         verify(movieRepository).deleteById(movie.getId());
-        verify(movieIndexRepository).deleteById(movie.getId());
+        verify(movieIndexBulkProcessor).delete(movie.getId());
         verify(movieLikeRepository).deleteByMovieId(movie.getId());
+        verify(movieLikeEventRepository).deleteByMovieId(movie.getId());
+        verify(shardedLikeCounter).delete(movie.getId());
+        verify(movieLikeIndex).remove(movie.getId());
+        verify(movieCache).evict(movie.getId());
     }
 
     /**
@@ -76,35 +110,211 @@ public class MovieIndexHelperTest {
      */
     @Test
     public void test_indexMovie_updateMovie() {
-        final String currentRevision = UUID.randomUUID().toString();
         final Movie movie = new Movie();
         movie.setId(UUID.randomUUID().toString());
-        movie.setRevision(currentRevision);
-        movie.setPendingLikes(new HashSet<>(Arrays.asList("account1")));
-        movie.setPendingUnlikes(new HashSet<>(Arrays.asList("account2")));
+        movie.setRevision(UUID.randomUUID().toString());
+        movie.setUpdated(true);
+
+        final List<MovieLikeEvent> events = Arrays.asList(
+            createEvent(movie.getId(), "account1", Operation.LIKE, 1),
+            createEvent(movie.getId(), "account2", Operation.UNLIKE, 2),
+            createEvent(movie.getId(), "account3", Operation.LIKE, 3),
+            createEvent(movie.getId(), "account1", Operation.UNLIKE, 4));
+
+        final Movie appliedMovie = new Movie();
+        appliedMovie.setId(movie.getId());
+        appliedMovie.setRevision(UUID.randomUUID().toString());
+        appliedMovie.setTotalLikes(5L);
+
+        final MovieIndex movieIndex = new MovieIndex();
+
+        when(movieLikeEventRepository.findOldestEvents(eq(movie.getId()), anyInt())).thenReturn(events);
+        when(movieLikeRepository.addLikes(movie.getId(), Arrays.asList("account3"))).thenReturn(1L);
+        when(movieLikeRepository.removeLikes(movie.getId(), Arrays.asList("account1", "account2")))
+            .thenReturn(2L);
+        when(shardedLikeCounter.getTotal(movie.getId())).thenReturn(5L);
+        when(movieRepository.updateTotalLikes(movie.getId(), 5L, 4L)).thenReturn(appliedMovie);
+        when(movieMapper.movieToMovieIndex(appliedMovie)).thenReturn(movieIndex);
+        when(movieIndexBulkProcessor.index(movieIndex)).thenReturn(CompletableFuture.completedFuture(null));
+
+        movieIndexHelper.indexMovie(movie).join();
+
+        final List<String> eventIds = events.stream()
+            .map(MovieLikeEvent::getId)
+            .collect(Collectors.toList());
+        verify(movieLikeEventRepository).markApplying(eventIds);
+        verify(movieLikeEventRepository).removeEvents(eventIds);
+        verify(movieLikeIndex).apply(movie.getId(), Arrays.asList("account3"), Arrays.asList("account1", "account2"),
+            4L);
+        verify(shardedLikeCounter).add(movie.getId(), -1L);
+        verify(movieIndexBulkProcessor).index(movieIndex);
+        verify(movieRepository).markIndexed(appliedMovie.getId(), appliedMovie.getRevision());
+        verify(movieCache).evict(movie.getId());
+
+        assertEquals(4.0, meterRegistry.counter("movie.likes.applied").count(), 0);
+        assertEquals(1L, meterRegistry.timer("movie.likes.write").count());
+    }
+
+    /**
+     * Tests the scenario in which a batch of like events is applied again after
+     * the indexer failed before removing it
+     */
+    @Test
+    public void test_indexMovie_replayedLikeEvents() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setRevision(UUID.randomUUID().toString());
+        movie.setUpdated(true);
+
+        final List<MovieLikeEvent> events = Arrays.asList(
+            createEvent(movie.getId(), "account1", Operation.LIKE, 1),
+            createEvent(movie.getId(), "account2", Operation.LIKE, 2));
+        events.forEach(event -> event.setApplying(true));
+
+        final Movie appliedMovie = new Movie();
+        appliedMovie.setId(movie.getId());
+        appliedMovie.setRevision(UUID.randomUUID().toString());
+
+        final MovieIndex movieIndex = new MovieIndex();
+
+        when(movieLikeEventRepository.findOldestEvents(eq(movie.getId()), anyInt())).thenReturn(events);
+        when(movieLikeRepository.addLikes(movie.getId(), Arrays.asList("account1", "account2"))).thenReturn(0L);
+        when(movieLikeRepository.countByMovieId(movie.getId())).thenReturn(12L);
+        when(shardedLikeCounter.getTotal(movie.getId())).thenReturn(10L, 12L);
+        when(movieRepository.updateTotalLikes(movie.getId(), 12L, 2L)).thenReturn(appliedMovie);
+        when(movieMapper.movieToMovieIndex(appliedMovie)).thenReturn(movieIndex);
+        when(movieIndexBulkProcessor.index(movieIndex)).thenReturn(CompletableFuture.completedFuture(null));
+
+        movieIndexHelper.indexMovie(movie).join();
+
+        verify(movieLikeEventRepository, never()).markApplying(any());
+        verify(shardedLikeCounter).add(movie.getId(), 2L);
+        verify(movieRepository).updateTotalLikes(movie.getId(), 12L, 2L);
+        verify(movieLikeEventRepository).removeEvents(any());
+    }
+
+    /**
+     * Tests the scenario in which the like events of a movie span several
+     * batches
+     */
+    @Test
+    public void test_indexMovie_likeEventBatches() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setRevision(UUID.randomUUID().toString());
+        movie.setUpdated(true);
+
+        final List<MovieLikeEvent> firstBatch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            firstBatch.add(createEvent(movie.getId(), "account" + i, Operation.LIKE, i + 1));
+        }
+        final List<MovieLikeEvent> secondBatch = Arrays.asList(
+            createEvent(movie.getId(), "account0", Operation.UNLIKE, 1001));
+
+        final Movie appliedMovie = new Movie();
+        appliedMovie.setId(movie.getId());
+        appliedMovie.setRevision(UUID.randomUUID().toString());
 
         final MovieIndex movieIndex = new MovieIndex();
 
-        final MovieLike movieLike = new MovieLike();
-        movieLike.setId(movie.getId() + "-account1");
-        movieLike.setMovieId(movie.getId());
-        movieLike.setAccount("account1");
+        when(movieLikeEventRepository.findOldestEvents(eq(movie.getId()), anyInt()))
+            .thenReturn(firstBatch)
+            .thenReturn(secondBatch);
+        when(movieLikeRepository.addLikes(eq(movie.getId()), any())).thenReturn(1000L, 0L);
+        when(movieLikeRepository.removeLikes(eq(movie.getId()), any())).thenReturn(0L, 1L);
+        when(shardedLikeCounter.getTotal(movie.getId())).thenReturn(999L);
+        when(movieRepository.updateTotalLikes(movie.getId(), 999L, 1001L)).thenReturn(appliedMovie);
+        when(movieMapper.movieToMovieIndex(appliedMovie)).thenReturn(movieIndex);
+        when(movieIndexBulkProcessor.index(movieIndex)).thenReturn(CompletableFuture.completedFuture(null));
 
-        when(movieRepository.findByUpdated(true)).thenReturn(Arrays.asList(movie));
+        movieIndexHelper.indexMovie(movie).join();
+
+        verify(shardedLikeCounter).add(movie.getId(), 1000L);
+        verify(shardedLikeCounter).add(movie.getId(), -1L);
+        verify(movieRepository).updateTotalLikes(movie.getId(), 999L, 1001L);
+        verify(movieLikeEventRepository, times(2)).findOldestEvents(eq(movie.getId()), anyInt());
+        verify(movieLikeEventRepository, times(2)).removeEvents(any());
+        verify(movieIndexBulkProcessor).index(movieIndex);
+    }
+
+    /**
+     * Tests the scenario in which a movie without like events is updated
+     */
+    @Test
+    public void test_indexMovie_noLikeEvents() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setRevision(UUID.randomUUID().toString());
+        movie.setUpdated(true);
+
+        final MovieIndex movieIndex = new MovieIndex();
+
+        when(movieLikeEventRepository.findOldestEvents(eq(movie.getId()), anyInt()))
+            .thenReturn(Collections.emptyList());
         when(movieMapper.movieToMovieIndex(movie)).thenReturn(movieIndex);
-        when(movieLikeRepository.countByMovieId(movie.getId())).thenReturn(5L);
+        when(movieIndexBulkProcessor.index(movieIndex)).thenReturn(CompletableFuture.completedFuture(null));
 
-        movieIndexHelper.indexMovie(movie);
+        movieIndexHelper.indexMovie(movie).join();
 
-        verify(movieLikeRepository).save(movieLike);
-        verify(movieLikeRepository).deleteById(movie.getId() + "-account2");
-        verify(movieIndexRepository).save(movieIndex);
-        verify(movieRepository).updateMovie(movie, currentRevision);
+        verify(movieLikeRepository, never()).addLikes(anyString(), any());
+        verify(movieLikeRepository, never()).removeLikes(anyString(), any());
+        verify(shardedLikeCounter, never()).add(anyString(), anyLong());
+        verify(movieRepository, never()).updateTotalLikes(anyString(), anyLong(), anyLong());
+        verify(movieIndexBulkProcessor).index(movieIndex);
+        verify(movieRepository).markIndexed(movie.getId(), movie.getRevision());
+    }
+
+    /**
+     * Tests the scenario in which more like events arrive while the existing
+     * ones are applied
+     */
+    @Test
+    public void test_indexMovie_newLikeEvents() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setRevision(UUID.randomUUID().toString());
+        movie.setUpdated(true);
+
+        final Movie appliedMovie = new Movie();
+        appliedMovie.setId(movie.getId());
+        appliedMovie.setRevision(UUID.randomUUID().toString());
+
+        final MovieIndex movieIndex = new MovieIndex();
 
-        assertEquals(5L, movie.getTotalLikes());
-        assertTrue(movie.getPendingLikes().isEmpty());
-        assertTrue(movie.getPendingUnlikes().isEmpty());
-        assertFalse(movie.isUpdated());
+        when(movieLikeEventRepository.findOldestEvents(eq(movie.getId()), anyInt()))
+            .thenReturn(Arrays.asList(createEvent(movie.getId(), "account1", Operation.LIKE, 1)));
+        when(movieLikeEventRepository.existsByMovieId(movie.getId())).thenReturn(true);
+        when(movieLikeRepository.addLikes(movie.getId(), Arrays.asList("account1"))).thenReturn(1L);
+        when(movieRepository.updateTotalLikes(eq(movie.getId()), anyLong(), anyLong())).thenReturn(appliedMovie);
+        when(movieMapper.movieToMovieIndex(appliedMovie)).thenReturn(movieIndex);
+        when(movieIndexBulkProcessor.index(movieIndex)).thenReturn(CompletableFuture.completedFuture(null));
+
+        movieIndexHelper.indexMovie(movie).join();
+
+        verify(movieIndexBulkProcessor).index(movieIndex);
+        verify(movieRepository, never()).markIndexed(anyString(), anyString());
+    }
+
+    /**
+     * Tests the scenario in which the search index fails to index a movie
+     */
+    @Test
+    public void test_indexMovie_indexException() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setRevision(UUID.randomUUID().toString());
+        movie.setUpdated(true);
+
+        final MovieIndex movieIndex = new MovieIndex();
+        final CompletableFuture<Void> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new RuntimeException());
+
+        when(movieMapper.movieToMovieIndex(movie)).thenReturn(movieIndex);
+        when(movieIndexBulkProcessor.index(movieIndex)).thenReturn(failedFuture);
+
+        movieIndexHelper.indexMovie(movie).join();
+
+        verify(movieRepository, never()).markIndexed(anyString(), anyString());
     }
 
     /**
@@ -116,10 +326,36 @@ public class MovieIndexHelperTest {
         movie.setId(UUID.randomUUID().toString());
         movie.setDeleted(true);
 
+        when(movieIndexBulkProcessor.delete(movie.getId())).thenReturn(CompletableFuture.completedFuture(null));
         doThrow(new RuntimeException()).when(movieLikeRepository).deleteByMovieId(movie.getId());
 
-        movieIndexHelper.indexMovie(movie);
+        movieIndexHelper.indexMovie(movie).join();
 
         verify(movieRepository, never()).deleteById(movie.getId());
     }
+
+    /**
+     * Creates a like event
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param account
+     *            The account
+     * @param operation
+     *            The operation
+     * @param seq
+     *            The sequence number
+     * @return The event
+     */
+    private MovieLikeEvent createEvent(final String movieId, final String account, final Operation operation,
+        final long seq) {
+
+        return MovieLikeEvent.builder()
+            .id(UUID.randomUUID().toString())
+            .movieId(movieId)
+            .account(account)
+            .op(operation)
+            .seq(seq)
+            .build();
+    }
 }
@@ -0,0 +1,165 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Class that contains unit tests for the MovieIndexQueue class
+ */
+public class MovieIndexQueueTest {
+
+    private static final long DEBOUNCE = 200;
+    private static final int CAPACITY = 2;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private MovieLikeEventRepository movieLikeEventRepository;
+
+    @Mock
+    private MovieIndexWorkerPool movieIndexWorkerPool;
+
+    private MeterRegistry meterRegistry;
+
+    private MovieIndexQueue movieIndexQueue;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        meterRegistry = new SimpleMeterRegistry();
+        movieIndexQueue = new MovieIndexQueue(movieRepository, movieLikeEventRepository, movieIndexWorkerPool,
+            meterRegistry, DEBOUNCE, CAPACITY);
+        movieIndexQueue.start();
+    }
+
+    /**
+     * Cleans up after each test
+     */
+    @After
+    public void tearDown() {
+        movieIndexQueue.stop();
+    }
+
+    /**
+     * Tests the scenario in which the same movie is enqueued many times within the
+     * debounce interval
+     */
+    @Test
+    public void test_enqueue_coalesced() {
+        final Movie movie = createMovie(true);
+
+        when(movieRepository.findById(movie.getId())).thenReturn(Optional.of(movie));
+
+        for (int i = 0; i < 10; i++) {
+            movieIndexQueue.enqueue(movie.getId());
+        }
+
+        assertEquals(1, movieIndexQueue.getDepth());
+        assertEquals(9.0, meterRegistry.counter("movie.index.queue.coalesced").count(), 0);
+
+        verify(movieIndexWorkerPool, timeout(DEBOUNCE * 10)).submit(movie);
+        verify(movieIndexWorkerPool, after(DEBOUNCE * 2).times(1)).submit(movie);
+        assertEquals(0, movieIndexQueue.getDepth());
+    }
+
+    /**
+     * Tests the scenario in which the queue is full
+     */
+    @Test
+    public void test_enqueue_full() {
+        movieIndexQueue.enqueue(UUID.randomUUID().toString());
+        movieIndexQueue.enqueue(UUID.randomUUID().toString());
+        movieIndexQueue.enqueue(UUID.randomUUID().toString());
+
+        assertEquals(CAPACITY, movieIndexQueue.getDepth());
+        assertEquals(1.0, meterRegistry.counter("movie.index.queue.rejected").count(), 0);
+    }
+
+    /**
+     * Tests the scenario in which the movie has been indexed before it's dispatched
+     */
+    @Test
+    public void test_enqueue_alreadyIndexed() {
+        final Movie movie = createMovie(false);
+
+        when(movieRepository.findById(movie.getId())).thenReturn(Optional.of(movie));
+
+        movieIndexQueue.enqueue(movie.getId());
+
+        verify(movieRepository, timeout(DEBOUNCE * 10)).findById(movie.getId());
+        verify(movieIndexWorkerPool, after(DEBOUNCE).never()).submit(any());
+    }
+
+    /**
+     * Tests the scenario in which the movie isn't marked as updated, but has
+     * pending like events
+     */
+    @Test
+    public void test_enqueue_pendingLikeEvents() {
+        final Movie movie = createMovie(false);
+
+        when(movieRepository.findById(movie.getId())).thenReturn(Optional.of(movie));
+        when(movieLikeEventRepository.existsByMovieId(movie.getId())).thenReturn(true);
+
+        movieIndexQueue.enqueue(movie.getId());
+
+        verify(movieIndexWorkerPool, timeout(DEBOUNCE * 10)).submit(movie);
+    }
+
+    /**
+     * Tests the lag of the queue
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void test_getLag() throws Exception {
+        assertEquals(0, movieIndexQueue.getLag());
+
+        movieIndexQueue.enqueue(UUID.randomUUID().toString());
+        Thread.sleep(DEBOUNCE / 2);
+
+        assertTrue(movieIndexQueue.getLag() >= DEBOUNCE / 2);
+    }
+
+    /**
+     * Creates a movie
+     * 
+     * @param updated
+     *            Indicates if the movie needs to be indexed
+     * @return The movie
+     */
+    private Movie createMovie(final boolean updated) {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setUpdated(updated);
+
+        return movie;
+    }
+}
@@ -0,0 +1,157 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.util.CloseableIterator;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+/**
+ * Class that contains unit tests for the MovieIndexSweeper class
+ */
+public class MovieIndexSweeperTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private MovieLikeEventRepository movieLikeEventRepository;
+
+    @Mock
+    private MovieIndexWorkerPool movieIndexWorkerPool;
+
+    @Mock
+    private MovieIndexBootstrap movieIndexBootstrap;
+
+    @Mock
+    private CloseableIterator<Movie> movieIterator;
+
+    private MovieIndexSweeper movieIndexSweeper;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        movieIndexSweeper = new MovieIndexSweeper(movieRepository, movieLikeEventRepository, movieIndexWorkerPool,
+            movieIndexBootstrap, BATCH_SIZE);
+    }
+
+    /**
+     * Tests the scenario in which the updated movies are swept successfully
+     */
+    @Test
+    public void test_sweep_success() {
+        final Movie movie1 = createMovie();
+        final Movie movie2 = createMovie();
+        final Movie movie3 = createMovie();
+        final Iterator<Movie> movies = Arrays.asList(movie1, movie2, movie3).iterator();
+
+        when(movieRepository.streamUpdatedMovies(BATCH_SIZE)).thenReturn(movieIterator);
+        when(movieIterator.hasNext()).thenAnswer(invocation -> movies.hasNext());
+        when(movieIterator.next()).thenAnswer(invocation -> movies.next());
+        when(movieIndexWorkerPool.submit(movie1)).thenReturn(CompletableFuture.completedFuture(null));
+        when(movieIndexWorkerPool.submit(movie2)).thenReturn(CompletableFuture.completedFuture(null));
+        when(movieIndexWorkerPool.submit(movie3)).thenReturn(CompletableFuture.completedFuture(null));
+
+        movieIndexSweeper.sweep();
+
+        verify(movieIndexWorkerPool).submit(movie1);
+        verify(movieIndexWorkerPool).submit(movie2);
+        verify(movieIndexWorkerPool).submit(movie3);
+        verify(movieIterator).close();
+        verify(movieIndexBootstrap).onSweepCompleted();
+    }
+
+    /**
+     * Tests if the movies with pending like events are swept after the updated
+     * movies, and if the pending events of movies that don't exist are removed
+     */
+    @Test
+    public void test_sweep_pendingLikeEvents() {
+        final Movie movie = createMovie();
+        final String missingMovieId = UUID.randomUUID().toString();
+
+        when(movieRepository.streamUpdatedMovies(BATCH_SIZE)).thenReturn(movieIterator);
+        when(movieLikeEventRepository.findPendingMovieIds()).thenReturn(Arrays.asList(movie.getId(), missingMovieId));
+        when(movieRepository.findAllById(new HashSet<>(Arrays.asList(movie.getId(), missingMovieId))))
+            .thenReturn(Collections.singletonList(movie));
+        when(movieIndexWorkerPool.submit(movie)).thenReturn(CompletableFuture.completedFuture(null));
+
+        movieIndexSweeper.sweep();
+
+        verify(movieIndexWorkerPool).submit(movie);
+        verify(movieLikeEventRepository).deleteByMovieId(missingMovieId);
+        verify(movieLikeEventRepository, never()).deleteByMovieId(movie.getId());
+        verify(movieIndexBootstrap).onSweepCompleted();
+    }
+
+    /**
+     * Tests the scenario in which an exception is thrown while loading movies
+     */
+    @Test
+    public void test_sweep_loadException() {
+        when(movieRepository.streamUpdatedMovies(BATCH_SIZE)).thenThrow(new RuntimeException());
+
+        movieIndexSweeper.sweep();
+        movieIndexSweeper.sweep();
+
+        verify(movieRepository, times(2)).streamUpdatedMovies(BATCH_SIZE);
+        verify(movieIndexBootstrap, never()).onSweepCompleted();
+    }
+
+    /**
+     * Tests the scenario in which a sweep starts while the previous one is still
+     * running
+     */
+    @Test
+    public void test_sweep_alreadyRunning() {
+        final Movie movie = createMovie();
+
+        when(movieRepository.streamUpdatedMovies(BATCH_SIZE)).thenReturn(movieIterator);
+        when(movieIterator.hasNext()).thenReturn(true, false);
+        when(movieIterator.next()).thenReturn(movie);
+        when(movieIndexWorkerPool.submit(movie)).thenAnswer(invocation -> {
+            movieIndexSweeper.sweep();
+
+            return CompletableFuture.completedFuture(null);
+        });
+
+        movieIndexSweeper.sweep();
+
+        verify(movieRepository).streamUpdatedMovies(BATCH_SIZE);
+        verify(movieIndexWorkerPool).submit(movie);
+    }
+
+    /**
+     * Creates a movie
+     * 
+     * @return The movie
+     */
+    private Movie createMovie() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+
+        return movie;
+    }
+}
@@ -0,0 +1,158 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+
+/**
+ * Class that contains unit tests for the MovieIndexWorkerPool class
+ */
+public class MovieIndexWorkerPoolTest {
+
+    @Mock
+    private MovieIndexHelper movieIndexHelper;
+
+    private MovieIndexWorkerPool movieIndexWorkerPool;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        movieIndexWorkerPool = new MovieIndexWorkerPool(movieIndexHelper, 4, 1);
+    }
+
+    /**
+     * Cleans up after each test
+     */
+    @After
+    public void tearDown() {
+        movieIndexWorkerPool.shutdown();
+    }
+
+    /**
+     * Tests the scenario in which a movie is indexed by the pool
+     */
+    @Test
+    public void test_submit_success() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+
+        when(movieIndexHelper.indexMovie(movie)).thenReturn(CompletableFuture.completedFuture(null));
+
+        movieIndexWorkerPool.submit(movie).join();
+
+        verify(movieIndexHelper).indexMovie(movie);
+    }
+
+    /**
+     * Tests the scenario in which the same movie is submitted many times and the
+     * worker queues are full
+     */
+    @Test
+    public void test_submit_samePartition() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+
+        final Map<Movie, String> threads = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            final String previousThread = threads.put(movie, Thread.currentThread().getName());
+            if (previousThread != null) {
+                assertEquals(previousThread, Thread.currentThread().getName());
+            }
+
+            return CompletableFuture.completedFuture(null);
+        }).when(movieIndexHelper).indexMovie(any());
+
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[20];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = movieIndexWorkerPool.submit(movie);
+        }
+        CompletableFuture.allOf(futures).join();
+
+        verify(movieIndexHelper, times(futures.length)).indexMovie(movie);
+    }
+
+    /**
+     * Tests the scenario in which a movie is submitted again while its previous
+     * pass is still being flushed
+     */
+    @Test
+    public void test_submit_previousPassPending() throws Exception {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+
+        final CompletableFuture<Void> firstPass = new CompletableFuture<>();
+        when(movieIndexHelper.indexMovie(movie))
+            .thenReturn(firstPass)
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        final CompletableFuture<Void> firstFuture = movieIndexWorkerPool.submit(movie);
+        verify(movieIndexHelper, timeout(1000)).indexMovie(movie);
+
+        final CompletableFuture<Void> secondFuture = movieIndexWorkerPool.submit(movie);
+        Thread.sleep(100);
+        verify(movieIndexHelper, times(1)).indexMovie(movie);
+        assertFalse(secondFuture.isDone());
+
+        firstPass.complete(null);
+        firstFuture.join();
+        secondFuture.join();
+
+        verify(movieIndexHelper, times(2)).indexMovie(movie);
+    }
+
+    /**
+     * Tests if a worker indexes other movies while the previous pass of a movie
+     * that was submitted again is still being flushed
+     */
+    @Test
+    public void test_submit_previousPassPendingWorkerNotBlocked() {
+        movieIndexWorkerPool.shutdown();
+        movieIndexWorkerPool = new MovieIndexWorkerPool(movieIndexHelper, 1, 1);
+
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        final Movie otherMovie = new Movie();
+        otherMovie.setId(UUID.randomUUID().toString());
+
+        final CompletableFuture<Void> firstPass = new CompletableFuture<>();
+        when(movieIndexHelper.indexMovie(movie))
+            .thenReturn(firstPass)
+            .thenReturn(CompletableFuture.completedFuture(null));
+        when(movieIndexHelper.indexMovie(otherMovie)).thenReturn(CompletableFuture.completedFuture(null));
+
+        final CompletableFuture<Void> firstFuture = movieIndexWorkerPool.submit(movie);
+        final CompletableFuture<Void> secondFuture = movieIndexWorkerPool.submit(movie);
+        movieIndexWorkerPool.submit(otherMovie).join();
+
+        verify(movieIndexHelper, times(1)).indexMovie(movie);
+        assertFalse(secondFuture.isDone());
+
+        firstPass.complete(null);
+        firstFuture.join();
+        secondFuture.join();
+
+        verify(movieIndexHelper, times(2)).indexMovie(movie);
+    }
+}
@@ -0,0 +1,198 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeBitmap;
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeSnapshot;
+
+/**
+ * Class that contains unit tests for the MovieLikeIndexSnapshot class
+ */
+public class MovieLikeIndexSnapshotTest {
+
+    private static final long MAX_AGE = 60000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File file;
+
+    private MovieLikeIndexSnapshot movieLikeIndexSnapshot;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        file = new File(temporaryFolder.getRoot(), "snapshots/like-index.snapshot");
+        movieLikeIndexSnapshot = new MovieLikeIndexSnapshot(file.getPath(), MAX_AGE);
+    }
+
+    /**
+     * Tests if a snapshot is read back as it was written
+     */
+    @Test
+    public void test_writeAndRead() throws Exception {
+        final MovieLikeSnapshot snapshot = createSnapshot(Instant.now().toEpochMilli());
+
+        movieLikeIndexSnapshot.write(snapshot);
+        final Optional<MovieLikeSnapshot> result = movieLikeIndexSnapshot.read();
+
+        assertTrue(result.isPresent());
+        assertEquals(snapshot.getTimestamp(), result.get().getTimestamp());
+        assertEquals(Arrays.asList("account1", null, "λογαριασμός"), result.get().getAccounts());
+        assertEquals(2, result.get().getMovies().size());
+        assertEquals(MutableRoaringBitmap.bitmapOf(0, 2), result.get().getMovies().get("movie1").getAccounts());
+        assertEquals(7, result.get().getMovies().get("movie1").getSequence());
+        assertEquals(new MutableRoaringBitmap(), result.get().getMovies().get("movie2").getAccounts());
+        assertEquals(0, result.get().getMovies().get("movie2").getSequence());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    /**
+     * Tests if the bitmaps of a read snapshot stay mapped from the file instead of
+     * being copied to the heap, and stay readable after the file is replaced
+     */
+    @Test
+    public void test_read_mapped() throws Exception {
+        movieLikeIndexSnapshot.write(createSnapshot(Instant.now().toEpochMilli()));
+        final ImmutableRoaringBitmap accounts = movieLikeIndexSnapshot.read().get().getMovies().get("movie1")
+            .getAccounts();
+
+        final Map<String, MovieLikeBitmap> movies = new HashMap<>();
+        movies.put("movie1", new MovieLikeBitmap(MutableRoaringBitmap.bitmapOf(1), 8));
+        movieLikeIndexSnapshot.write(MovieLikeSnapshot.builder()
+            .timestamp(Instant.now().toEpochMilli())
+            .accounts(Arrays.asList("account1", "account2"))
+            .movies(movies)
+            .build());
+
+        assertFalse(accounts instanceof MutableRoaringBitmap);
+        assertEquals(MutableRoaringBitmap.bitmapOf(0, 2), accounts);
+    }
+
+    /**
+     * Tests the scenario in which there is no snapshot
+     */
+    @Test
+    public void test_read_noSnapshot() {
+        final Optional<MovieLikeSnapshot> result = movieLikeIndexSnapshot.read();
+
+        assertFalse(result.isPresent());
+    }
+
+    /**
+     * Tests the scenario in which a byte of the snapshot has changed
+     */
+    @Test
+    public void test_read_corrupt() throws Exception {
+        movieLikeIndexSnapshot.write(createSnapshot(Instant.now().toEpochMilli()));
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            final int lastByte = randomAccessFile.read();
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            randomAccessFile.write(lastByte ^ 0xFF);
+        }
+
+        final Optional<MovieLikeSnapshot> result = movieLikeIndexSnapshot.read();
+
+        assertFalse(result.isPresent());
+    }
+
+    /**
+     * Tests the scenario in which the snapshot is truncated
+     */
+    @Test
+    public void test_read_truncated() throws Exception {
+        movieLikeIndexSnapshot.write(createSnapshot(Instant.now().toEpochMilli()));
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() / 2);
+        }
+
+        final Optional<MovieLikeSnapshot> result = movieLikeIndexSnapshot.read();
+
+        assertFalse(result.isPresent());
+    }
+
+    /**
+     * Tests the scenario in which the file is not a snapshot
+     */
+    @Test
+    public void test_read_invalidFormat() throws Exception {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), new byte[64]);
+
+        final Optional<MovieLikeSnapshot> result = movieLikeIndexSnapshot.read();
+
+        assertFalse(result.isPresent());
+    }
+
+    /**
+     * Tests the scenario in which the snapshot is too old
+     */
+    @Test
+    public void test_read_stale() throws Exception {
+        movieLikeIndexSnapshot.write(createSnapshot(Instant.now().toEpochMilli() - MAX_AGE - 1000));
+
+        final Optional<MovieLikeSnapshot> result = movieLikeIndexSnapshot.read();
+
+        assertFalse(result.isPresent());
+    }
+
+    /**
+     * Tests if a new snapshot replaces the previous one
+     */
+    @Test
+    public void test_write_replace() throws Exception {
+        movieLikeIndexSnapshot.write(createSnapshot(Instant.now().toEpochMilli()));
+        movieLikeIndexSnapshot.write(MovieLikeSnapshot.builder()
+            .timestamp(Instant.now().toEpochMilli())
+            .accounts(Arrays.asList("account1"))
+            .movies(new HashMap<>())
+            .build());
+
+        final Optional<MovieLikeSnapshot> result = movieLikeIndexSnapshot.read();
+
+        assertTrue(result.isPresent());
+        assertEquals(Arrays.asList("account1"), result.get().getAccounts());
+        assertNull(result.get().getMovies().get("movie1"));
+    }
+
+    /**
+     * Creates a snapshot
+     * 
+     * @param timestamp
+     *            The time of the snapshot
+     * @return The snapshot
+     */
+    private MovieLikeSnapshot createSnapshot(final long timestamp) {
+        final Map<String, MovieLikeBitmap> movies = new HashMap<>();
+        movies.put("movie1", new MovieLikeBitmap(MutableRoaringBitmap.bitmapOf(0, 2), 7));
+        movies.put("movie2", new MovieLikeBitmap(new MutableRoaringBitmap(), 0));
+
+        return MovieLikeSnapshot.builder()
+            .timestamp(timestamp)
+            .accounts(Arrays.asList("account1", null, "λογαριασμός"))
+            .movies(movies)
+            .build();
+    }
+}
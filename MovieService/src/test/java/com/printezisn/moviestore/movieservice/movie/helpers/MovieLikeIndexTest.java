@@ -0,0 +1,448 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.springframework.data.util.CloseableIterator;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLike;
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeBitmap;
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeIndexStats;
+import com.printezisn.moviestore.movieservice.movie.models.MovieLikeSnapshot;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Class that contains unit tests for the MovieLikeIndex class
+ */
+public class MovieLikeIndexTest {
+
+    private static final String MOVIE_ID = "movie1";
+    private static final String OTHER_MOVIE_ID = "movie2";
+    private static final long CATCH_UP_OVERLAP = 60000;
+    private static final long SNAPSHOT_TIMESTAMP = 1500000000000L;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private MovieLikeRepository movieLikeRepository;
+
+    @Mock
+    private MovieLikeIndexSnapshot movieLikeIndexSnapshot;
+
+    @Mock
+    private CloseableIterator<MovieLike> likeIterator;
+
+    private MeterRegistry meterRegistry;
+
+    private MovieLikeIndex movieLikeIndex;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        meterRegistry = new SimpleMeterRegistry();
+        movieLikeIndex = new MovieLikeIndex(movieRepository, movieLikeRepository, movieLikeIndexSnapshot,
+            meterRegistry, CATCH_UP_OVERLAP);
+
+        when(movieLikeIndexSnapshot.read()).thenReturn(Optional.empty());
+        when(movieRepository.findLikesAppliedSince(anyLong()))
+            .thenReturn(Arrays.asList(createAppliedMovie(MOVIE_ID, 3), createAppliedMovie(OTHER_MOVIE_ID, 1)));
+        when(movieRepository.findExistingIds(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    /**
+     * Tests if all likes are loaded from the database when there is no snapshot
+     */
+    @Test
+    public void test_initialize_noSnapshot() {
+        mockLikes(createLike(MOVIE_ID, "account1"), createLike(MOVIE_ID, "account2"),
+            createLike(OTHER_MOVIE_ID, "account1"));
+
+        movieLikeIndex.initialize();
+
+        assertTrue(movieLikeIndex.hasLiked(MOVIE_ID, "account1"));
+        assertTrue(movieLikeIndex.hasLiked(MOVIE_ID, "account2"));
+        assertTrue(movieLikeIndex.hasLiked(OTHER_MOVIE_ID, "account1"));
+        assertFalse(movieLikeIndex.hasLiked(OTHER_MOVIE_ID, "account2"));
+        assertFalse(movieLikeIndex.hasLiked(MOVIE_ID, "account3"));
+        assertEquals(2, movieLikeIndex.getLikes(MOVIE_ID));
+        assertEquals(1, movieLikeIndex.getLikes(OTHER_MOVIE_ID));
+        verify(likeIterator).close();
+        verify(movieRepository).findLikesAppliedSince(1);
+        verify(movieRepository, never()).streamMovies(anyInt());
+    }
+
+    /**
+     * Tests if the index is restored from a snapshot and only the movies that
+     * changed after the snapshot are reloaded, without reading all movies
+     */
+    @Test
+    public void test_initialize_snapshot() {
+        final Map<String, MovieLikeBitmap> movies = new HashMap<>();
+        movies.put(MOVIE_ID, new MovieLikeBitmap(MutableRoaringBitmap.bitmapOf(0, 1), 3));
+        movies.put(OTHER_MOVIE_ID, new MovieLikeBitmap(MutableRoaringBitmap.bitmapOf(0), 0));
+        when(movieLikeIndexSnapshot.read()).thenReturn(Optional.of(MovieLikeSnapshot.builder()
+            .timestamp(SNAPSHOT_TIMESTAMP)
+            .accounts(Arrays.asList("account1", "account2"))
+            .movies(movies)
+            .build()));
+        when(movieLikeRepository.findByMovieId(OTHER_MOVIE_ID))
+            .thenReturn(Arrays.asList(createLike(OTHER_MOVIE_ID, "account2"), createLike(OTHER_MOVIE_ID, "account3")));
+
+        movieLikeIndex.initialize();
+
+        assertTrue(movieLikeIndex.hasLiked(MOVIE_ID, "account1"));
+        assertTrue(movieLikeIndex.hasLiked(MOVIE_ID, "account2"));
+        assertFalse(movieLikeIndex.hasLiked(OTHER_MOVIE_ID, "account1"));
+        assertTrue(movieLikeIndex.hasLiked(OTHER_MOVIE_ID, "account2"));
+        assertTrue(movieLikeIndex.hasLiked(OTHER_MOVIE_ID, "account3"));
+        verify(movieLikeRepository, never()).streamLikes(anyInt());
+        verify(movieLikeRepository, never()).findByMovieId(MOVIE_ID);
+        verify(movieRepository).findLikesAppliedSince(SNAPSHOT_TIMESTAMP - CATCH_UP_OVERLAP);
+        verify(movieRepository, never()).streamMovies(anyInt());
+    }
+
+    /**
+     * Tests if a bitmap restored from a snapshot is copied before it changes,
+     * and only then
+     */
+    @Test
+    public void test_apply_restoredBitmap() {
+        final ImmutableRoaringBitmap restoredAccounts = MutableRoaringBitmap.bitmapOf(0);
+        final Map<String, MovieLikeBitmap> movies = new HashMap<>();
+        movies.put(MOVIE_ID, new MovieLikeBitmap(restoredAccounts, 3));
+        movies.put(OTHER_MOVIE_ID, new MovieLikeBitmap(new ImmutableRoaringBitmap(serialize(restoredAccounts)), 1));
+        when(movieLikeIndexSnapshot.read()).thenReturn(Optional.of(MovieLikeSnapshot.builder()
+            .timestamp(SNAPSHOT_TIMESTAMP)
+            .accounts(Arrays.asList("account1"))
+            .movies(movies)
+            .build()));
+        movieLikeIndex.initialize();
+
+        movieLikeIndex.apply(OTHER_MOVIE_ID, Arrays.asList("account2"), Collections.emptyList(), 2);
+        movieLikeIndex.saveSnapshot();
+
+        final MovieLikeSnapshot snapshot = captureSnapshot();
+        assertEquals(MutableRoaringBitmap.bitmapOf(0, 1), snapshot.getMovies().get(OTHER_MOVIE_ID).getAccounts());
+        assertEquals(2, movieLikeIndex.getLikes(OTHER_MOVIE_ID));
+        assertEquals(MutableRoaringBitmap.bitmapOf(0), restoredAccounts);
+    }
+
+    /**
+     * Tests if the sequence of each movie is set to its applied like sequence, so
+     * that a movie isn't reloaded after the next restart unless more like events
+     * are applied
+     */
+    @Test
+    public void test_initialize_appliedLikeSequence() {
+        mockLikes(createLike(MOVIE_ID, "account1"));
+
+        movieLikeIndex.initialize();
+        movieLikeIndex.saveSnapshot();
+
+        final MovieLikeSnapshot snapshot = captureSnapshot();
+        assertEquals(3, snapshot.getMovies().get(MOVIE_ID).getSequence());
+        assertEquals(1, snapshot.getMovies().get(OTHER_MOVIE_ID).getSequence());
+    }
+
+    /**
+     * Tests if likes are added and removed
+     */
+    @Test
+    public void test_apply() {
+        mockLikes(createLike(MOVIE_ID, "account1"), createLike(MOVIE_ID, "account2"));
+        movieLikeIndex.initialize();
+
+        movieLikeIndex.apply(MOVIE_ID, Arrays.asList("account3"), Arrays.asList("account1", "account4"), 5);
+
+        assertFalse(movieLikeIndex.hasLiked(MOVIE_ID, "account1"));
+        assertTrue(movieLikeIndex.hasLiked(MOVIE_ID, "account2"));
+        assertTrue(movieLikeIndex.hasLiked(MOVIE_ID, "account3"));
+        assertFalse(movieLikeIndex.hasLiked(MOVIE_ID, "account4"));
+        assertEquals(2, movieLikeIndex.getLikes(MOVIE_ID));
+    }
+
+    /**
+     * Tests if a movie whose likes were applied by another instance is reloaded,
+     * and a movie whose likes were applied by this instance is not
+     */
+    @Test
+    public void test_catchUp() {
+        mockLikes(createLike(MOVIE_ID, "account1"), createLike(OTHER_MOVIE_ID, "account1"));
+        movieLikeIndex.initialize();
+        movieLikeIndex.apply(OTHER_MOVIE_ID, Arrays.asList("account2"), Collections.emptyList(), 2);
+
+        when(movieRepository.findLikesAppliedSince(anyLong()))
+            .thenReturn(Arrays.asList(createAppliedMovie(MOVIE_ID, 5), createAppliedMovie(OTHER_MOVIE_ID, 2)));
+        when(movieLikeRepository.findByMovieId(MOVIE_ID))
+            .thenReturn(Arrays.asList(createLike(MOVIE_ID, "account1"), createLike(MOVIE_ID, "account3")));
+
+        movieLikeIndex.catchUp();
+
+        assertTrue(movieLikeIndex.hasLiked(MOVIE_ID, "account3"));
+        assertEquals(2, movieLikeIndex.getLikes(MOVIE_ID));
+        assertEquals(2, movieLikeIndex.getLikes(OTHER_MOVIE_ID));
+        verify(movieLikeRepository, never()).findByMovieId(OTHER_MOVIE_ID);
+
+        movieLikeIndex.catchUp();
+
+        verify(movieLikeRepository).findByMovieId(MOVIE_ID);
+    }
+
+    /**
+     * Tests if each catch-up pass reads the movies applied since the previous
+     * pass, minus the overlap
+     */
+    @Test
+    public void test_catchUp_since() {
+        mockLikes();
+        final long startTime = System.currentTimeMillis();
+        movieLikeIndex.initialize();
+        clearInvocations(movieRepository);
+        when(movieRepository.findLikesAppliedSince(anyLong())).thenReturn(Collections.emptyList());
+
+        movieLikeIndex.catchUp();
+        final long firstPassTime = System.currentTimeMillis();
+        movieLikeIndex.catchUp();
+
+        final ArgumentCaptor<Long> sinceCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(movieRepository, times(2)).findLikesAppliedSince(sinceCaptor.capture());
+        assertTrue(sinceCaptor.getAllValues().get(0) >= startTime - CATCH_UP_OVERLAP);
+        assertTrue(sinceCaptor.getAllValues().get(1) >= sinceCaptor.getAllValues().get(0));
+        assertTrue(sinceCaptor.getAllValues().get(1) <= firstPassTime - CATCH_UP_OVERLAP);
+    }
+
+    /**
+     * Tests if an error during a catch-up pass is not propagated
+     */
+    @Test
+    public void test_catchUp_exception() {
+        mockLikes();
+        movieLikeIndex.initialize();
+        when(movieRepository.findLikesAppliedSince(anyLong())).thenThrow(new RuntimeException());
+
+        movieLikeIndex.catchUp();
+    }
+
+    /**
+     * Tests if the likes of a movie are removed
+     */
+    @Test
+    public void test_remove() {
+        movieLikeIndex.apply(MOVIE_ID, Arrays.asList("account1"), Collections.emptyList(), 1);
+        movieLikeIndex.apply(OTHER_MOVIE_ID, Arrays.asList("account1"), Collections.emptyList(), 1);
+
+        movieLikeIndex.remove(MOVIE_ID);
+
+        assertFalse(movieLikeIndex.hasLiked(MOVIE_ID, "account1"));
+        assertEquals(0, movieLikeIndex.getLikes(MOVIE_ID));
+        assertTrue(movieLikeIndex.hasLiked(OTHER_MOVIE_ID, "account1"));
+    }
+
+    /**
+     * Tests if the statistics and the metrics of the index are calculated
+     */
+    @Test
+    public void test_getStats() {
+        mockLikes(createLike(MOVIE_ID, "account1"), createLike(MOVIE_ID, "account2"),
+            createLike(OTHER_MOVIE_ID, "account1"));
+        movieLikeIndex.initialize();
+
+        final MovieLikeIndexStats stats = movieLikeIndex.getStats();
+
+        assertEquals(2, stats.getMovies());
+        assertEquals(2, stats.getAccounts());
+        assertEquals(3, stats.getLikes());
+        assertTrue(stats.getBitmapBytes() > 0);
+        assertTrue(stats.getDictionaryBytes() > 0);
+        assertEquals(stats.getBitmapBytes() + stats.getDictionaryBytes(), stats.getTotalBytes());
+        assertEquals(3.0, meterRegistry.get("movie.likes.index.likes").gauge().value(), 0);
+    }
+
+    /**
+     * Tests if a snapshot holds the accounts and the likes of the index
+     */
+    @Test
+    public void test_saveSnapshot() {
+        mockLikes(createLike(MOVIE_ID, "account1"), createLike(OTHER_MOVIE_ID, "account2"));
+        movieLikeIndex.initialize();
+        movieLikeIndex.apply(MOVIE_ID, Arrays.asList("account2"), Collections.emptyList(), 4);
+
+        movieLikeIndex.saveSnapshot();
+
+        final MovieLikeSnapshot snapshot = captureSnapshot();
+        assertEquals(Arrays.asList("account1", "account2"), snapshot.getAccounts());
+        assertEquals(MutableRoaringBitmap.bitmapOf(0, 1), snapshot.getMovies().get(MOVIE_ID).getAccounts());
+        assertEquals(4, snapshot.getMovies().get(MOVIE_ID).getSequence());
+        assertEquals(MutableRoaringBitmap.bitmapOf(1), snapshot.getMovies().get(OTHER_MOVIE_ID).getAccounts());
+        assertEquals(1, snapshot.getMovies().get(OTHER_MOVIE_ID).getSequence());
+    }
+
+    /**
+     * Tests if the likes of movies that don't exist anymore are removed from the
+     * index and left out of the snapshot
+     */
+    @Test
+    public void test_saveSnapshot_deletedMovie() {
+        mockLikes(createLike(MOVIE_ID, "account1"), createLike("deletedMovie", "account1"));
+        movieLikeIndex.initialize();
+        when(movieRepository.findExistingIds(any())).thenReturn(Arrays.asList(MOVIE_ID, OTHER_MOVIE_ID));
+
+        movieLikeIndex.saveSnapshot();
+
+        final MovieLikeSnapshot snapshot = captureSnapshot();
+        assertFalse(snapshot.getMovies().containsKey("deletedMovie"));
+        assertTrue(snapshot.getMovies().containsKey(MOVIE_ID));
+        assertEquals(0, movieLikeIndex.getLikes("deletedMovie"));
+        assertEquals(1, movieLikeIndex.getLikes(MOVIE_ID));
+    }
+
+    /**
+     * Tests if a snapshot is still written if the deleted movies can't be checked
+     */
+    @Test
+    public void test_saveSnapshot_deletedMoviesException() {
+        mockLikes(createLike(MOVIE_ID, "account1"));
+        movieLikeIndex.initialize();
+        when(movieRepository.findExistingIds(any())).thenThrow(new RuntimeException());
+
+        movieLikeIndex.saveSnapshot();
+
+        assertTrue(captureSnapshot().getMovies().containsKey(MOVIE_ID));
+    }
+
+    /**
+     * Tests if an error while writing a snapshot is not propagated
+     */
+    @Test
+    public void test_saveSnapshot_exception() throws Exception {
+        mockLikes();
+        movieLikeIndex.initialize();
+        doThrow(new IOException()).when(movieLikeIndexSnapshot).write(any());
+
+        movieLikeIndex.saveSnapshot();
+    }
+
+    /**
+     * Returns the snapshot that was written
+     * 
+     * @return The snapshot
+     */
+    private MovieLikeSnapshot captureSnapshot() {
+        final ArgumentCaptor<MovieLikeSnapshot> snapshotCaptor = ArgumentCaptor.forClass(MovieLikeSnapshot.class);
+        try {
+            verify(movieLikeIndexSnapshot).write(snapshotCaptor.capture());
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return snapshotCaptor.getValue();
+    }
+
+    /**
+     * Serializes a bitmap to a read-only buffer, like the ones mapped from a
+     * snapshot file
+     * 
+     * @param bitmap
+     *            The bitmap
+     * @return The buffer
+     */
+    private ByteBuffer serialize(final ImmutableRoaringBitmap bitmap) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            bitmap.serialize(new DataOutputStream(output));
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return ByteBuffer.wrap(output.toByteArray()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Makes the repository stream the given likes
+     * 
+     * @param likes
+     *            The likes
+     */
+    private void mockLikes(final MovieLike... likes) {
+        final Iterator<MovieLike> iterator = Arrays.asList(likes).iterator();
+
+        when(movieLikeRepository.streamLikes(anyInt())).thenReturn(likeIterator);
+        when(likeIterator.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(likeIterator.next()).thenAnswer(invocation -> iterator.next());
+    }
+
+    /**
+     * Creates a like
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param account
+     *            The account
+     * @return The like
+     */
+    private MovieLike createLike(final String movieId, final String account) {
+        final MovieLike like = new MovieLike();
+        like.setMovieId(movieId);
+        like.setAccount(account);
+
+        return like;
+    }
+
+    /**
+     * Creates a movie whose like events were applied
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param appliedLikeSequence
+     *            The sequence number of the last applied like event of the movie
+     * @return The movie
+     */
+    private Movie createAppliedMovie(final String movieId, final long appliedLikeSequence) {
+        final Movie movie = new Movie();
+        movie.setId(movieId);
+        movie.setAppliedLikeSequence(appliedLikeSequence);
+
+        return movie;
+    }
+}
@@ -0,0 +1,161 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent.Operation;
+import com.printezisn.moviestore.movieservice.movie.models.MoviePendingLikes;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+/**
+ * Class that contains unit tests for the MovieLikeMigration class
+ */
+public class MovieLikeMigrationTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private MovieLikeEventRepository movieLikeEventRepository;
+
+    @Mock
+    private MovieLikeSequencer movieLikeSequencer;
+
+    private MovieLikeMigration movieLikeMigration;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        final AtomicLong sequence = new AtomicLong();
+        when(movieLikeSequencer.next()).thenAnswer(invocation -> sequence.incrementAndGet());
+
+        movieLikeMigration = new MovieLikeMigration(movieRepository, movieLikeEventRepository, movieLikeSequencer,
+            BATCH_SIZE);
+    }
+
+    /**
+     * Tests if the pending sets of a movie are turned into like events before
+     * they are removed
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void test_migrate_success() {
+        final MoviePendingLikes movie = createMovie(Arrays.asList("account1"), Arrays.asList("account2"));
+
+        when(movieRepository.findPendingLikeSets(BATCH_SIZE)).thenReturn(Arrays.asList(movie));
+
+        movieLikeMigration.migrate();
+
+        final ArgumentCaptor<List<MovieLikeEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+        final InOrder inOrder = inOrder(movieLikeEventRepository, movieRepository);
+        inOrder.verify(movieLikeEventRepository).insert(eventsCaptor.capture());
+        inOrder.verify(movieRepository).removePendingLikeSets(movie.getId());
+
+        final List<MovieLikeEvent> events = eventsCaptor.getValue();
+        assertEquals(2, events.size());
+        assertEquals(movie.getId(), events.get(0).getMovieId());
+        assertEquals("account1", events.get(0).getAccount());
+        assertEquals(Operation.LIKE, events.get(0).getOp());
+        assertEquals(movie.getId(), events.get(1).getMovieId());
+        assertEquals("account2", events.get(1).getAccount());
+        assertEquals(Operation.UNLIKE, events.get(1).getOp());
+        assertEquals(events.get(0).getSeq() + 1, events.get(1).getSeq());
+    }
+
+    /**
+     * Tests if movies are migrated in batches until none are left
+     */
+    @Test
+    public void test_migrate_batches() {
+        final MoviePendingLikes movie1 = createMovie(Arrays.asList("account1"), null);
+        final MoviePendingLikes movie2 = createMovie(null, Arrays.asList("account1"));
+        final MoviePendingLikes movie3 = createMovie(Arrays.asList("account2"), null);
+
+        when(movieRepository.findPendingLikeSets(BATCH_SIZE))
+            .thenReturn(Arrays.asList(movie1, movie2))
+            .thenReturn(Arrays.asList(movie3));
+
+        movieLikeMigration.migrate();
+
+        verify(movieRepository, times(2)).findPendingLikeSets(BATCH_SIZE);
+        verify(movieLikeEventRepository, times(3)).insert(anyList());
+        verify(movieRepository).removePendingLikeSets(movie1.getId());
+        verify(movieRepository).removePendingLikeSets(movie2.getId());
+        verify(movieRepository).removePendingLikeSets(movie3.getId());
+    }
+
+    /**
+     * Tests if the empty pending sets of a movie are removed without inserting
+     * events
+     */
+    @Test
+    public void test_migrate_emptySets() {
+        final MoviePendingLikes movie = createMovie(Collections.emptyList(), Collections.emptyList());
+
+        when(movieRepository.findPendingLikeSets(BATCH_SIZE)).thenReturn(Arrays.asList(movie));
+
+        movieLikeMigration.migrate();
+
+        verify(movieLikeEventRepository, never()).insert(anyList());
+        verify(movieRepository).removePendingLikeSets(movie.getId());
+    }
+
+    /**
+     * Tests the scenario in which no movie has pending sets
+     */
+    @Test
+    public void test_migrate_nothingToMigrate() {
+        when(movieRepository.findPendingLikeSets(BATCH_SIZE)).thenReturn(Collections.emptyList());
+
+        movieLikeMigration.migrate();
+
+        verify(movieLikeEventRepository, never()).insert(anyList());
+        verify(movieRepository, never()).removePendingLikeSets(anyString());
+    }
+
+    /**
+     * Creates the pending sets of a movie
+     * 
+     * @param pendingLikes
+     *            The pending likes, or null if the movie doesn't have the set
+     * @param pendingUnlikes
+     *            The pending unlikes, or null if the movie doesn't have the set
+     * @return The pending sets of the movie
+     */
+    private MoviePendingLikes createMovie(final List<String> pendingLikes, final List<String> pendingUnlikes) {
+        final MoviePendingLikes movie = new MoviePendingLikes();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setPendingLikes((pendingLikes != null) ? new HashSet<>(pendingLikes) : null);
+        movie.setPendingUnlikes((pendingUnlikes != null) ? new HashSet<>(pendingUnlikes) : null);
+
+        return movie;
+    }
+}
@@ -0,0 +1,191 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.util.CloseableIterator;
+
+import com.printezisn.moviestore.movieservice.movie.entities.Movie;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeRepository;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Class that contains unit tests for the MovieLikeReconciler class
+ */
+public class MovieLikeReconcilerTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private MovieLikeRepository movieLikeRepository;
+
+    @Mock
+    private ShardedLikeCounter shardedLikeCounter;
+
+    @Mock
+    private MovieLikeIndex movieLikeIndex;
+
+    @Mock
+    private MovieCache movieCache;
+
+    @Mock
+    private CloseableIterator<Movie> movieIterator;
+
+    private MeterRegistry meterRegistry;
+
+    private MovieLikeReconciler movieLikeReconciler;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        meterRegistry = new SimpleMeterRegistry();
+        movieLikeReconciler = new MovieLikeReconciler(movieRepository, movieLikeRepository, shardedLikeCounter,
+            movieLikeIndex, movieCache, meterRegistry, BATCH_SIZE);
+    }
+
+    /**
+     * Tests the scenario in which the like counter has drifted
+     */
+    @Test
+    public void test_reconcile_drift() {
+        final Movie movie = createMovie(5);
+
+        mockMovies(movie);
+        when(shardedLikeCounter.getTotal(movie.getId())).thenReturn(5L);
+        when(movieLikeIndex.getLikes(movie.getId())).thenReturn(7L);
+        when(movieLikeRepository.countByMovieId(movie.getId())).thenReturn(7L);
+        when(movieRepository.reconcileTotalLikes(movie.getId(), movie.getRevision(), 7L)).thenReturn(1L);
+
+        movieLikeReconciler.reconcile();
+
+        verify(shardedLikeCounter).add(movie.getId(), 2L);
+        verify(movieCache).evict(movie.getId());
+        verify(movieIterator).close();
+        assertEquals(1.0, meterRegistry.counter("movie.likes.reconciled").count(), 0);
+    }
+
+    /**
+     * Tests the scenario in which the like counter is correct
+     */
+    @Test
+    public void test_reconcile_noDrift() {
+        final Movie movie = createMovie(5);
+
+        mockMovies(movie);
+        when(shardedLikeCounter.getTotal(movie.getId())).thenReturn(5L);
+        when(movieLikeIndex.getLikes(movie.getId())).thenReturn(5L);
+
+        movieLikeReconciler.reconcile();
+
+        verify(movieLikeRepository, never()).countByMovieId(anyString());
+
+        verify(movieRepository, never()).reconcileTotalLikes(anyString(), anyString(), anyLong());
+        verify(shardedLikeCounter, never()).add(anyString(), anyLong());
+    }
+
+    /**
+     * Tests the scenario in which the like index disagrees with the counters, but
+     * the counters are correct
+     */
+    @Test
+    public void test_reconcile_indexBehind() {
+        final Movie movie = createMovie(5);
+
+        mockMovies(movie);
+        when(shardedLikeCounter.getTotal(movie.getId())).thenReturn(5L);
+        when(movieLikeIndex.getLikes(movie.getId())).thenReturn(4L);
+        when(movieLikeRepository.countByMovieId(movie.getId())).thenReturn(5L);
+
+        movieLikeReconciler.reconcile();
+
+        verify(movieRepository, never()).reconcileTotalLikes(anyString(), anyString(), anyLong());
+        verify(shardedLikeCounter, never()).add(anyString(), anyLong());
+    }
+
+    /**
+     * Tests the scenario in which the movie changes while its likes are counted
+     */
+    @Test
+    public void test_reconcile_concurrentChange() {
+        final Movie movie = createMovie(5);
+
+        mockMovies(movie);
+        when(shardedLikeCounter.getTotal(movie.getId())).thenReturn(5L);
+        when(movieLikeIndex.getLikes(movie.getId())).thenReturn(6L);
+        when(movieLikeRepository.countByMovieId(movie.getId())).thenReturn(6L);
+        when(movieRepository.reconcileTotalLikes(movie.getId(), movie.getRevision(), 6L)).thenReturn(0L);
+
+        movieLikeReconciler.reconcile();
+
+        verify(shardedLikeCounter, never()).add(anyString(), anyLong());
+        assertEquals(0.0, meterRegistry.counter("movie.likes.reconciled").count(), 0);
+    }
+
+    /**
+     * Tests the scenario in which a movie with changes that aren't indexed yet is
+     * skipped
+     */
+    @Test
+    public void test_reconcile_updatedMovie() {
+        final Movie movie = createMovie(5);
+        movie.setUpdated(true);
+
+        mockMovies(movie);
+
+        movieLikeReconciler.reconcile();
+
+        verify(movieLikeRepository, never()).countByMovieId(anyString());
+    }
+
+    /**
+     * Makes the repository stream the given movies
+     * 
+     * @param movies
+     *            The movies
+     */
+    private void mockMovies(final Movie... movies) {
+        final Iterator<Movie> iterator = Arrays.asList(movies).iterator();
+
+        when(movieRepository.streamMovies(BATCH_SIZE)).thenReturn(movieIterator);
+        when(movieIterator.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(movieIterator.next()).thenAnswer(invocation -> iterator.next());
+    }
+
+    /**
+     * Creates a movie
+     * 
+     * @param totalLikes
+     *            The total likes of the movie
+     * @return The movie
+     */
+    private Movie createMovie(final long totalLikes) {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setRevision(UUID.randomUUID().toString());
+        movie.setTotalLikes(totalLikes);
+
+        return movie;
+    }
+}
@@ -0,0 +1,88 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Class that contains unit tests for the MovieSearchCache class
+ */
+public class MovieSearchCacheTest {
+
+    private MeterRegistry meterRegistry;
+
+    private MovieSearchCache movieSearchCache;
+
+    private AtomicInteger searches;
+
+    private Supplier<MoviePagedResultModel> search;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        movieSearchCache = new MovieSearchCache(meterRegistry, 100, 60000);
+        searches = new AtomicInteger();
+        search = () -> {
+            searches.incrementAndGet();
+            return new MoviePagedResultModel();
+        };
+    }
+
+    /**
+     * Tests if searches that differ only in the case and spacing of the text share
+     * the same result
+     */
+    @Test
+    public void test_get_normalizedText() {
+        final MoviePagedResultModel result = movieSearchCache.get(Optional.of("Star  Wars"), "page:0", "rating",
+            true, true, search);
+        final MoviePagedResultModel cachedResult = movieSearchCache.get(Optional.of(" star wars "), "page:0",
+            "rating", true, true, search);
+
+        assertSame(result, cachedResult);
+        assertEquals(1, searches.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(), 0);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count(), 0);
+    }
+
+    /**
+     * Tests if different searches don't share results
+     */
+    @Test
+    public void test_get_differentSearch() {
+        movieSearchCache.get(Optional.empty(), "page:0", "rating", true, true, search);
+        movieSearchCache.get(Optional.empty(), "page:1", "rating", true, true, search);
+        movieSearchCache.get(Optional.empty(), "page:0", "rating", false, true, search);
+        movieSearchCache.get(Optional.empty(), "page:0", "totalLikes", true, true, search);
+        movieSearchCache.get(Optional.empty(), "page:0", "rating", true, false, search);
+
+        assertEquals(5, searches.get());
+    }
+
+    /**
+     * Tests if the results cached before an invalidation are not used
+     */
+    @Test
+    public void test_get_invalidated() {
+        movieSearchCache.get(Optional.empty(), "page:0", "rating", true, true, search);
+        movieSearchCache.invalidate();
+        movieSearchCache.get(Optional.empty(), "page:0", "rating", true, true, search);
+        movieSearchCache.get(Optional.empty(), "page:0", "rating", true, true, search);
+
+        assertEquals(2, searches.get());
+    }
+}
@@ -0,0 +1,58 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Test;
+
+/**
+ * Class that contains unit tests for the MovieSearchCursorCodec class
+ */
+public class MovieSearchCursorCodecTest {
+
+    private final MovieSearchCursorCodec movieSearchCursorCodec = new MovieSearchCursorCodec();
+
+    /**
+     * Tests if an encoded cursor is decoded back to the same cursor
+     */
+    @Test
+    public void test_decode_encodedCursor() {
+        final MovieSearchCursor cursor = MovieSearchCursor.builder()
+            .sortField("rating")
+            .ascending(true)
+            .backward(true)
+            .fuzzy(true)
+            .sortValues(Arrays.asList(7.5, "4f1c3a57-3b8e-4d52-a1a4-4dbb4b1d2d6e"))
+            .build();
+
+        final String encodedCursor = movieSearchCursorCodec.encode(cursor);
+        final Optional<MovieSearchCursor> result = movieSearchCursorCodec.decode(encodedCursor);
+
+        assertTrue(encodedCursor.matches("[A-Za-z0-9_-]+"));
+        assertEquals(Optional.of(cursor), result);
+    }
+
+    /**
+     * Tests if there is no cursor to encode when there is no page
+     */
+    @Test
+    public void test_encode_noCursor() {
+        assertNull(movieSearchCursorCodec.encode(null));
+    }
+
+    /**
+     * Tests if blank and invalid cursors are ignored
+     */
+    @Test
+    public void test_decode_invalidCursor() {
+        assertFalse(movieSearchCursorCodec.decode(null).isPresent());
+        assertFalse(movieSearchCursorCodec.decode("").isPresent());
+        assertFalse(movieSearchCursorCodec.decode("not a cursor").isPresent());
+        assertFalse(movieSearchCursorCodec.decode("bm90IGpzb24").isPresent());
+    }
+}
@@ -0,0 +1,99 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+
+/**
+ * Class that contains unit tests for the MovieSearchHitDecoder class
+ */
+public class MovieSearchHitDecoderTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final MovieSearchHitDecoder movieSearchHitDecoder = new MovieSearchHitDecoder();
+
+    /**
+     * Tests if a search hit is decoded into a movie
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void test_decode_success() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final String source = String.format("{\"id\":\"%s\",\"title\":\"Test Title\",\"description\":\"Test\","
+            + "\"rating\":7.5,\"releaseYear\":2018,\"totalLikes\":3,\"creator\":\"test_account\","
+            + "\"unknownField\":true}", id);
+
+        // The source is placed in the middle of a larger buffer, to verify that the
+        // offset of the bytes is respected
+        final byte[] sourceBytes = ("xx" + source + "yy").getBytes(StandardCharsets.UTF_8);
+        final SearchHit hit = new SearchHit(0, id.toString(), new Text("movies"), Collections.emptyMap());
+        hit.sourceRef(new BytesArray(sourceBytes, 2, sourceBytes.length - 4));
+
+        final MovieDto movieDto = movieSearchHitDecoder.decode(hit);
+
+        assertEquals(id, movieDto.getId());
+        assertEquals("Test Title", movieDto.getTitle());
+        assertEquals("Test", movieDto.getDescription());
+        assertEquals(7.5, movieDto.getRating(), 0);
+        assertEquals(2018, movieDto.getReleaseYear().intValue());
+        assertEquals(3, movieDto.getTotalLikes());
+        assertEquals("test_account", movieDto.getCreator());
+    }
+
+    /**
+     * Tests if every hit of a page is decoded into a movie with the fields of its
+     * source
+     * 
+     * @throws Exception
+     *             Exception thrown in case of error
+     */
+    @Test
+    public void test_decode_page() throws Exception {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final List<MovieIndex> movies = new ArrayList<>(PAGE_SIZE);
+        final SearchHit[] hits = new SearchHit[PAGE_SIZE];
+        for (int i = 0; i < hits.length; i++) {
+            final MovieIndex movie = new MovieIndex();
+            movie.setId(UUID.randomUUID().toString());
+            movie.setTitle("Test Title " + i);
+            movie.setDescription("Test Description " + i);
+            movie.setRating(i / 2.0);
+            movie.setReleaseYear(2000 + i);
+            movie.setTotalLikes(i * 3);
+            movie.setCreator("test_account_" + i);
+            movies.add(movie);
+
+            hits[i] = new SearchHit(i, movie.getId(), new Text("movies"), Collections.emptyMap());
+            hits[i].sourceRef(new BytesArray(objectMapper.writeValueAsBytes(movie)));
+        }
+
+        for (int i = 0; i < hits.length; i++) {
+            final MovieIndex movie = movies.get(i);
+            final MovieDto movieDto = movieSearchHitDecoder.decode(hits[i]);
+
+            assertEquals(UUID.fromString(movie.getId()), movieDto.getId());
+            assertEquals(movie.getTitle(), movieDto.getTitle());
+            assertEquals(movie.getDescription(), movieDto.getDescription());
+            assertEquals(movie.getRating(), movieDto.getRating(), 0);
+            assertEquals(movie.getReleaseYear(), movieDto.getReleaseYear().intValue());
+            assertEquals(movie.getTotalLikes(), movieDto.getTotalLikes());
+            assertEquals(movie.getCreator(), movieDto.getCreator());
+        }
+    }
+}
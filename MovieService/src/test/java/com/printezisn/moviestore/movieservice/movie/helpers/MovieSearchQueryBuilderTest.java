@@ -0,0 +1,62 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.junit.Test;
+
+/**
+ * Class that contains unit tests for the MovieSearchQueryBuilder class
+ */
+public class MovieSearchQueryBuilderTest {
+
+    private final MovieSearchQueryBuilder movieSearchQueryBuilder = new MovieSearchQueryBuilder();
+
+    /**
+     * Tests if the primary query uses the analyzed subfields without fuzziness
+     */
+    @Test
+    public void test_buildPrimaryQuery() {
+        final BoolQueryBuilder query = (BoolQueryBuilder) movieSearchQueryBuilder.buildPrimaryQuery(" The Matrix ");
+
+        assertEquals(4, query.should().size());
+        assertEquals("1", query.minimumShouldMatch());
+
+        final TermQueryBuilder exactTitleQuery = (TermQueryBuilder) query.should().get(0);
+        assertEquals("title.keyword", exactTitleQuery.fieldName());
+        assertEquals("the matrix", exactTitleQuery.value());
+
+        final MatchQueryBuilder titlePhraseQuery = (MatchQueryBuilder) query.should().get(1);
+        assertEquals("title.shingles", titlePhraseQuery.fieldName());
+
+        final MultiMatchQueryBuilder prefixQuery = (MultiMatchQueryBuilder) query.should().get(3);
+        assertTrue(prefixQuery.fields().containsKey("title.prefix"));
+        assertTrue(prefixQuery.fields().containsKey("description.prefix"));
+
+        query.should().stream()
+            .filter(MultiMatchQueryBuilder.class::isInstance)
+            .forEach(clause -> assertNull(((MultiMatchQueryBuilder) clause).fuzziness()));
+        assertTrue(query.toString().indexOf("*") < 0);
+    }
+
+    /**
+     * Tests if the fuzzy query tolerates typos
+     */
+    @Test
+    public void test_buildFuzzyQuery() {
+        final MultiMatchQueryBuilder query = (MultiMatchQueryBuilder) movieSearchQueryBuilder
+            .buildFuzzyQuery("Matrx");
+
+        assertEquals("Matrx", query.value());
+        assertEquals(Fuzziness.AUTO, query.fuzziness());
+        assertEquals(1, query.prefixLength());
+        assertTrue(query.fields().containsKey("title"));
+        assertTrue(query.fields().containsKey("description"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.printezisn.moviestore.movieservice.movie.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeCounter;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeCounterRepository;
+
+/**
+ * Class that contains unit tests for the ShardedLikeCounter class
+ */
+public class ShardedLikeCounterTest {
+
+    private static final String MOVIE_ID = "movie1";
+    private static final int SHARDS = 4;
+
+    @Mock
+    private MovieLikeCounterRepository movieLikeCounterRepository;
+
+    private ShardedLikeCounter shardedLikeCounter;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        shardedLikeCounter = new ShardedLikeCounter(movieLikeCounterRepository, SHARDS);
+    }
+
+    /**
+     * Tests if a change is added to one of the shards
+     */
+    @Test
+    public void test_add_success() {
+        shardedLikeCounter.add(MOVIE_ID, 3);
+
+        final ArgumentCaptor<Integer> shardCaptor = ArgumentCaptor.forClass(Integer.class);
+        verify(movieLikeCounterRepository).increment(eq(MOVIE_ID), shardCaptor.capture(), eq(3L));
+        assertTrue(shardCaptor.getValue() >= 0 && shardCaptor.getValue() < SHARDS);
+    }
+
+    /**
+     * Tests if an empty change doesn't update the shards
+     */
+    @Test
+    public void test_add_zero() {
+        shardedLikeCounter.add(MOVIE_ID, 0);
+
+        verify(movieLikeCounterRepository, never()).increment(anyString(), anyInt(), anyLong());
+    }
+
+    /**
+     * Tests if the total is the sum of the shards
+     */
+    @Test
+    public void test_getTotal_success() {
+        when(movieLikeCounterRepository.findByMovieId(MOVIE_ID))
+            .thenReturn(Arrays.asList(createShard(0, 5), createShard(1, -2), createShard(3, 4)));
+
+        assertEquals(7L, shardedLikeCounter.getTotal(MOVIE_ID));
+    }
+
+    /**
+     * Creates a counter shard
+     * 
+     * @param shard
+     *            The shard
+     * @param count
+     *            The count of the shard
+     * @return The counter shard
+     */
+    private MovieLikeCounter createShard(final int shard, final long count) {
+        final MovieLikeCounter counter = new MovieLikeCounter();
+        counter.setId(MOVIE_ID + "-" + shard);
+        counter.setMovieId(MOVIE_ID);
+        counter.setShard(shard);
+        counter.setCount(count);
+
+        return counter;
+    }
+}
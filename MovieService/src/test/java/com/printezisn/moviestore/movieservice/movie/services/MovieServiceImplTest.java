@@ -1,11 +1,14 @@
 package com.printezisn.moviestore.movieservice.movie.services;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -15,29 +18,43 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
 import com.printezisn.moviestore.movieservice.movie.entities.Movie;
-import com.printezisn.moviestore.movieservice.movie.entities.MovieLike;
-import com.printezisn.moviestore.movieservice.movie.entities.MovieIndex;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent;
+import com.printezisn.moviestore.movieservice.movie.entities.MovieLikeEvent.Operation;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieConditionalException;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MovieNotFoundException;
 import com.printezisn.moviestore.movieservice.movie.exceptions.MoviePersistenceException;
-import com.printezisn.moviestore.movieservice.movie.helpers.MovieIndexHelper;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieCache;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieIndexQueue;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieLikeIndex;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieLikeSequencer;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCache;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCursor;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchCursorCodec;
+import com.printezisn.moviestore.movieservice.movie.helpers.MovieSearchSlice;
 import com.printezisn.moviestore.movieservice.movie.mappers.MovieMapper;
-import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeRepository;
+import com.printezisn.moviestore.movieservice.movie.models.RevisionedMovie;
+import com.printezisn.moviestore.movieservice.movie.repositories.MovieLikeEventRepository;
 import com.printezisn.moviestore.movieservice.movie.repositories.MovieRepository;
 import com.printezisn.moviestore.movieservice.movie.repositories.MovieIndexRepository;
 import com.printezisn.moviestore.movieservice.movie.services.MovieServiceImpl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 
@@ -58,19 +75,32 @@ public class MovieServiceImplTest {
     private MovieRepository movieRepository;
 
     @Mock
-    private MovieLikeRepository movieLikeRepository;
+    private MovieLikeIndex movieLikeIndex;
+
+    @Mock
+    private MovieLikeEventRepository movieLikeEventRepository;
 
     @Mock
     private MovieIndexRepository movieIndexRepository;
 
     @Mock
-    private MovieIndexHelper movieIndexHelper;
+    private MovieIndexQueue movieIndexQueue;
 
     @Mock
     private MovieMapper movieMapper;
 
     @Mock
-    private Page<MovieIndex> pagedResult;
+    private Page<MovieDto> pagedResult;
+
+    private final MovieSearchCursorCodec movieSearchCursorCodec = new MovieSearchCursorCodec();
+
+    private MovieSearchCache movieSearchCache;
+
+    @Mock
+    private MovieCache movieCache;
+
+    @Mock
+    private MovieLikeSequencer movieLikeSequencer;
 
     private MovieServiceImpl movieService;
 
@@ -81,8 +111,17 @@ public class MovieServiceImplTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        this.movieService = new MovieServiceImpl(movieRepository, movieLikeRepository,
-            movieIndexRepository, movieIndexHelper, movieMapper);
+        movieSearchCache = new MovieSearchCache(new SimpleMeterRegistry(), 100, 60000);
+        when(movieCache.get(anyString(), any())).thenAnswer(invocation -> invocation
+            .<Function<String, RevisionedMovie>> getArgument(1)
+            .apply(invocation.getArgument(0)));
+        when(movieCache.getAll(any(), any())).thenAnswer(invocation -> invocation
+            .<Function<List<String>, Map<String, RevisionedMovie>>> getArgument(1)
+            .apply(new ArrayList<>(invocation.getArgument(0))));
+
+        this.movieService = new MovieServiceImpl(movieRepository, movieLikeIndex, movieLikeEventRepository,
+            movieIndexRepository, movieIndexQueue, movieMapper, movieSearchCursorCodec, movieSearchCache,
+            movieCache, movieLikeSequencer);
     }
 
     /**
@@ -91,11 +130,9 @@ public class MovieServiceImplTest {
     @Test
     public void test_searchMovies_success() throws Exception {
         final MovieDto movieDto = new MovieDto();
-        final MovieIndex movieIndex = new MovieIndex();
-        final List<MovieIndex> contentList = Arrays.asList(movieIndex);
+        final List<MovieDto> contentList = Arrays.asList(movieDto);
         final ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
-        when(movieMapper.movieIndexToMovieDto(movieIndex)).thenReturn(movieDto);
         when(movieIndexRepository.search(eq(Optional.of(SEARCH_TEXT)), pageableCaptor.capture()))
             .thenReturn(pagedResult);
         when(pagedResult.getContent()).thenReturn(contentList);
@@ -122,11 +159,9 @@ public class MovieServiceImplTest {
     @Test
     public void test_searchMovies_defaultValue() throws Exception {
         final MovieDto movieDto = new MovieDto();
-        final MovieIndex movieIndex = new MovieIndex();
-        final List<MovieIndex> contentList = Arrays.asList(movieIndex);
+        final List<MovieDto> contentList = Arrays.asList(movieDto);
         final ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
-        when(movieMapper.movieIndexToMovieDto(movieIndex)).thenReturn(movieDto);
         when(movieIndexRepository.search(eq(Optional.empty()), pageableCaptor.capture()))
             .thenReturn(pagedResult);
         when(pagedResult.getContent()).thenReturn(contentList);
@@ -154,11 +189,9 @@ public class MovieServiceImplTest {
     @Test
     public void test_searchMovies_invalidSortField() throws Exception {
         final MovieDto movieDto = new MovieDto();
-        final MovieIndex movieIndex = new MovieIndex();
-        final List<MovieIndex> contentList = Arrays.asList(movieIndex);
+        final List<MovieDto> contentList = Arrays.asList(movieDto);
         final ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
-        when(movieMapper.movieIndexToMovieDto(movieIndex)).thenReturn(movieDto);
         when(movieIndexRepository.search(eq(Optional.of(SEARCH_TEXT)), pageableCaptor.capture()))
             .thenReturn(pagedResult);
         when(pagedResult.getContent()).thenReturn(contentList);
@@ -185,11 +218,9 @@ public class MovieServiceImplTest {
     @Test
     public void test_searchMovies_invalidPageNumber() throws Exception {
         final MovieDto movieDto = new MovieDto();
-        final MovieIndex movieIndex = new MovieIndex();
-        final List<MovieIndex> contentList = Arrays.asList(movieIndex);
+        final List<MovieDto> contentList = Arrays.asList(movieDto);
         final ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
-        when(movieMapper.movieIndexToMovieDto(movieIndex)).thenReturn(movieDto);
         when(movieIndexRepository.search(eq(Optional.of(SEARCH_TEXT)), pageableCaptor.capture()))
             .thenReturn(pagedResult);
         when(pagedResult.getContent()).thenReturn(contentList);
@@ -210,16 +241,34 @@ public class MovieServiceImplTest {
         assertEquals(movieDto, result.getEntries().get(0));
     }
 
+    /**
+     * Tests if repeated searches are served from the cache until the search index
+     * changes
+     */
+    @Test
+    public void test_searchMovies_cached() throws Exception {
+        when(movieIndexRepository.search(eq(Optional.of(SEARCH_TEXT)), any())).thenReturn(pagedResult);
+        when(pagedResult.getContent()).thenReturn(Collections.emptyList());
+
+        movieService.searchMovies(Optional.of(SEARCH_TEXT), Optional.of(PAGE_NUMBER), Optional.of(SORT_FIELD),
+            IS_ASCENDING);
+        movieService.searchMovies(Optional.of(SEARCH_TEXT.toUpperCase()), Optional.of(PAGE_NUMBER),
+            Optional.of(SORT_FIELD), IS_ASCENDING);
+        verify(movieIndexRepository).search(eq(Optional.of(SEARCH_TEXT)), any());
+
+        movieSearchCache.invalidate();
+        movieService.searchMovies(Optional.of(SEARCH_TEXT), Optional.of(PAGE_NUMBER), Optional.of(SORT_FIELD),
+            IS_ASCENDING);
+        verify(movieIndexRepository, times(2)).search(eq(Optional.of(SEARCH_TEXT)), any());
+    }
+
     /**
      * Tests the scenario in which the search operation throws a runtime exception
      */
     @Test(expected = MoviePersistenceException.class)
     public void test_searchMovies_exception() throws Exception {
-        final MovieDto movieDto = new MovieDto();
-        final MovieIndex movieIndex = new MovieIndex();
         final ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
-        when(movieMapper.movieIndexToMovieDto(movieIndex)).thenReturn(movieDto);
         when(movieIndexRepository.search(eq(Optional.of(SEARCH_TEXT)), pageableCaptor.capture()))
             .thenThrow(new RuntimeException());
 
@@ -227,6 +276,102 @@ public class MovieServiceImplTest {
             IS_ASCENDING);
     }
 
+    /**
+     * Tests if the first page is searched with a cursor
+     */
+    @Test
+    public void test_searchMovies_firstCursorPage() throws Exception {
+        final MovieDto movieDto = new MovieDto();
+        final MovieSearchCursor nextCursor = MovieSearchCursor.builder()
+            .sortField(SORT_FIELD)
+            .ascending(IS_ASCENDING)
+            .sortValues(Arrays.asList(3, "id"))
+            .build();
+        final ArgumentCaptor<MovieSearchCursor> cursorCaptor = ArgumentCaptor.forClass(MovieSearchCursor.class);
+
+        when(movieIndexRepository.searchAfter(eq(Optional.of(SEARCH_TEXT)), cursorCaptor.capture(), eq(10),
+            eq(false)))
+                .thenReturn(MovieSearchSlice.builder()
+                    .entries(Arrays.asList(movieDto))
+                    .nextCursor(nextCursor)
+                    .build());
+
+        final MoviePagedResultModel result = movieService.searchMovies(Optional.of(SEARCH_TEXT), "",
+            Optional.of(SORT_FIELD), IS_ASCENDING, false);
+
+        assertEquals(SORT_FIELD, cursorCaptor.getValue().getSortField());
+        assertEquals(IS_ASCENDING, cursorCaptor.getValue().isAscending());
+        assertNull(cursorCaptor.getValue().getSortValues());
+
+        assertEquals(Optional.of(nextCursor), movieSearchCursorCodec.decode(result.getNextCursor()));
+        assertNull(result.getPreviousCursor());
+        assertNull(result.getTotalEntries());
+        assertEquals(SORT_FIELD, result.getSortField());
+        assertEquals(IS_ASCENDING, result.isAscending());
+        assertEquals(Arrays.asList(movieDto), result.getEntries());
+    }
+
+    /**
+     * Tests if the sorting of the cursor is used when searching with a cursor
+     */
+    @Test
+    public void test_searchMovies_nextCursorPage() throws Exception {
+        final MovieSearchCursor cursor = MovieSearchCursor.builder()
+            .sortField(SORT_FIELD)
+            .ascending(false)
+            .sortValues(Arrays.asList(3, "id"))
+            .build();
+
+        when(movieIndexRepository.searchAfter(Optional.of(SEARCH_TEXT), cursor, 10, true))
+            .thenReturn(MovieSearchSlice.builder()
+                .entries(Collections.emptyList())
+                .totalEntries(25L)
+                .build());
+
+        final MoviePagedResultModel result = movieService.searchMovies(Optional.of(SEARCH_TEXT),
+            movieSearchCursorCodec.encode(cursor), Optional.of(DEFAULT_SORT_FIELD), true, true);
+
+        assertEquals(SORT_FIELD, result.getSortField());
+        assertFalse(result.isAscending());
+        assertEquals(Long.valueOf(25), result.getTotalEntries());
+        assertEquals(3, result.getTotalPages());
+        assertNull(result.getNextCursor());
+    }
+
+    /**
+     * Tests if a cursor with an unsupported sort field is ignored
+     */
+    @Test
+    public void test_searchMovies_invalidCursorSortField() throws Exception {
+        final MovieSearchCursor cursor = MovieSearchCursor.builder()
+            .sortField("wrong")
+            .sortValues(Arrays.asList(3, "id"))
+            .build();
+        final ArgumentCaptor<MovieSearchCursor> cursorCaptor = ArgumentCaptor.forClass(MovieSearchCursor.class);
+
+        when(movieIndexRepository.searchAfter(eq(Optional.of(SEARCH_TEXT)), cursorCaptor.capture(), eq(10),
+            eq(false)))
+                .thenReturn(MovieSearchSlice.builder().entries(Collections.emptyList()).build());
+
+        movieService.searchMovies(Optional.of(SEARCH_TEXT), movieSearchCursorCodec.encode(cursor),
+            Optional.empty(), IS_ASCENDING, false);
+
+        assertEquals(DEFAULT_SORT_FIELD, cursorCaptor.getValue().getSortField());
+        assertNull(cursorCaptor.getValue().getSortValues());
+    }
+
+    /**
+     * Tests the scenario in which the search with a cursor throws a runtime
+     * exception
+     */
+    @Test(expected = MoviePersistenceException.class)
+    public void test_searchMovies_cursorException() throws Exception {
+        when(movieIndexRepository.searchAfter(eq(Optional.of(SEARCH_TEXT)), any(), eq(10), eq(false)))
+            .thenThrow(new RuntimeException());
+
+        movieService.searchMovies(Optional.of(SEARCH_TEXT), "", Optional.of(SORT_FIELD), IS_ASCENDING, false);
+    }
+
     /**
      * Tests the scenario in which the movie is not found
      */
@@ -269,6 +414,102 @@ public class MovieServiceImplTest {
         assertEquals(movieDto, result);
     }
 
+    /**
+     * Tests if a movie is returned with its revision
+     */
+    @Test
+    public void test_getRevisionedMovie_found() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final Movie movie = new Movie();
+        movie.setRevision("rev1");
+        final MovieDto movieDto = new MovieDto();
+
+        when(movieRepository.findById(id.toString())).thenReturn(Optional.of(movie));
+        when(movieMapper.movieToMovieDto(movie)).thenReturn(movieDto);
+
+        final RevisionedMovie result = movieService.getRevisionedMovie(id);
+
+        assertEquals(movieDto, result.getMovie());
+        assertEquals("rev1", result.getRevision());
+        verify(movieCache).get(eq(id.toString()), any());
+    }
+
+    /**
+     * Tests if a movie isn't revalidated when the caller doesn't have its
+     * revision
+     */
+    @Test
+    public void test_getRevisionedMovie_unknownRevision() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final Movie movie = new Movie();
+        movie.setRevision("rev2");
+
+        when(movieRepository.findById(id.toString())).thenReturn(Optional.of(movie));
+
+        final RevisionedMovie result = movieService.getRevisionedMovie(id, Collections.singletonList("rev1"));
+
+        assertEquals("rev2", result.getRevision());
+        verify(movieRepository, never()).findRevision(anyString());
+    }
+
+    /**
+     * Tests if a cached movie whose revision the caller has is confirmed when the
+     * revision is still current
+     */
+    @Test
+    public void test_getRevisionedMovie_knownRevisionCurrent() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final Movie movie = new Movie();
+        movie.setRevision("rev1");
+
+        when(movieRepository.findById(id.toString())).thenReturn(Optional.of(movie));
+        when(movieRepository.findRevision(id.toString())).thenReturn(Optional.of("rev1"));
+
+        final RevisionedMovie result = movieService.getRevisionedMovie(id, Collections.singletonList("rev1"));
+
+        assertEquals("rev1", result.getRevision());
+        verify(movieCache, never()).evict(anyString());
+    }
+
+    /**
+     * Tests if a cached movie whose revision the caller has is loaded again when
+     * the movie has changed on another node
+     */
+    @Test
+    public void test_getRevisionedMovie_knownRevisionStale() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final Movie cachedMovie = new Movie();
+        cachedMovie.setRevision("rev1");
+        final Movie currentMovie = new Movie();
+        currentMovie.setRevision("rev2");
+
+        when(movieRepository.findById(id.toString())).thenReturn(Optional.of(cachedMovie))
+            .thenReturn(Optional.of(currentMovie));
+        when(movieRepository.findRevision(id.toString())).thenReturn(Optional.of("rev2"));
+
+        final RevisionedMovie result = movieService.getRevisionedMovie(id, Collections.singletonList("rev1"));
+
+        assertEquals("rev2", result.getRevision());
+        verify(movieCache).evict(id.toString());
+    }
+
+    /**
+     * Tests if a cached movie whose revision the caller has is not found when the
+     * movie has been deleted on another node
+     */
+    @Test(expected = MovieNotFoundException.class)
+    public void test_getRevisionedMovie_knownRevisionDeleted() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final Movie movie = new Movie();
+        movie.setRevision("rev1");
+
+        when(movieRepository.findById(id.toString())).thenReturn(Optional.of(movie))
+            .thenReturn(Optional.empty());
+        when(movieRepository.findRevision(id.toString())).thenReturn(Optional.empty());
+
+        movieService.getRevisionedMovie(id, Collections.singletonList("rev1"));
+    }
+
     /**
      * Tests the scenario in which the get operation throws a runtime exception
      */
@@ -288,13 +529,14 @@ public class MovieServiceImplTest {
     public void test_createMovie_success() throws Exception {
         final MovieDto movieDto = new MovieDto();
         final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
 
         when(movieMapper.movieDtoToMovie(movieDto)).thenReturn(movie);
 
         final MovieDto result = movieService.createMovie(movieDto);
 
         verify(movieRepository).save(movie);
-        verify(movieIndexHelper).indexMovie(movie);
+        verify(movieIndexQueue).enqueue(movie.getId());
 
         assertEquals(movieDto, result);
         assertNotNull(result.getCreationTimestamp());
@@ -305,9 +547,6 @@ public class MovieServiceImplTest {
         assertEquals(0, movie.getTotalLikes());
         assertTrue(movie.isUpdated());
         assertFalse(movie.isDeleted());
-        assertNotNull(movie.getPendingLikes());
-        assertEquals(0, movie.getPendingLikes().size());
-        assertNotNull(movie.getPendingUnlikes().size());
     }
 
     /**
@@ -364,9 +603,6 @@ public class MovieServiceImplTest {
         final String currentRevision = UUID.randomUUID().toString();
         final Movie movie = new Movie();
         movie.setRevision(currentRevision);
-        movie.setTotalLikes(2);
-        movie.setPendingLikes(Collections.singleton("account1"));
-        movie.setPendingUnlikes(Collections.singleton("account2"));
 
         final Movie updatedMovie = new Movie();
 
@@ -377,17 +613,11 @@ public class MovieServiceImplTest {
         final MovieDto result = movieService.updateMovie(movieDto);
 
         assertEquals(movieDto, result);
-        assertEquals(2, updatedMovie.getTotalLikes());
         assertTrue(updatedMovie.isUpdated());
-        assertFalse(updatedMovie.isDeleted());
-        assertNotNull(updatedMovie.getPendingLikes());
-        assertEquals(1, updatedMovie.getPendingLikes().size());
-        assertTrue(updatedMovie.getPendingLikes().contains("account1"));
-        assertNotNull(updatedMovie.getPendingUnlikes());
-        assertEquals(1, updatedMovie.getPendingUnlikes().size());
-        assertTrue(updatedMovie.getPendingUnlikes().contains("account2"));
+        assertNotEquals(currentRevision, updatedMovie.getRevision());
 
-        verify(movieIndexHelper).indexMovie(movie);
+        verify(movieCache).evict(updatedMovie.getId());
+        verify(movieIndexQueue).enqueue(updatedMovie.getId());
     }
 
     /**
@@ -444,7 +674,7 @@ public class MovieServiceImplTest {
 
         movieService.deleteMovie(id);
 
-        verify(movieRepository, never()).updateMovie(any(Movie.class), anyString());
+        verify(movieRepository, never()).markDeleted(anyString(), anyString(), anyString());
     }
 
     /**
@@ -460,7 +690,7 @@ public class MovieServiceImplTest {
 
         movieService.deleteMovie(id);
 
-        verify(movieRepository, never()).updateMovie(any(Movie.class), anyString());
+        verify(movieRepository, never()).markDeleted(anyString(), anyString(), anyString());
     }
 
     /**
@@ -472,17 +702,18 @@ public class MovieServiceImplTest {
         final String currentRevision = UUID.randomUUID().toString();
 
         final Movie movie = new Movie();
+        movie.setId(id.toString());
         movie.setRevision(currentRevision);
 
         when(movieRepository.findById(id.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(movie, currentRevision)).thenReturn(1L);
+        when(movieRepository.markDeleted(eq(id.toString()), eq(currentRevision), anyString())).thenReturn(1L);
 
         movieService.deleteMovie(id);
 
-        assertTrue(movie.isUpdated());
-        assertTrue(movie.isDeleted());
+        verify(movieRepository, never()).updateMovie(any(Movie.class), anyString());
 
-        verify(movieIndexHelper).indexMovie(movie);
+        verify(movieCache).evict(movie.getId());
+        verify(movieIndexQueue).enqueue(movie.getId());
     }
 
     /**
@@ -495,10 +726,11 @@ public class MovieServiceImplTest {
         final String currentRevision = UUID.randomUUID().toString();
 
         final Movie movie = new Movie();
+        movie.setId(id.toString());
         movie.setRevision(currentRevision);
 
         when(movieRepository.findById(id.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(movie, currentRevision)).thenReturn(0L);
+        when(movieRepository.markDeleted(eq(id.toString()), eq(currentRevision), anyString())).thenReturn(0L);
 
         movieService.deleteMovie(id);
     }
@@ -512,16 +744,17 @@ public class MovieServiceImplTest {
         final String currentRevision = UUID.randomUUID().toString();
 
         final Movie movie = new Movie();
+        movie.setId(id.toString());
         movie.setRevision(currentRevision);
 
         when(movieRepository.findById(id.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(movie, currentRevision)).thenThrow(new RuntimeException());
+        when(movieRepository.markDeleted(eq(id.toString()), eq(currentRevision), anyString())).thenThrow(new RuntimeException());
 
         movieService.deleteMovie(id);
     }
 
     /**
-     * Tests the scenario in which the movie is not found
+     * Tests the scenario in which the movie is not found or is deleted
      */
     @Test(expected = MovieNotFoundException.class)
     public void test_likeMovie_movieNotFound() throws Exception {
@@ -532,20 +765,6 @@ public class MovieServiceImplTest {
         movieService.likeMovie(movieId, "test_account");
     }
 
-    /**
-     * Tests the scenario in which the movie is deleted
-     */
-    @Test(expected = MovieNotFoundException.class)
-    public void test_likeMovie_deleted() throws Exception {
-        final UUID movieId = UUID.randomUUID();
-        final Movie movie = new Movie();
-        movie.setDeleted(true);
-
-        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
-
-        movieService.likeMovie(movieId, "test_account");
-    }
-
     /**
      * Tests if the movie is liked successfully
      */
@@ -554,44 +773,47 @@ public class MovieServiceImplTest {
         final UUID movieId = UUID.randomUUID();
         final String account = "test_account";
 
-        final String currentRevision = UUID.randomUUID().toString();
-        final Movie movie = new Movie();
-        movie.setRevision(currentRevision);
-        movie.setPendingLikes(new HashSet<>());
-        movie.setPendingUnlikes(new HashSet<>(Arrays.asList(account)));
+        mockMovie(movieId);
+        when(movieLikeSequencer.next()).thenReturn(7L);
+        when(movieLikeIndex.getLikes(movieId.toString())).thenReturn(4L);
+        when(movieLikeIndex.hasLiked(movieId.toString(), account)).thenReturn(false);
 
-        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(movie, currentRevision)).thenReturn(1L);
+        final LikeStatus result = movieService.likeMovie(movieId, account);
 
-        movieService.likeMovie(movieId, account);
+        assertEquals(5, result.getTotalLikes());
+        assertTrue(result.isHasLiked());
 
-        assertEquals(1, movie.getPendingLikes().size());
-        assertTrue(movie.getPendingLikes().contains(account));
-        assertEquals(0, movie.getPendingUnlikes().size());
+        final ArgumentCaptor<MovieLikeEvent> eventCaptor = ArgumentCaptor.forClass(MovieLikeEvent.class);
+        verify(movieLikeEventRepository).insert(eventCaptor.capture());
+        assertEquals(movieId.toString(), eventCaptor.getValue().getMovieId());
+        assertEquals(account, eventCaptor.getValue().getAccount());
+        assertEquals(Operation.LIKE, eventCaptor.getValue().getOp());
+        assertEquals(7L, eventCaptor.getValue().getSeq());
 
-        verify(movieIndexHelper).indexMovie(movie);
+        verify(movieLikeEventRepository).insert(any(MovieLikeEvent.class));
+        verify(movieRepository, never()).updateMovie(any(Movie.class), anyString());
+        verify(movieCache, never()).evict(anyString());
+        verify(movieIndexQueue).enqueue(movieId.toString());
     }
 
     /**
-     * Tests the scenario in which the like operation throws a conditional exception
+     * Tests the scenario in which the like index already has the like of the
+     * account
      */
-    @Test(expected = MovieConditionalException.class)
-    public void test_likeMovie_conditionalException() throws Exception {
+    @Test
+    public void test_likeMovie_alreadyLiked() throws Exception {
         final UUID movieId = UUID.randomUUID();
         final String account = "test_account";
 
-        final String currentRevision = UUID.randomUUID().toString();
-        final Movie movie = new Movie();
-        movie.setRevision(currentRevision);
-        movie.setPendingLikes(new HashSet<>());
-        movie.setPendingUnlikes(new HashSet<>());
-
-        final Movie updatedMovie = new Movie();
+        mockMovie(movieId);
+        when(movieLikeSequencer.next()).thenReturn(7L);
+        when(movieLikeIndex.getLikes(movieId.toString())).thenReturn(4L);
+        when(movieLikeIndex.hasLiked(movieId.toString(), account)).thenReturn(true);
 
-        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(updatedMovie, currentRevision)).thenReturn(0L);
+        final LikeStatus result = movieService.likeMovie(movieId, account);
 
-        movieService.likeMovie(movieId, account);
+        assertEquals(4, result.getTotalLikes());
+        assertTrue(result.isHasLiked());
     }
 
     /**
@@ -602,18 +824,13 @@ public class MovieServiceImplTest {
         final UUID movieId = UUID.randomUUID();
         final String account = "test_account";
 
-        final String currentRevision = UUID.randomUUID().toString();
-        final Movie movie = new Movie();
-        movie.setRevision(currentRevision);
-
-        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(movie, currentRevision)).thenThrow(new RuntimeException());
+        when(movieRepository.findById(movieId.toString())).thenThrow(new RuntimeException());
 
         movieService.likeMovie(movieId, account);
     }
 
     /**
-     * Tests the scenario in which the movie is not found
+     * Tests the scenario in which the movie is not found or is deleted
      */
     @Test(expected = MovieNotFoundException.class)
     public void test_unlikeMovie_movieNotFound() throws Exception {
@@ -624,20 +841,6 @@ public class MovieServiceImplTest {
         movieService.unlikeMovie(movieId, "test_account");
     }
 
-    /**
-     * Tests the scenario in which the movie is deleted
-     */
-    @Test(expected = MovieNotFoundException.class)
-    public void test_unlikeMovie_deleted() throws Exception {
-        final UUID movieId = UUID.randomUUID();
-        final Movie movie = new Movie();
-        movie.setDeleted(true);
-
-        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
-
-        movieService.unlikeMovie(movieId, "test_account");
-    }
-
     /**
      * Tests if the movie is unliked successfully
      */
@@ -646,127 +849,148 @@ public class MovieServiceImplTest {
         final UUID movieId = UUID.randomUUID();
         final String account = "test_account";
 
-        final String currentRevision = UUID.randomUUID().toString();
-        final Movie movie = new Movie();
-        movie.setRevision(currentRevision);
-        movie.setPendingLikes(new HashSet<>(Arrays.asList(account)));
-        movie.setPendingUnlikes(new HashSet<>());
+        mockMovie(movieId);
+        when(movieLikeSequencer.next()).thenReturn(7L);
+        when(movieLikeIndex.getLikes(movieId.toString())).thenReturn(4L);
+        when(movieLikeIndex.hasLiked(movieId.toString(), account)).thenReturn(true);
 
-        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(movie, currentRevision)).thenReturn(1L);
+        final LikeStatus result = movieService.unlikeMovie(movieId, account);
 
-        movieService.unlikeMovie(movieId, account);
+        assertEquals(3, result.getTotalLikes());
+        assertFalse(result.isHasLiked());
 
-        assertEquals(0, movie.getPendingLikes().size());
-        assertEquals(1, movie.getPendingUnlikes().size());
-        assertTrue(movie.getPendingUnlikes().contains(account));
+        final ArgumentCaptor<MovieLikeEvent> eventCaptor = ArgumentCaptor.forClass(MovieLikeEvent.class);
+        verify(movieLikeEventRepository).insert(eventCaptor.capture());
+        assertEquals(movieId.toString(), eventCaptor.getValue().getMovieId());
+        assertEquals(account, eventCaptor.getValue().getAccount());
+        assertEquals(Operation.UNLIKE, eventCaptor.getValue().getOp());
+        assertEquals(7L, eventCaptor.getValue().getSeq());
 
-        verify(movieIndexHelper).indexMovie(movie);
+        verify(movieLikeEventRepository).insert(any(MovieLikeEvent.class));
+        verify(movieRepository, never()).updateMovie(any(Movie.class), anyString());
+        verify(movieCache, never()).evict(anyString());
+        verify(movieIndexQueue).enqueue(movieId.toString());
     }
 
     /**
-     * Tests the scenario in which the unlike operation throws a conditional
-     * exception
+     * Tests the scenario in which the unlike operation throws a runtime exception
      */
-    @Test(expected = MovieConditionalException.class)
-    public void test_unlikeMovie_conditionalException() throws Exception {
+    @Test(expected = MoviePersistenceException.class)
+    public void test_unlikeMovie_exception() throws Exception {
         final UUID movieId = UUID.randomUUID();
         final String account = "test_account";
 
-        final String currentRevision = UUID.randomUUID().toString();
-        final Movie movie = new Movie();
-        movie.setRevision(currentRevision);
-        movie.setPendingLikes(new HashSet<>());
-        movie.setPendingUnlikes(new HashSet<>());
-
-        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(movie, currentRevision)).thenReturn(0L);
+        when(movieRepository.findById(movieId.toString())).thenThrow(new RuntimeException());
 
         movieService.unlikeMovie(movieId, account);
     }
 
     /**
-     * Tests the scenario in which the unlike operation throws a runtime exception
+     * Tests the scenario in which the account has not liked the movie
      */
-    @Test(expected = MoviePersistenceException.class)
-    public void test_unlikeMovie_exception() throws Exception {
+    @Test
+    public void test_hasLiked_notLiked() {
         final UUID movieId = UUID.randomUUID();
         final String account = "test_account";
 
-        final String currentRevision = UUID.randomUUID().toString();
-        final Movie movie = new Movie();
-        movie.setRevision(currentRevision);
+        when(movieLikeIndex.hasLiked(movieId.toString(), account)).thenReturn(false);
 
-        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
-        when(movieRepository.updateMovie(movie, currentRevision)).thenThrow(new RuntimeException());
+        final boolean result = movieService.hasLiked(movieId, account);
 
-        movieService.unlikeMovie(movieId, account);
+        assertFalse(result);
     }
 
     /**
-     * Tests the scenario in which the search index is updated successfully
+     * Tests the scenario in which the account has liked the movie
      */
     @Test
-    public void test_updateSearchIndex_success() {
-        final Movie movie = new Movie();
+    public void test_hasLiked_liked() {
+        final UUID movieId = UUID.randomUUID();
+        final String account = "test_account";
 
-        when(movieRepository.findByUpdated(true)).thenReturn(Arrays.asList(movie));
+        when(movieLikeIndex.hasLiked(movieId.toString(), account)).thenReturn(true);
 
-        movieService.updateSearchIndex();
+        final boolean result = movieService.hasLiked(movieId, account);
 
-        verify(movieIndexHelper).indexMovie(movie);
+        assertTrue(result);
     }
 
     /**
-     * Tests the scenario in which an exception is thrown while loading movies
+     * Tests if the like status is returned for the movies that exist
      */
     @Test
-    public void test_updateSearchIndex_loadException() {
-        when(movieRepository.findByUpdated(true)).thenThrow(new RuntimeException());
+    public void test_getLikeStatuses() {
+        final Movie movie = createMovie();
+        final Movie deletedMovie = createMovie();
+        deletedMovie.setDeleted(true);
+        final MovieDto movieDto = new MovieDto();
+        movieDto.setTotalLikes(3);
+        final UUID movieId = UUID.fromString(movie.getId());
+        final List<UUID> movieIds = Arrays.asList(movieId, UUID.fromString(deletedMovie.getId()),
+            UUID.randomUUID());
+        final String account = "test_account";
 
-        movieService.updateSearchIndex();
+        when(movieRepository.findAllById(movieIds.stream().map(UUID::toString).collect(Collectors.toList())))
+            .thenReturn(Arrays.asList(movie, deletedMovie));
+        when(movieMapper.movieToMovieDto(movie)).thenReturn(movieDto);
+        when(movieLikeIndex.getLikes(movie.getId())).thenReturn(5L);
+        when(movieLikeIndex.hasLiked(movie.getId(), account)).thenReturn(true);
+
+        final Map<UUID, LikeStatus> result = movieService.getLikeStatuses(movieIds, account);
+
+        assertEquals(Collections.singletonMap(movieId, new LikeStatus(5, true)), result);
     }
 
     /**
-     * Tests the scenario in which the account has not liked the movie
+     * Tests if likes aren't checked when there is no account
      */
     @Test
-    public void test_hasLiked_notLiked() {
-        final UUID movieId = UUID.randomUUID();
-        final String account = "test_account";
+    public void test_getLikeStatuses_noAccount() {
+        final Movie movie = createMovie();
+        final UUID movieId = UUID.fromString(movie.getId());
 
-        when(movieLikeRepository.findById(movieId + "-" + account)).thenReturn(Optional.empty());
+        when(movieRepository.findAllById(Arrays.asList(movie.getId()))).thenReturn(Arrays.asList(movie));
+        when(movieMapper.movieToMovieDto(movie)).thenReturn(new MovieDto());
 
-        final boolean result = movieService.hasLiked(movieId, account);
+        final Map<UUID, LikeStatus> result = movieService.getLikeStatuses(Arrays.asList(movieId), null);
 
-        assertFalse(result);
+        assertFalse(result.get(movieId).isHasLiked());
+        verify(movieLikeIndex, never()).hasLiked(anyString(), anyString());
     }
 
     /**
-     * Tests the scenario in which the account has liked the movie
+     * Tests the scenario in which the operation throws an exception
      */
-    @Test
-    public void test_hasLiked_liked() {
-        final UUID movieId = UUID.randomUUID();
-        final String account = "test_account";
+    @Test(expected = MoviePersistenceException.class)
+    public void test_getLikeStatuses_exception() {
+        when(movieRepository.findAllById(any())).thenThrow(new RuntimeException());
 
-        when(movieLikeRepository.findById(movieId + "-" + account)).thenReturn(Optional.of(new MovieLike()));
+        movieService.getLikeStatuses(Arrays.asList(UUID.randomUUID()), "test_account");
+    }
 
-        final boolean result = movieService.hasLiked(movieId, account);
+    /**
+     * Creates a movie with a random id
+     * 
+     * @return The movie
+     */
+    private Movie createMovie() {
+        final Movie movie = new Movie();
+        movie.setId(UUID.randomUUID().toString());
+        movie.setRevision(UUID.randomUUID().toString());
 
-        assertTrue(result);
+        return movie;
     }
 
     /**
-     * Tests the scenario in which the operation throws an exception
+     * Mocks a movie that exists in the database
+     * 
+     * @param movieId
+     *            The id of the movie
      */
-    @Test(expected = MoviePersistenceException.class)
-    public void test_hasLiked_exception() {
-        final UUID movieId = UUID.randomUUID();
-        final String account = "test_account";
-
-        when(movieLikeRepository.findById(movieId + "-" + account)).thenThrow(new RuntimeException());
+    private void mockMovie(final UUID movieId) {
+        final Movie movie = createMovie();
+        movie.setId(movieId.toString());
 
-        movieService.hasLiked(movieId, account);
+        when(movieRepository.findById(movieId.toString())).thenReturn(Optional.of(movie));
     }
 }
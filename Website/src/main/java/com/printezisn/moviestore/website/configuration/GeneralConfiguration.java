@@ -2,7 +2,16 @@ package com.printezisn.moviestore.website.configuration;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,8 +21,19 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.resource.EncodedResourceResolver;
 import org.springframework.web.servlet.resource.PathResourceResolver;
 
+import com.printezisn.moviestore.common.AsyncRetryHandler;
+import com.printezisn.moviestore.common.RetryBudget;
 import com.printezisn.moviestore.website.Constants.PageConstants;
+import com.printezisn.moviestore.website.configuration.properties.BulkheadProperties;
+import com.printezisn.moviestore.website.configuration.properties.CircuitBreakerProperties;
+import com.printezisn.moviestore.website.configuration.properties.HttpClientProperties;
+import com.printezisn.moviestore.website.configuration.properties.RetryProperties;
+import com.printezisn.moviestore.website.configuration.rest.AbortableRequestFactory;
 import com.printezisn.moviestore.website.configuration.rest.DefaultResponseErrorHandler;
+import com.printezisn.moviestore.website.configuration.rest.InstrumentedConnectionManager;
+import com.printezisn.moviestore.website.configuration.rest.ResilienceInterceptor;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * General bean configuration class
@@ -29,12 +49,104 @@ public class GeneralConfiguration implements WebMvcConfigurer {
      * 
      * @param restTemplateBuilder
      *            The RestTemplate builder
+     * @param httpClient
+     *            The HTTP client used to call the services
+     * @param circuitBreakerProperties
+     *            The settings of the circuit breakers of the services
+     * @param bulkheadProperties
+     *            The settings of the bulkheads of the service endpoints
+     * @param meterRegistry
+     *            The registry of the circuit breaker and bulkhead metrics
      * @return The RestTemplate bean
      */
     @Bean
-    public RestTemplate restTemplate(final RestTemplateBuilder restTemplateBuilder) {
+    public RestTemplate restTemplate(final RestTemplateBuilder restTemplateBuilder,
+        final CloseableHttpClient httpClient, final CircuitBreakerProperties circuitBreakerProperties,
+        final BulkheadProperties bulkheadProperties, final MeterRegistry meterRegistry) {
+
         return restTemplateBuilder
+            .requestFactory(() -> new AbortableRequestFactory(httpClient))
             .errorHandler(new DefaultResponseErrorHandler())
+            .additionalInterceptors(
+                new ResilienceInterceptor(circuitBreakerProperties, bulkheadProperties, meterRegistry))
+            .build();
+    }
+
+    /**
+     * Creates the HTTP client used to call the services. Connections are pooled
+     * and kept alive, and idle connections are evicted in the background. The
+     * read timeout never exceeds the timeout of a service call, so that a call
+     * that has already failed doesn't keep holding a thread of the service call
+     * pool.
+     * 
+     * @param httpClientProperties
+     *            The settings of the HTTP client
+     * @param callTimeout
+     *            The time in milliseconds after which a service call fails
+     * @param meterRegistry
+     *            The registry of the connection pool metrics
+     * @return The HTTP client bean
+     */
+    @Bean
+    public CloseableHttpClient httpClient(final HttpClientProperties httpClientProperties,
+        @Value("${serviceCalls.timeout}") final int callTimeout, final MeterRegistry meterRegistry) {
+
+        final int readTimeout = Math.min(httpClientProperties.getReadTimeout(), callTimeout);
+
+        final InstrumentedConnectionManager connectionManager = new InstrumentedConnectionManager(meterRegistry);
+        connectionManager.setMaxTotal(httpClientProperties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(httpClientProperties.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(httpClientProperties.getValidateAfterInactivity());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+            .setSoKeepAlive(true)
+            .setTcpNoDelay(true)
+            .setSoTimeout(readTimeout)
+            .build());
+
+        // Connections are kept alive for as long as the service allows, but never
+        // longer than the configured duration
+        final ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response,
+                context);
+
+            return (keepAlive > 0)
+                ? Math.min(keepAlive, httpClientProperties.getKeepAlive())
+                : httpClientProperties.getKeepAlive();
+        };
+
+        return HttpClientBuilder.create()
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy(keepAliveStrategy)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectTimeout(httpClientProperties.getConnectTimeout())
+                .setConnectionRequestTimeout(httpClientProperties.getConnectionRequestTimeout())
+                .setSocketTimeout(readTimeout)
+                .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(httpClientProperties.getIdleTimeout(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * Creates the retry handler of the calls to the movie service. Retries are
+     * scheduled on the shared retry timer and are limited by a retry budget of
+     * their own, so that conflicts on the movie service don't use up the retries
+     * of other clients.
+     * 
+     * @param retryProperties
+     *            The settings of the retries
+     * @return The retry handler bean
+     */
+    @Bean
+    public AsyncRetryHandler movieServiceRetryHandler(final RetryProperties retryProperties) {
+        return AsyncRetryHandler.builder()
+            .maxRetries(retryProperties.getMaxRetries())
+            .delay(retryProperties.getDelay())
+            .useExponentialBackOff(true)
+            .jitter(retryProperties.getJitter())
+            .deadline(retryProperties.getDeadline())
+            .retryBudget(new RetryBudget(retryProperties.getBudgetPercentage(),
+                retryProperties.getBudgetMinRetries(), retryProperties.getBudgetWindow()))
             .build();
     }
 
@@ -0,0 +1,281 @@
+package com.printezisn.moviestore.website.configuration.async;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.printezisn.moviestore.common.RetryBudget;
+import com.printezisn.moviestore.website.configuration.properties.HedgingProperties;
+import com.printezisn.moviestore.website.configuration.rest.RequestAbortHandle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Issues idempotent reads with hedging. A read is sent to the primary instance
+ * of a service, and if it hasn't completed by the 95th percentile of the
+ * latency of its operation, a second request is sent to another instance. The
+ * first successful reply is returned and the request that lost is aborted,
+ * which closes its connection. Hedged requests are limited to a percentage of
+ * the reads. Both requests of a hedged read run on a pool of their own, so that
+ * slow reads don't take threads from the other service calls. If that pool is
+ * full, the read is sent on the calling thread without hedging.
+ */
+@Component
+public class HedgedCallExecutor {
+
+    private static final double HEDGE_PERCENTILE = 95;
+    private static final int LATENCY_SAMPLES = 200;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final String METRIC_PREFIX = "service.hedging";
+
+    private final ServiceCallExecutor hedgingExecutor;
+    private final HedgingProperties hedgingProperties;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget hedgeBudget;
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final AtomicInteger nextInstance = new AtomicInteger();
+
+    /**
+     * A read from a service instance
+     */
+    @FunctionalInterface
+    public interface HedgedCall<T> {
+
+        /**
+         * Reads from a service instance
+         * 
+         * @param serviceUrl
+         *            The base URL of the instance
+         * @return The result of the read
+         * @throws Exception
+         *             Exception thrown by the read
+         */
+        T call(final String serviceUrl) throws Exception;
+    }
+
+    /**
+     * The constructor
+     * 
+     * @param hedgingProperties
+     *            The settings of the hedged reads
+     * @param meterRegistry
+     *            The registry of the hedging metrics
+     * @param timeout
+     *            The time in milliseconds after which a request fails
+     */
+    public HedgedCallExecutor(final HedgingProperties hedgingProperties, final MeterRegistry meterRegistry,
+        @Value("${serviceCalls.timeout}") final long timeout) {
+
+        this.hedgingExecutor = new ServiceCallExecutor(hedgingProperties.getPoolSize(),
+            hedgingProperties.getQueueCapacity(), timeout);
+        this.hedgingProperties = hedgingProperties;
+        this.meterRegistry = meterRegistry;
+        this.hedgeBudget = new RetryBudget(hedgingProperties.getMaxPercentage(), 0, hedgingProperties.getWindow());
+    }
+
+    /**
+     * Issues a read, hedging it if it is slow
+     * 
+     * @param operation
+     *            The name of the operation, whose latencies decide when to hedge
+     * @param primaryUrl
+     *            The base URL of the primary instance
+     * @param hedgeUrls
+     *            The base URLs of the instances that receive hedged requests
+     * @param call
+     *            The read
+     * @return The result of the read
+     * @throws Exception
+     *             Exception thrown by the read
+     */
+    public <T> T call(final String operation, final String primaryUrl, final List<String> hedgeUrls,
+        final HedgedCall<T> call) throws Exception {
+
+        if (!hedgingProperties.isEnabled() || hedgeUrls.isEmpty()) {
+            return call.call(primaryUrl);
+        }
+
+        final LatencyWindow latencyWindow = latencies.computeIfAbsent(operation,
+            key -> new LatencyWindow(LATENCY_SAMPLES, MIN_LATENCY_SAMPLES));
+        hedgeBudget.recordRequest();
+
+        final RequestAbortHandle primaryHandle = new RequestAbortHandle();
+        final CompletableFuture<T> primary = submit(call, primaryUrl, latencyWindow, primaryHandle);
+        if (isRejected(primary)) {
+            return call.call(primaryUrl);
+        }
+
+        final RequestAbortHandle hedgeHandle = new RequestAbortHandle();
+        CompletableFuture<T> hedge = null;
+        try {
+            final long percentileLatency = latencyWindow.getPercentile(HEDGE_PERCENTILE);
+            if (percentileLatency < 0) {
+                return hedgingExecutor.await(primary);
+            }
+
+            try {
+                return primary.get(Math.max(percentileLatency, hedgingProperties.getMinDelay()),
+                    TimeUnit.MILLISECONDS);
+            }
+            catch (final ExecutionException ex) {
+                return hedgingExecutor.await(primary);
+            }
+            catch (final TimeoutException ex) {
+                // The read is slower than usual, so it is hedged if the budget allows it
+            }
+
+            if (!hedgeBudget.tryAcquire()) {
+                return hedgingExecutor.await(primary);
+            }
+
+            hedge = submit(call, getHedgeUrl(primaryUrl, hedgeUrls), latencyWindow, hedgeHandle);
+            if (isRejected(hedge)) {
+                return hedgingExecutor.await(primary);
+            }
+
+            meterRegistry.counter(METRIC_PREFIX + ".hedged", "operation", operation).increment();
+            hedge.thenRun(() -> {
+                if (!primary.isDone()) {
+                    meterRegistry.counter(METRIC_PREFIX + ".won", "operation", operation).increment();
+                }
+            });
+
+            return hedgingExecutor.await(firstSuccessful(primary, hedge));
+        }
+        finally {
+            // A request that lost or timed out is no longer needed. Cancelling its
+            // future doesn't stop it, so it is aborted to free its thread and its
+            // connection.
+            abortUnlessSucceeded(primary, primaryHandle);
+            if (hedge != null) {
+                abortUnlessSucceeded(hedge, hedgeHandle);
+            }
+        }
+    }
+
+    /**
+     * Stops the pool of the hedged reads
+     */
+    @PreDestroy
+    public void shutdown() {
+        hedgingExecutor.shutdown();
+    }
+
+    /**
+     * Submits a read to an instance and records its latency if it succeeds
+     * 
+     * @param call
+     *            The read
+     * @param serviceUrl
+     *            The base URL of the instance
+     * @param latencyWindow
+     *            The latencies of the operation
+     * @param abortHandle
+     *            The handle that aborts the requests of the read
+     * @return The future of the read
+     */
+    private <T> CompletableFuture<T> submit(final HedgedCall<T> call, final String serviceUrl,
+        final LatencyWindow latencyWindow, final RequestAbortHandle abortHandle) {
+
+        return hedgingExecutor.submit(() -> abortHandle.run(() -> {
+            final long start = System.nanoTime();
+            final T result = call.call(serviceUrl);
+            latencyWindow.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            return result;
+        }));
+    }
+
+    /**
+     * Returns the instance that receives a hedged request, which is the next one
+     * that isn't the primary instance
+     * 
+     * @param primaryUrl
+     *            The base URL of the primary instance
+     * @param hedgeUrls
+     *            The base URLs of the instances that receive hedged requests
+     * @return The base URL of the instance
+     */
+    private String getHedgeUrl(final String primaryUrl, final List<String> hedgeUrls) {
+        for (int i = 0; i < hedgeUrls.size(); i++) {
+            final String hedgeUrl = hedgeUrls.get(Math.floorMod(nextInstance.getAndIncrement(), hedgeUrls.size()));
+            if (!hedgeUrl.equals(primaryUrl)) {
+                return hedgeUrl;
+            }
+        }
+
+        return primaryUrl;
+    }
+
+    /**
+     * Checks if a read was rejected because the pool of the hedged reads is full
+     * 
+     * @param future
+     *            The future of the read
+     * @return True if the read was rejected, otherwise false
+     */
+    private static boolean isRejected(final CompletableFuture<?> future) {
+        return future.isCompletedExceptionally()
+            && future.handle((result, ex) -> ex instanceof RejectedExecutionException).join();
+    }
+
+    /**
+     * Aborts the requests of a read, unless the read has succeeded
+     * 
+     * @param future
+     *            The future of the read
+     * @param abortHandle
+     *            The handle that aborts the requests of the read
+     */
+    private static void abortUnlessSucceeded(final CompletableFuture<?> future,
+        final RequestAbortHandle abortHandle) {
+
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            abortHandle.abort();
+        }
+    }
+
+    /**
+     * Returns a future that completes with the first successful result of two
+     * futures, or exceptionally if both of them fail
+     * 
+     * @param first
+     *            The first future
+     * @param second
+     *            The second future
+     * @return The combined future
+     */
+    private static <T> CompletableFuture<T> firstSuccessful(final CompletableFuture<T> first,
+        final CompletableFuture<T> second) {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+
+        for (final CompletableFuture<T> future : List.of(first, second)) {
+            future.whenComplete((value, ex) -> {
+                if (ex == null) {
+                    result.complete(value);
+                }
+                else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(
+                        (ex instanceof CompletionException) ? ex : new CompletionException(ex));
+                }
+            });
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.printezisn.moviestore.website.configuration.async;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the latest calls of an operation and computes their
+ * percentiles
+ */
+public class LatencyWindow {
+
+    private final long[] latencies;
+    private final int minSamples;
+    private int nextSample;
+    private int totalSamples;
+
+    /**
+     * The constructor
+     * 
+     * @param size
+     *            The number of latest calls that are kept
+     * @param minSamples
+     *            The number of calls needed before percentiles are computed
+     */
+    public LatencyWindow(final int size, final int minSamples) {
+        this.latencies = new long[size];
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Records the latency of a call
+     * 
+     * @param latency
+     *            The latency in milliseconds
+     */
+    public synchronized void record(final long latency) {
+        latencies[nextSample] = latency;
+        nextSample = (nextSample + 1) % latencies.length;
+        totalSamples = Math.min(totalSamples + 1, latencies.length);
+    }
+
+    /**
+     * Returns a percentile of the recorded latencies
+     * 
+     * @param percentile
+     *            The percentile, between 0 and 100
+     * @return The latency in milliseconds, or -1 if there aren't enough samples
+     */
+    public long getPercentile(final double percentile) {
+        final long[] samples;
+        synchronized (this) {
+            if (totalSamples < minSamples) {
+                return -1;
+            }
+
+            samples = Arrays.copyOf(latencies, totalSamples);
+        }
+
+        Arrays.sort(samples);
+        final int index = (int) Math.ceil(samples.length * percentile / 100) - 1;
+
+        return samples[Math.max(index, 0)];
+    }
+}
@@ -0,0 +1,149 @@
+package com.printezisn.moviestore.website.configuration.async;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded pool that issues independent calls to the backend services
+ * concurrently. Each call runs with the locale and the security context of the
+ * thread that submitted it and fails if it doesn't complete within the call
+ * timeout. If the pool is full, the call fails immediately instead of running
+ * on the submitting thread, which may be a shared timer that schedules retries.
+ */
+@Component
+public class ServiceCallExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeout;
+
+    /**
+     * The constructor
+     * 
+     * @param poolSize
+     *            The number of threads that issue calls
+     * @param queueCapacity
+     *            The maximum number of calls waiting for a thread
+     * @param timeout
+     *            The time in milliseconds after which a call fails
+     */
+    public ServiceCallExecutor(@Value("${serviceCalls.poolSize}") final int poolSize,
+        @Value("${serviceCalls.queueCapacity}") final int queueCapacity,
+        @Value("${serviceCalls.timeout}") final long timeout) {
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                final Thread thread = new Thread(runnable, "service-call-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.timeout = timeout;
+    }
+
+    /**
+     * Submits a call
+     * 
+     * @param call
+     *            The call
+     * @return A future that completes with the result of the call, or
+     *         exceptionally if the call fails, times out or is rejected because
+     *         the pool is full
+     */
+    public <T> CompletableFuture<T> submit(final Callable<T> call) {
+        final LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+
+        try {
+            return CompletableFuture
+                .supplyAsync(() -> call(call, localeContext, securityContext), executor)
+                .orTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (final RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Waits for a submitted call to complete
+     * 
+     * @param future
+     *            The future of the call
+     * @return The result of the call
+     * @throws Exception
+     *             The exception thrown by the call, or a TimeoutException if the
+     *             call timed out
+     */
+    public <T> T await(final CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        }
+        catch (final CompletionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Stops the pool
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs a call with the given locale and security context, and restores the
+     * previous ones of the thread afterwards
+     * 
+     * @param call
+     *            The call
+     * @param localeContext
+     *            The locale context
+     * @param securityContext
+     *            The security context
+     * @return The result of the call
+     */
+    private static <T> T call(final Callable<T> call, final LocaleContext localeContext,
+        final SecurityContext securityContext) {
+
+        final LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+        final SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+
+        LocaleContextHolder.setLocaleContext(localeContext);
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            return call.call();
+        }
+        catch (final RuntimeException ex) {
+            throw ex;
+        }
+        catch (final Exception ex) {
+            throw new CompletionException(ex);
+        }
+        finally {
+            LocaleContextHolder.setLocaleContext(previousLocaleContext);
+            SecurityContextHolder.setContext(previousSecurityContext);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.printezisn.moviestore.website.configuration.async;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces identical reads that are in flight at the same time. The first read
+ * of a key calls the service and the reads of the same key that arrive before
+ * it completes wait for it and share its result or its exception.
+ */
+@Component
+public class SingleFlightExecutor {
+
+    private static final String METRIC_PREFIX = "service.singleflight";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The constructor
+     * 
+     * @param meterRegistry
+     *            The registry of the coalescing metrics
+     */
+    public SingleFlightExecutor(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs a read, or waits for the identical read that is in flight
+     * 
+     * @param operation
+     *            The name of the operation
+     * @param key
+     *            The key that identifies identical reads of the operation,
+     *            including anything that changes the result such as the language
+     * @param call
+     *            The read
+     * @return The result of the read
+     * @throws Exception
+     *             Exception thrown by the read
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T run(final String operation, final String key, final Callable<T> call) throws Exception {
+        final String flightKey = operation + ":" + key;
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final CompletableFuture<Object> existingFlight = inFlight.putIfAbsent(flightKey, flight);
+
+        if (existingFlight != null) {
+            meterRegistry.counter(METRIC_PREFIX + ".coalesced", "operation", operation).increment();
+            try {
+                return (T) existingFlight.join();
+            }
+            catch (final CompletionException ex) {
+                if (ex.getCause() instanceof Exception) {
+                    throw (Exception) ex.getCause();
+                }
+
+                throw ex;
+            }
+        }
+
+        meterRegistry.counter(METRIC_PREFIX + ".originated", "operation", operation).increment();
+        try {
+            final T result = call.call();
+            flight.complete(result);
+
+            return result;
+        }
+        catch (final Exception ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            inFlight.remove(flightKey, flight);
+            if (!flight.isDone()) {
+                flight.completeExceptionally(new IllegalStateException("The read ended without a result"));
+            }
+        }
+    }
+}
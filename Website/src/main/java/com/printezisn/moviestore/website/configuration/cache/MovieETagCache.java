@@ -0,0 +1,83 @@
+package com.printezisn.moviestore.website.configuration.cache;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.website.configuration.properties.MovieCacheProperties;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bounded cache of movies together with their ETag, so that a cached movie can
+ * be revalidated with the movie service instead of being sent again
+ */
+@Component
+public class MovieETagCache {
+
+    private final Cache<UUID, CachedMovie> cache;
+
+    /**
+     * The constructor
+     * 
+     * @param movieCacheProperties
+     *            The settings of the cache
+     */
+    public MovieETagCache(final MovieCacheProperties movieCacheProperties) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(movieCacheProperties.getMaximumSize())
+            .expireAfterWrite(Duration.ofMillis(movieCacheProperties.getTtl()))
+            .build();
+    }
+
+    /**
+     * Returns a cached movie
+     * 
+     * @param id
+     *            The id of the movie
+     * @return The cached movie, or null if it isn't cached
+     */
+    public CachedMovie get(final UUID id) {
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * Caches a movie
+     * 
+     * @param id
+     *            The id of the movie
+     * @param eTag
+     *            The ETag of the movie
+     * @param movie
+     *            The movie
+     */
+    public void put(final UUID id, final String eTag, final MovieDto movie) {
+        cache.put(id, new CachedMovie(eTag, movie));
+    }
+
+    /**
+     * Evicts a cached movie
+     * 
+     * @param id
+     *            The id of the movie
+     */
+    public void invalidate(final UUID id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * A movie cached together with its ETag
+     */
+    @RequiredArgsConstructor
+    @Getter
+    public static class CachedMovie {
+
+        private final String eTag;
+        private final MovieDto movie;
+    }
+}
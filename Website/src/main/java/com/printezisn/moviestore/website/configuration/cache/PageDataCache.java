@@ -0,0 +1,238 @@
+package com.printezisn.moviestore.website.configuration.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.printezisn.moviestore.website.configuration.async.ServiceCallExecutor;
+import com.printezisn.moviestore.website.configuration.properties.PageCacheProperties;
+import com.printezisn.moviestore.website.configuration.rest.RequestAbortHandle;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded stale-while-revalidate cache of the data that the pages read from the
+ * services. A fresh entry is served as it is. An entry older than the soft TTL
+ * is still served, while a single background refresh replaces it. An entry
+ * older than the hard TTL is reloaded before it is served. Refreshes run on a
+ * small pool of their own, so that they never take threads from the service
+ * calls of the pages. A refresh that is rejected because that pool is full, or
+ * that times out, keeps serving the stale entry until a later read refreshes
+ * it, and a timed out refresh is aborted to free its thread. An eviction only
+ * discards the loads in flight of the keys it evicts, so that a mutation doesn't
+ * hold back the results of unrelated reads.
+ */
+@Component
+@Slf4j
+public class PageDataCache {
+
+    private final ServiceCallExecutor refreshExecutor;
+    private final long softTtl;
+    private final long hardTtl;
+    private final LongSupplier clock;
+
+    private final Cache<String, Entry> cache;
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+    private final Map<String, Object> loads = new ConcurrentHashMap<>();
+
+    /**
+     * The constructor
+     * 
+     * @param pageCacheProperties
+     *            The settings of the cache
+     * @param timeout
+     *            The time in milliseconds after which a background refresh fails
+     */
+    @Autowired
+    public PageDataCache(final PageCacheProperties pageCacheProperties,
+        @Value("${serviceCalls.timeout}") final long timeout) {
+
+        this(pageCacheProperties, timeout, System::nanoTime);
+    }
+
+    /**
+     * The constructor
+     * 
+     * @param pageCacheProperties
+     *            The settings of the cache
+     * @param timeout
+     *            The time in milliseconds after which a background refresh fails
+     * @param clock
+     *            The source of the current time in nanoseconds
+     */
+    PageDataCache(final PageCacheProperties pageCacheProperties, final long timeout, final LongSupplier clock) {
+        this.refreshExecutor = new ServiceCallExecutor(pageCacheProperties.getRefreshPoolSize(),
+            pageCacheProperties.getRefreshQueueCapacity(), timeout);
+        this.softTtl = TimeUnit.MILLISECONDS.toNanos(pageCacheProperties.getSoftTtl());
+        this.hardTtl = TimeUnit.MILLISECONDS.toNanos(pageCacheProperties.getHardTtl());
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(pageCacheProperties.getMaximumSize())
+            .expireAfterWrite(Duration.ofMillis(pageCacheProperties.getHardTtl()))
+            .build();
+    }
+
+    /**
+     * Returns the cached result of a read, loading it if it is missing or
+     * expired, and refreshing it in the background if it is stale
+     * 
+     * @param operation
+     *            The name of the operation
+     * @param key
+     *            The key of the read within the operation, including anything
+     *            that changes the result such as the language
+     * @param loader
+     *            The read
+     * @return The result of the read
+     * @throws Exception
+     *             Exception thrown by the read when the result is loaded
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String operation, final String key, final Callable<T> loader) throws Exception {
+        final String cacheKey = operation + ":" + key;
+        final Entry entry = cache.getIfPresent(cacheKey);
+        final long age = (entry != null) ? clock.getAsLong() - entry.getLoadedAt() : Long.MAX_VALUE;
+
+        if (age >= hardTtl) {
+            final Object load = startLoad(cacheKey);
+            try {
+                final T value = loader.call();
+                store(cacheKey, value, load);
+
+                return value;
+            }
+            finally {
+                loads.remove(cacheKey, load);
+            }
+        }
+        if (age >= softTtl && refreshingKeys.add(cacheKey)) {
+            refresh(cacheKey, loader);
+        }
+
+        return (T) entry.getValue();
+    }
+
+    /**
+     * Evicts the cached results of an operation
+     * 
+     * @param operation
+     *            The name of the operation
+     * @param keys
+     *            The condition that the keys of the evicted results satisfy
+     */
+    public synchronized void invalidate(final String operation, final Predicate<String> keys) {
+        final String prefix = operation + ":";
+        final Predicate<String> evicted = cacheKey -> cacheKey.startsWith(prefix)
+            && keys.test(cacheKey.substring(prefix.length()));
+
+        // Loads and refreshes of the evicted keys that are in flight lose their
+        // entry, so they don't store results that may be older than the mutation
+        loads.keySet().removeIf(evicted);
+        cache.asMap().keySet().removeIf(evicted);
+    }
+
+    /**
+     * Evicts all the cached results of an operation
+     * 
+     * @param operation
+     *            The name of the operation
+     */
+    public void invalidate(final String operation) {
+        invalidate(operation, key -> true);
+    }
+
+    /**
+     * Stops the pool of the background refreshes
+     */
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    /**
+     * Replaces a cached result in the background
+     * 
+     * @param cacheKey
+     *            The key of the result
+     * @param loader
+     *            The read
+     */
+    private void refresh(final String cacheKey, final Callable<?> loader) {
+        final Object load = startLoad(cacheKey);
+        final RequestAbortHandle abortHandle = new RequestAbortHandle();
+
+        refreshExecutor.submit(() -> abortHandle.run(loader)).whenComplete((value, ex) -> {
+            try {
+                if (ex == null) {
+                    store(cacheKey, value, load);
+                }
+                else {
+                    abortHandle.abort();
+                    log.warn("Serving stale {} because its refresh failed: {}", cacheKey, ex.getMessage());
+                }
+            }
+            finally {
+                loads.remove(cacheKey, load);
+                refreshingKeys.remove(cacheKey);
+            }
+        });
+    }
+
+    /**
+     * Registers a load of a result that is about to start. A later load of the
+     * same key replaces it, so that only the latest load stores its result.
+     * 
+     * @param cacheKey
+     *            The key of the result
+     * @return The load, which identifies it when the result is stored
+     */
+    private Object startLoad(final String cacheKey) {
+        final Object load = new Object();
+        loads.put(cacheKey, load);
+
+        return load;
+    }
+
+    /**
+     * Caches a result, unless its key has been evicted or loaded again since the
+     * result started loading
+     * 
+     * @param cacheKey
+     *            The key of the result
+     * @param value
+     *            The result
+     * @param load
+     *            The load of the result
+     */
+    private synchronized void store(final String cacheKey, final Object value, final Object load) {
+        if (value != null && loads.get(cacheKey) == load) {
+            cache.put(cacheKey, new Entry(value, clock.getAsLong()));
+        }
+    }
+
+    /**
+     * A cached result together with the time it was loaded
+     */
+    @RequiredArgsConstructor
+    @Getter
+    private static class Entry {
+
+        private final Object value;
+        private final long loadedAt;
+    }
+}
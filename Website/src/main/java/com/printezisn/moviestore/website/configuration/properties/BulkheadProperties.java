@@ -0,0 +1,25 @@
+package com.printezisn.moviestore.website.configuration.properties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the bulkheads that limit the concurrent calls to each service
+ * endpoint. Endpoints are named after the first two segments of their path,
+ * e.g. movie-search. All times are in milliseconds.
+ */
+@Component
+@ConfigurationProperties(prefix = "bulkhead")
+@Getter
+@Setter
+public class BulkheadProperties {
+    private int maxConcurrentCalls;
+    private long maxWait;
+    private Map<String, Integer> endpoints = new HashMap<>();
+}
@@ -0,0 +1,25 @@
+package com.printezisn.moviestore.website.configuration.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the circuit breakers that protect the calls to each service. All
+ * times are in milliseconds and all rates are percentages.
+ */
+@Component
+@ConfigurationProperties(prefix = "circuit-breaker")
+@Getter
+@Setter
+public class CircuitBreakerProperties {
+    private int windowSize;
+    private int minimumCalls;
+    private double failureRateThreshold;
+    private long slowCallDuration;
+    private double slowCallRateThreshold;
+    private long openDuration;
+    private int halfOpenCalls;
+}
@@ -0,0 +1,26 @@
+package com.printezisn.moviestore.website.configuration.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the hedged reads, which send a second request to another service
+ * instance when the first one is slower than usual. Hedged reads run on their
+ * own pool, so that they don't take threads from the other service calls. All
+ * times are in milliseconds.
+ */
+@Component
+@ConfigurationProperties(prefix = "hedging")
+@Getter
+@Setter
+public class HedgingProperties {
+    private boolean enabled;
+    private double maxPercentage;
+    private long minDelay;
+    private long window;
+    private int poolSize;
+    private int queueCapacity;
+}
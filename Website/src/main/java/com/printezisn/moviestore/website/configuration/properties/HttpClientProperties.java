@@ -0,0 +1,26 @@
+package com.printezisn.moviestore.website.configuration.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the pooled HTTP client used to call the services. All times are
+ * in milliseconds.
+ */
+@Component
+@ConfigurationProperties(prefix = "http-client")
+@Getter
+@Setter
+public class HttpClientProperties {
+    private int maxTotal;
+    private int maxPerRoute;
+    private int connectTimeout;
+    private int connectionRequestTimeout;
+    private int readTimeout;
+    private long keepAlive;
+    private long idleTimeout;
+    private int validateAfterInactivity;
+}
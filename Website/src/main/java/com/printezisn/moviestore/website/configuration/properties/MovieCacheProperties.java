@@ -0,0 +1,20 @@
+package com.printezisn.moviestore.website.configuration.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the cache of the movies that are revalidated with their ETag. An
+ * entry is evicted after the TTL, in milliseconds, even if it is still valid.
+ */
+@Component
+@ConfigurationProperties(prefix = "movie-cache")
+@Getter
+@Setter
+public class MovieCacheProperties {
+    private long maximumSize;
+    private long ttl;
+}
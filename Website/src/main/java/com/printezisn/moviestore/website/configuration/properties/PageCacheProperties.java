@@ -0,0 +1,25 @@
+package com.printezisn.moviestore.website.configuration.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the cache of the data that the pages read from the services. An
+ * entry is fresh until the soft TTL, is served stale while it is refreshed until
+ * the hard TTL, and is reloaded after that. The refreshes run on a pool of
+ * their own. All times are in milliseconds.
+ */
+@Component
+@ConfigurationProperties(prefix = "page-cache")
+@Getter
+@Setter
+public class PageCacheProperties {
+    private long maximumSize;
+    private long softTtl;
+    private long hardTtl;
+    private int refreshPoolSize;
+    private int refreshQueueCapacity;
+}
@@ -0,0 +1,27 @@
+package com.printezisn.moviestore.website.configuration.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the retries of service calls that fail because of a conflict.
+ * Retries are limited to a percentage of the recent calls of a service, plus a
+ * minimum number of retries, and must start before the deadline of the call.
+ * All times are in milliseconds.
+ */
+@Component
+@ConfigurationProperties(prefix = "retry")
+@Getter
+@Setter
+public class RetryProperties {
+    private int maxRetries;
+    private int delay;
+    private int jitter;
+    private long deadline;
+    private double budgetPercentage;
+    private int budgetMinRetries;
+    private long budgetWindow;
+}
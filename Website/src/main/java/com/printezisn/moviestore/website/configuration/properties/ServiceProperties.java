@@ -1,5 +1,8 @@
 package com.printezisn.moviestore.website.configuration.properties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -13,4 +16,5 @@ import lombok.Setter;
 public class ServiceProperties {
     private String accountServiceUrl;
     private String movieServiceUrl;
+    private List<String> movieServiceHedgeUrls = new ArrayList<>();
 }
@@ -0,0 +1,30 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Request factory that registers every request with the abort handle of the
+ * calling thread, so that the request can be aborted by another thread
+ */
+public class AbortableRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    /**
+     * The constructor
+     * 
+     * @param httpClient
+     *            The HTTP client that sends the requests
+     */
+    public AbortableRequestFactory(final HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void postProcessHttpRequest(final HttpUriRequest request) {
+        RequestAbortHandle.register(request);
+    }
+}
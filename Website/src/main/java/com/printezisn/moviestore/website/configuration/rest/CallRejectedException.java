@@ -0,0 +1,21 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when a call to a service is rejected without being sent,
+ * because its circuit breaker is open or its bulkhead is full
+ */
+@SuppressWarnings("serial")
+public class CallRejectedException extends IOException {
+
+    /**
+     * The constructor
+     * 
+     * @param message
+     *            The exception message
+     */
+    public CallRejectedException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,174 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.printezisn.moviestore.website.configuration.properties.CircuitBreakerProperties;
+
+/**
+ * Circuit breaker of the calls to a service. It opens when the failed or the
+ * slow calls within a sliding window of the latest calls exceed their
+ * threshold, and rejects calls while open. After the open duration it lets a
+ * few probe calls through and closes again if all of them succeed in time.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit breaker
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallDuration;
+    private final double slowCallRateThreshold;
+    private final long openDuration;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int nextCall;
+    private int totalCalls;
+    private int totalFailedCalls;
+    private int totalSlowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int permittedProbes;
+    private int successfulProbes;
+
+    /**
+     * The constructor
+     * 
+     * @param properties
+     *            The settings of the circuit breaker
+     */
+    public CircuitBreaker(final CircuitBreakerProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    /**
+     * The constructor
+     * 
+     * @param properties
+     *            The settings of the circuit breaker
+     * @param clock
+     *            The source of the current time in nanoseconds
+     */
+    CircuitBreaker(final CircuitBreakerProperties properties, final LongSupplier clock) {
+        this.minimumCalls = properties.getMinimumCalls();
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.slowCallDuration = TimeUnit.MILLISECONDS.toNanos(properties.getSlowCallDuration());
+        this.slowCallRateThreshold = properties.getSlowCallRateThreshold();
+        this.openDuration = TimeUnit.MILLISECONDS.toNanos(properties.getOpenDuration());
+        this.halfOpenCalls = properties.getHalfOpenCalls();
+        this.clock = clock;
+        this.failedCalls = new boolean[properties.getWindowSize()];
+        this.slowCalls = new boolean[properties.getWindowSize()];
+    }
+
+    /**
+     * Returns the current state
+     * 
+     * @return The current state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Asks for permission to make a call
+     * 
+     * @return True if the call is permitted, otherwise false
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openDuration) {
+                return false;
+            }
+
+            state = State.HALF_OPEN;
+            permittedProbes = 0;
+            successfulProbes = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (permittedProbes >= halfOpenCalls) {
+                return false;
+            }
+
+            permittedProbes++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Records the outcome of a permitted call
+     * 
+     * @param failed
+     *            Indicates if the call failed
+     * @param duration
+     *            The duration of the call in nanoseconds
+     */
+    public synchronized void onResult(final boolean failed, final long duration) {
+        final boolean slow = duration >= slowCallDuration;
+
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            }
+            else if (++successfulProbes >= halfOpenCalls) {
+                close();
+            }
+
+            return;
+        }
+        if (state == State.OPEN) {
+            // The call started before the circuit breaker opened
+            return;
+        }
+
+        if (totalCalls == failedCalls.length) {
+            totalFailedCalls -= failedCalls[nextCall] ? 1 : 0;
+            totalSlowCalls -= slowCalls[nextCall] ? 1 : 0;
+        }
+        else {
+            totalCalls++;
+        }
+
+        failedCalls[nextCall] = failed;
+        slowCalls[nextCall] = slow;
+        totalFailedCalls += failed ? 1 : 0;
+        totalSlowCalls += slow ? 1 : 0;
+        nextCall = (nextCall + 1) % failedCalls.length;
+
+        if (totalCalls >= minimumCalls
+            && (totalFailedCalls * 100.0 / totalCalls >= failureRateThreshold
+                || totalSlowCalls * 100.0 / totalCalls >= slowCallRateThreshold)) {
+
+            open();
+        }
+    }
+
+    /**
+     * Opens the circuit breaker
+     */
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    /**
+     * Closes the circuit breaker and clears its window
+     */
+    private void close() {
+        state = State.CLOSED;
+        nextCall = 0;
+        totalCalls = 0;
+        totalFailedCalls = 0;
+        totalSlowCalls = 0;
+    }
+}
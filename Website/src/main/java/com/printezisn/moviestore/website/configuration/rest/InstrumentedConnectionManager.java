@@ -0,0 +1,135 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Pooling connection manager that exports the utilisation of the pool, the time
+ * spent waiting to lease a connection and the number of connections that are
+ * created and closed
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private static final String METRIC_PREFIX = "http.client.connections";
+
+    private final AtomicLong createdConnections;
+    private final Timer leaseTimer;
+
+    /**
+     * The constructor
+     * 
+     * @param meterRegistry
+     *            The registry of the pool metrics
+     */
+    public InstrumentedConnectionManager(final MeterRegistry meterRegistry) {
+        this(new AtomicLong(), meterRegistry);
+    }
+
+    /**
+     * The constructor
+     * 
+     * @param createdConnections
+     *            The counter of the created connections
+     * @param meterRegistry
+     *            The registry of the pool metrics
+     */
+    private InstrumentedConnectionManager(final AtomicLong createdConnections, final MeterRegistry meterRegistry) {
+        super((route, config) -> {
+            createdConnections.incrementAndGet();
+
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        });
+
+        this.createdConnections = createdConnections;
+        this.leaseTimer = Timer.builder(METRIC_PREFIX + ".lease")
+            .description("Time spent waiting to lease a connection from the pool")
+            .register(meterRegistry);
+
+        Gauge.builder(METRIC_PREFIX + ".leased", this, manager -> manager.getTotalStats().getLeased())
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".available", this, manager -> manager.getTotalStats().getAvailable())
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".pending", this, manager -> manager.getTotalStats().getPending())
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".max", this, manager -> manager.getTotalStats().getMax())
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".utilisation", this, InstrumentedConnectionManager::getUtilisation)
+            .register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".created", createdConnections, AtomicLong::get)
+            .register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".closed", this, InstrumentedConnectionManager::getClosedConnections)
+            .register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+        final ConnectionRequest connectionRequest = super.requestConnection(route, state);
+
+        return new ConnectionRequest() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public HttpClientConnection get(final long timeout, final TimeUnit timeUnit)
+                throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+
+                final long start = System.nanoTime();
+                try {
+                    return connectionRequest.get(timeout, timeUnit);
+                }
+                finally {
+                    leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean cancel() {
+                return connectionRequest.cancel();
+            }
+        };
+    }
+
+    /**
+     * Returns the fraction of the pool that is leased
+     * 
+     * @return The fraction of the pool that is leased
+     */
+    private double getUtilisation() {
+        final PoolStats stats = getTotalStats();
+
+        return (stats.getMax() > 0) ? (double) stats.getLeased() / stats.getMax() : 0;
+    }
+
+    /**
+     * Returns the number of connections that have been closed, which are the
+     * created connections that are no longer in the pool
+     * 
+     * @return The number of closed connections
+     */
+    private double getClosedConnections() {
+        final PoolStats stats = getTotalStats();
+
+        return Math.max(createdConnections.get() - stats.getLeased() - stats.getAvailable(), 0);
+    }
+}
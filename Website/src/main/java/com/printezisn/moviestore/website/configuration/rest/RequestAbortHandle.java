@@ -0,0 +1,86 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Handle that aborts the HTTP requests a call sends while the handle is bound
+ * to its thread. Interrupting the thread of a call doesn't unblock a read from
+ * a socket, so a call that is no longer needed is aborted through its handle
+ * instead, which closes the connection of its request and frees the thread.
+ */
+public class RequestAbortHandle {
+
+    private static final ThreadLocal<RequestAbortHandle> CURRENT = new ThreadLocal<>();
+
+    private final Set<HttpUriRequest> requests = ConcurrentHashMap.newKeySet();
+    private volatile boolean aborted;
+
+    /**
+     * Runs a call with the handle bound to the current thread
+     * 
+     * @param call
+     *            The call
+     * @return The result of the call
+     * @throws Exception
+     *             Exception thrown by the call
+     */
+    public <T> T run(final Callable<T> call) throws Exception {
+        final RequestAbortHandle previousHandle = CURRENT.get();
+
+        CURRENT.set(this);
+        try {
+            return call.call();
+        }
+        finally {
+            if (previousHandle == null) {
+                CURRENT.remove();
+            }
+            else {
+                CURRENT.set(previousHandle);
+            }
+        }
+    }
+
+    /**
+     * Aborts the requests of the call, including those it sends from now on
+     */
+    public void abort() {
+        aborted = true;
+        requests.forEach(HttpUriRequest::abort);
+    }
+
+    /**
+     * Registers a request with the handle bound to the current thread, if there
+     * is one. The request is aborted immediately if the handle is already
+     * aborted.
+     * 
+     * @param request
+     *            The request
+     */
+    public static void register(final HttpUriRequest request) {
+        final RequestAbortHandle handle = CURRENT.get();
+        if (handle == null) {
+            return;
+        }
+
+        handle.requests.add(request);
+        if (handle.aborted) {
+            request.abort();
+        }
+    }
+
+    /**
+     * Checks if the handle bound to the current thread is aborted
+     * 
+     * @return True if the handle is aborted, otherwise false
+     */
+    public static boolean isAborted() {
+        final RequestAbortHandle handle = CURRENT.get();
+
+        return handle != null && handle.aborted;
+    }
+}
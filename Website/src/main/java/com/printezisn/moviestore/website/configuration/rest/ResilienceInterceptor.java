@@ -0,0 +1,189 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.printezisn.moviestore.website.configuration.properties.BulkheadProperties;
+import com.printezisn.moviestore.website.configuration.properties.CircuitBreakerProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Interceptor that protects the website from slow or failing services. Every
+ * service, identified by its host and port, has a circuit breaker, and every
+ * endpoint has a bulkhead that limits its concurrent calls, so that a slow
+ * endpoint can't take all the request threads. Rejected calls fail immediately
+ * with a CallRejectedException.
+ */
+public class ResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String METRIC_PREFIX = "service";
+    private static final int ENDPOINT_SEGMENTS = 2;
+
+    private final CircuitBreakerProperties circuitBreakerProperties;
+    private final BulkheadProperties bulkheadProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * The constructor
+     * 
+     * @param circuitBreakerProperties
+     *            The settings of the circuit breakers
+     * @param bulkheadProperties
+     *            The settings of the bulkheads
+     * @param meterRegistry
+     *            The registry of the circuit breaker and bulkhead metrics
+     */
+    public ResilienceInterceptor(final CircuitBreakerProperties circuitBreakerProperties,
+        final BulkheadProperties bulkheadProperties, final MeterRegistry meterRegistry) {
+
+        this.circuitBreakerProperties = circuitBreakerProperties;
+        this.bulkheadProperties = bulkheadProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ClientHttpResponse intercept(final HttpRequest request, final byte[] body,
+        final ClientHttpRequestExecution execution) throws IOException {
+
+        final String service = request.getURI().getAuthority();
+        final String endpoint = getEndpoint(request.getURI());
+
+        final Semaphore bulkhead = bulkheads.computeIfAbsent(endpoint, this::createBulkhead);
+        if (!acquire(bulkhead)) {
+            meterRegistry.counter(METRIC_PREFIX + ".bulkhead.rejected", "endpoint", endpoint).increment();
+            throw new CallRejectedException(String.format("The bulkhead of endpoint %s is full", endpoint));
+        }
+
+        try {
+            final CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(service,
+                this::createCircuitBreaker);
+            if (!circuitBreaker.tryAcquire()) {
+                meterRegistry.counter(METRIC_PREFIX + ".circuitbreaker.rejected", "service", service).increment();
+                throw new CallRejectedException(String.format("The circuit breaker of service %s is open", service));
+            }
+
+            final long start = System.nanoTime();
+            try {
+                final ClientHttpResponse response = execution.execute(request, body);
+                circuitBreaker.onResult(response.getRawStatusCode() >= 500, System.nanoTime() - start);
+
+                return response;
+            }
+            catch (final IOException | RuntimeException ex) {
+                // A request aborted because it is no longer needed, like the slower
+                // request of a hedged read, is slow but didn't fail
+                circuitBreaker.onResult(!RequestAbortHandle.isAborted(), System.nanoTime() - start);
+                throw ex;
+            }
+        }
+        finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Returns the circuit breaker of a service
+     * 
+     * @param service
+     *            The host and port of the service
+     * @return The circuit breaker, or null if the service hasn't been called
+     */
+    public CircuitBreaker getCircuitBreaker(final String service) {
+        return circuitBreakers.get(service);
+    }
+
+    /**
+     * Returns the name of the endpoint of a URI, which consists of the first
+     * segments of its path
+     * 
+     * @param uri
+     *            The URI
+     * @return The name of the endpoint
+     */
+    private String getEndpoint(final URI uri) {
+        return Arrays.stream(uri.getPath().split("/"))
+            .filter(segment -> !segment.isEmpty())
+            .limit(ENDPOINT_SEGMENTS)
+            .collect(Collectors.joining("-"));
+    }
+
+    /**
+     * Waits for a permit of a bulkhead
+     * 
+     * @param bulkhead
+     *            The bulkhead
+     * @return True if a permit was acquired, otherwise false
+     * @throws InterruptedIOException
+     *             Exception thrown when the thread is interrupted while waiting
+     */
+    private boolean acquire(final Semaphore bulkhead) throws InterruptedIOException {
+        try {
+            return bulkhead.tryAcquire(bulkheadProperties.getMaxWait(), TimeUnit.MILLISECONDS);
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a bulkhead");
+        }
+    }
+
+    /**
+     * Creates the circuit breaker of a service and registers its metrics
+     * 
+     * @param service
+     *            The host and port of the service
+     * @return The circuit breaker
+     */
+    private CircuitBreaker createCircuitBreaker(final String service) {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(circuitBreakerProperties);
+
+        for (final CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder(METRIC_PREFIX + ".circuitbreaker.state", circuitBreaker,
+                breaker -> (breaker.getState() == state) ? 1 : 0)
+                .tag("service", service)
+                .tag("state", state.name().toLowerCase())
+                .register(meterRegistry);
+        }
+
+        return circuitBreaker;
+    }
+
+    /**
+     * Creates the bulkhead of an endpoint and registers its metrics
+     * 
+     * @param endpoint
+     *            The name of the endpoint
+     * @return The bulkhead
+     */
+    private Semaphore createBulkhead(final String endpoint) {
+        final int maxConcurrentCalls = bulkheadProperties.getEndpoints()
+            .getOrDefault(endpoint, bulkheadProperties.getMaxConcurrentCalls());
+        final Semaphore bulkhead = new Semaphore(maxConcurrentCalls);
+
+        Gauge.builder(METRIC_PREFIX + ".bulkhead.active", bulkhead,
+            semaphore -> maxConcurrentCalls - semaphore.availablePermits())
+            .tag("endpoint", endpoint)
+            .register(meterRegistry);
+
+        return bulkhead;
+    }
+}
@@ -5,6 +5,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
@@ -30,11 +32,12 @@ import com.printezisn.moviestore.common.AppUtils;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
 import com.printezisn.moviestore.common.models.Notification;
 import com.printezisn.moviestore.common.models.Notification.NotificationType;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.common.models.movie.MovieResultModel;
 import com.printezisn.moviestore.website.Constants.PageConstants;
 import com.printezisn.moviestore.website.movie.exceptions.MovieNotFoundException;
-import com.printezisn.moviestore.website.movie.models.LikeStatus;
+import com.printezisn.moviestore.website.movie.models.MovieDetailsModel;
 import com.printezisn.moviestore.website.movie.services.MovieService;
 
 import lombok.RequiredArgsConstructor;
@@ -46,6 +49,8 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class MovieController {
 
+    private static final int MAX_LIKE_STATUS_MOVIES = 100;
+
     private final MovieService movieService;
     private final AppUtils appUtils;
 
@@ -54,8 +59,8 @@ public class MovieController {
      * 
      * @param text
      *            The text used to search movies
-     * @param pageNumber
-     *            The page number of the results to view
+     * @param cursor
+     *            The cursor of the page of the results to view
      * @param sortField
      *            The sorting field for the displayed movies
      * @param isAscending
@@ -69,7 +74,7 @@ public class MovieController {
     @GetMapping("/")
     public String index(
         @RequestParam(value = "text", defaultValue = "") final String text,
-        @RequestParam(value = "page", defaultValue = "0") final int pageNumber,
+        @RequestParam(value = "cursor", defaultValue = "") final String cursor,
         @RequestParam(value = "sort", defaultValue = "") final String sortField,
         @RequestParam(value = "asc", defaultValue = "false") final boolean isAscending,
         final HttpServletRequest httpServletRequest,
@@ -77,12 +82,12 @@ public class MovieController {
 
         appUtils.setCurrentPage(model, PageConstants.HOME_PAGE);
 
-        final MoviePagedResultModel result = movieService.searchMovies(text, pageNumber, sortField, isAscending);
+        final MoviePagedResultModel result = movieService.searchMovies(text, cursor, sortField, isAscending);
 
         model.addAttribute("entries", result.getEntries());
         model.addAttribute("text", text);
-        model.addAttribute("page", result.getPageNumber());
-        model.addAttribute("totalPages", result.getTotalPages());
+        model.addAttribute("nextCursor", result.getNextCursor());
+        model.addAttribute("previousCursor", result.getPreviousCursor());
         model.addAttribute("sortField", result.getSortField());
         model.addAttribute("isAscending", result.isAscending());
 
@@ -101,6 +106,8 @@ public class MovieController {
      *            The URL to return if the user wants to go back
      * @param redirectAttributes
      *            The redirect attributes
+     * @param authentication
+     *            Information about the current user
      * @param model
      *            The page model
      * @return The movie details page
@@ -110,12 +117,14 @@ public class MovieController {
         @PathVariable("id") final UUID id,
         @RequestParam(value = "returnUrl", defaultValue = "") final String returnUrl,
         final RedirectAttributes redirectAttributes,
+        final Authentication authentication,
         final Model model) {
 
         try {
-            final MovieDto result = movieService.getMovie(id);
+            final MovieDetailsModel result = movieService.getMovieDetails(getAccount(authentication), id);
 
-            model.addAttribute("movie", result);
+            model.addAttribute("movie", result.getMovie());
+            model.addAttribute("likeStatus", result.getLikeStatus());
             model.addAttribute("returnUrl", appUtils.getReturnUrl(returnUrl, "/"));
 
             return "movie/details";
@@ -425,15 +434,42 @@ public class MovieController {
         @PathVariable("id") final UUID id) {
 
         try {
-            final MovieDto movie = movieService.getMovie(id);
-            final boolean hasLiked = (authentication != null && authentication.isAuthenticated())
-                ? movieService.hasLiked(authentication.getName(), id)
-                : false;
+            final LikeStatus likeStatus = movieService
+                .getLikeStatuses(getAccount(authentication), Collections.singletonList(id))
+                .get(id);
+            if (likeStatus == null) {
+                return ResponseEntity.notFound().build();
+            }
 
-            return ResponseEntity.ok(new LikeStatus(movie.getTotalLikes(), hasLiked));
+            return ResponseEntity.ok(likeStatus);
         }
-        catch (final MovieNotFoundException ex) {
-            return ResponseEntity.notFound().build();
+        catch (final Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Returns the like status of many movies with a single call to the movie
+     * service
+     * 
+     * @param authentication
+     *            Information about the current user
+     * @param ids
+     *            The ids of the movies to check, at most 100
+     * @return The like status of each movie that exists, by movie id
+     */
+    @PostMapping("/movie/likestatus")
+    @ResponseBody
+    public ResponseEntity<Map<UUID, LikeStatus>> likeStatuses(
+        final Authentication authentication,
+        @RequestBody final List<UUID> ids) {
+
+        if (ids.size() > MAX_LIKE_STATUS_MOVIES) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(movieService.getLikeStatuses(getAccount(authentication), ids));
         }
         catch (final Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -447,7 +483,7 @@ public class MovieController {
      *            Information about the current user
      * @param id
      *            The id of the movie to check
-     * @return Response indicating if the operation was successful or not
+     * @return The like status of the movie after the like
      */
     @PostMapping("/movie/like")
     @ResponseBody
@@ -456,9 +492,7 @@ public class MovieController {
         @RequestParam("id") final UUID id) {
 
         try {
-            movieService.likeMovie(authentication.getName(), id);
-
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(movieService.likeMovie(authentication.getName(), id));
         }
         catch (final MovieNotFoundException ex) {
             return ResponseEntity.notFound().build();
@@ -475,7 +509,7 @@ public class MovieController {
      *            Information about the current user
      * @param id
      *            The id of the movie to check
-     * @return Response indicating if the operation was successful or not
+     * @return The like status of the movie after the like is removed
      */
     @PostMapping("/movie/unlike")
     @ResponseBody
@@ -484,9 +518,7 @@ public class MovieController {
         @RequestParam("id") final UUID id) {
 
         try {
-            movieService.unlikeMovie(authentication.getName(), id);
-
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(movieService.unlikeMovie(authentication.getName(), id));
         }
         catch (final MovieNotFoundException ex) {
             return ResponseEntity.notFound().build();
@@ -496,6 +528,17 @@ public class MovieController {
         }
     }
 
+    /**
+     * Returns the account of the current user
+     * 
+     * @param authentication
+     *            Information about the current user
+     * @return The account, or null if the user is not signed in
+     */
+    private String getAccount(final Authentication authentication) {
+        return (authentication != null && authentication.isAuthenticated()) ? authentication.getName() : null;
+    }
+
     /**
      * Fills model values and returns the page view to create or edit a movie
      * 
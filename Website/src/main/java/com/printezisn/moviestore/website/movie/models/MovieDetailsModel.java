@@ -0,0 +1,21 @@
+package com.printezisn.moviestore.website.movie.models;
+
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Model class for the movie details page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieDetailsModel {
+
+    private MovieDto movie;
+
+    private LikeStatus likeStatus;
+}
@@ -1,11 +1,15 @@
 package com.printezisn.moviestore.website.movie.services;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.common.models.movie.MovieResultModel;
 import com.printezisn.moviestore.website.movie.exceptions.MovieNotFoundException;
+import com.printezisn.moviestore.website.movie.models.MovieDetailsModel;
 
 /**
  * The interface of the movie service
@@ -17,15 +21,16 @@ public interface MovieService {
      * 
      * @param text
      *            The text to search for
-     * @param pageNumber
-     *            The page number
+     * @param cursor
+     *            The cursor of the page, or empty for the first page
      * @param sortField
-     *            The sorting field
+     *            The sorting field, used if there is no cursor
      * @param isAscending
-     *            Indicates if the sorting is ascending or descending
+     *            Indicates if the sorting is ascending or descending, used if
+     *            there is no cursor
      * @return The movies found
      */
-    MoviePagedResultModel searchMovies(final String text, final int pageNumber, final String sortField,
+    MoviePagedResultModel searchMovies(final String text, final String cursor, final String sortField,
         final boolean isAscending);
 
     /**
@@ -48,6 +53,20 @@ public interface MovieService {
      */
     MovieDto getMovie(final UUID id) throws MovieNotFoundException;
 
+    /**
+     * Returns a movie together with its like status. The movie and the like
+     * status are fetched concurrently.
+     * 
+     * @param account
+     *            The account whose like is checked, or null if likes aren't checked
+     * @param id
+     *            The id of the movie
+     * @return The movie and its like status, which is null if it can't be read
+     * @throws MovieNotFoundException
+     *             Exception thrown when the movie is not found
+     */
+    MovieDetailsModel getMovieDetails(final String account, final UUID id) throws MovieNotFoundException;
+
     /**
      * Checks if an account is authorized to update or delete a movie
      * 
@@ -98,10 +117,11 @@ public interface MovieService {
      *            The account that likes the movie
      * @param movieId
      *            The id of the movie
+     * @return The like status of the movie after the like
      * @throws MovieNotFoundException
      *             Exception thrown when the movie is not found
      */
-    void likeMovie(final String account, final UUID movieId) throws MovieNotFoundException;
+    LikeStatus likeMovie(final String account, final UUID movieId) throws MovieNotFoundException;
 
     /**
      * Removes a like from a movie
@@ -110,10 +130,11 @@ public interface MovieService {
      *            The account that unlikes the movie
      * @param movieId
      *            The id of the movie
+     * @return The like status of the movie after the like is removed
      * @throws MovieNotFoundException
      *             Exception thrown when the movie is not found
      */
-    void unlikeMovie(final String account, final UUID movieId) throws MovieNotFoundException;
+    LikeStatus unlikeMovie(final String account, final UUID movieId) throws MovieNotFoundException;
 
     /**
      * Checks if an account has liked a movie
@@ -125,4 +146,16 @@ public interface MovieService {
      * @return True if the account has liked the movie, otherwise false
      */
     boolean hasLiked(final String account, final UUID movieId);
+
+    /**
+     * Returns the total likes of movies and whether an account has liked them,
+     * with a single call to the movie service
+     * 
+     * @param account
+     *            The account to check, or null if there is no signed in account
+     * @param movieIds
+     *            The ids of the movies, at most 100
+     * @return The like status of each movie that exists, by movie id
+     */
+    Map<UUID, LikeStatus> getLikeStatuses(final String account, final Collection<UUID> movieIds);
 }
@@ -1,21 +1,41 @@
 package com.printezisn.moviestore.website.movie.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import com.printezisn.moviestore.common.RetryHandler;
+import com.printezisn.moviestore.common.AsyncRetryHandler;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
+import com.printezisn.moviestore.common.models.movie.LikeStatusQueryModel;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.common.models.movie.MovieResultModel;
+import com.printezisn.moviestore.website.configuration.async.HedgedCallExecutor;
+import com.printezisn.moviestore.website.configuration.async.HedgedCallExecutor.HedgedCall;
+import com.printezisn.moviestore.website.configuration.async.ServiceCallExecutor;
+import com.printezisn.moviestore.website.configuration.async.SingleFlightExecutor;
+import com.printezisn.moviestore.website.configuration.cache.MovieETagCache;
+import com.printezisn.moviestore.website.configuration.cache.MovieETagCache.CachedMovie;
+import com.printezisn.moviestore.website.configuration.cache.PageDataCache;
 import com.printezisn.moviestore.website.configuration.properties.ServiceProperties;
 import com.printezisn.moviestore.website.movie.exceptions.MovieConditionalException;
 import com.printezisn.moviestore.website.movie.exceptions.MovieNotFoundException;
 import com.printezisn.moviestore.website.movie.exceptions.MoviePersistenceException;
+import com.printezisn.moviestore.website.movie.models.MovieDetailsModel;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,7 +48,7 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class MovieServiceImpl implements MovieService {
 
-    private static final String SEARCH_URL = "%s/movie/search?text=%s&page=%d&sort=%s&asc=%b&lang=%s";
+    private static final String SEARCH_URL = "%s/movie/search?text=%s&cursor=%s&sort=%s&asc=%b&lang=%s";
     private static final String CREATE_URL = "%s/movie/new?lang=%s";
     private static final String GET_URL = "%s/movie/get/%s?lang=%s";
     private static final String UPDATE_URL = "%s/movie/update?lang=%s";
@@ -36,28 +56,46 @@ public class MovieServiceImpl implements MovieService {
     private static final String LIKE_URL = "%s/movie/like/%s/%s?lang=%s";
     private static final String UNLIKE_URL = "%s/movie/unlike/%s/%s?lang=%s";
     private static final String HAS_LIKED_URL = "%s/movie/hasliked/%s/%s?lang=%s";
+    private static final String LIKE_STATUS_URL = "%s/movie/likestatus?lang=%s";
+    private static final ParameterizedTypeReference<Map<UUID, LikeStatus>> LIKE_STATUSES_TYPE =
+        new ParameterizedTypeReference<Map<UUID, LikeStatus>>() {
+        };
+    private static final String SEARCH_OPERATION = "movie-search";
+    private static final String GET_OPERATION = "movie-get";
 
     private final ServiceProperties serviceProperties;
 
     private final RestTemplate restTemplate;
 
-    private final RetryHandler retryHandler = RetryHandler.builder()
-        .useExponentialBackOff(true)
-        .jitter(500)
-        .build();
+    private final ServiceCallExecutor serviceCallExecutor;
+
+    private final HedgedCallExecutor hedgedCallExecutor;
+
+    private final SingleFlightExecutor singleFlightExecutor;
+
+    private final PageDataCache pageDataCache;
+
+    private final MovieETagCache movieETagCache;
+
+    private final AsyncRetryHandler retryHandler;
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public MoviePagedResultModel searchMovies(final String text, final int pageNumber, final String sortField,
+    public MoviePagedResultModel searchMovies(final String text, final String cursor, final String sortField,
         final boolean isAscending) {
 
-        final String url = String.format(SEARCH_URL, serviceProperties.getMovieServiceUrl(), text, pageNumber,
-            sortField, isAscending, LocaleContextHolder.getLocale().getLanguage());
+        final String language = LocaleContextHolder.getLocale().getLanguage();
+        final String key = String.format(SEARCH_URL, "", text, cursor, sortField, isAscending, language);
 
         try {
-            return restTemplate.getForEntity(url, MoviePagedResultModel.class).getBody();
+            return read(SEARCH_OPERATION, key, serviceUrl -> {
+                final String url = String.format(SEARCH_URL, serviceUrl, text, cursor, sortField, isAscending,
+                    language);
+
+                return restTemplate.getForEntity(url, MoviePagedResultModel.class).getBody();
+            });
         }
         catch (final Exception ex) {
             final String errorMessage = String.format("An error occured while searching for movies: %s",
@@ -86,6 +124,9 @@ public class MovieServiceImpl implements MovieService {
             log.error(errorMessage, ex);
             throw new MoviePersistenceException(errorMessage, ex);
         }
+        finally {
+            pageDataCache.invalidate(SEARCH_OPERATION);
+        }
     }
 
     /**
@@ -93,16 +134,13 @@ public class MovieServiceImpl implements MovieService {
      */
     @Override
     public MovieDto getMovie(final UUID id) throws MovieNotFoundException {
-        final String url = String.format(GET_URL, serviceProperties.getMovieServiceUrl(), id,
-            LocaleContextHolder.getLocale().getLanguage());
+        final String language = LocaleContextHolder.getLocale().getLanguage();
 
-        try {
-            final ResponseEntity<MovieDto> response = restTemplate.getForEntity(url, MovieDto.class);
-            if (response.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
-                throw new MovieNotFoundException();
-            }
+        final String key = String.format(GET_URL, "", id, language);
 
-            return response.getBody();
+        try {
+            return read(GET_OPERATION, key,
+                serviceUrl -> getMovie(String.format(GET_URL, serviceUrl, id, language), id));
         }
         catch (final MovieNotFoundException ex) {
             throw ex;
@@ -115,6 +153,29 @@ public class MovieServiceImpl implements MovieService {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MovieDetailsModel getMovieDetails(final String account, final UUID id) throws MovieNotFoundException {
+        final CompletableFuture<Map<UUID, LikeStatus>> likeStatuses = serviceCallExecutor
+            .submit(() -> getLikeStatuses(account, Collections.singletonList(id)));
+
+        // The movie is fetched on the calling thread while the like status is read
+        // on the pool
+        final MovieDto movieDto = getMovie(id);
+
+        // The like status is optional, because the page can still load it later
+        try {
+            return new MovieDetailsModel(movieDto, serviceCallExecutor.await(likeStatuses).get(id));
+        }
+        catch (final Exception ex) {
+            log.warn("Rendering movie {} without its like status: {}", id, ex.getMessage());
+
+            return new MovieDetailsModel(movieDto, null);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -142,20 +203,18 @@ public class MovieServiceImpl implements MovieService {
             LocaleContextHolder.getLocale().getLanguage());
 
         try {
-            return retryHandler.run(
-                () -> {
-                    final ResponseEntity<MovieResultModel> response = restTemplate.postForEntity(url, movieDto,
-                        MovieResultModel.class);
-                    if (response.getStatusCode().equals(HttpStatus.CONFLICT)) {
-                        throw new MovieConditionalException();
-                    }
-                    if (response.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
-                        throw new MovieNotFoundException();
-                    }
-
-                    return response.getBody();
-                },
-                ex -> ex instanceof MovieConditionalException);
+            return serviceCallExecutor.await(runWithRetries(() -> {
+                final ResponseEntity<MovieResultModel> response = restTemplate.postForEntity(url, movieDto,
+                    MovieResultModel.class);
+                if (response.getStatusCode().equals(HttpStatus.CONFLICT)) {
+                    throw new MovieConditionalException();
+                }
+                if (response.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
+                    throw new MovieNotFoundException();
+                }
+
+                return response.getBody();
+            }));
         }
         catch (final MovieNotFoundException ex) {
             throw ex;
@@ -167,6 +226,9 @@ public class MovieServiceImpl implements MovieService {
             log.error(errorMessage, ex);
             throw new MoviePersistenceException(errorMessage, ex);
         }
+        finally {
+            evictMovie(movieDto.getId(), true);
+        }
     }
 
     /**
@@ -178,16 +240,14 @@ public class MovieServiceImpl implements MovieService {
             LocaleContextHolder.getLocale().getLanguage());
 
         try {
-            retryHandler.run(
-                () -> {
-                    final ResponseEntity<Void> response = restTemplate.getForEntity(url, Void.class);
-                    if (response.getStatusCode().equals(HttpStatus.CONFLICT)) {
-                        throw new MovieConditionalException();
-                    }
-
-                    return true;
-                },
-                ex -> ex instanceof MovieConditionalException);
+            serviceCallExecutor.await(runWithRetries(() -> {
+                final ResponseEntity<Void> response = restTemplate.getForEntity(url, Void.class);
+                if (response.getStatusCode().equals(HttpStatus.CONFLICT)) {
+                    throw new MovieConditionalException();
+                }
+
+                return true;
+            }));
         }
         catch (final Exception ex) {
             final String errorMessage = String.format("An error occured while deleting movie %s: %s",
@@ -196,30 +256,21 @@ public class MovieServiceImpl implements MovieService {
             log.error(errorMessage, ex);
             throw new MoviePersistenceException(errorMessage, ex);
         }
+        finally {
+            evictMovie(movieId, true);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void likeMovie(final String account, final UUID movieId) throws MovieNotFoundException {
+    public LikeStatus likeMovie(final String account, final UUID movieId) throws MovieNotFoundException {
         final String url = String.format(LIKE_URL, serviceProperties.getMovieServiceUrl(), movieId, account,
             LocaleContextHolder.getLocale().getLanguage());
 
         try {
-            retryHandler.run(
-                () -> {
-                    final ResponseEntity<Void> response = restTemplate.getForEntity(url, Void.class);
-                    if (response.getStatusCode().equals(HttpStatus.CONFLICT)) {
-                        throw new MovieConditionalException();
-                    }
-                    if (response.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
-                        throw new MovieNotFoundException();
-                    }
-
-                    return response.getBody();
-                },
-                ex -> ex instanceof MovieConditionalException);
+            return getLikeStatus(url);
         }
         catch (final MovieNotFoundException ex) {
             throw ex;
@@ -231,30 +282,21 @@ public class MovieServiceImpl implements MovieService {
             log.error(errorMessage, ex);
             throw new MoviePersistenceException(errorMessage, ex);
         }
+        finally {
+            evictMovie(movieId, false);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void unlikeMovie(final String account, final UUID movieId) throws MovieNotFoundException {
+    public LikeStatus unlikeMovie(final String account, final UUID movieId) throws MovieNotFoundException {
         final String url = String.format(UNLIKE_URL, serviceProperties.getMovieServiceUrl(), movieId, account,
             LocaleContextHolder.getLocale().getLanguage());
 
         try {
-            retryHandler.run(
-                () -> {
-                    final ResponseEntity<Void> response = restTemplate.getForEntity(url, Void.class);
-                    if (response.getStatusCode().equals(HttpStatus.CONFLICT)) {
-                        throw new MovieConditionalException();
-                    }
-                    if (response.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
-                        throw new MovieNotFoundException();
-                    }
-
-                    return response.getBody();
-                },
-                ex -> ex instanceof MovieConditionalException);
+            return getLikeStatus(url);
         }
         catch (final MovieNotFoundException ex) {
             throw ex;
@@ -266,6 +308,9 @@ public class MovieServiceImpl implements MovieService {
             log.error(errorMessage, ex);
             throw new MoviePersistenceException(errorMessage, ex);
         }
+        finally {
+            evictMovie(movieId, false);
+        }
     }
 
     /**
@@ -288,4 +333,155 @@ public class MovieServiceImpl implements MovieService {
             throw new MoviePersistenceException(errorMessage, ex);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<UUID, LikeStatus> getLikeStatuses(final String account, final Collection<UUID> movieIds) {
+        final String url = String.format(LIKE_STATUS_URL, serviceProperties.getMovieServiceUrl(),
+            LocaleContextHolder.getLocale().getLanguage());
+        final LikeStatusQueryModel likeStatusQueryModel = new LikeStatusQueryModel(new ArrayList<>(movieIds),
+            account);
+
+        try {
+            return restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(likeStatusQueryModel),
+                LIKE_STATUSES_TYPE).getBody();
+        }
+        catch (final Exception ex) {
+            final String errorMessage = String.format(
+                "An error occured while reading the like status of movies %s (%s): %s", movieIds, account,
+                ex.getMessage());
+
+            log.error(errorMessage, ex);
+            throw new MoviePersistenceException(errorMessage, ex);
+        }
+    }
+
+    /**
+     * Reads from the movie service through the page data cache. Reads that miss
+     * the cache are coalesced with identical reads in flight and hedged if they
+     * are slow.
+     * 
+     * @param operation
+     *            The name of the operation
+     * @param key
+     *            The key of the read, including its language
+     * @param call
+     *            The read from a movie service instance
+     * @return The result of the read
+     * @throws Exception
+     *             Exception thrown by the read
+     */
+    private <T> T read(final String operation, final String key, final HedgedCall<T> call) throws Exception {
+        return pageDataCache.get(operation, key,
+            () -> singleFlightExecutor.run(operation, key,
+                () -> hedgedCallExecutor.call(operation, serviceProperties.getMovieServiceUrl(),
+                    serviceProperties.getMovieServiceHedgeUrls(), call)));
+    }
+
+    /**
+     * Evicts the cached data of a movie in all languages. Cached searches are
+     * evicted only when the movie is updated or deleted, since a like or unlike
+     * only changes the total likes, which searches may serve stale until their
+     * soft TTL.
+     * 
+     * @param movieId
+     *            The id of the movie
+     * @param evictSearches
+     *            True if the cached searches that may contain the movie are also
+     *            evicted
+     */
+    private void evictMovie(final UUID movieId, final boolean evictSearches) {
+        final String movieKey = String.format(GET_URL, "", movieId, "");
+
+        pageDataCache.invalidate(GET_OPERATION, key -> key.startsWith(movieKey));
+        if (evictSearches) {
+            pageDataCache.invalidate(SEARCH_OPERATION);
+        }
+    }
+
+    /**
+     * Fetches a movie from a movie service instance, revalidating the cached copy
+     * of the movie if there is one
+     * 
+     * @param url
+     *            The URL of the movie on the instance
+     * @param id
+     *            The id of the movie
+     * @return The movie found
+     * @throws MovieNotFoundException
+     *             Exception thrown when the movie is not found
+     */
+    private MovieDto getMovie(final String url, final UUID id) throws MovieNotFoundException {
+        // A cached movie is revalidated with its ETag, so that an unchanged movie
+        // is confirmed without being sent again
+        final CachedMovie cachedMovie = movieETagCache.get(id);
+        final ResponseEntity<MovieDto> response = (cachedMovie != null)
+            ? restTemplate.exchange(url, HttpMethod.GET, createRevalidationRequest(cachedMovie), MovieDto.class)
+            : restTemplate.getForEntity(url, MovieDto.class);
+        if (response.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
+            movieETagCache.invalidate(id);
+            throw new MovieNotFoundException();
+        }
+        if (response.getStatusCode().equals(HttpStatus.NOT_MODIFIED) && cachedMovie != null) {
+            return cachedMovie.getMovie();
+        }
+
+        final String eTag = response.getHeaders().getETag();
+        if (eTag != null && response.getBody() != null) {
+            movieETagCache.put(id, eTag, response.getBody());
+        }
+
+        return response.getBody();
+    }
+
+    /**
+     * Runs a call to the movie service on the service call pool, and retries it
+     * on the shared retry timer while it fails because the movie was modified
+     * concurrently. The retries are limited by the retry budget of the movie
+     * service and the deadline of the retry handler, which also bounds the wait
+     * of the caller.
+     * 
+     * @param call
+     *            The call
+     * @return A future that completes with the result of the call
+     */
+    private <T> CompletableFuture<T> runWithRetries(final Callable<T> call) {
+        return retryHandler.run(() -> serviceCallExecutor.submit(call),
+            ex -> ex instanceof MovieConditionalException);
+    }
+
+    /**
+     * Calls a like or unlike URL of the movie service
+     * 
+     * @param url
+     *            The URL
+     * @return The like status of the movie after the call
+     * @throws MovieNotFoundException
+     *             Exception thrown when the movie is not found
+     */
+    private LikeStatus getLikeStatus(final String url) throws MovieNotFoundException {
+        final ResponseEntity<LikeStatus> response = restTemplate.getForEntity(url, LikeStatus.class);
+        if (response.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
+            throw new MovieNotFoundException();
+        }
+
+        return response.getBody();
+    }
+
+    /**
+     * Creates a request that asks for a movie only if it has changed since it was
+     * cached
+     * 
+     * @param cachedMovie
+     *            The cached movie
+     * @return The request
+     */
+    private HttpEntity<Void> createRevalidationRequest(final CachedMovie cachedMovie) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(cachedMovie.getETag());
+
+        return new HttpEntity<>(headers);
+    }
 }
@@ -1,75 +1,102 @@
-const load = (movieId, totalLikes, hideOnLoad, showOnLoad, hideOnLike, showOnLike) => {
-    initLoading(hideOnLoad, showOnLoad);
-
-    fetch('/movie/likestatus/' + movieId, {
-        method : 'GET',
-        headers : {
-            'Accept' : 'application/json'
-        },
-        credentials : 'same-origin'
-    })
-    .then(response => response.json())
-    .then(response => {
-        showOnLoad.forEach(el => el.style.display = 'none');
-        hideOnLoad.forEach(el => el.style.display = '');
-
-        showOnLike.forEach(el => el.style.display = (response.hasLiked ? '' : 'none'));
-        hideOnLike.forEach(el => el.style.display = (response.hasLiked ? 'none' : ''));
+const MAX_MOVIES_PER_REQUEST = 100;
 
-        totalLikes.innerHTML = response.totalLikes;
-    })
-};
-
-const initLoading = (hideOnLoad, showOnLoad) => {
-    showOnLoad.forEach(el => el.style.display = '');
-    hideOnLoad.forEach(el => el.style.display = 'none');
-};
-
-export const createLikeStatus = element => {
-    const movieId = element.getAttribute('movie-id');
+const getRequestHeaders = contentType => {
     const csrfHeader = document.querySelector('meta[name="_csrf_header"]').content;
     const csrf = document.querySelector('meta[name="_csrf"]').content;
-    const totalLikes = element.querySelector('.total-likes');
-    const hideOnLoad = Array.prototype.slice.call(element.querySelectorAll('.hide-on-load'));
-    const showOnLoad = Array.prototype.slice.call(element.querySelectorAll('.show-on-load'));
-    const hideOnLike = Array.prototype.slice.call(element.querySelectorAll('.hide-on-like'));
-    const showOnLike = Array.prototype.slice.call(element.querySelectorAll('.show-on-like'));
-    const likeButtons = Array.prototype.slice.call(element.querySelectorAll('.like-button'));
-    const unlikeButtons = Array.prototype.slice.call(element.querySelectorAll('.unlike-button'));
 
     const headers = {
-        'Content-Type' : 'application/x-www-form-urlencoded',
+        'Content-Type' : contentType,
         'Accept' : 'application/json'
     };
     headers[csrfHeader] = csrf;
 
+    return headers;
+};
+
+const show = (likeStatus, response) => {
+    likeStatus.showOnLoad.forEach(el => el.style.display = 'none');
+    likeStatus.hideOnLoad.forEach(el => el.style.display = '');
+
+    if (!response) {
+        return;
+    }
+
+    likeStatus.showOnLike.forEach(el => el.style.display = (response.hasLiked ? '' : 'none'));
+    likeStatus.hideOnLike.forEach(el => el.style.display = (response.hasLiked ? 'none' : ''));
+
+    likeStatus.totalLikes.innerHTML = response.totalLikes;
+};
+
+const load = likeStatuses => {
+    for (let i = 0; i < likeStatuses.length; i += MAX_MOVIES_PER_REQUEST) {
+        const batch = likeStatuses.slice(i, i + MAX_MOVIES_PER_REQUEST);
+        batch.forEach(likeStatus => initLoading(likeStatus));
+
+        fetch('/movie/likestatus', {
+            method : 'POST',
+            headers : getRequestHeaders('application/json'),
+            credentials : 'same-origin',
+            body : JSON.stringify(batch.map(likeStatus => likeStatus.movieId))
+        })
+        .then(response => response.json())
+        .then(response => {
+            batch.forEach(likeStatus => show(likeStatus, response[likeStatus.movieId]));
+        });
+    }
+};
+
+const initLoading = likeStatus => {
+    likeStatus.showOnLoad.forEach(el => el.style.display = '');
+    likeStatus.hideOnLoad.forEach(el => el.style.display = 'none');
+};
+
+const toggleLike = (likeStatus, url) => {
+    initLoading(likeStatus);
+
+    fetch(url, {
+        method : 'post',
+        headers : getRequestHeaders('application/x-www-form-urlencoded'),
+        credentials : 'same-origin',
+        body : `id=${likeStatus.movieId}`,
+    })
+    .then(response => {
+        if (response.ok) {
+            response.json().then(result => show(likeStatus, result));
+        }
+        else {
+            load([ likeStatus ]);
+        }
+    });
+};
+
+const createLikeStatus = element => {
+    const likeStatus = {
+        movieId : element.getAttribute('movie-id'),
+        isLoaded : element.hasAttribute('loaded'),
+        totalLikes : element.querySelector('.total-likes'),
+        hideOnLoad : Array.prototype.slice.call(element.querySelectorAll('.hide-on-load')),
+        showOnLoad : Array.prototype.slice.call(element.querySelectorAll('.show-on-load')),
+        hideOnLike : Array.prototype.slice.call(element.querySelectorAll('.hide-on-like')),
+        showOnLike : Array.prototype.slice.call(element.querySelectorAll('.show-on-like'))
+    };
+    const likeButtons = Array.prototype.slice.call(element.querySelectorAll('.like-button'));
+    const unlikeButtons = Array.prototype.slice.call(element.querySelectorAll('.unlike-button'));
+
     likeButtons.forEach(button => {
         button.addEventListener('click', () => {
-            initLoading(hideOnLoad, showOnLoad);
-
-            fetch('/movie/like', {
-                method : 'post',
-                headers : headers,
-                credentials : 'same-origin',
-                body : `id=${movieId}`,
-            })
-            .then(() => load(movieId, totalLikes, hideOnLoad, showOnLoad, hideOnLike, showOnLike));
+            toggleLike(likeStatus, '/movie/like');
         });
     });
 
     unlikeButtons.forEach(button => {
         button.addEventListener('click', () => {
-            initLoading(hideOnLoad, showOnLoad);
-
-            fetch('/movie/unlike', {
-                method : 'post',
-                headers : headers,
-                credentials : 'same-origin',
-                body : `id=${movieId}`,
-            })
-            .then(() => load(movieId, totalLikes, hideOnLoad, showOnLoad, hideOnLike, showOnLike));
+            toggleLike(likeStatus, '/movie/unlike');
         });
     });
 
-    load(movieId, totalLikes, hideOnLoad, showOnLoad, hideOnLike, showOnLike);
+    return likeStatus;
+};
+
+export const createLikeStatuses = elements => {
+    load(elements.map(createLikeStatus).filter(likeStatus => !likeStatus.isLoaded));
 };
\ No newline at end of file
@@ -0,0 +1,228 @@
+package com.printezisn.moviestore.website.configuration.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.printezisn.moviestore.website.configuration.properties.HedgingProperties;
+import com.printezisn.moviestore.website.configuration.rest.RequestAbortHandle;
+import com.printezisn.moviestore.website.movie.exceptions.MovieNotFoundException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Contains unit tests for the HedgedCallExecutor class
+ */
+public class HedgedCallExecutorTest {
+
+    private static final String OPERATION = "movie-get";
+    private static final String PRIMARY_URL = "http://primary";
+    private static final String HEDGE_URL = "http://hedge";
+    private static final List<String> HEDGE_URLS = Collections.singletonList(HEDGE_URL);
+    private static final int WARM_UP_CALLS = 20;
+
+    private HedgingProperties hedgingProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private CountDownLatch slowPrimaryLatch;
+
+    private HedgedCallExecutor hedgedCallExecutor;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        slowPrimaryLatch = new CountDownLatch(1);
+
+        hedgingProperties = new HedgingProperties();
+        hedgingProperties.setEnabled(true);
+        hedgingProperties.setMaxPercentage(100);
+        hedgingProperties.setMinDelay(20);
+        hedgingProperties.setWindow(10000);
+        hedgingProperties.setPoolSize(4);
+        hedgingProperties.setQueueCapacity(10);
+    }
+
+    /**
+     * Cleans up after each test
+     */
+    @After
+    public void tearDown() {
+        slowPrimaryLatch.countDown();
+        if (hedgedCallExecutor != null) {
+            hedgedCallExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Tests if reads go to the primary instance on the calling thread when
+     * hedging is disabled
+     */
+    @Test
+    public void test_call_disabled() throws Exception {
+        hedgingProperties.setEnabled(false);
+        hedgedCallExecutor = createHedgedCallExecutor();
+
+        final Thread thread = hedgedCallExecutor.call(OPERATION, PRIMARY_URL, HEDGE_URLS,
+            serviceUrl -> Thread.currentThread());
+
+        assertSame(Thread.currentThread(), thread);
+    }
+
+    /**
+     * Tests if a slow read isn't hedged before enough latencies are recorded
+     */
+    @Test
+    public void test_call_noLatencies() throws Exception {
+        hedgedCallExecutor = createHedgedCallExecutor();
+
+        final String result = hedgedCallExecutor.call(OPERATION, PRIMARY_URL, HEDGE_URLS, serviceUrl -> {
+            Thread.sleep(100);
+
+            return serviceUrl;
+        });
+
+        assertEquals(PRIMARY_URL, result);
+    }
+
+    /**
+     * Tests if a slow read is hedged and the reply of the other instance is
+     * returned
+     */
+    @Test
+    public void test_call_hedged() throws Exception {
+        hedgedCallExecutor = createHedgedCallExecutor();
+        warmUp(hedgedCallExecutor);
+
+        final String result = hedgedCallExecutor.call(OPERATION, PRIMARY_URL, HEDGE_URLS, this::slowPrimary);
+
+        assertEquals(HEDGE_URL, result);
+        assertEquals(1, meterRegistry.get("service.hedging.hedged").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("service.hedging.won").counter().count(), 0);
+    }
+
+    /**
+     * Tests if the request of the primary instance is aborted when the hedged
+     * request wins
+     */
+    @Test
+    public void test_call_hedgedPrimaryAborted() throws Exception {
+        hedgedCallExecutor = createHedgedCallExecutor();
+        warmUp(hedgedCallExecutor);
+        final HttpUriRequest primaryRequest = mock(HttpUriRequest.class);
+
+        final String result = hedgedCallExecutor.call(OPERATION, PRIMARY_URL, HEDGE_URLS, serviceUrl -> {
+            if (serviceUrl.equals(PRIMARY_URL)) {
+                RequestAbortHandle.register(primaryRequest);
+            }
+
+            return slowPrimary(serviceUrl);
+        });
+
+        assertEquals(HEDGE_URL, result);
+        verify(primaryRequest).abort();
+    }
+
+    /**
+     * Tests if a read is sent on the calling thread when the pool of the hedged
+     * reads is shut down and rejects it
+     */
+    @Test
+    public void test_call_rejected() throws Exception {
+        hedgedCallExecutor = createHedgedCallExecutor();
+        hedgedCallExecutor.shutdown();
+
+        final Thread thread = hedgedCallExecutor.call(OPERATION, PRIMARY_URL, HEDGE_URLS,
+            serviceUrl -> Thread.currentThread());
+
+        assertSame(Thread.currentThread(), thread);
+    }
+
+    /**
+     * Tests if a slow read isn't hedged when the hedging budget is exhausted
+     */
+    @Test
+    public void test_call_budgetExhausted() throws Exception {
+        hedgingProperties.setMaxPercentage(0);
+        hedgedCallExecutor = createHedgedCallExecutor();
+        warmUp(hedgedCallExecutor);
+
+        final String result = hedgedCallExecutor.call(OPERATION, PRIMARY_URL, HEDGE_URLS, serviceUrl -> {
+            Thread.sleep(100);
+
+            return serviceUrl;
+        });
+
+        assertEquals(PRIMARY_URL, result);
+        assertEquals(0, meterRegistry.find("service.hedging.hedged").counters().size());
+    }
+
+    /**
+     * Tests if the exception of the read is thrown when both instances fail
+     */
+    @Test(expected = MovieNotFoundException.class)
+    public void test_call_bothFail() throws Exception {
+        hedgedCallExecutor = createHedgedCallExecutor();
+        warmUp(hedgedCallExecutor);
+
+        hedgedCallExecutor.call(OPERATION, PRIMARY_URL, HEDGE_URLS, serviceUrl -> {
+            if (serviceUrl.equals(PRIMARY_URL)) {
+                Thread.sleep(100);
+            }
+
+            throw new MovieNotFoundException();
+        });
+    }
+
+    /**
+     * Creates the hedged call executor
+     * 
+     * @return The hedged call executor
+     */
+    private HedgedCallExecutor createHedgedCallExecutor() {
+        return new HedgedCallExecutor(hedgingProperties, meterRegistry, 5000);
+    }
+
+    /**
+     * Records enough fast reads for the hedging to start
+     * 
+     * @param hedgedCallExecutor
+     *            The hedged call executor
+     */
+    private void warmUp(final HedgedCallExecutor hedgedCallExecutor) throws Exception {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            hedgedCallExecutor.call(OPERATION, PRIMARY_URL, HEDGE_URLS, serviceUrl -> serviceUrl);
+        }
+    }
+
+    /**
+     * Reads from an instance, blocking on the primary instance until the test
+     * ends
+     * 
+     * @param serviceUrl
+     *            The base URL of the instance
+     * @return The base URL of the instance
+     */
+    private String slowPrimary(final String serviceUrl) throws InterruptedException {
+        if (serviceUrl.equals(PRIMARY_URL)) {
+            slowPrimaryLatch.await(10, TimeUnit.SECONDS);
+        }
+
+        return serviceUrl;
+    }
+}
@@ -0,0 +1,55 @@
+package com.printezisn.moviestore.website.configuration.async;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Contains unit tests for the LatencyWindow class
+ */
+public class LatencyWindowTest {
+
+    /**
+     * Tests if no percentile is computed before the minimum samples
+     */
+    @Test
+    public void test_getPercentile_notEnoughSamples() {
+        final LatencyWindow latencyWindow = new LatencyWindow(10, 5);
+        for (int i = 0; i < 4; i++) {
+            latencyWindow.record(i);
+        }
+
+        assertEquals(-1, latencyWindow.getPercentile(95));
+    }
+
+    /**
+     * Tests if the percentiles of the recorded latencies are computed
+     */
+    @Test
+    public void test_getPercentile_success() {
+        final LatencyWindow latencyWindow = new LatencyWindow(100, 10);
+        for (int i = 100; i >= 1; i--) {
+            latencyWindow.record(i);
+        }
+
+        assertEquals(50, latencyWindow.getPercentile(50));
+        assertEquals(95, latencyWindow.getPercentile(95));
+        assertEquals(100, latencyWindow.getPercentile(100));
+    }
+
+    /**
+     * Tests if only the latest latencies are kept
+     */
+    @Test
+    public void test_getPercentile_oldSamplesDropped() {
+        final LatencyWindow latencyWindow = new LatencyWindow(5, 5);
+        for (int i = 0; i < 5; i++) {
+            latencyWindow.record(1000);
+        }
+        for (int i = 0; i < 5; i++) {
+            latencyWindow.record(10);
+        }
+
+        assertEquals(10, latencyWindow.getPercentile(100));
+    }
+}
@@ -0,0 +1,136 @@
+package com.printezisn.moviestore.website.configuration.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.printezisn.moviestore.website.movie.exceptions.MovieNotFoundException;
+
+/**
+ * Contains unit tests for the ServiceCallExecutor class
+ */
+public class ServiceCallExecutorTest {
+
+    private static final int POOL_SIZE = 1;
+    private static final int QUEUE_CAPACITY = 1;
+    private static final long TIMEOUT = 200;
+
+    private ServiceCallExecutor serviceCallExecutor;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        serviceCallExecutor = new ServiceCallExecutor(POOL_SIZE, QUEUE_CAPACITY, TIMEOUT);
+    }
+
+    /**
+     * Cleans up after each test
+     */
+    @After
+    public void tearDown() {
+        serviceCallExecutor.shutdown();
+        LocaleContextHolder.resetLocaleContext();
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Tests if the result of a call is returned
+     */
+    @Test
+    public void test_submit_success() throws Exception {
+        final CompletableFuture<String> future = serviceCallExecutor.submit(() -> "result");
+
+        assertEquals("result", serviceCallExecutor.await(future));
+    }
+
+    /**
+     * Tests if the exception of a call is thrown as it is
+     */
+    @Test(expected = MovieNotFoundException.class)
+    public void test_submit_exception() throws Exception {
+        final CompletableFuture<String> future = serviceCallExecutor.submit(() -> {
+            throw new MovieNotFoundException();
+        });
+
+        serviceCallExecutor.await(future);
+    }
+
+    /**
+     * Tests the scenario in which a call doesn't complete in time
+     */
+    @Test(expected = TimeoutException.class)
+    public void test_submit_timeout() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            final CompletableFuture<Boolean> future = serviceCallExecutor
+                .submit(() -> latch.await(10, TimeUnit.SECONDS));
+
+            serviceCallExecutor.await(future);
+        }
+        finally {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Tests if a call runs with the locale and the security context of the thread
+     * that submitted it, and if the context of the worker thread is restored
+     */
+    @Test
+    public void test_submit_propagatesContext() throws Exception {
+        final Authentication authentication = new UsernamePasswordAuthenticationToken("test_account", null);
+        LocaleContextHolder.setLocale(Locale.GERMAN);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        final CompletableFuture<Locale> locale = serviceCallExecutor.submit(LocaleContextHolder::getLocale);
+        final CompletableFuture<Authentication> callAuthentication = serviceCallExecutor
+            .submit(() -> SecurityContextHolder.getContext().getAuthentication());
+
+        assertEquals(Locale.GERMAN, serviceCallExecutor.await(locale));
+        assertSame(authentication, serviceCallExecutor.await(callAuthentication));
+
+        LocaleContextHolder.resetLocaleContext();
+        SecurityContextHolder.clearContext();
+
+        final CompletableFuture<Authentication> workerAuthentication = serviceCallExecutor
+            .submit(() -> SecurityContextHolder.getContext().getAuthentication());
+
+        assertNull(serviceCallExecutor.await(workerAuthentication));
+    }
+
+    /**
+     * Tests if a call is rejected when the pool is full
+     */
+    @Test(expected = RejectedExecutionException.class)
+    public void test_submit_poolFull() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            serviceCallExecutor.submit(() -> latch.await(10, TimeUnit.SECONDS));
+            serviceCallExecutor.submit(() -> latch.await(10, TimeUnit.SECONDS));
+
+            final CompletableFuture<Boolean> future = serviceCallExecutor.submit(() -> true);
+
+            serviceCallExecutor.await(future);
+        }
+        finally {
+            latch.countDown();
+        }
+    }
+}
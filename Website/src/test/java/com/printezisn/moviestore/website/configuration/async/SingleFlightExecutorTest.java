@@ -0,0 +1,181 @@
+package com.printezisn.moviestore.website.configuration.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.printezisn.moviestore.website.movie.exceptions.MovieNotFoundException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Contains unit tests for the SingleFlightExecutor class
+ */
+public class SingleFlightExecutorTest {
+
+    private static final String OPERATION = "movie-search";
+    private static final String KEY = "/movie/search?lang=en";
+
+    private MeterRegistry meterRegistry;
+
+    private SingleFlightExecutor singleFlightExecutor;
+
+    private ExecutorService executorService;
+
+    private CountDownLatch latch;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlightExecutor = new SingleFlightExecutor(meterRegistry);
+        executorService = Executors.newFixedThreadPool(2);
+        latch = new CountDownLatch(1);
+    }
+
+    /**
+     * Cleans up after each test
+     */
+    @After
+    public void tearDown() {
+        latch.countDown();
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Tests if concurrent identical reads share a single call and its result
+     */
+    @Test
+    public void test_run_coalesced() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final Object expectedResult = new Object();
+
+        final Future<Object> first = executorService.submit(() -> singleFlightExecutor.run(OPERATION, KEY, () -> {
+            calls.incrementAndGet();
+            latch.await(10, TimeUnit.SECONDS);
+
+            return expectedResult;
+        }));
+        awaitCount("originated", 1);
+
+        final Future<Object> second = executorService.submit(() -> singleFlightExecutor.run(OPERATION, KEY, () -> {
+            calls.incrementAndGet();
+
+            return new Object();
+        }));
+        awaitCount("coalesced", 1);
+        latch.countDown();
+
+        assertSame(expectedResult, first.get(10, TimeUnit.SECONDS));
+        assertSame(expectedResult, second.get(10, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * Tests if the exception of a read is thrown to the coalesced reads
+     */
+    @Test
+    public void test_run_exceptionShared() throws Exception {
+        final Future<Object> first = executorService.submit(() -> singleFlightExecutor.run(OPERATION, KEY, () -> {
+            latch.await(10, TimeUnit.SECONDS);
+
+            throw new MovieNotFoundException();
+        }));
+        awaitCount("originated", 1);
+
+        final Future<Object> second = executorService
+            .submit(() -> singleFlightExecutor.run(OPERATION, KEY, Object::new));
+        awaitCount("coalesced", 1);
+        latch.countDown();
+
+        assertFailure(first, MovieNotFoundException.class);
+        assertFailure(second, MovieNotFoundException.class);
+    }
+
+    /**
+     * Tests if reads with different keys aren't coalesced
+     */
+    @Test
+    public void test_run_differentKeys() throws Exception {
+        final Future<Object> first = executorService.submit(() -> singleFlightExecutor.run(OPERATION, KEY, () -> {
+            latch.await(10, TimeUnit.SECONDS);
+
+            return "first";
+        }));
+        awaitCount("originated", 1);
+
+        assertEquals("second", singleFlightExecutor.run(OPERATION, KEY + "&text=test", () -> "second"));
+        latch.countDown();
+
+        assertEquals("first", first.get(10, TimeUnit.SECONDS));
+        assertEquals(2, meterRegistry.get("service.singleflight.originated").counter().count(), 0);
+    }
+
+    /**
+     * Tests if a read that starts after an identical read has completed calls
+     * the service again
+     */
+    @Test
+    public void test_run_afterCompletion() throws Exception {
+        assertEquals("first", singleFlightExecutor.run(OPERATION, KEY, () -> "first"));
+        assertEquals("second", singleFlightExecutor.run(OPERATION, KEY, () -> "second"));
+
+        assertEquals(2, meterRegistry.get("service.singleflight.originated").counter().count(), 0);
+    }
+
+    /**
+     * Waits until a counter of the executor reaches a count
+     * 
+     * @param counter
+     *            The name of the counter
+     * @param count
+     *            The expected count
+     */
+    private void awaitCount(final String counter, final int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.find("service.singleflight." + counter).counters().stream()
+            .mapToDouble(c -> c.count()).sum() < count) {
+
+            if (System.nanoTime() > deadline) {
+                fail("The counter didn't reach the expected count");
+            }
+
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Asserts that a read failed with an exception
+     * 
+     * @param future
+     *            The future of the read
+     * @param exceptionClass
+     *            The class of the expected exception
+     */
+    private void assertFailure(final Future<?> future, final Class<? extends Exception> exceptionClass)
+        throws Exception {
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("The read didn't fail");
+        }
+        catch (final ExecutionException ex) {
+            assertEquals(exceptionClass, ex.getCause().getClass());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.printezisn.moviestore.website.configuration.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.website.configuration.cache.MovieETagCache.CachedMovie;
+import com.printezisn.moviestore.website.configuration.properties.MovieCacheProperties;
+
+/**
+ * Contains unit tests for the MovieETagCache class
+ */
+public class MovieETagCacheTest {
+
+    private MovieETagCache movieETagCache;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        final MovieCacheProperties movieCacheProperties = new MovieCacheProperties();
+        movieCacheProperties.setMaximumSize(100);
+        movieCacheProperties.setTtl(60000);
+
+        movieETagCache = new MovieETagCache(movieCacheProperties);
+    }
+
+    /**
+     * Tests if a cached movie is returned together with its ETag
+     */
+    @Test
+    public void test_put() {
+        final UUID id = UUID.randomUUID();
+        final MovieDto movie = new MovieDto();
+
+        movieETagCache.put(id, "\"rev1\"", movie);
+        final CachedMovie result = movieETagCache.get(id);
+
+        assertEquals("\"rev1\"", result.getETag());
+        assertSame(movie, result.getMovie());
+        assertNull(movieETagCache.get(UUID.randomUUID()));
+    }
+
+    /**
+     * Tests if an evicted movie isn't returned
+     */
+    @Test
+    public void test_invalidate() {
+        final UUID id = UUID.randomUUID();
+        movieETagCache.put(id, "\"rev1\"", new MovieDto());
+
+        movieETagCache.invalidate(id);
+
+        assertNull(movieETagCache.get(id));
+    }
+}
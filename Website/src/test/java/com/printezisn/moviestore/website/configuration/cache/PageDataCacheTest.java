@@ -0,0 +1,251 @@
+package com.printezisn.moviestore.website.configuration.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.printezisn.moviestore.website.configuration.properties.PageCacheProperties;
+
+/**
+ * Contains unit tests for the PageDataCache class
+ */
+public class PageDataCacheTest {
+
+    private static final String OPERATION = "movie-get";
+    private static final String KEY = "/movie/get/1?lang=en";
+    private static final long SOFT_TTL = 1000;
+    private static final long HARD_TTL = 5000;
+
+    private AtomicLong clock;
+
+    private PageDataCache pageDataCache;
+
+    private AtomicInteger loads;
+
+    private CountDownLatch refreshLatch;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        final PageCacheProperties pageCacheProperties = new PageCacheProperties();
+        pageCacheProperties.setMaximumSize(100);
+        pageCacheProperties.setSoftTtl(SOFT_TTL);
+        pageCacheProperties.setHardTtl(HARD_TTL);
+        pageCacheProperties.setRefreshPoolSize(1);
+        pageCacheProperties.setRefreshQueueCapacity(1);
+
+        clock = new AtomicLong();
+        pageDataCache = new PageDataCache(pageCacheProperties, 5000, clock::get);
+        loads = new AtomicInteger();
+        refreshLatch = new CountDownLatch(0);
+    }
+
+    /**
+     * Cleans up after each test
+     */
+    @After
+    public void tearDown() {
+        refreshLatch.countDown();
+        pageDataCache.shutdown();
+    }
+
+    /**
+     * Tests if a fresh entry is served without loading it again
+     */
+    @Test
+    public void test_get_fresh() throws Exception {
+        assertEquals("value1", get());
+
+        advance(SOFT_TTL - 1);
+
+        assertEquals("value1", get());
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Tests if a stale entry is served while it is refreshed in the background
+     */
+    @Test
+    public void test_get_stale() throws Exception {
+        get();
+        refreshLatch = new CountDownLatch(1);
+        advance(SOFT_TTL);
+
+        assertEquals("value1", get());
+        assertEquals("value1", get());
+
+        refreshLatch.countDown();
+        awaitCondition(() -> loads.get() == 2);
+        awaitCondition(() -> {
+            try {
+                return get().equals("value2");
+            }
+            catch (final Exception ex) {
+                return false;
+            }
+        });
+
+        // Both stale reads shared a single refresh
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests if a stale entry is still served when the pool of the refreshes is
+     * full, and if it is refreshed by a later read once the pool has capacity
+     */
+    @Test
+    public void test_get_refreshRejected() throws Exception {
+        final String[] keys = { KEY, "/movie/get/2?lang=en", "/movie/get/3?lang=en" };
+        for (final String key : keys) {
+            pageDataCache.get(OPERATION, key, () -> "initial");
+        }
+        refreshLatch = new CountDownLatch(1);
+        advance(SOFT_TTL);
+
+        // The first two refreshes take the only thread and queue slot of the pool
+        for (final String key : keys) {
+            assertEquals("initial", pageDataCache.get(OPERATION, key, () -> {
+                refreshLatch.await(10, TimeUnit.SECONDS);
+                loads.incrementAndGet();
+
+                return "refreshed";
+            }));
+        }
+
+        refreshLatch.countDown();
+        awaitCondition(() -> {
+            try {
+                return pageDataCache.get(OPERATION, keys[2], () -> "retried").equals("retried");
+            }
+            catch (final Exception ex) {
+                return false;
+            }
+        });
+
+        // The rejected refresh never ran
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests if an expired entry is loaded before it is served
+     */
+    @Test
+    public void test_get_expired() throws Exception {
+        get();
+        advance(HARD_TTL);
+
+        assertEquals("value2", get());
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests if only the matching entries of an operation are evicted
+     */
+    @Test
+    public void test_invalidate() throws Exception {
+        pageDataCache.get(OPERATION, KEY, () -> "en");
+        pageDataCache.get(OPERATION, "/movie/get/2?lang=en", () -> "other");
+        pageDataCache.get("movie-search", KEY, () -> "search");
+
+        pageDataCache.invalidate(OPERATION, key -> key.startsWith("/movie/get/1?"));
+
+        assertEquals("reloaded", pageDataCache.get(OPERATION, KEY, () -> "reloaded"));
+        assertEquals("other", pageDataCache.get(OPERATION, "/movie/get/2?lang=en", () -> "reloaded"));
+        assertEquals("search", pageDataCache.get("movie-search", KEY, () -> "reloaded"));
+    }
+
+    /**
+     * Tests if a refresh that started before an eviction doesn't store its
+     * result
+     */
+    @Test
+    public void test_invalidate_duringRefresh() throws Exception {
+        get();
+        refreshLatch = new CountDownLatch(1);
+        advance(SOFT_TTL);
+        get();
+
+        pageDataCache.invalidate(OPERATION);
+        refreshLatch.countDown();
+        awaitCondition(() -> loads.get() == 2);
+
+        assertEquals("value3", get());
+    }
+
+    /**
+     * Tests if a refresh that started before an eviction of other entries
+     * stores its result
+     */
+    @Test
+    public void test_invalidate_otherKeyDuringRefresh() throws Exception {
+        get();
+        refreshLatch = new CountDownLatch(1);
+        advance(SOFT_TTL);
+        get();
+
+        pageDataCache.invalidate("movie-search");
+        pageDataCache.invalidate(OPERATION, key -> key.startsWith("/movie/get/2?"));
+        refreshLatch.countDown();
+        awaitCondition(() -> {
+            try {
+                return get().equals("value2");
+            }
+            catch (final Exception ex) {
+                return false;
+            }
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Reads the test entry, with a loader that returns a new value each time
+     * 
+     * @return The value
+     */
+    private String get() throws Exception {
+        return pageDataCache.get(OPERATION, KEY, () -> {
+            refreshLatch.await(10, TimeUnit.SECONDS);
+
+            return "value" + loads.incrementAndGet();
+        });
+    }
+
+    /**
+     * Moves the clock forward
+     * 
+     * @param millis
+     *            The milliseconds to move
+     */
+    private void advance(final long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Waits until a condition is true
+     * 
+     * @param condition
+     *            The condition
+     */
+    private void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("The condition wasn't met in time");
+            }
+
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.printezisn.moviestore.website.configuration.properties.CircuitBreakerProperties;
+
+/**
+ * Contains unit tests for the CircuitBreaker class
+ */
+public class CircuitBreakerTest {
+
+    private static final long SLOW_CALL_DURATION = 1000;
+    private static final long OPEN_DURATION = 5000;
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(SLOW_CALL_DURATION);
+
+    private AtomicLong clock;
+
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        final CircuitBreakerProperties properties = new CircuitBreakerProperties();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(50);
+        properties.setSlowCallDuration(SLOW_CALL_DURATION);
+        properties.setSlowCallRateThreshold(75);
+        properties.setOpenDuration(OPEN_DURATION);
+        properties.setHalfOpenCalls(2);
+
+        clock = new AtomicLong();
+        circuitBreaker = new CircuitBreaker(properties, clock::get);
+    }
+
+    /**
+     * Tests if the circuit breaker stays closed while the failure rate is below
+     * the threshold
+     */
+    @Test
+    public void test_onResult_belowThreshold() {
+        record(false, FAST, 3);
+        record(true, FAST, 2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    /**
+     * Tests if the circuit breaker doesn't open before the minimum number of
+     * calls
+     */
+    @Test
+    public void test_onResult_belowMinimumCalls() {
+        record(true, FAST, 3);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    /**
+     * Tests if the circuit breaker opens when the failure rate reaches the
+     * threshold, and rejects calls while open
+     */
+    @Test
+    public void test_onResult_failureRate() {
+        record(false, FAST, 2);
+        record(true, FAST, 2);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    /**
+     * Tests if the circuit breaker opens when the slow call rate reaches the
+     * threshold
+     */
+    @Test
+    public void test_onResult_slowCallRate() {
+        record(false, FAST, 1);
+        record(false, SLOW, 3);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    /**
+     * Tests if old calls leave the sliding window
+     */
+    @Test
+    public void test_onResult_slidingWindow() {
+        record(false, FAST, 6);
+        record(true, FAST, 4);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        // The oldest successful call leaves the window, so half of the calls failed
+        record(true, FAST, 1);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    /**
+     * Tests if the circuit breaker lets a limited number of probes through after
+     * the open duration, and closes when they succeed
+     */
+    @Test
+    public void test_tryAcquire_halfOpenSuccess() {
+        record(true, FAST, 4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION));
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onResult(false, FAST);
+        circuitBreaker.onResult(false, FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    /**
+     * Tests if the circuit breaker opens again when a probe fails
+     */
+    @Test
+    public void test_tryAcquire_halfOpenFailure() {
+        record(true, FAST, 4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION));
+
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onResult(true, FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    /**
+     * Records the same outcome for many calls
+     * 
+     * @param failed
+     *            Indicates if the calls failed
+     * @param duration
+     *            The duration of the calls in nanoseconds
+     * @param calls
+     *            The number of calls
+     */
+    private void record(final boolean failed, final long duration, final int calls) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.onResult(failed, duration);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Contains unit tests for the InstrumentedConnectionManager class
+ */
+public class InstrumentedConnectionManagerTest {
+
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("localhost", 9000));
+    private static final int MAX_TOTAL = 4;
+
+    private MeterRegistry meterRegistry;
+
+    private InstrumentedConnectionManager connectionManager;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        connectionManager = new InstrumentedConnectionManager(meterRegistry);
+        connectionManager.setMaxTotal(MAX_TOTAL);
+    }
+
+    /**
+     * Cleans up after each test
+     */
+    @After
+    public void tearDown() {
+        connectionManager.close();
+    }
+
+    /**
+     * Tests if the metrics follow a leased and released connection
+     */
+    @Test
+    public void test_metrics_leaseAndRelease() throws Exception {
+        final HttpClientConnection connection = connectionManager.requestConnection(ROUTE, null)
+            .get(1, TimeUnit.SECONDS);
+
+        assertEquals(1, meterRegistry.get("http.client.connections.lease").timer().count());
+        assertEquals(1, meterRegistry.get("http.client.connections.leased").gauge().value(), 0);
+        assertEquals(MAX_TOTAL, meterRegistry.get("http.client.connections.max").gauge().value(), 0);
+        assertEquals(0.25, meterRegistry.get("http.client.connections.utilisation").gauge().value(), 0);
+        assertEquals(1, meterRegistry.get("http.client.connections.created").functionCounter().count(), 0);
+        assertEquals(0, meterRegistry.get("http.client.connections.closed").functionCounter().count(), 0);
+
+        // The connection was never opened, so it is discarded instead of returned to
+        // the pool
+        connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, meterRegistry.get("http.client.connections.leased").gauge().value(), 0);
+        assertEquals(0, meterRegistry.get("http.client.connections.available").gauge().value(), 0);
+        assertEquals(0, meterRegistry.get("http.client.connections.utilisation").gauge().value(), 0);
+        assertEquals(1, meterRegistry.get("http.client.connections.closed").functionCounter().count(), 0);
+    }
+
+    /**
+     * Tests if the metrics count every created connection
+     */
+    @Test
+    public void test_metrics_multipleConnections() throws Exception {
+        connectionManager.requestConnection(ROUTE, null).get(1, TimeUnit.SECONDS);
+        connectionManager.requestConnection(ROUTE, null).get(1, TimeUnit.SECONDS);
+
+        assertEquals(2, meterRegistry.get("http.client.connections.lease").timer().count());
+        assertEquals(2, meterRegistry.get("http.client.connections.leased").gauge().value(), 0);
+        assertEquals(0, meterRegistry.get("http.client.connections.pending").gauge().value(), 0);
+        assertEquals(2, meterRegistry.get("http.client.connections.created").functionCounter().count(), 0);
+    }
+}
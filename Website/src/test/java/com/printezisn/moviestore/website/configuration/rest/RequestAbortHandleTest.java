@@ -0,0 +1,80 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Contains unit tests for the RequestAbortHandle class
+ */
+public class RequestAbortHandleTest {
+
+    @Mock
+    private HttpUriRequest request;
+
+    private RequestAbortHandle abortHandle;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        abortHandle = new RequestAbortHandle();
+    }
+
+    /**
+     * Tests if the requests registered while the handle is bound are aborted
+     */
+    @Test
+    public void test_abort_registeredRequest() throws Exception {
+        abortHandle.run(() -> {
+            RequestAbortHandle.register(request);
+
+            return null;
+        });
+        abortHandle.abort();
+
+        verify(request).abort();
+    }
+
+    /**
+     * Tests if a request registered after the handle is aborted is aborted
+     * immediately
+     */
+    @Test
+    public void test_register_alreadyAborted() throws Exception {
+        abortHandle.abort();
+
+        final boolean aborted = abortHandle.run(() -> {
+            RequestAbortHandle.register(request);
+
+            return RequestAbortHandle.isAborted();
+        });
+
+        assertTrue(aborted);
+        verify(request).abort();
+    }
+
+    /**
+     * Tests if a request isn't registered when no handle is bound to the thread
+     */
+    @Test
+    public void test_register_noHandle() throws Exception {
+        abortHandle.run(() -> null);
+
+        RequestAbortHandle.register(request);
+        abortHandle.abort();
+
+        assertFalse(RequestAbortHandle.isAborted());
+        verify(request, never()).abort();
+    }
+}
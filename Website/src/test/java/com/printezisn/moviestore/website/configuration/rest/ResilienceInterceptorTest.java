@@ -0,0 +1,196 @@
+package com.printezisn.moviestore.website.configuration.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.printezisn.moviestore.website.configuration.properties.BulkheadProperties;
+import com.printezisn.moviestore.website.configuration.properties.CircuitBreakerProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Contains unit tests for the ResilienceInterceptor class
+ */
+public class ResilienceInterceptorTest {
+
+    private static final String SERVICE = "localhost:9000";
+    private static final URI GET_URI = URI.create("http://" + SERVICE + "/movie/get/1?lang=en");
+    private static final URI SEARCH_URI = URI.create("http://" + SERVICE + "/movie/search?text=test");
+    private static final int MINIMUM_CALLS = 2;
+    private static final byte[] BODY = new byte[0];
+
+    @Mock
+    private HttpRequest request;
+
+    @Mock
+    private ClientHttpRequestExecution execution;
+
+    @Mock
+    private ClientHttpResponse response;
+
+    private MeterRegistry meterRegistry;
+
+    private ResilienceInterceptor resilienceInterceptor;
+
+    /**
+     * Initializes the test class
+     */
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        final CircuitBreakerProperties circuitBreakerProperties = new CircuitBreakerProperties();
+        circuitBreakerProperties.setWindowSize(10);
+        circuitBreakerProperties.setMinimumCalls(MINIMUM_CALLS);
+        circuitBreakerProperties.setFailureRateThreshold(50);
+        circuitBreakerProperties.setSlowCallDuration(10000);
+        circuitBreakerProperties.setSlowCallRateThreshold(100);
+        circuitBreakerProperties.setOpenDuration(10000);
+        circuitBreakerProperties.setHalfOpenCalls(1);
+
+        final BulkheadProperties bulkheadProperties = new BulkheadProperties();
+        bulkheadProperties.setMaxConcurrentCalls(10);
+        bulkheadProperties.getEndpoints().put("movie-search", 0);
+
+        meterRegistry = new SimpleMeterRegistry();
+        resilienceInterceptor = new ResilienceInterceptor(circuitBreakerProperties, bulkheadProperties,
+            meterRegistry);
+
+        when(request.getURI()).thenReturn(GET_URI);
+        when(execution.execute(request, BODY)).thenReturn(response);
+        when(response.getRawStatusCode()).thenReturn(200);
+    }
+
+    /**
+     * Tests if a successful call passes through the interceptor
+     */
+    @Test
+    public void test_intercept_success() throws Exception {
+        assertSame(response, resilienceInterceptor.intercept(request, BODY, execution));
+        assertEquals(CircuitBreaker.State.CLOSED, resilienceInterceptor.getCircuitBreaker(SERVICE).getState());
+        assertEquals(0, meterRegistry.get("service.bulkhead.active").tag("endpoint", "movie-get").gauge().value(),
+            0);
+    }
+
+    /**
+     * Tests if server errors open the circuit breaker, which then rejects calls
+     * without sending them
+     */
+    @Test
+    public void test_intercept_serverErrors() throws Exception {
+        when(response.getRawStatusCode()).thenReturn(503);
+
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            resilienceInterceptor.intercept(request, BODY, execution);
+        }
+
+        assertEquals(1, meterRegistry.get("service.circuitbreaker.state").tag("state", "open").gauge().value(), 0);
+
+        assertRejected();
+        assertEquals(1, meterRegistry.get("service.circuitbreaker.rejected").tag("service", SERVICE).counter()
+            .count(), 0);
+        verify(execution, times(MINIMUM_CALLS)).execute(request, BODY);
+    }
+
+    /**
+     * Tests if connection errors are counted as failures
+     */
+    @Test
+    public void test_intercept_connectionErrors() throws Exception {
+        final IOException exception = new IOException();
+        when(execution.execute(request, BODY)).thenThrow(exception);
+
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            try {
+                resilienceInterceptor.intercept(request, BODY, execution);
+                fail("The call didn't fail");
+            }
+            catch (final IOException ex) {
+                assertSame(exception, ex);
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, resilienceInterceptor.getCircuitBreaker(SERVICE).getState());
+    }
+
+    /**
+     * Tests if calls that fail because they were aborted aren't counted as
+     * failures
+     */
+    @Test
+    public void test_intercept_abortedCalls() throws Exception {
+        when(execution.execute(request, BODY)).thenThrow(new IOException());
+        final RequestAbortHandle abortHandle = new RequestAbortHandle();
+        abortHandle.abort();
+
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            try {
+                abortHandle.run(() -> resilienceInterceptor.intercept(request, BODY, execution));
+                fail("The call didn't fail");
+            }
+            catch (final IOException ex) {
+                // Expected
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, resilienceInterceptor.getCircuitBreaker(SERVICE).getState());
+    }
+
+    /**
+     * Tests if client errors aren't counted as failures
+     */
+    @Test
+    public void test_intercept_clientErrors() throws Exception {
+        when(response.getRawStatusCode()).thenReturn(404);
+
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            resilienceInterceptor.intercept(request, BODY, execution);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, resilienceInterceptor.getCircuitBreaker(SERVICE).getState());
+    }
+
+    /**
+     * Tests if a call is rejected when the bulkhead of its endpoint is full
+     */
+    @Test
+    public void test_intercept_bulkheadFull() throws Exception {
+        when(request.getURI()).thenReturn(SEARCH_URI);
+
+        assertRejected();
+        assertEquals(1, meterRegistry.get("service.bulkhead.rejected").tag("endpoint", "movie-search").counter()
+            .count(), 0);
+        verify(execution, never()).execute(any(), any());
+    }
+
+    /**
+     * Asserts that the interceptor rejects the request
+     */
+    private void assertRejected() throws Exception {
+        try {
+            resilienceInterceptor.intercept(request, BODY, execution);
+            fail("The call wasn't rejected");
+        }
+        catch (final CallRejectedException ex) {
+            // Expected
+        }
+    }
+}
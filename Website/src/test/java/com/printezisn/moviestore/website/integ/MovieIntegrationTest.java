@@ -1,5 +1,6 @@
 package com.printezisn.moviestore.website.integ;
 
+import static org.junit.Assert.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -9,10 +10,20 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -40,6 +51,9 @@ public class MovieIntegrationTest {
     private static final String TEST_DESCRIPTION = "Test description %s";
     private static final double TEST_RATING = 8;
     private static final int TEST_RELEASE_YEAR = 2000;
+    private static final int CONCURRENT_LIKERS = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(MovieIntegrationTest.class);
 
     @Autowired
     private ServiceProperties serviceProperties;
@@ -197,6 +211,10 @@ public class MovieIntegrationTest {
             .andExpect(redirectedUrl("/"));
     }
 
+    /**
+     * Tests if the like and unlike responses carry the like status that is later
+     * returned for the movie
+     */
     @Test
     public void test_like_end_to_end() throws Exception {
         final MovieDto movieDto = createNewMovie();
@@ -205,7 +223,9 @@ public class MovieIntegrationTest {
             .with(csrf())
             .with(user(TEST_AUTHENTICATED_USER))
             .param("id", movieDto.getId().toString()))
-            .andExpect(status().isOk());
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("totalLikes").value(1))
+            .andExpect(jsonPath("hasLiked").value(true));
 
         mockMvc.perform(get("/movie/likestatus/" + movieDto.getId())
             .with(csrf())
@@ -218,7 +238,9 @@ public class MovieIntegrationTest {
             .with(csrf())
             .with(user(TEST_AUTHENTICATED_USER))
             .param("id", movieDto.getId().toString()))
-            .andExpect(status().isOk());
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("totalLikes").value(0))
+            .andExpect(jsonPath("hasLiked").value(false));
 
         mockMvc.perform(get("/movie/likestatus/" + movieDto.getId())
             .with(csrf())
@@ -228,6 +250,57 @@ public class MovieIntegrationTest {
             .andExpect(jsonPath("hasLiked").value(false));
     }
 
+    /**
+     * Tests that concurrent like clicks on the same movie succeed with a single
+     * request each, and reports the latency percentiles of a click
+     */
+    @Test
+    public void test_like_concurrentClicks() throws Exception {
+        final MovieDto movieDto = createNewMovie();
+        final ExecutorService executorService = Executors.newFixedThreadPool(CONCURRENT_LIKERS);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        try {
+            final List<Future<Long>> futures = new ArrayList<>(CONCURRENT_LIKERS);
+            for (int i = 0; i < CONCURRENT_LIKERS; i++) {
+                final String account = "liker_" + i;
+                final Callable<Long> task = () -> {
+                    startLatch.await();
+
+                    final long start = System.nanoTime();
+                    mockMvc.perform(post("/movie/like")
+                        .with(csrf())
+                        .with(user(account))
+                        .param("id", movieDto.getId().toString()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("hasLiked").value(true));
+
+                    return System.nanoTime() - start;
+                };
+
+                futures.add(executorService.submit(task));
+            }
+
+            startLatch.countDown();
+
+            final List<Long> latencies = new ArrayList<>(CONCURRENT_LIKERS);
+            for (final Future<Long> future : futures) {
+                latencies.add(future.get());
+            }
+            Collections.sort(latencies);
+
+            log.info("Like click latency with {} concurrent users: p50={}ms, p99={}ms, max={}ms",
+                CONCURRENT_LIKERS,
+                latencies.get(latencies.size() / 2) / 1_000_000.0,
+                latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1) / 1_000_000.0,
+                latencies.get(latencies.size() - 1) / 1_000_000.0);
+            assertEquals(CONCURRENT_LIKERS, latencies.size());
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
     /**
      * Creates and returns a new movie
      * 
@@ -7,6 +7,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -26,6 +27,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -35,16 +38,20 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.MessageSource;
+import org.springframework.http.MediaType;
 import org.springframework.security.web.FilterChainProxy;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.printezisn.moviestore.common.AppUtils;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.common.models.movie.MovieResultModel;
 import com.printezisn.moviestore.website.movie.exceptions.MovieNotFoundException;
+import com.printezisn.moviestore.website.movie.models.MovieDetailsModel;
 import com.printezisn.moviestore.website.movie.services.MovieService;
 
 /**
@@ -101,26 +108,26 @@ public class MovieControllerTest {
      */
     @Test
     public void test_index_success() throws Exception {
-        final String url = "/?text=test_text&page=2&sort=rating&asc=true";
+        final String url = "/?text=test_text&cursor=test_cursor&sort=rating&asc=true";
 
         final MovieDto movieDto = new MovieDto();
         movieDto.setId(UUID.randomUUID());
 
         final MoviePagedResultModel result = MoviePagedResultModel.builder()
             .entries(List.of(movieDto))
-            .pageNumber(2)
-            .totalPages(5)
             .sortField("rating")
+            .nextCursor("next_cursor")
+            .previousCursor("previous_cursor")
             .build();
 
-        when(movieService.searchMovies("test_text", 2, "rating", true)).thenReturn(result);
+        when(movieService.searchMovies("test_text", "test_cursor", "rating", true)).thenReturn(result);
 
         mockMvc.perform(get(url))
             .andExpect(status().isOk())
             .andExpect(view().name("movie/index"))
             .andExpect(model().attribute("entries", hasItem(movieDto)))
-            .andExpect(model().attribute("page", result.getPageNumber()))
-            .andExpect(model().attribute("totalPages", result.getTotalPages()))
+            .andExpect(model().attribute("nextCursor", result.getNextCursor()))
+            .andExpect(model().attribute("previousCursor", result.getPreviousCursor()))
             .andExpect(model().attribute("sortField", result.getSortField()))
             .andExpect(model().attribute("isAscending", result.isAscending()));
     }
@@ -132,13 +139,17 @@ public class MovieControllerTest {
     public void test_getMovie_success() throws Exception {
         final UUID id = UUID.randomUUID();
         final MovieDto movieDto = mock(MovieDto.class);
+        final LikeStatus likeStatus = new LikeStatus(2, true);
 
-        when(movieService.getMovie(id)).thenReturn(movieDto);
+        when(movieService.getMovieDetails(TEST_AUTHENTICATED_USER, id))
+            .thenReturn(new MovieDetailsModel(movieDto, likeStatus));
 
-        mockMvc.perform(get("/movie/details/" + id + "?returnUrl=/home"))
+        mockMvc.perform(get("/movie/details/" + id + "?returnUrl=/home")
+            .with(user(TEST_AUTHENTICATED_USER)))
             .andExpect(status().isOk())
             .andExpect(view().name("movie/details"))
             .andExpect(model().attribute("movie", movieDto))
+            .andExpect(model().attribute("likeStatus", likeStatus))
             .andExpect(model().attribute("returnUrl", "/home"));
     }
 
@@ -150,7 +161,7 @@ public class MovieControllerTest {
     public void test_getMovie_notFound() throws Exception {
         final UUID id = UUID.randomUUID();
 
-        when(movieService.getMovie(id)).thenThrow(new MovieNotFoundException());
+        when(movieService.getMovieDetails(null, id)).thenThrow(new MovieNotFoundException());
 
         mockMvc.perform(get("/movie/details/" + id))
             .andExpect(status().is3xxRedirection())
@@ -169,7 +180,7 @@ public class MovieControllerTest {
     public void test_getMovie_exception() throws Exception {
         final UUID id = UUID.randomUUID();
 
-        when(movieService.getMovie(id)).thenThrow(new RuntimeException());
+        when(movieService.getMovieDetails(null, id)).thenThrow(new RuntimeException());
 
         mockMvc.perform(get("/movie/details/" + id))
             .andExpect(status().is3xxRedirection())
@@ -813,16 +824,13 @@ public class MovieControllerTest {
     public void test_likeStatus_success() throws Exception {
         final UUID movieId = UUID.randomUUID();
 
-        final MovieDto movieDto = new MovieDto();
-        movieDto.setTotalLikes(2);
-
-        when(movieService.getMovie(movieId)).thenReturn(movieDto);
-        when(movieService.hasLiked(TEST_AUTHENTICATED_USER, movieId)).thenReturn(true);
+        when(movieService.getLikeStatuses(TEST_AUTHENTICATED_USER, Collections.singletonList(movieId)))
+            .thenReturn(Collections.singletonMap(movieId, new LikeStatus(2, true)));
 
         mockMvc.perform(get("/movie/likestatus/" + movieId)
             .with(user(TEST_AUTHENTICATED_USER)))
             .andExpect(status().isOk())
-            .andExpect(jsonPath("totalLikes").value(movieDto.getTotalLikes()))
+            .andExpect(jsonPath("totalLikes").value(2))
             .andExpect(jsonPath("hasLiked").value(true));
     }
 
@@ -834,14 +842,12 @@ public class MovieControllerTest {
     public void test_likeStatus_unauthorized() throws Exception {
         final UUID movieId = UUID.randomUUID();
 
-        final MovieDto movieDto = new MovieDto();
-        movieDto.setTotalLikes(2);
-
-        when(movieService.getMovie(movieId)).thenReturn(movieDto);
+        when(movieService.getLikeStatuses(null, Collections.singletonList(movieId)))
+            .thenReturn(Collections.singletonMap(movieId, new LikeStatus(2, false)));
 
         mockMvc.perform(get("/movie/likestatus/" + movieId))
             .andExpect(status().isOk())
-            .andExpect(jsonPath("totalLikes").value(movieDto.getTotalLikes()))
+            .andExpect(jsonPath("totalLikes").value(2))
             .andExpect(jsonPath("hasLiked").value(false));
     }
 
@@ -852,8 +858,8 @@ public class MovieControllerTest {
     public void test_likeStatus_notFound() throws Exception {
         final UUID movieId = UUID.randomUUID();
 
-        when(movieService.getMovie(movieId)).thenThrow(new MovieNotFoundException());
-        when(movieService.hasLiked(TEST_AUTHENTICATED_USER, movieId)).thenReturn(true);
+        when(movieService.getLikeStatuses(TEST_AUTHENTICATED_USER, Collections.singletonList(movieId)))
+            .thenReturn(Collections.emptyMap());
 
         mockMvc.perform(get("/movie/likestatus/" + movieId)
             .with(user(TEST_AUTHENTICATED_USER)))
@@ -868,14 +874,71 @@ public class MovieControllerTest {
     public void test_likeStatus_exception() throws Exception {
         final UUID movieId = UUID.randomUUID();
 
-        when(movieService.getMovie(movieId)).thenThrow(new RuntimeException());
-        when(movieService.hasLiked(TEST_AUTHENTICATED_USER, movieId)).thenReturn(true);
+        when(movieService.getLikeStatuses(TEST_AUTHENTICATED_USER, Collections.singletonList(movieId)))
+            .thenThrow(new RuntimeException());
 
         mockMvc.perform(get("/movie/likestatus/" + movieId)
             .with(user(TEST_AUTHENTICATED_USER)))
             .andExpect(status().isInternalServerError());
     }
 
+    /**
+     * Tests if the like status of many movies is returned
+     */
+    @Test
+    public void test_likeStatuses_success() throws Exception {
+        final UUID movieId = UUID.randomUUID();
+        final List<UUID> movieIds = Arrays.asList(movieId, UUID.randomUUID());
+
+        when(movieService.getLikeStatuses(TEST_AUTHENTICATED_USER, movieIds))
+            .thenReturn(Collections.singletonMap(movieId, new LikeStatus(2, true)));
+
+        mockMvc.perform(post("/movie/likestatus")
+            .with(csrf())
+            .with(user(TEST_AUTHENTICATED_USER))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(movieIds)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$['" + movieId + "'].totalLikes").value(2))
+            .andExpect(jsonPath("$['" + movieId + "'].hasLiked").value(true));
+    }
+
+    /**
+     * Tests if the like status of too many movies is not returned
+     */
+    @Test
+    public void test_likeStatuses_tooManyMovies() throws Exception {
+        final List<UUID> movieIds = IntStream.range(0, 101)
+            .mapToObj(i -> UUID.randomUUID())
+            .collect(Collectors.toList());
+
+        mockMvc.perform(post("/movie/likestatus")
+            .with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(movieIds)))
+            .andExpect(status().isBadRequest());
+
+        verify(movieService, never()).getLikeStatuses(any(), any());
+    }
+
+    /**
+     * Tests if the correct result is returned when the operation throws an
+     * exception
+     */
+    @Test
+    public void test_likeStatuses_exception() throws Exception {
+        final List<UUID> movieIds = Arrays.asList(UUID.randomUUID());
+
+        when(movieService.getLikeStatuses(null, movieIds)).thenThrow(new RuntimeException());
+
+        mockMvc.perform(post("/movie/likestatus")
+            .with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(movieIds)))
+            .andExpect(status().isInternalServerError());
+    }
+
     /**
      * Tests if the movie is liked successfully
      */
@@ -883,13 +946,15 @@ public class MovieControllerTest {
     public void test_like_success() throws Exception {
         final UUID movieId = UUID.randomUUID();
 
+        when(movieService.likeMovie(TEST_AUTHENTICATED_USER, movieId)).thenReturn(new LikeStatus(5, true));
+
         mockMvc.perform(post("/movie/like")
             .with(csrf())
             .with(user(TEST_AUTHENTICATED_USER))
             .param("id", movieId.toString()))
-            .andExpect(status().isOk());
-
-        verify(movieService).likeMovie(TEST_AUTHENTICATED_USER, movieId);
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("totalLikes").value(5))
+            .andExpect(jsonPath("hasLiked").value(true));
     }
 
     /**
@@ -942,13 +1007,15 @@ public class MovieControllerTest {
     public void test_unlike_success() throws Exception {
         final UUID movieId = UUID.randomUUID();
 
+        when(movieService.unlikeMovie(TEST_AUTHENTICATED_USER, movieId)).thenReturn(new LikeStatus(4, false));
+
         mockMvc.perform(post("/movie/unlike")
             .with(csrf())
             .with(user(TEST_AUTHENTICATED_USER))
             .param("id", movieId.toString()))
-            .andExpect(status().isOk());
-
-        verify(movieService).unlikeMovie(TEST_AUTHENTICATED_USER, movieId);
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("totalLikes").value(4))
+            .andExpect(jsonPath("hasLiked").value(false));
     }
 
     /**
@@ -2,7 +2,13 @@ package com.printezisn.moviestore.website.movie.services;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -11,25 +17,52 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import com.printezisn.moviestore.common.AsyncRetryHandler;
+import com.printezisn.moviestore.common.RetryBudget;
 import com.printezisn.moviestore.common.dto.movie.MovieDto;
+import com.printezisn.moviestore.common.models.movie.LikeStatus;
+import com.printezisn.moviestore.common.models.movie.LikeStatusQueryModel;
 import com.printezisn.moviestore.common.models.movie.MoviePagedResultModel;
 import com.printezisn.moviestore.common.models.movie.MovieResultModel;
+import com.printezisn.moviestore.website.configuration.async.HedgedCallExecutor;
+import com.printezisn.moviestore.website.configuration.async.ServiceCallExecutor;
+import com.printezisn.moviestore.website.configuration.async.SingleFlightExecutor;
+import com.printezisn.moviestore.website.configuration.cache.MovieETagCache;
+import com.printezisn.moviestore.website.configuration.cache.PageDataCache;
+import com.printezisn.moviestore.website.configuration.properties.HedgingProperties;
+import com.printezisn.moviestore.website.configuration.properties.MovieCacheProperties;
+import com.printezisn.moviestore.website.configuration.properties.PageCacheProperties;
 import com.printezisn.moviestore.website.configuration.properties.ServiceProperties;
 import com.printezisn.moviestore.website.movie.exceptions.MovieNotFoundException;
 import com.printezisn.moviestore.website.movie.exceptions.MoviePersistenceException;
+import com.printezisn.moviestore.website.movie.models.MovieDetailsModel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Contains unit tests for the MovieServiceImpl class
@@ -37,7 +70,7 @@ import com.printezisn.moviestore.website.movie.exceptions.MoviePersistenceExcept
 public class MovieServiceImplTest {
 
     private static final String MOVIE_SERVICE_URL = "http://localhost";
-    private static final String MOVIE_SEARCH_URL = "/movie/search?text=test_text&page=2&sort=rating&asc=true&lang=en";
+    private static final String MOVIE_SEARCH_URL = "/movie/search?text=test_text&cursor=test_cursor&sort=rating&asc=true&lang=en";
     private static final String MOVIE_CREATE_PATH = "/movie/new?lang=en";
     private static final String MOVIE_UPDATE_PATH = "/movie/update?lang=en";
     private static final String MOVIE_DELETE_PATH = "/movie/delete/%s?lang=en";
@@ -45,6 +78,16 @@ public class MovieServiceImplTest {
     private static final String MOVIE_LIKE_PATH = "/movie/like/%s/%s?lang=en";
     private static final String MOVIE_UNLIKE_PATH = "/movie/unlike/%s/%s?lang=en";
     private static final String MOVIE_HAS_LIKED_PATH = "/movie/hasliked/%s/%s?lang=en";
+    private static final String MOVIE_LIKE_STATUS_PATH = "/movie/likestatus?lang=en";
+    private static final int POOL_SIZE = 2;
+    private static final int QUEUE_CAPACITY = 10;
+    private static final long TIMEOUT = 5000;
+    private static final long PAGE_CACHE_SIZE = 100;
+    private static final long MOVIE_CACHE_SIZE = 100;
+    private static final long MOVIE_CACHE_TTL = 60000;
+    private static final long PAGE_CACHE_TTL = 60000;
+    private static final int MAX_RETRIES = 3;
+    private static final int RETRY_DELAY = 10;
 
     @Mock
     private ServiceProperties serviceProperties;
@@ -67,6 +110,11 @@ public class MovieServiceImplTest {
     @Mock
     private ResponseEntity<Boolean> booleanResponse;
 
+    @Mock
+    private ResponseEntity<LikeStatus> likeStatusResponse;
+
+    private ServiceCallExecutor serviceCallExecutor;
+
     private MovieServiceImpl movieService;
 
     /**
@@ -76,13 +124,23 @@ public class MovieServiceImplTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        movieService = spy(new MovieServiceImpl(serviceProperties, restTemplate));
+        serviceCallExecutor = new ServiceCallExecutor(POOL_SIZE, QUEUE_CAPACITY, TIMEOUT);
+        // The page data cache is disabled, unless a test enables it
+        movieService = createMovieService(0);
 
         when(serviceProperties.getMovieServiceUrl()).thenReturn(MOVIE_SERVICE_URL);
 
         LocaleContextHolder.setLocale(Locale.ENGLISH);
     }
 
+    /**
+     * Cleans up after each test
+     */
+    @After
+    public void tearDown() {
+        serviceCallExecutor.shutdown();
+    }
+
     /**
      * Tests the scenario in which movies are searched successfully
      */
@@ -95,7 +153,7 @@ public class MovieServiceImplTest {
         when(searchResponse.getStatusCode()).thenReturn(HttpStatus.OK);
         when(restTemplate.getForEntity(url, MoviePagedResultModel.class)).thenReturn(searchResponse);
 
-        final MoviePagedResultModel result = movieService.searchMovies("test_text", 2, "rating", true);
+        final MoviePagedResultModel result = movieService.searchMovies("test_text", "test_cursor", "rating", true);
 
         assertEquals(expectedResult, result);
     }
@@ -110,7 +168,47 @@ public class MovieServiceImplTest {
         when(restTemplate.getForEntity(url, MoviePagedResultModel.class))
             .thenThrow(new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
 
-        movieService.searchMovies("test_text", 2, "rating", true);
+        movieService.searchMovies("test_text", "test_cursor", "rating", true);
+    }
+
+    /**
+     * Tests if a repeated search is served from the page data cache
+     */
+    @Test
+    public void test_searchMovies_cached() throws Exception {
+        movieService = createMovieService(PAGE_CACHE_TTL);
+        final MoviePagedResultModel expectedResult = mock(MoviePagedResultModel.class);
+        final String url = MOVIE_SERVICE_URL + MOVIE_SEARCH_URL;
+
+        when(searchResponse.getBody()).thenReturn(expectedResult);
+        when(restTemplate.getForEntity(url, MoviePagedResultModel.class)).thenReturn(searchResponse);
+
+        movieService.searchMovies("test_text", "test_cursor", "rating", true);
+        final MoviePagedResultModel result = movieService.searchMovies("test_text", "test_cursor", "rating", true);
+
+        assertEquals(expectedResult, result);
+        verify(restTemplate, times(1)).getForEntity(url, MoviePagedResultModel.class);
+    }
+
+    /**
+     * Tests if the cached searches are evicted when a movie is created
+     */
+    @Test
+    public void test_searchMovies_evictedOnCreate() throws Exception {
+        movieService = createMovieService(PAGE_CACHE_TTL);
+        final MovieDto movieDto = new MovieDto();
+        final String url = MOVIE_SERVICE_URL + MOVIE_SEARCH_URL;
+
+        when(searchResponse.getBody()).thenReturn(mock(MoviePagedResultModel.class));
+        when(restTemplate.getForEntity(url, MoviePagedResultModel.class)).thenReturn(searchResponse);
+        when(restTemplate.postForEntity(MOVIE_SERVICE_URL + MOVIE_CREATE_PATH, movieDto, MovieResultModel.class))
+            .thenReturn(movieResultModelResponse);
+
+        movieService.searchMovies("test_text", "test_cursor", "rating", true);
+        movieService.createMovie(movieDto);
+        movieService.searchMovies("test_text", "test_cursor", "rating", true);
+
+        verify(restTemplate, times(2)).getForEntity(url, MoviePagedResultModel.class);
     }
 
     /**
@@ -159,6 +257,7 @@ public class MovieServiceImplTest {
 
         when(restTemplate.getForEntity(url, MovieDto.class)).thenReturn(movieDtoResponse);
         when(movieDtoResponse.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(movieDtoResponse.getHeaders()).thenReturn(new HttpHeaders());
         when(movieDtoResponse.getBody()).thenReturn(expectedResult);
 
         final MovieDto result = movieService.getMovie(id);
@@ -166,6 +265,53 @@ public class MovieServiceImplTest {
         assertEquals(expectedResult, result);
     }
 
+    /**
+     * Tests the scenario in which a cached movie hasn't changed
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_getMovie_notModified() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final MovieDto expectedResult = new MovieDto();
+        final String url = MOVIE_SERVICE_URL + String.format(MOVIE_GET_PATH, id);
+
+        when(restTemplate.getForEntity(url, MovieDto.class))
+            .thenReturn(ResponseEntity.ok().eTag("rev1").body(expectedResult));
+        when(restTemplate.exchange(eq(url), eq(HttpMethod.GET), any(), eq(MovieDto.class)))
+            .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("rev1").build());
+
+        movieService.getMovie(id);
+        final MovieDto result = movieService.getMovie(id);
+
+        assertSame(expectedResult, result);
+
+        final ArgumentCaptor<HttpEntity<Void>> requestCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).getForEntity(url, MovieDto.class);
+        verify(restTemplate).exchange(eq(url), eq(HttpMethod.GET), requestCaptor.capture(), eq(MovieDto.class));
+        assertEquals(Arrays.asList("\"rev1\""), requestCaptor.getValue().getHeaders().getIfNoneMatch());
+    }
+
+    /**
+     * Tests the scenario in which a cached movie has changed
+     */
+    @Test
+    public void test_getMovie_modified() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final MovieDto changedMovie = new MovieDto();
+        changedMovie.setTitle("Changed title");
+        final String url = MOVIE_SERVICE_URL + String.format(MOVIE_GET_PATH, id);
+
+        when(restTemplate.getForEntity(url, MovieDto.class))
+            .thenReturn(ResponseEntity.ok().eTag("rev1").body(new MovieDto()));
+        when(restTemplate.exchange(eq(url), eq(HttpMethod.GET), any(), eq(MovieDto.class)))
+            .thenReturn(ResponseEntity.ok().eTag("rev2").body(changedMovie));
+
+        movieService.getMovie(id);
+        final MovieDto result = movieService.getMovie(id);
+
+        assertSame(changedMovie, result);
+    }
+
     /**
      * Tests the scenario in which the movie is not found
      */
@@ -213,6 +359,34 @@ public class MovieServiceImplTest {
         assertEquals(expectedResult, result);
     }
 
+    /**
+     * Tests if the cached movie is evicted when it is updated
+     */
+    @Test
+    public void test_getMovie_evictedOnUpdate() throws Exception {
+        movieService = createMovieService(PAGE_CACHE_TTL);
+        final UUID id = UUID.randomUUID();
+        final MovieDto movieDto = new MovieDto();
+        movieDto.setId(id);
+        final String url = MOVIE_SERVICE_URL + String.format(MOVIE_GET_PATH, id);
+
+        when(restTemplate.getForEntity(url, MovieDto.class)).thenReturn(movieDtoResponse);
+        when(movieDtoResponse.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(movieDtoResponse.getHeaders()).thenReturn(new HttpHeaders());
+        when(movieDtoResponse.getBody()).thenReturn(movieDto);
+        when(movieResultModelResponse.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(restTemplate.postForEntity(MOVIE_SERVICE_URL + MOVIE_UPDATE_PATH, movieDto, MovieResultModel.class))
+            .thenReturn(movieResultModelResponse);
+
+        movieService.getMovie(id);
+        movieService.getMovie(id);
+        verify(restTemplate, times(1)).getForEntity(url, MovieDto.class);
+
+        movieService.updateMovie(movieDto);
+        movieService.getMovie(id);
+        verify(restTemplate, times(2)).getForEntity(url, MovieDto.class);
+    }
+
     /**
      * Tests the scenario in which the movie update throws a conflict error first
      */
@@ -236,6 +410,29 @@ public class MovieServiceImplTest {
         verify(restTemplate, times(2)).postForEntity(url, movieDto, MovieResultModel.class);
     }
 
+    /**
+     * Tests if the movie update fails when it keeps throwing conflict errors
+     * after all the retries
+     */
+    @Test
+    public void test_updateMovie_conflictRetriesExhausted() throws Exception {
+        final MovieDto movieDto = new MovieDto();
+
+        final String url = MOVIE_SERVICE_URL + MOVIE_UPDATE_PATH;
+
+        when(movieResultModelResponse.getStatusCode()).thenReturn(HttpStatus.CONFLICT);
+        when(restTemplate.postForEntity(url, movieDto, MovieResultModel.class))
+            .thenReturn(movieResultModelResponse);
+
+        try {
+            movieService.updateMovie(movieDto);
+            fail("The update didn't fail");
+        }
+        catch (final MoviePersistenceException ex) {
+            verify(restTemplate, times(MAX_RETRIES)).postForEntity(url, movieDto, MovieResultModel.class);
+        }
+    }
+
     /**
      * Tests the scenario in which the movie update throws an exception
      */
@@ -399,32 +596,15 @@ public class MovieServiceImplTest {
 
         final String url = MOVIE_SERVICE_URL + String.format(MOVIE_LIKE_PATH, movieId, account);
 
-        when(voidResponse.getStatusCode()).thenReturn(HttpStatus.OK);
-        when(restTemplate.getForEntity(url, Void.class)).thenReturn(voidResponse);
-
-        movieService.likeMovie(account, movieId);
-
-        verify(restTemplate).getForEntity(url, Void.class);
-    }
-
-    /**
-     * Tests the scenario in which the movie like throws a conflict error first
-     */
-    @Test
-    public void test_likeMovie_conflict() throws Exception {
-        final String account = "test_account";
-        final UUID movieId = UUID.randomUUID();
-
-        final String url = MOVIE_SERVICE_URL + String.format(MOVIE_LIKE_PATH, movieId, account);
+        final LikeStatus likeStatus = new LikeStatus(5, true);
 
-        when(voidResponse.getStatusCode())
-            .thenReturn(HttpStatus.CONFLICT)
-            .thenReturn(HttpStatus.OK);
-        when(restTemplate.getForEntity(url, Void.class)).thenReturn(voidResponse);
+        when(likeStatusResponse.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(likeStatusResponse.getBody()).thenReturn(likeStatus);
+        when(restTemplate.getForEntity(url, LikeStatus.class)).thenReturn(likeStatusResponse);
 
-        movieService.likeMovie(account, movieId);
+        final LikeStatus result = movieService.likeMovie(account, movieId);
 
-        verify(restTemplate, times(2)).getForEntity(url, Void.class);
+        assertEquals(likeStatus, result);
     }
 
     /**
@@ -437,7 +617,7 @@ public class MovieServiceImplTest {
 
         final String url = MOVIE_SERVICE_URL + String.format(MOVIE_LIKE_PATH, movieId, account);
 
-        when(restTemplate.getForEntity(url, Void.class)).thenThrow(new RuntimeException());
+        when(restTemplate.getForEntity(url, LikeStatus.class)).thenThrow(new RuntimeException());
 
         movieService.likeMovie(account, movieId);
     }
@@ -452,48 +632,65 @@ public class MovieServiceImplTest {
 
         final String url = MOVIE_SERVICE_URL + String.format(MOVIE_LIKE_PATH, movieId, account);
 
-        when(voidResponse.getStatusCode()).thenReturn(HttpStatus.NOT_FOUND);
-        when(restTemplate.getForEntity(url, Void.class)).thenReturn(voidResponse);
+        when(likeStatusResponse.getStatusCode()).thenReturn(HttpStatus.NOT_FOUND);
+        when(restTemplate.getForEntity(url, LikeStatus.class)).thenReturn(likeStatusResponse);
 
         movieService.likeMovie(account, movieId);
     }
 
     /**
-     * Tests the scenario in which the movie is unliked successfully
+     * Tests if a like evicts the cached movie but keeps the cached searches
      */
     @Test
-    public void test_unlikeMovie_success() throws Exception {
+    public void test_likeMovie_evictsMovieOnly() throws Exception {
+        movieService = createMovieService(PAGE_CACHE_TTL);
         final String account = "test_account";
         final UUID movieId = UUID.randomUUID();
+        final MovieDto movieDto = new MovieDto();
+        movieDto.setId(movieId);
+        final String getUrl = MOVIE_SERVICE_URL + String.format(MOVIE_GET_PATH, movieId);
+        final String searchUrl = MOVIE_SERVICE_URL + MOVIE_SEARCH_URL;
+        final String likeUrl = MOVIE_SERVICE_URL + String.format(MOVIE_LIKE_PATH, movieId, account);
 
-        final String url = MOVIE_SERVICE_URL + String.format(MOVIE_UNLIKE_PATH, movieId, account);
-
-        when(voidResponse.getStatusCode()).thenReturn(HttpStatus.OK);
-        when(restTemplate.getForEntity(url, Void.class)).thenReturn(voidResponse);
-
-        movieService.unlikeMovie(account, movieId);
+        when(restTemplate.getForEntity(getUrl, MovieDto.class)).thenReturn(movieDtoResponse);
+        when(movieDtoResponse.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(movieDtoResponse.getHeaders()).thenReturn(new HttpHeaders());
+        when(movieDtoResponse.getBody()).thenReturn(movieDto);
+        when(searchResponse.getBody()).thenReturn(mock(MoviePagedResultModel.class));
+        when(restTemplate.getForEntity(searchUrl, MoviePagedResultModel.class)).thenReturn(searchResponse);
+        when(likeStatusResponse.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(likeStatusResponse.getBody()).thenReturn(new LikeStatus(5, true));
+        when(restTemplate.getForEntity(likeUrl, LikeStatus.class)).thenReturn(likeStatusResponse);
+
+        movieService.getMovie(movieId);
+        movieService.searchMovies("test_text", "test_cursor", "rating", true);
+        movieService.likeMovie(account, movieId);
+        movieService.getMovie(movieId);
+        movieService.searchMovies("test_text", "test_cursor", "rating", true);
 
-        verify(restTemplate).getForEntity(url, Void.class);
+        verify(restTemplate, times(2)).getForEntity(getUrl, MovieDto.class);
+        verify(restTemplate, times(1)).getForEntity(searchUrl, MoviePagedResultModel.class);
     }
 
     /**
-     * Tests the scenario in which the movie unlike throws a conflict error first
+     * Tests the scenario in which the movie is unliked successfully
      */
     @Test
-    public void test_unlikeMovie_conflict() throws Exception {
+    public void test_unlikeMovie_success() throws Exception {
         final String account = "test_account";
         final UUID movieId = UUID.randomUUID();
 
         final String url = MOVIE_SERVICE_URL + String.format(MOVIE_UNLIKE_PATH, movieId, account);
 
-        when(voidResponse.getStatusCode())
-            .thenReturn(HttpStatus.CONFLICT)
-            .thenReturn(HttpStatus.OK);
-        when(restTemplate.getForEntity(url, Void.class)).thenReturn(voidResponse);
+        final LikeStatus likeStatus = new LikeStatus(4, false);
 
-        movieService.unlikeMovie(account, movieId);
+        when(likeStatusResponse.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(likeStatusResponse.getBody()).thenReturn(likeStatus);
+        when(restTemplate.getForEntity(url, LikeStatus.class)).thenReturn(likeStatusResponse);
 
-        verify(restTemplate, times(2)).getForEntity(url, Void.class);
+        final LikeStatus result = movieService.unlikeMovie(account, movieId);
+
+        assertEquals(likeStatus, result);
     }
 
     /**
@@ -506,7 +703,7 @@ public class MovieServiceImplTest {
 
         final String url = MOVIE_SERVICE_URL + String.format(MOVIE_UNLIKE_PATH, movieId, account);
 
-        when(restTemplate.getForEntity(url, Void.class)).thenThrow(new RuntimeException());
+        when(restTemplate.getForEntity(url, LikeStatus.class)).thenThrow(new RuntimeException());
 
         movieService.unlikeMovie(account, movieId);
     }
@@ -521,8 +718,8 @@ public class MovieServiceImplTest {
 
         final String url = MOVIE_SERVICE_URL + String.format(MOVIE_UNLIKE_PATH, movieId, account);
 
-        when(voidResponse.getStatusCode()).thenReturn(HttpStatus.NOT_FOUND);
-        when(restTemplate.getForEntity(url, Void.class)).thenReturn(voidResponse);
+        when(likeStatusResponse.getStatusCode()).thenReturn(HttpStatus.NOT_FOUND);
+        when(restTemplate.getForEntity(url, LikeStatus.class)).thenReturn(likeStatusResponse);
 
         movieService.unlikeMovie(account, movieId);
     }
@@ -578,4 +775,146 @@ public class MovieServiceImplTest {
 
         movieService.hasLiked(account, movieId);
     }
+
+    /**
+     * Tests if the like status of many movies is fetched with a single call
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_getLikeStatuses_success() {
+        final String account = "test_account";
+        final UUID movieId = UUID.randomUUID();
+        final Map<UUID, LikeStatus> likeStatuses = Collections.singletonMap(movieId, new LikeStatus(2, true));
+
+        final ArgumentCaptor<HttpEntity<LikeStatusQueryModel>> requestCaptor = ArgumentCaptor
+            .forClass(HttpEntity.class);
+        when(restTemplate.exchange(eq(MOVIE_SERVICE_URL + MOVIE_LIKE_STATUS_PATH), eq(HttpMethod.POST),
+            requestCaptor.capture(), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(likeStatuses));
+
+        final Map<UUID, LikeStatus> result = movieService.getLikeStatuses(account, Arrays.asList(movieId));
+
+        assertEquals(likeStatuses, result);
+        assertEquals(Arrays.asList(movieId), requestCaptor.getValue().getBody().getMovieIds());
+        assertEquals(account, requestCaptor.getValue().getBody().getAccount());
+    }
+
+    /**
+     * Tests the scenario in which the operation throws an exception
+     */
+    @Test(expected = MoviePersistenceException.class)
+    @SuppressWarnings("unchecked")
+    public void test_getLikeStatuses_exception() {
+        when(restTemplate.exchange(eq(MOVIE_SERVICE_URL + MOVIE_LIKE_STATUS_PATH), eq(HttpMethod.POST),
+            any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenThrow(new RuntimeException());
+
+        movieService.getLikeStatuses("test_account", Arrays.asList(UUID.randomUUID()));
+    }
+
+    /**
+     * Tests if the movie and its like status are fetched concurrently
+     */
+    @Test
+    public void test_getMovieDetails_success() throws Exception {
+        final String account = "test_account";
+        final UUID movieId = UUID.randomUUID();
+        final MovieDto movieDto = new MovieDto();
+        final LikeStatus likeStatus = new LikeStatus(2, true);
+
+        // Each call waits for the other one to start, so the calls only complete if
+        // they run concurrently
+        final CountDownLatch latch = new CountDownLatch(2);
+        doAnswer(invocation -> awaitLatch(latch, movieDto)).when(movieService).getMovie(movieId);
+        doAnswer(invocation -> awaitLatch(latch, Collections.singletonMap(movieId, likeStatus)))
+            .when(movieService).getLikeStatuses(account, Collections.singletonList(movieId));
+
+        final MovieDetailsModel result = movieService.getMovieDetails(account, movieId);
+
+        assertSame(movieDto, result.getMovie());
+        assertEquals(likeStatus, result.getLikeStatus());
+    }
+
+    /**
+     * Tests the scenario in which the movie is not found
+     */
+    @Test(expected = MovieNotFoundException.class)
+    public void test_getMovieDetails_notFound() throws Exception {
+        final UUID movieId = UUID.randomUUID();
+
+        doThrow(new MovieNotFoundException()).when(movieService).getMovie(movieId);
+        doReturn(Collections.emptyMap()).when(movieService)
+            .getLikeStatuses("test_account", Collections.singletonList(movieId));
+
+        movieService.getMovieDetails("test_account", movieId);
+    }
+
+    /**
+     * Tests the scenario in which the like status can't be read
+     */
+    @Test
+    public void test_getMovieDetails_likeStatusException() throws Exception {
+        final UUID movieId = UUID.randomUUID();
+        final MovieDto movieDto = new MovieDto();
+
+        doReturn(movieDto).when(movieService).getMovie(movieId);
+        doThrow(new MoviePersistenceException("error", new RuntimeException())).when(movieService)
+            .getLikeStatuses("test_account", Collections.singletonList(movieId));
+
+        final MovieDetailsModel result = movieService.getMovieDetails("test_account", movieId);
+
+        assertSame(movieDto, result.getMovie());
+        assertNull(result.getLikeStatus());
+    }
+
+    /**
+     * Creates the movie service
+     * 
+     * @param pageCacheTtl
+     *            The soft and hard TTL of the page data cache, or 0 to disable it
+     * @return The movie service
+     */
+    private MovieServiceImpl createMovieService(final long pageCacheTtl) {
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final PageCacheProperties pageCacheProperties = new PageCacheProperties();
+        pageCacheProperties.setMaximumSize(PAGE_CACHE_SIZE);
+        pageCacheProperties.setSoftTtl(pageCacheTtl);
+        pageCacheProperties.setHardTtl(pageCacheTtl);
+        pageCacheProperties.setRefreshPoolSize(POOL_SIZE);
+        pageCacheProperties.setRefreshQueueCapacity(QUEUE_CAPACITY);
+        final MovieCacheProperties movieCacheProperties = new MovieCacheProperties();
+        movieCacheProperties.setMaximumSize(MOVIE_CACHE_SIZE);
+        movieCacheProperties.setTtl(MOVIE_CACHE_TTL);
+        final HedgingProperties hedgingProperties = new HedgingProperties();
+        hedgingProperties.setPoolSize(POOL_SIZE);
+        hedgingProperties.setQueueCapacity(QUEUE_CAPACITY);
+
+        return spy(new MovieServiceImpl(serviceProperties, restTemplate, serviceCallExecutor,
+            new HedgedCallExecutor(hedgingProperties, meterRegistry, TIMEOUT),
+            new SingleFlightExecutor(meterRegistry), new PageDataCache(pageCacheProperties, TIMEOUT),
+            new MovieETagCache(movieCacheProperties),
+            AsyncRetryHandler.builder()
+                .maxRetries(MAX_RETRIES)
+                .delay(RETRY_DELAY)
+                .retryBudget(new RetryBudget(0, MAX_RETRIES, 10000))
+                .build()));
+    }
+
+    /**
+     * Counts down a latch and waits until it reaches zero
+     * 
+     * @param latch
+     *            The latch
+     * @param result
+     *            The result to return
+     * @return The result
+     */
+    private static <T> T awaitLatch(final CountDownLatch latch, final T result) throws InterruptedException {
+        latch.countDown();
+        if (!latch.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The calls didn't run concurrently");
+        }
+
+        return result;
+    }
 }